@@ -20,6 +20,8 @@ import org.apache.commons.math3.exception.MathArithmeticException;
 import org.apache.commons.math3.linear.ArrayRealVector;
 import org.eclipse.chemclipse.chromatogram.msd.comparison.massspectrum.AbstractMassSpectrumComparator;
 import org.eclipse.chemclipse.chromatogram.msd.comparison.massspectrum.IMassSpectrumComparator;
+import org.eclipse.chemclipse.chromatogram.msd.comparison.math.MassSpectrumVector;
+import org.eclipse.chemclipse.chromatogram.msd.comparison.math.MassSpectrumVectorMatch;
 import org.eclipse.chemclipse.model.identifier.IComparisonResult;
 import org.eclipse.chemclipse.model.identifier.LazyComparisonResult;
 import org.eclipse.chemclipse.model.identifier.MatchConstraints;
@@ -34,24 +36,65 @@ public class CosineMassSpectrumComparator extends AbstractMassSpectrumComparator
 
 		IProcessingInfo<IComparisonResult> processingInfo = super.validate(unknown, reference);
 		if(!processingInfo.hasErrorMessages()) {
-			/*
-			 * Get the match and reverse match factor.
-			 * Internally it's normalized to 1, but a percentage value is used by the MS methods.
-			 */
-			IExtractedIonSignal unknownSignal = unknown.getExtractedIonSignal();
-			IExtractedIonSignal referenceSignal = reference.getExtractedIonSignal();
-			IComparisonResult massSpectrumComparisonResult = new LazyComparisonResult( //
-					() -> calculateCosinePhi(unknownSignal, referenceSignal), //
-					() -> calculateCosinePhi(referenceSignal, unknownSignal), //
-					() -> calculateCosinePhiDirect(unknownSignal, referenceSignal), //
-					() -> calculateCosinePhiDirect(referenceSignal, unknownSignal), //
-					matchConstraints //
-			);
-			processingInfo.setProcessingResult(massSpectrumComparisonResult);
+			processingInfo.setProcessingResult(calculate(getMassSpectrumVector(unknown), getMassSpectrumVector(reference), matchConstraints));
 		}
 		return processingInfo;
 	}
 
+	@Override
+	public IProcessingInfo<IComparisonResult> compare(IScanMSD unknown, MassSpectrumVector unknownVector, IScanMSD reference, MassSpectrumVector referenceVector, MatchConstraints matchConstraints) {
+
+		IProcessingInfo<IComparisonResult> processingInfo = super.validate(unknown, reference);
+		if(!processingInfo.hasErrorMessages()) {
+			processingInfo.setProcessingResult(calculate(unknownVector, referenceVector, matchConstraints));
+		}
+		return processingInfo;
+	}
+
+	@Override
+	public MassSpectrumVector getMassSpectrumVector(IScanMSD scan) {
+
+		return new MassSpectrumVector(scan.getExtractedIonSignal());
+	}
+
+	/**
+	 * The cosine values of the forward, reverse and direct matches depend on partial sums
+	 * that are calculated in a single pass. The factors are still evaluated lazily.
+	 */
+	private IComparisonResult calculate(MassSpectrumVector unknownVector, MassSpectrumVector referenceVector, MatchConstraints matchConstraints) {
+
+		/*
+		 * Get the match and reverse match factor.
+		 * Internally it's normalized to 1, but a percentage value is used by the MS methods.
+		 */
+		MassSpectrumVectorMatch vectorMatch = new MassSpectrumVectorMatch(unknownVector, referenceVector);
+		return new LazyComparisonResult( //
+				() -> getMatchFactor(vectorMatch), //
+				() -> getReverseMatchFactor(vectorMatch), //
+				() -> getPercentage(vectorMatch.getCosineDirect()), //
+				() -> getPercentage(vectorMatch.getReverseCosineDirect()), //
+				matchConstraints //
+		);
+	}
+
+	protected double getMatchFactor(MassSpectrumVectorMatch vectorMatch) {
+
+		return getPercentage(vectorMatch.getCosine());
+	}
+
+	protected double getReverseMatchFactor(MassSpectrumVectorMatch vectorMatch) {
+
+		return getPercentage(vectorMatch.getReverseCosine());
+	}
+
+	/**
+	 * The cosine is NaN if one of the vectors has no abundance.
+	 */
+	protected double getPercentage(double cosine) {
+
+		return Double.isNaN(cosine) ? 0 : cosine * 100;
+	}
+
 	/**
 	 * Calculates the distance of both mass spectra.
 	 * 1 : best match
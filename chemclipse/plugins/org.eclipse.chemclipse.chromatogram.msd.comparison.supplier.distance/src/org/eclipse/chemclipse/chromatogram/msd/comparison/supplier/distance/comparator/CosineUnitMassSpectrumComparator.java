@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2019 Lablicate GmbH.
+ * Copyright (c) 2019, 2020 Lablicate GmbH.
  * 
  * All rights reserved.
  * This program and the accompanying materials are made available under the
@@ -12,10 +12,23 @@
 package org.eclipse.chemclipse.chromatogram.msd.comparison.supplier.distance.comparator;
 
 import org.eclipse.chemclipse.chromatogram.msd.comparison.massspectrum.IMassSpectrumComparator;
+import org.eclipse.chemclipse.chromatogram.msd.comparison.math.MassSpectrumVectorMatch;
 import org.eclipse.chemclipse.msd.model.xic.IExtractedIonSignal;
 
 public class CosineUnitMassSpectrumComparator extends CosineMassSpectrumComparator implements IMassSpectrumComparator {
 
+	@Override
+	protected double getMatchFactor(MassSpectrumVectorMatch vectorMatch) {
+
+		return getPercentage(vectorMatch.getBinaryCosine());
+	}
+
+	@Override
+	protected double getReverseMatchFactor(MassSpectrumVectorMatch vectorMatch) {
+
+		return getPercentage(vectorMatch.getReverseBinaryCosine());
+	}
+
 	@Override
 	protected double getVectorValue(IExtractedIonSignal signal, int i) {
 
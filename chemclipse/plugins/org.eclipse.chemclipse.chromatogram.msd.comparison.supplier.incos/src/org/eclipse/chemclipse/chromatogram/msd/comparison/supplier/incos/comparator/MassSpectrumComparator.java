@@ -13,8 +13,8 @@ package org.eclipse.chemclipse.chromatogram.msd.comparison.supplier.incos.compar
 
 import org.eclipse.chemclipse.chromatogram.msd.comparison.massspectrum.AbstractMassSpectrumComparator;
 import org.eclipse.chemclipse.chromatogram.msd.comparison.massspectrum.IMassSpectrumComparator;
-import org.eclipse.chemclipse.chromatogram.msd.comparison.math.GeometricDistanceCalculator;
-import org.eclipse.chemclipse.chromatogram.msd.comparison.math.IMatchCalculator;
+import org.eclipse.chemclipse.chromatogram.msd.comparison.math.MassSpectrumVector;
+import org.eclipse.chemclipse.chromatogram.msd.comparison.math.MassSpectrumVectorMatch;
 import org.eclipse.chemclipse.logging.core.Logger;
 import org.eclipse.chemclipse.model.exceptions.AbundanceLimitExceededException;
 import org.eclipse.chemclipse.model.identifier.ComparisonResult;
@@ -39,35 +39,64 @@ public class MassSpectrumComparator extends AbstractMassSpectrumComparator imple
 	private static final Logger logger = Logger.getLogger(MassSpectrumComparator.class);
 	private static final int NORMALIZATION_FACTOR = 100;
 
-	@SuppressWarnings({"unchecked", "rawtypes"})
 	@Override
-	public IProcessingInfo compare(IScanMSD unknown, IScanMSD reference, MatchConstraints matchConstraints) {
+	public IProcessingInfo<IComparisonResult> compare(IScanMSD unknown, IScanMSD reference, MatchConstraints matchConstraints) {
 
-		IProcessingInfo processingInfo = super.validate(unknown, reference);
+		IProcessingInfo<IComparisonResult> processingInfo = super.validate(unknown, reference);
 		if(!processingInfo.hasErrorMessages()) {
-			IMatchCalculator geometricDistanceCalculator = new GeometricDistanceCalculator();
-			IScanMSD unknownAdjusted = adjustMassSpectrum(unknown);
-			IScanMSD referenceAdjusted = adjustMassSpectrum(reference);
-			/*
-			 * Match Factor, Reverse Match Factor
-			 * Internally the match is normalized to 1, but a percentage value is used normally.
-			 */
-			IExtractedIonSignal signalU = unknownAdjusted.getExtractedIonSignal();
-			IExtractedIonSignal signalR = referenceAdjusted.getExtractedIonSignal();
-			//
-			float matchFactor = geometricDistanceCalculator.calculate(unknownAdjusted, referenceAdjusted, signalU.getIonRange()) * 100;
-			float reverseMatchFactor = geometricDistanceCalculator.calculate(referenceAdjusted, unknownAdjusted, signalR.getIonRange()) * 100;
-			float matchFactorDirect = geometricDistanceCalculator.calculate(unknownAdjusted, referenceAdjusted) * 100;
-			float reverseMatchFactorDirect = geometricDistanceCalculator.calculate(referenceAdjusted, unknownAdjusted) * 100;
-			/*
-			 * Result
-			 */
-			IComparisonResult massSpectrumComparisonResult = new ComparisonResult(matchFactor, reverseMatchFactor, matchFactorDirect, reverseMatchFactorDirect);
-			processingInfo.setProcessingResult(massSpectrumComparisonResult);
+			processingInfo.setProcessingResult(calculate(getMassSpectrumVector(unknown), getMassSpectrumVector(reference)));
 		}
 		return processingInfo;
 	}
 
+	@Override
+	public IProcessingInfo<IComparisonResult> compare(IScanMSD unknown, MassSpectrumVector unknownVector, IScanMSD reference, MassSpectrumVector referenceVector, MatchConstraints matchConstraints) {
+
+		IProcessingInfo<IComparisonResult> processingInfo = super.validate(unknown, reference);
+		if(!processingInfo.hasErrorMessages()) {
+			processingInfo.setProcessingResult(calculate(unknownVector, referenceVector));
+		}
+		return processingInfo;
+	}
+
+	/**
+	 * The vector contains the adjusted abundance values.
+	 */
+	@Override
+	public MassSpectrumVector getMassSpectrumVector(IScanMSD scan) {
+
+		return new MassSpectrumVector(adjustMassSpectrum(scan).getExtractedIonSignal());
+	}
+
+	private IComparisonResult calculate(MassSpectrumVector unknownVector, MassSpectrumVector referenceVector) {
+
+		/*
+		 * Match Factor, Reverse Match Factor
+		 * Internally the match is normalized to 1, but a percentage value is used normally.
+		 */
+		MassSpectrumVectorMatch vectorMatch = new MassSpectrumVectorMatch(unknownVector, referenceVector);
+		float matchFactor = calculateGeometricDistance(vectorMatch.getSquaredDistance()) * 100;
+		float reverseMatchFactor = calculateGeometricDistance(vectorMatch.getReverseSquaredDistance()) * 100;
+		float matchFactorDirect = calculateGeometricDistance(vectorMatch.getSquaredDistanceDirect()) * 100;
+		float reverseMatchFactorDirect = calculateGeometricDistance(vectorMatch.getReverseSquaredDistanceDirect()) * 100;
+		/*
+		 * Result
+		 */
+		return new ComparisonResult(matchFactor, reverseMatchFactor, matchFactorDirect, reverseMatchFactorDirect);
+	}
+
+	/**
+	 * See GeometricDistanceCalculator: 1 / (1 + SUM (ui/|u| - ri/|r|)^2)
+	 * If at least one mass spectrum has no match, 0 is returned.
+	 */
+	private float calculateGeometricDistance(double squaredDistance) {
+
+		if(Double.isNaN(squaredDistance)) {
+			return 0;
+		}
+		return (float)Math.pow(squaredDistance + 1, -1);
+	}
+
 	/**
 	 * This method will calculate new abundance values in the following manner:<br/>
 	 * For each ion the new abundance will be set to:<br/>
@@ -12,6 +12,7 @@
  *******************************************************************************/
 package org.eclipse.chemclipse.chromatogram.msd.comparison.massspectrum;
 
+import org.eclipse.chemclipse.chromatogram.msd.comparison.math.MassSpectrumVector;
 import org.eclipse.chemclipse.model.identifier.IComparisonResult;
 import org.eclipse.chemclipse.model.identifier.MatchConstraints;
 import org.eclipse.chemclipse.msd.model.core.IScanMSD;
@@ -36,6 +37,36 @@ public interface IMassSpectrumComparator {
 	 */
 	IProcessingInfo<IComparisonResult> compare(IScanMSD unknown, IScanMSD reference, MatchConstraints matchConstraints);
 
+	/**
+	 * Returns the vector of the given scan, used by the comparator.<br/>
+	 * The vector can be calculated once, e.g. for the references of a library,
+	 * and passed to {@link #compare(IScanMSD, MassSpectrumVector, IScanMSD, MassSpectrumVector, MatchConstraints)}.<br/>
+	 * null is returned if the comparator doesn't support vectors.
+	 *
+	 * @param scan
+	 * @return {@link MassSpectrumVector}
+	 */
+	default MassSpectrumVector getMassSpectrumVector(IScanMSD scan) {
+
+		return null;
+	}
+
+	/**
+	 * Compares both mass spectra using the vectors created by {@link #getMassSpectrumVector(IScanMSD)}.
+	 * The result is the same as for {@link #compare(IScanMSD, IScanMSD, MatchConstraints)}.
+	 *
+	 * @param unknown
+	 * @param unknownVector
+	 * @param reference
+	 * @param referenceVector
+	 * @param matchConstraints
+	 * @return {@link IProcessingInfo}
+	 */
+	default IProcessingInfo<IComparisonResult> compare(IScanMSD unknown, MassSpectrumVector unknownVector, IScanMSD reference, MassSpectrumVector referenceVector, MatchConstraints matchConstraints) {
+
+		return compare(unknown, reference, matchConstraints);
+	}
+
 	/**
 	 * Validates the unknown, reference mass spectrum and the ion range.
 	 *
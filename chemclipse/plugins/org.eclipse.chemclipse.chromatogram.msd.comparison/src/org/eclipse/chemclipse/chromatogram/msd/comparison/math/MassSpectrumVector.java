@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Lablicate GmbH.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Dr. Philip Wenig - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.chemclipse.chromatogram.msd.comparison.math;
+
+import org.eclipse.chemclipse.msd.model.xic.IExtractedIonSignal;
+
+/**
+ * Compact form of a nominal mass spectrum. Only the ions with an abundance
+ * greater than zero are stored, sorted ascending by their nominal m/z value.
+ * The vector is immutable and can be calculated once, e.g. for each reference
+ * of a library, and shared between threads.
+ */
+public class MassSpectrumVector {
+
+	private final int startIon;
+	private final int stopIon;
+	private final int[] ions;
+	private final double[] abundances;
+	private final double sumSquaredAbundances;
+
+	/**
+	 * Creates the vector from the extracted ion signal.
+	 * The ion range of the signal is kept, even if the ions at its borders have no abundance.
+	 *
+	 * @param extractedIonSignal
+	 */
+	public MassSpectrumVector(IExtractedIonSignal extractedIonSignal) {
+		startIon = extractedIonSignal.getStartIon();
+		stopIon = extractedIonSignal.getStopIon();
+		/*
+		 * Count the ions first to allocate exact arrays.
+		 */
+		int size = 0;
+		for(int ion = startIon; ion <= stopIon; ion++) {
+			if(extractedIonSignal.getAbundance(ion) > 0.0f) {
+				size++;
+			}
+		}
+		//
+		ions = new int[size];
+		abundances = new double[size];
+		double sum = 0.0d;
+		int index = 0;
+		for(int ion = startIon; ion <= stopIon; ion++) {
+			float abundance = extractedIonSignal.getAbundance(ion);
+			if(abundance > 0.0f) {
+				ions[index] = ion;
+				abundances[index] = abundance;
+				sum += abundances[index] * abundances[index];
+				index++;
+			}
+		}
+		sumSquaredAbundances = sum;
+	}
+
+	public int getStartIon() {
+
+		return startIon;
+	}
+
+	public int getStopIon() {
+
+		return stopIon;
+	}
+
+	/**
+	 * Returns the number of ions with an abundance greater than zero.
+	 *
+	 * @return int
+	 */
+	public int size() {
+
+		return ions.length;
+	}
+
+	public int getIon(int index) {
+
+		return ions[index];
+	}
+
+	public double getAbundance(int index) {
+
+		return abundances[index];
+	}
+
+	/**
+	 * SUM ui^2
+	 *
+	 * @return double
+	 */
+	public double getSumSquaredAbundances() {
+
+		return sumSquaredAbundances;
+	}
+}
@@ -0,0 +1,235 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Lablicate GmbH.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Dr. Philip Wenig - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.chemclipse.chromatogram.msd.comparison.math;
+
+/**
+ * Compares two mass spectrum vectors.<br/>
+ * The dot product and the partial sums of the squared abundances needed by the
+ * forward, reverse and direct matches are calculated in one merge pass over both
+ * sorted vectors. No arrays are allocated.<br/>
+ * <br/>
+ * Forward: the ion range of the unknown is used.<br/>
+ * Reverse: the ion range of the reference is used.<br/>
+ * Direct: the ions of the unknown (forward) or of the reference (reverse) are used.<br/>
+ * <br/>
+ * The methods return {@link Double#NaN} if one of the vectors has no abundance
+ * within the compared ions.
+ */
+public class MassSpectrumVectorMatch {
+
+	private final MassSpectrumVector unknown;
+	private final MassSpectrumVector reference;
+	//
+	private double dotProduct = 0.0d;
+	private double unknownSquaredShared = 0.0d;
+	private double referenceSquaredShared = 0.0d;
+	private double unknownSquaredInReferenceRange = 0.0d;
+	private double referenceSquaredInUnknownRange = 0.0d;
+	private int sharedIons = 0;
+	private int unknownIonsInReferenceRange = 0;
+	private int referenceIonsInUnknownRange = 0;
+
+	public MassSpectrumVectorMatch(MassSpectrumVector unknown, MassSpectrumVector reference) {
+		this.unknown = unknown;
+		this.reference = reference;
+		calculate();
+	}
+
+	/**
+	 * Cosine of both vectors in the ion range of the unknown.
+	 *
+	 * @return double
+	 */
+	public double getCosine() {
+
+		return cosine(dotProduct, unknown.getSumSquaredAbundances(), referenceSquaredInUnknownRange);
+	}
+
+	/**
+	 * Cosine of both vectors in the ion range of the reference.
+	 *
+	 * @return double
+	 */
+	public double getReverseCosine() {
+
+		return cosine(dotProduct, reference.getSumSquaredAbundances(), unknownSquaredInReferenceRange);
+	}
+
+	/**
+	 * Cosine of both vectors using the ions of the unknown only.
+	 *
+	 * @return double
+	 */
+	public double getCosineDirect() {
+
+		return cosine(dotProduct, unknown.getSumSquaredAbundances(), referenceSquaredShared);
+	}
+
+	/**
+	 * Cosine of both vectors using the ions of the reference only.
+	 *
+	 * @return double
+	 */
+	public double getReverseCosineDirect() {
+
+		return cosine(dotProduct, reference.getSumSquaredAbundances(), unknownSquaredShared);
+	}
+
+	/**
+	 * Cosine in the ion range of the unknown, if each abundance greater than zero is set to 1.
+	 *
+	 * @return double
+	 */
+	public double getBinaryCosine() {
+
+		return cosine(sharedIons, unknown.size(), referenceIonsInUnknownRange);
+	}
+
+	/**
+	 * Cosine in the ion range of the reference, if each abundance greater than zero is set to 1.
+	 *
+	 * @return double
+	 */
+	public double getReverseBinaryCosine() {
+
+		return cosine(sharedIons, reference.size(), unknownIonsInReferenceRange);
+	}
+
+	/**
+	 * Squared euclidean distance of the unit vectors in the ion range of the unknown.
+	 * Min = 0, Max = 2
+	 *
+	 * @return double
+	 */
+	public double getSquaredDistance() {
+
+		return squaredDistance(unknown, unknown.getSumSquaredAbundances(), reference, referenceSquaredInUnknownRange, false);
+	}
+
+	/**
+	 * Squared euclidean distance of the unit vectors in the ion range of the reference.
+	 *
+	 * @return double
+	 */
+	public double getReverseSquaredDistance() {
+
+		return squaredDistance(reference, reference.getSumSquaredAbundances(), unknown, unknownSquaredInReferenceRange, false);
+	}
+
+	/**
+	 * Squared euclidean distance of the unit vectors using the ions of the unknown only.
+	 *
+	 * @return double
+	 */
+	public double getSquaredDistanceDirect() {
+
+		return squaredDistance(unknown, unknown.getSumSquaredAbundances(), reference, referenceSquaredShared, true);
+	}
+
+	/**
+	 * Squared euclidean distance of the unit vectors using the ions of the reference only.
+	 *
+	 * @return double
+	 */
+	public double getReverseSquaredDistanceDirect() {
+
+		return squaredDistance(reference, reference.getSumSquaredAbundances(), unknown, unknownSquaredShared, true);
+	}
+
+	private void calculate() {
+
+		int sizeUnknown = unknown.size();
+		int sizeReference = reference.size();
+		int i = 0;
+		int j = 0;
+		while(i < sizeUnknown || j < sizeReference) {
+			int ionUnknown = (i < sizeUnknown) ? unknown.getIon(i) : Integer.MAX_VALUE;
+			int ionReference = (j < sizeReference) ? reference.getIon(j) : Integer.MAX_VALUE;
+			if(ionUnknown == ionReference) {
+				double abundanceUnknown = unknown.getAbundance(i++);
+				double abundanceReference = reference.getAbundance(j++);
+				double squaredUnknown = abundanceUnknown * abundanceUnknown;
+				double squaredReference = abundanceReference * abundanceReference;
+				dotProduct += abundanceUnknown * abundanceReference;
+				unknownSquaredShared += squaredUnknown;
+				referenceSquaredShared += squaredReference;
+				unknownSquaredInReferenceRange += squaredUnknown;
+				referenceSquaredInUnknownRange += squaredReference;
+				sharedIons++;
+				unknownIonsInReferenceRange++;
+				referenceIonsInUnknownRange++;
+			} else if(ionUnknown < ionReference) {
+				double abundanceUnknown = unknown.getAbundance(i++);
+				if(ionUnknown >= reference.getStartIon() && ionUnknown <= reference.getStopIon()) {
+					unknownSquaredInReferenceRange += abundanceUnknown * abundanceUnknown;
+					unknownIonsInReferenceRange++;
+				}
+			} else {
+				double abundanceReference = reference.getAbundance(j++);
+				if(ionReference >= unknown.getStartIon() && ionReference <= unknown.getStopIon()) {
+					referenceSquaredInUnknownRange += abundanceReference * abundanceReference;
+					referenceIonsInUnknownRange++;
+				}
+			}
+		}
+	}
+
+	private double cosine(double dotProduct, double sumSquaredFirst, double sumSquaredSecond) {
+
+		double normFirst = Math.sqrt(sumSquaredFirst);
+		double normSecond = Math.sqrt(sumSquaredSecond);
+		if(normFirst == 0 || normSecond == 0) {
+			return Double.NaN;
+		}
+		return dotProduct / (normFirst * normSecond);
+	}
+
+	/**
+	 * The ions of the first vector define the compared ions (direct) or its ion range.
+	 */
+	private double squaredDistance(MassSpectrumVector first, double sumSquaredFirst, MassSpectrumVector second, double sumSquaredSecond, boolean direct) {
+
+		double normFirst = Math.sqrt(sumSquaredFirst);
+		double normSecond = Math.sqrt(sumSquaredSecond);
+		if(normFirst == 0 || normSecond == 0) {
+			return Double.NaN;
+		}
+		//
+		double sum = 0.0d;
+		int sizeFirst = first.size();
+		int sizeSecond = second.size();
+		int i = 0;
+		int j = 0;
+		while(i < sizeFirst || j < sizeSecond) {
+			int ionFirst = (i < sizeFirst) ? first.getIon(i) : Integer.MAX_VALUE;
+			int ionSecond = (j < sizeSecond) ? second.getIon(j) : Integer.MAX_VALUE;
+			if(i == sizeFirst && (direct || ionSecond > first.getStopIon())) {
+				break;
+			}
+			//
+			double delta;
+			if(ionFirst == ionSecond) {
+				delta = first.getAbundance(i++) / normFirst - second.getAbundance(j++) / normSecond;
+			} else if(ionFirst < ionSecond) {
+				delta = first.getAbundance(i++) / normFirst;
+			} else {
+				double abundance = second.getAbundance(j++);
+				if(direct || ionSecond < first.getStartIon() || ionSecond > first.getStopIon()) {
+					continue;
+				}
+				delta = abundance / normSecond;
+			}
+			sum += delta * delta;
+		}
+		return sum;
+	}
+}
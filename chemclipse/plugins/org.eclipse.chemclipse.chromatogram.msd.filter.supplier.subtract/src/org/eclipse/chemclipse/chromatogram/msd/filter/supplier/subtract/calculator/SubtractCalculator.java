@@ -273,5 +273,9 @@ public class SubtractCalculator {
 		for(IIon ion : ionsToRemove) {
 			targetMassSpectrum.removeIon(ion);
 		}
+		/*
+		 * The abundances have been modified in place.
+		 */
+		targetMassSpectrum.setDirty(true);
 	}
 }
@@ -41,31 +41,7 @@ public class ChromatogramFilterZeroValueRemoval extends AbstractChromatogramFilt
 				if(chromatogramSelection instanceof IChromatogramSelectionMSD) {
 					IChromatogramSelectionMSD chromatogramSelectionMSD = chromatogramSelection;
 					ExtractedMatrix extract = new ExtractedMatrix(chromatogramSelectionMSD);
-					double[][] matrix = extract.getMatrix();
-					int numberIons = matrix[0].length;
-					int numberScans = matrix.length;
-					for(int ionIndex = 0; ionIndex < numberIons; ionIndex++) {
-						int startIndex = 0;
-						// pre-loop to prevent iteration from first scan
-						for(int scanIndex = 0; scanIndex < numberScans; scanIndex++) {
-							if(matrix[scanIndex][ionIndex] != 0.0) {
-								startIndex = scanIndex;
-								break;
-							}
-						}
-						// main loop
-						for(int scanIndex = startIndex; scanIndex < numberScans; scanIndex++) {
-							if(matrix[scanIndex][ionIndex] == 0.0) {
-							} else {
-								if(scanIndex == startIndex + 1) {
-									startIndex = scanIndex;
-								} else {
-									matrix = linearInterpolation(matrix, startIndex, scanIndex, ionIndex);
-									startIndex = scanIndex;
-								}
-							}
-						}
-					}
+					extract.filterColumns(ChromatogramFilterZeroValueRemoval::removeZeroValues);
 					extract.updateSignal();
 				}
 				//
@@ -76,14 +52,45 @@ public class ChromatogramFilterZeroValueRemoval extends AbstractChromatogramFilt
 		return processingInfo;
 	}
 
-	private double[][] linearInterpolation(double[][] matrix, int startColumn, int stopColumn, int row) {
+	/**
+	 * Replaces the zero values between two signals of the ion trace
+	 * by a linear interpolation. The values are modified in place.
+	 * 
+	 * @param signals
+	 * @return double[]
+	 */
+	private static double[] removeZeroValues(double[] signals) {
 
-		double startSignal = matrix[startColumn][row];
-		double stopSignal = matrix[stopColumn][row];
-		for(int index = 1; index < (stopColumn - startColumn); index++) {
-			matrix[startColumn + index][row] = (stopSignal - startSignal) / (stopColumn - startColumn) * index + startSignal;
+		int numberScans = signals.length;
+		int startIndex = 0;
+		// pre-loop to prevent iteration from first scan
+		for(int scanIndex = 0; scanIndex < numberScans; scanIndex++) {
+			if(signals[scanIndex] != 0.0) {
+				startIndex = scanIndex;
+				break;
+			}
+		}
+		// main loop
+		for(int scanIndex = startIndex; scanIndex < numberScans; scanIndex++) {
+			if(signals[scanIndex] != 0.0) {
+				if(scanIndex == startIndex + 1) {
+					startIndex = scanIndex;
+				} else {
+					linearInterpolation(signals, startIndex, scanIndex);
+					startIndex = scanIndex;
+				}
+			}
+		}
+		return signals;
+	}
+
+	private static void linearInterpolation(double[] signals, int startIndex, int stopIndex) {
+
+		double startSignal = signals[startIndex];
+		double stopSignal = signals[stopIndex];
+		for(int index = 1; index < (stopIndex - startIndex); index++) {
+			signals[startIndex + index] = (stopSignal - startSignal) / (stopIndex - startIndex) * index + startSignal;
 		}
-		return (matrix);
 	}
 
 	@Override
@@ -21,18 +21,22 @@ import java.util.Comparator;
 import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.RecursiveTask;
 import java.util.function.Function;
 
 import org.eclipse.chemclipse.chromatogram.msd.comparison.massspectrum.IMassSpectrumComparator;
+import org.eclipse.chemclipse.chromatogram.msd.comparison.math.MassSpectrumVector;
 import org.eclipse.chemclipse.chromatogram.msd.identifier.settings.IIdentifierSettingsMSD;
 import org.eclipse.chemclipse.chromatogram.msd.identifier.supplier.file.preferences.PreferenceSupplier;
 import org.eclipse.chemclipse.chromatogram.msd.identifier.supplier.file.settings.IFileIdentifierSettings;
 import org.eclipse.chemclipse.chromatogram.msd.identifier.supplier.file.settings.MassSpectrumIdentifierSettings;
 import org.eclipse.chemclipse.chromatogram.msd.identifier.supplier.file.settings.PeakIdentifierSettings;
+import org.eclipse.chemclipse.chromatogram.msd.identifier.support.DatabaseIndex;
 import org.eclipse.chemclipse.chromatogram.msd.identifier.support.DatabasesCache;
 import org.eclipse.chemclipse.chromatogram.msd.identifier.support.PenaltyCalculationSupport;
 import org.eclipse.chemclipse.chromatogram.msd.identifier.support.TargetBuilder;
+import org.eclipse.chemclipse.logging.core.Logger;
 import org.eclipse.chemclipse.model.identifier.IComparisonResult;
 import org.eclipse.chemclipse.model.identifier.IIdentificationTarget;
 import org.eclipse.chemclipse.model.identifier.IPeakIdentificationResults;
@@ -53,6 +57,7 @@ public class FileIdentifier {
 
 	public static final String IDENTIFIER = "File Identifier";
 	//
+	private static final Logger logger = Logger.getLogger(FileIdentifier.class);
 	private static final Comparator<IComparisonResult> RESULT_COMPARATOR = Collections.reverseOrder(IComparisonResult.MATCH_FACTOR_COMPARATOR);
 	private static final TargetBuilder TARGETBUILDER = new TargetBuilder();
 	private final DatabasesCache databasesCache;
@@ -84,7 +89,9 @@ public class FileIdentifier {
 		Map<String, IMassSpectra> databases = databasesCache.getDatabases(fileListUtil.getFiles(fileIdentifierSettings.getMassSpectraFiles()), subMonitor.split(10));
 		subMonitor.setWorkRemaining(databases.size() * 100);
 		for(Map.Entry<String, IMassSpectra> database : databases.entrySet()) {
-			compareMassSpectraAgainstDatabase(massSpectra.getList(), database.getValue().getList(), fileIdentifierSettings, identifier, database.getKey(), subMonitor.split(100, SubMonitor.SUPPRESS_NONE));
+			DatabaseIndex databaseIndex = getDatabaseIndex(database.getKey(), fileIdentifierSettings);
+			Map<IScanMSD, MassSpectrumVector> referenceVectors = databasesCache.getMassSpectrumVectors(database.getKey(), fileIdentifierSettings.getMassSpectrumComparator());
+			compareMassSpectraAgainstDatabase(massSpectra.getList(), database.getValue().getList(), databaseIndex, referenceVectors, fileIdentifierSettings, identifier, database.getKey(), subMonitor.split(100, SubMonitor.SUPPRESS_NONE));
 		}
 		//
 		return massSpectra;
@@ -123,7 +130,9 @@ public class FileIdentifier {
 		Map<String, IMassSpectra> databases = databasesCache.getDatabases(files, subMonitor.split(10));
 		subMonitor.setWorkRemaining(databases.size() * 100);
 		for(Map.Entry<String, IMassSpectra> database : databases.entrySet()) {
-			comparePeaksAgainstDatabase(peaks, database.getValue().getList(), peakIdentifierSettings, identifier, database.getKey(), subMonitor.split(100, SubMonitor.SUPPRESS_NONE));
+			DatabaseIndex databaseIndex = getDatabaseIndex(database.getKey(), peakIdentifierSettings);
+			Map<IScanMSD, MassSpectrumVector> referenceVectors = databasesCache.getMassSpectrumVectors(database.getKey(), peakIdentifierSettings.getMassSpectrumComparator());
+			comparePeaksAgainstDatabase(peaks, database.getValue().getList(), databaseIndex, referenceVectors, peakIdentifierSettings, identifier, database.getKey(), subMonitor.split(100, SubMonitor.SUPPRESS_NONE));
 		}
 		//
 		return identificationResults;
@@ -167,17 +176,52 @@ public class FileIdentifier {
 
 	public static int compareMassSpectraAgainstDatabase(List<? extends IScanMSD> unknownList, List<? extends IScanMSD> references, MassSpectrumIdentifierSettings fileIdentifierSettings, String identifier, String databaseName, IProgressMonitor monitor) {
 
-		return compareAgainstDatabase(unknownList, scan -> scan, references, fileIdentifierSettings, identifier, databaseName, monitor);
+		return compareMassSpectraAgainstDatabase(unknownList, references, null, null, fileIdentifierSettings, identifier, databaseName, monitor);
+	}
+
+	/**
+	 * If the database index is not null, only the references sharing the base ions
+	 * of the unknown are compared. If the reference vectors are not null, the precomputed
+	 * vectors are used by the comparator.
+	 */
+	public static int compareMassSpectraAgainstDatabase(List<? extends IScanMSD> unknownList, List<? extends IScanMSD> references, DatabaseIndex databaseIndex, Map<IScanMSD, MassSpectrumVector> referenceVectors, MassSpectrumIdentifierSettings fileIdentifierSettings, String identifier, String databaseName, IProgressMonitor monitor) {
+
+		return compareAgainstDatabase(unknownList, scan -> scan, references, databaseIndex, referenceVectors, fileIdentifierSettings, identifier, databaseName, monitor);
 	}
 
 	public static int comparePeaksAgainstDatabase(List<? extends IPeakMSD> unknownList, List<IScanMSD> references, PeakIdentifierSettings fileIdentifierSettings, String identifier, String databaseName, IProgressMonitor monitor) {
 
-		return compareAgainstDatabase(unknownList, peak -> peak.getPeakModel().getPeakMassSpectrum(), references, fileIdentifierSettings, identifier, databaseName, monitor);
+		return comparePeaksAgainstDatabase(unknownList, references, null, null, fileIdentifierSettings, identifier, databaseName, monitor);
+	}
+
+	/**
+	 * If the database index is not null, only the references sharing the base ions
+	 * of the unknown are compared. If the reference vectors are not null, the precomputed
+	 * vectors are used by the comparator.
+	 */
+	public static int comparePeaksAgainstDatabase(List<? extends IPeakMSD> unknownList, List<IScanMSD> references, DatabaseIndex databaseIndex, Map<IScanMSD, MassSpectrumVector> referenceVectors, PeakIdentifierSettings fileIdentifierSettings, String identifier, String databaseName, IProgressMonitor monitor) {
+
+		return compareAgainstDatabase(unknownList, peak -> peak.getPeakModel().getPeakMassSpectrum(), references, databaseIndex, referenceVectors, fileIdentifierSettings, identifier, databaseName, monitor);
+	}
+
+	private DatabaseIndex getDatabaseIndex(String databaseName, IFileIdentifierSettings fileIdentifierSettings) {
+
+		if(fileIdentifierSettings.isUsePreOptimization()) {
+			return databasesCache.getDatabaseIndex(databaseName);
+		}
+		return null;
 	}
 
-	private static <T> int compareAgainstDatabase(Collection<T> unknownList, Function<T, IScanMSD> extractor, List<? extends IScanMSD> references, IFileIdentifierSettings fileIdentifierSettings, String identifier, String databaseName, IProgressMonitor monitor) {
+	private static <T> int compareAgainstDatabase(Collection<T> unknownList, Function<T, IScanMSD> extractor, List<? extends IScanMSD> references, DatabaseIndex databaseIndex, Map<IScanMSD, MassSpectrumVector> referenceVectors, IFileIdentifierSettings fileIdentifierSettings, String identifier, String databaseName, IProgressMonitor monitor) {
 
 		int matched = 0;
+		long comparisons = 0;
+		/*
+		 * Recall of the pre-optimization, compared to the full search.
+		 */
+		boolean validate = databaseIndex != null && PreferenceSupplier.isValidatePreOptimization();
+		long expectedMatches = 0;
+		long recalledMatches = 0;
 		long start = System.currentTimeMillis();
 		SubMonitor subMonitor = SubMonitor.convert(monitor, "Comparing against database " + databaseName + " with " + references.size() + " massspectra", unknownList.size());
 		IMassSpectrumComparator massSpectrumComparator = fileIdentifierSettings.getMassSpectrumComparator();
@@ -190,7 +234,20 @@ public class FileIdentifier {
 			}
 			subMonitor.subTask("Reference " + count + "/" + total + " (matches found: " + matched + ")");
 			IScanMSD unknown = extractor.apply(item);
-			Map<IComparisonResult, IScanMSD> matches = new FindMatchingSpectras(unknown, references, fileIdentifierSettings, massSpectrumComparator).invoke();
+			List<? extends IScanMSD> candidates = (databaseIndex != null) ? databaseIndex.getCandidates(unknown, fileIdentifierSettings.getThresholdPreOptimization()) : references;
+			comparisons += candidates.size();
+			MassSpectrumVector unknownVector = (referenceVectors != null && unknown != null) ? massSpectrumComparator.getMassSpectrumVector(unknown) : null;
+			Map<IComparisonResult, IScanMSD> matches = new FindMatchingSpectras(unknown, unknownVector, candidates, referenceVectors, fileIdentifierSettings, massSpectrumComparator).invoke();
+			if(validate) {
+				Set<IScanMSD> recalled = Collections.newSetFromMap(new IdentityHashMap<>());
+				recalled.addAll(matches.values());
+				for(IScanMSD reference : new FindMatchingSpectras(unknown, unknownVector, references, referenceVectors, fileIdentifierSettings, massSpectrumComparator).invoke().values()) {
+					expectedMatches++;
+					if(recalled.contains(reference)) {
+						recalledMatches++;
+					}
+				}
+			}
 			if(matches.size() > 0) {
 				matched++;
 				List<IComparisonResult> resultList = new ArrayList<>(matches.keySet());
@@ -206,6 +263,11 @@ public class FileIdentifier {
 			subMonitor.worked(1);
 		}
 		//
+		if(validate) {
+			double recall = (expectedMatches > 0) ? recalledMatches / (double)expectedMatches : 1.0d;
+			logger.info("Pre-optimization recall against database " + databaseName + ": " + recalledMatches + "/" + expectedMatches + " matches (" + Math.round(recall * 1000.0d) / 10.0d + "%)");
+		}
+		//
 		if(UserManagement.isDevMode()) {
 			long end = System.currentTimeMillis();
 			NumberFormat integerFormat = NumberFormat.getIntegerInstance();
@@ -214,6 +276,10 @@ public class FileIdentifier {
 			System.out.println("#PERF# Identifaction of " + integerFormat.format(unknownList.size()) + " unknown items against database " + databaseName + " with " + integerFormat.format(references.size()) + " massspectra took " + timeFormat.format((end - start) / 1000d) + " seconds and yields " + matched + " matches");
 		}
 		//
+		long fullComparisons = (long)unknownList.size() * references.size();
+		double ratio = (fullComparisons > 0) ? comparisons * 100.0d / fullComparisons : 0.0d;
+		logger.debug("Identification against database " + databaseName + ": " + comparisons + " comparisons (" + Math.round(ratio * 100.0d) / 100.0d + "% of the full search)");
+		//
 		return matched;
 	}
 
@@ -257,15 +323,19 @@ public class FileIdentifier {
 		private static final int THRESHOLD = 400;
 		//
 		private final IScanMSD unknown;
+		private final MassSpectrumVector unknownVector;
 		private final List<? extends IScanMSD> references;
+		private final Map<IScanMSD, MassSpectrumVector> referenceVectors;
 		private final IFileIdentifierSettings settings;
 		private final IMassSpectrumComparator spectrumComparator;
 		//
 		private MatchConstraints matchConstraints;
 
-		public FindMatchingSpectras(IScanMSD unknown, List<? extends IScanMSD> references, IFileIdentifierSettings settings, IMassSpectrumComparator spectrumComparator) {
+		public FindMatchingSpectras(IScanMSD unknown, MassSpectrumVector unknownVector, List<? extends IScanMSD> references, Map<IScanMSD, MassSpectrumVector> referenceVectors, IFileIdentifierSettings settings, IMassSpectrumComparator spectrumComparator) {
 			this.unknown = unknown;
+			this.unknownVector = unknownVector;
 			this.references = references;
+			this.referenceVectors = referenceVectors;
 			this.settings = settings;
 			this.spectrumComparator = spectrumComparator;
 			/*
@@ -282,9 +352,9 @@ public class FileIdentifier {
 			int size = references.size();
 			if(size > THRESHOLD) {
 				int half = size / 2;
-				FindMatchingSpectras forkPart = new FindMatchingSpectras(unknown, references.subList(0, half), settings, spectrumComparator);
+				FindMatchingSpectras forkPart = new FindMatchingSpectras(unknown, unknownVector, references.subList(0, half), referenceVectors, settings, spectrumComparator);
 				forkPart.fork();
-				FindMatchingSpectras directPart = new FindMatchingSpectras(unknown, references.subList(half, size), settings, spectrumComparator);
+				FindMatchingSpectras directPart = new FindMatchingSpectras(unknown, unknownVector, references.subList(half, size), referenceVectors, settings, spectrumComparator);
 				Map<IComparisonResult, IScanMSD> map = directPart.compute();
 				map.putAll(forkPart.join());
 				return map;
@@ -300,7 +370,13 @@ public class FileIdentifier {
 			float minReverseMatchFactor = settings.getMinReverseMatchFactor();
 			//
 			for(IScanMSD reference : references) {
-				IProcessingInfo<IComparisonResult> infoCompare = spectrumComparator.compare(unknown, reference, matchConstraints);
+				IProcessingInfo<IComparisonResult> infoCompare;
+				MassSpectrumVector referenceVector = (referenceVectors != null) ? referenceVectors.get(reference) : null;
+				if(unknownVector != null && referenceVector != null) {
+					infoCompare = spectrumComparator.compare(unknown, unknownVector, reference, referenceVector, matchConstraints);
+				} else {
+					infoCompare = spectrumComparator.compare(unknown, reference, matchConstraints);
+				}
 				IComparisonResult comparisonResult = infoCompare.getProcessingResult();
 				applyPenaltyOnDemand(unknown, reference, comparisonResult, settings);
 				if(isValidTarget(comparisonResult, minMatchFactor, minReverseMatchFactor)) {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2014, 2019 Lablicate GmbH.
+ * Copyright (c) 2014, 2020 Lablicate GmbH.
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -49,6 +49,8 @@ public class PreferenceSupplier implements IPreferenceSupplier {
 	public static final double DEF_THRESHOLD_PRE_OPTIMIZATION = 0.1d;
 	public static final double MIN_THRESHOLD_PRE_OPTIMIZATION = 0.0d; // no restriction
 	public static final double MAX_THRESHOLD_PRE_OPTIMIZATION = 1.0d; // hardest restriction
+	public static final String P_VALIDATE_PRE_OPTIMIZATION = "validatePreOptimization";
+	public static final boolean DEF_VALIDATE_PRE_OPTIMIZATION = false;
 	//
 	public static final String P_NUMBER_OF_TARGETS = "numberOfTargets";
 	public static final int DEF_NUMBER_OF_TARGETS = 3;
@@ -120,6 +122,7 @@ public class PreferenceSupplier implements IPreferenceSupplier {
 		defaultValues.put(P_MASS_SPECTRUM_COMPARATOR_ID, DEF_MASS_SPECTRUM_COMPARATOR_ID);
 		defaultValues.put(P_USE_PRE_OPTIMIZATION, Boolean.toString(DEF_USE_PRE_OPTIMIZATION));
 		defaultValues.put(P_THRESHOLD_PRE_OPTIMIZATION, Double.toString(DEF_THRESHOLD_PRE_OPTIMIZATION));
+		defaultValues.put(P_VALIDATE_PRE_OPTIMIZATION, Boolean.toString(DEF_VALIDATE_PRE_OPTIMIZATION));
 		defaultValues.put(P_NUMBER_OF_TARGETS, Integer.toString(DEF_NUMBER_OF_TARGETS));
 		defaultValues.put(P_MIN_MATCH_FACTOR, Float.toString(DEF_MIN_MATCH_FACTOR));
 		defaultValues.put(P_MIN_REVERSE_MATCH_FACTOR, Float.toString(DEF_MIN_REVERSE_MATCH_FACTOR));
@@ -204,6 +207,18 @@ public class PreferenceSupplier implements IPreferenceSupplier {
 		return settings;
 	}
 
+	/**
+	 * If true, the pre-optimized search is compared with a full search
+	 * and the recall is reported.
+	 *
+	 * @return boolean
+	 */
+	public static boolean isValidatePreOptimization() {
+
+		IEclipsePreferences preferences = PreferenceSupplier.INSTANCE().getPreferences();
+		return preferences.getBoolean(P_VALIDATE_PRE_OPTIMIZATION, DEF_VALIDATE_PRE_OPTIMIZATION);
+	}
+
 	public static List<String> getMassSpectraFiles() {
 
 		FileListUtil fileListUtil = new FileListUtil();
@@ -0,0 +1,172 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Lablicate GmbH.
+ *
+ * All rights reserved.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Dr. Philip Wenig - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.chemclipse.chromatogram.msd.identifier.support;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.chemclipse.msd.model.core.IIon;
+import org.eclipse.chemclipse.msd.model.core.IScanMSD;
+
+/**
+ * Inverted index of the library mass spectra.
+ * The nominal m/z values of the most abundant ions of each reference
+ * point to the references that contain them. It is used to select
+ * candidates before the mass spectrum comparator is called.
+ */
+public class DatabaseIndex {
+
+	/*
+	 * Number of the most abundant ions per reference.
+	 */
+	public static final int NUMBER_OF_REFERENCE_IONS = 10;
+	/*
+	 * Number of the most abundant ions of the unknown that are looked up.
+	 */
+	public static final int NUMBER_OF_UNKNOWN_IONS = 5;
+	//
+	private static final int MAX_NOMINAL_ION = 65535;
+	private static final int[] EMPTY = new int[0];
+	//
+	private final List<? extends IScanMSD> references;
+	private final int[][] postings;
+
+	public DatabaseIndex(List<? extends IScanMSD> references) {
+		this.references = references;
+		/*
+		 * Count the postings per ion first to allocate exact arrays.
+		 */
+		int size = references.size();
+		int[][] baseIons = new int[size][];
+		int[] counts = new int[MAX_NOMINAL_ION + 1];
+		for(int i = 0; i < size; i++) {
+			baseIons[i] = getBaseIons(references.get(i), NUMBER_OF_REFERENCE_IONS);
+			for(int ion : baseIons[i]) {
+				counts[ion]++;
+			}
+		}
+		//
+		postings = new int[MAX_NOMINAL_ION + 1][];
+		for(int ion = 0; ion <= MAX_NOMINAL_ION; ion++) {
+			postings[ion] = counts[ion] > 0 ? new int[counts[ion]] : EMPTY;
+			counts[ion] = 0;
+		}
+		//
+		for(int i = 0; i < size; i++) {
+			for(int ion : baseIons[i]) {
+				postings[ion][counts[ion]++] = i;
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of indexed references.
+	 *
+	 * @return int
+	 */
+	public int size() {
+
+		return references.size();
+	}
+
+	/**
+	 * Returns the references that contain at least the given share of the unknown's
+	 * base ions within their most abundant ions. The order of the references is retained.
+	 *
+	 * @param unknown
+	 * @param threshold
+	 *            0 = at least one shared ion, 1 = all base ions must be shared
+	 * @return List
+	 */
+	public List<IScanMSD> getCandidates(IScanMSD unknown, double threshold) {
+
+		int[] baseIons = getBaseIons(unknown, NUMBER_OF_UNKNOWN_IONS);
+		int minSharedIons = Math.max(1, (int)Math.ceil(threshold * baseIons.length));
+		/*
+		 * Count the shared ions per reference.
+		 */
+		byte[] counts = new byte[references.size()];
+		int[] hits = new int[64];
+		int numberOfHits = 0;
+		for(int ion : baseIons) {
+			for(int index : postings[ion]) {
+				if(counts[index]++ == 0) {
+					if(numberOfHits == hits.length) {
+						hits = Arrays.copyOf(hits, numberOfHits * 2);
+					}
+					hits[numberOfHits++] = index;
+				}
+			}
+		}
+		//
+		Arrays.sort(hits, 0, numberOfHits);
+		List<IScanMSD> candidates = new ArrayList<>(numberOfHits);
+		for(int i = 0; i < numberOfHits; i++) {
+			int index = hits[i];
+			if(counts[index] >= minSharedIons) {
+				candidates.add(references.get(index));
+			}
+		}
+		return candidates;
+	}
+
+	/**
+	 * Returns the distinct nominal m/z values of the most abundant ions.
+	 */
+	private static int[] getBaseIons(IScanMSD scan, int numberOfIons) {
+
+		List<IIon> ions = scan.getIons();
+		int size = ions.size();
+		int[] nominalIons = new int[size];
+		float[] abundances = new float[size];
+		for(int i = 0; i < size; i++) {
+			IIon ion = ions.get(i);
+			nominalIons[i] = Math.min(MAX_NOMINAL_ION, Math.max(0, (int)Math.round(ion.getIon())));
+			abundances[i] = ion.getAbundance();
+		}
+		/*
+		 * Partial selection of the most abundant distinct ions.
+		 */
+		int[] baseIons = new int[Math.min(size, numberOfIons)];
+		int count = 0;
+		boolean[] used = new boolean[size];
+		while(count < baseIons.length) {
+			int max = -1;
+			for(int i = 0; i < size; i++) {
+				if(!used[i] && (max < 0 || abundances[i] > abundances[max])) {
+					max = i;
+				}
+			}
+			//
+			if(max < 0) {
+				break;
+			}
+			//
+			used[max] = true;
+			if(!contains(baseIons, count, nominalIons[max])) {
+				baseIons[count++] = nominalIons[max];
+			}
+		}
+		return count == baseIons.length ? baseIons : Arrays.copyOf(baseIons, count);
+	}
+
+	private static boolean contains(int[] values, int length, int value) {
+
+		for(int i = 0; i < length; i++) {
+			if(values[i] == value) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
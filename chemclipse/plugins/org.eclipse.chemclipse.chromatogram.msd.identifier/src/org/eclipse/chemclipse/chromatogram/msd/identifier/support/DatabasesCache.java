@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016, 2019 Lablicate GmbH.
+ * Copyright (c) 2016, 2020 Lablicate GmbH.
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -17,11 +17,14 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
+import org.eclipse.chemclipse.chromatogram.msd.comparison.massspectrum.IMassSpectrumComparator;
+import org.eclipse.chemclipse.chromatogram.msd.comparison.math.MassSpectrumVector;
 import org.eclipse.chemclipse.logging.core.Logger;
 import org.eclipse.chemclipse.model.identifier.IIdentificationTarget;
 import org.eclipse.chemclipse.model.identifier.ILibraryInformation;
@@ -41,24 +44,26 @@ public class DatabasesCache {
 	private static final Logger logger = Logger.getLogger(DatabasesCache.class);
 	/*
 	 * Don't reload the database on each request, only if it is necessary.
+	 * The maps are shared by all instances, which could be used concurrently
+	 * (e.g. parallel batch jobs), hence they are thread safe. The databases
+	 * are checked and loaded under the lock, so that a database is loaded once.
 	 */
-	private static Map<String, Long> fileSizes;
-	private static Map<String, Long> fileModifications;
-	private static Set<String> fileNames;
-	private static Map<String, IMassSpectra> massSpectraDatabases;
-	private static Map<String, Map<String, IScanMSD>> allDatabaseNames = null;
-	private static Map<String, Map<String, IScanMSD>> allDatabaseCasNumbers = null;
+	private static final Object lock = new Object();
+	private static final Map<String, Long> fileSizes = new ConcurrentHashMap<>();
+	private static final Map<String, Long> fileModifications = new ConcurrentHashMap<>();
+	private static final Set<String> fileNames = ConcurrentHashMap.newKeySet();
+	private static final Map<String, IMassSpectra> massSpectraDatabases = new ConcurrentHashMap<>();
+	private static final Map<String, Map<String, IScanMSD>> allDatabaseNames = new ConcurrentHashMap<>();
+	private static final Map<String, Map<String, IScanMSD>> allDatabaseCasNumbers = new ConcurrentHashMap<>();
+	private static final Map<String, DatabaseIndex> databaseIndices = new HashMap<>();
+	private static final Map<String, Map<String, Map<IScanMSD, MassSpectrumVector>>> databaseVectors = new HashMap<>();
 	//
 	private final IonAbundanceComparator ionAbundanceComparator;
 	private final List<String> massSpectraFiles;
 
 	public DatabasesCache(List<String> massSpectraFiles) {
-		/*
-		 * Initialize the static maps once.
-		 */
 		ionAbundanceComparator = new IonAbundanceComparator(SortOrder.DESC);
 		this.massSpectraFiles = massSpectraFiles;
-		initializeDatabaseMaps();
 	}
 
 	/**
@@ -66,7 +71,20 @@ public class DatabasesCache {
 	 */
 	public static void resetCache() {
 
-		initializeDatabaseMaps();
+		synchronized(lock) {
+			fileSizes.clear();
+			fileModifications.clear();
+			fileNames.clear();
+			massSpectraDatabases.clear();
+			allDatabaseNames.clear();
+			allDatabaseCasNumbers.clear();
+			synchronized(databaseIndices) {
+				databaseIndices.clear();
+			}
+			synchronized(databaseVectors) {
+				databaseVectors.clear();
+			}
+		}
 	}
 
 	/**
@@ -81,50 +99,58 @@ public class DatabasesCache {
 
 	public Map<String, IMassSpectra> getDatabases(List<String> databaseList, IProgressMonitor monitor) throws FileNotFoundException {
 
-		List<String> databaseNames = new ArrayList<>();
-		for(String database : databaseList) {
-			try {
-				File file = new File(database);
-				String databaseName = file.getName();
-				databaseNames.add(databaseName);
-				if(file.exists()) {
-					/*
-					 * Make further checks.
-					 */
-					if(massSpectraDatabases.get(databaseName) == null) {
-						loadMassSpectraFromFile(file, monitor);
-					} else {
+		synchronized(lock) {
+			List<String> databaseNames = new ArrayList<>();
+			for(String database : databaseList) {
+				try {
+					File file = new File(database);
+					String databaseName = file.getName();
+					databaseNames.add(databaseName);
+					if(file.exists()) {
 						/*
-						 * Has the content been edited?
+						 * Make further checks.
 						 */
-						if(file.length() != fileSizes.get(databaseName) || file.lastModified() != fileModifications.get(databaseName) || !fileNames.contains(databaseName)) {
+						if(massSpectraDatabases.get(databaseName) == null) {
 							loadMassSpectraFromFile(file, monitor);
+						} else {
+							/*
+							 * Has the content been edited?
+							 */
+							if(file.length() != fileSizes.get(databaseName) || file.lastModified() != fileModifications.get(databaseName) || !fileNames.contains(databaseName)) {
+								loadMassSpectraFromFile(file, monitor);
+							}
 						}
 					}
+				} catch(TypeCastException e) {
+					logger.warn(e);
 				}
-			} catch(TypeCastException e) {
-				logger.warn(e);
 			}
-		}
-		/*
-		 * Remove unused databases and info maps.
-		 */
-		Set<String> databaseKeys = massSpectraDatabases.keySet();
-		for(String databaseKey : databaseKeys) {
-			if(!databaseNames.contains(databaseKey)) {
-				massSpectraDatabases.remove(databaseKey);
-				allDatabaseNames.remove(databaseKey);
-				allDatabaseCasNumbers.remove(databaseKey);
+			/*
+			 * Remove unused databases and info maps.
+			 */
+			Set<String> databaseKeys = massSpectraDatabases.keySet();
+			for(String databaseKey : databaseKeys) {
+				if(!databaseNames.contains(databaseKey)) {
+					massSpectraDatabases.remove(databaseKey);
+					allDatabaseNames.remove(databaseKey);
+					allDatabaseCasNumbers.remove(databaseKey);
+					synchronized(databaseIndices) {
+						databaseIndices.remove(databaseKey);
+					}
+					synchronized(databaseVectors) {
+						databaseVectors.remove(databaseKey);
+					}
+				}
 			}
+			/*
+			 * Post-check
+			 */
+			if(massSpectraDatabases.size() == 0) {
+				throw new FileNotFoundException();
+			}
+			//
+			return massSpectraDatabases;
 		}
-		/*
-		 * Post-check
-		 */
-		if(massSpectraDatabases.size() == 0) {
-			throw new FileNotFoundException();
-		}
-		//
-		return massSpectraDatabases;
 	}
 
 	/**
@@ -180,9 +206,78 @@ public class DatabasesCache {
 		return massSpectra;
 	}
 
+	/**
+	 * Returns the inverted m/z index of the given database.
+	 * The index is created on demand and kept until the database is reloaded.
+	 *
+	 * @param databaseName
+	 * @return {@link DatabaseIndex} or null if the database is not loaded
+	 */
+	public DatabaseIndex getDatabaseIndex(String databaseName) {
+
+		synchronized(databaseIndices) {
+			DatabaseIndex databaseIndex = databaseIndices.get(databaseName);
+			if(databaseIndex == null) {
+				IMassSpectra massSpectra = massSpectraDatabases.get(databaseName);
+				if(massSpectra != null) {
+					databaseIndex = new DatabaseIndex(massSpectra.getList());
+					databaseIndices.put(databaseName, databaseIndex);
+				}
+			}
+			return databaseIndex;
+		}
+	}
+
+	/**
+	 * Returns the vectors of the references of the given database, calculated by the comparator.
+	 * The vectors are created on demand and kept until the database is reloaded.
+	 *
+	 * @param databaseName
+	 * @param massSpectrumComparator
+	 * @return Map or null if the database is not loaded or the comparator doesn't support vectors
+	 */
+	public Map<IScanMSD, MassSpectrumVector> getMassSpectrumVectors(String databaseName, IMassSpectrumComparator massSpectrumComparator) {
+
+		if(massSpectrumComparator == null) {
+			return null;
+		}
+		//
+		synchronized(databaseVectors) {
+			IMassSpectra massSpectra = massSpectraDatabases.get(databaseName);
+			if(massSpectra == null) {
+				return null;
+			}
+			/*
+			 * The vectors depend on the comparator, e.g. INCOS uses adjusted abundances.
+			 */
+			Map<String, Map<IScanMSD, MassSpectrumVector>> comparatorVectors = databaseVectors.get(databaseName);
+			if(comparatorVectors == null) {
+				comparatorVectors = new HashMap<>();
+				databaseVectors.put(databaseName, comparatorVectors);
+			}
+			//
+			String comparatorKey = massSpectrumComparator.getClass().getName();
+			if(!comparatorVectors.containsKey(comparatorKey)) {
+				Map<IScanMSD, MassSpectrumVector> vectors = new IdentityHashMap<>();
+				for(IScanMSD reference : massSpectra.getList()) {
+					if(reference.getNumberOfIons() > 0) {
+						MassSpectrumVector vector = massSpectrumComparator.getMassSpectrumVector(reference);
+						if(vector == null) {
+							vectors = null;
+							break;
+						}
+						vectors.put(reference, vector);
+					}
+				}
+				comparatorVectors.put(comparatorKey, vectors);
+			}
+			return comparatorVectors.get(comparatorKey);
+		}
+	}
+
 	public boolean isLoaded() {
 
-		return massSpectraDatabases != null;
+		return !massSpectraDatabases.isEmpty();
 	}
 
 	private Map<String, Map<String, IScanMSD>> getDatabaseNamesMap(IProgressMonitor monitor) throws FileNotFoundException {
@@ -213,21 +308,18 @@ public class DatabasesCache {
 		fileNames.add(databaseName);
 		fileSizes.put(databaseName, file.length());
 		fileModifications.put(databaseName, file.lastModified());
-		/*
-		 * Initialize the reference maps.
-		 */
-		Map<String, IScanMSD> databaseNames = allDatabaseNames.get(databaseName);
-		if(databaseNames == null) {
-			databaseNames = new HashMap<>();
-			allDatabaseNames.put(databaseName, databaseNames);
+		synchronized(databaseIndices) {
+			databaseIndices.remove(databaseName);
 		}
-		//
-		Map<String, IScanMSD> databaseCasNumbers = allDatabaseCasNumbers.get(databaseName);
-		if(databaseCasNumbers == null) {
-			databaseCasNumbers = new HashMap<>();
-			allDatabaseCasNumbers.put(databaseName, databaseCasNumbers);
+		synchronized(databaseVectors) {
+			databaseVectors.remove(databaseName);
 		}
-		//
+		/*
+		 * Initialize the reference maps. They are read concurrently,
+		 * hence they are filled completely before they are published.
+		 */
+		Map<String, IScanMSD> databaseNames = new HashMap<>();
+		Map<String, IScanMSD> databaseCasNumbers = new HashMap<>();
 		for(IScanMSD reference : massSpectraDatabase.getList()) {
 			//
 			if(reference instanceof IRegularLibraryMassSpectrum) {
@@ -237,32 +329,7 @@ public class DatabasesCache {
 				databaseCasNumbers.put(libraryInformation.getCasNumber(), reference);
 			}
 		}
-	}
-
-	private static void initializeDatabaseMaps() {
-
-		if(fileSizes == null) {
-			fileSizes = new HashMap<>();
-		}
-		//
-		if(fileModifications == null) {
-			fileModifications = new HashMap<>();
-		}
-		//
-		if(fileNames == null) {
-			fileNames = new HashSet<>();
-		}
-		//
-		if(massSpectraDatabases == null) {
-			massSpectraDatabases = new HashMap<>();
-		}
-		//
-		if(allDatabaseNames == null) {
-			allDatabaseNames = new HashMap<>();
-		}
-		//
-		if(allDatabaseCasNumbers == null) {
-			allDatabaseCasNumbers = new HashMap<>();
-		}
+		allDatabaseNames.put(databaseName, databaseNames);
+		allDatabaseCasNumbers.put(databaseName, databaseCasNumbers);
 	}
 }
@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Lablicate GmbH.
+ *
+ * All rights reserved.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Dr. Philip Wenig - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.chemclipse.chromatogram.msd.peak.detector.supplier.amdis.internal.deconvolution;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A perceived component. The scans are indices of the extracted matrix.
+ * The shape is the normalized profile of the model ion (1 at the apex),
+ * the ion abundances are the purified abundances at the apex.
+ */
+public class Component {
+
+	private final double modelIon;
+	private final int apexScan;
+	private final int startScan;
+	private final double[] shape;
+	private final Map<Double, Float> ions = new TreeMap<>();
+
+	public Component(double modelIon, int apexScan, int startScan, double[] shape) {
+
+		this.modelIon = modelIon;
+		this.apexScan = apexScan;
+		this.startScan = startScan;
+		this.shape = shape;
+	}
+
+	public double getModelIon() {
+
+		return modelIon;
+	}
+
+	public int getApexScan() {
+
+		return apexScan;
+	}
+
+	public int getStartScan() {
+
+		return startScan;
+	}
+
+	public int getStopScan() {
+
+		return startScan + shape.length - 1;
+	}
+
+	/**
+	 * Returns the normalized shape from start to stop scan.
+	 *
+	 * @return double[]
+	 */
+	public double[] getShape() {
+
+		return shape;
+	}
+
+	public Map<Double, Float> getIons() {
+
+		return Collections.unmodifiableMap(ions);
+	}
+
+	public float getTotalSignal() {
+
+		float totalSignal = 0.0f;
+		for(float abundance : ions.values()) {
+			totalSignal += abundance;
+		}
+		return totalSignal;
+	}
+
+	void addIon(double ion, float abundance) {
+
+		ions.put(ion, abundance);
+	}
+
+	void removeIon(double ion) {
+
+		ions.remove(ion);
+	}
+
+	@Override
+	public String toString() {
+
+		return "Component [modelIon=" + modelIon + ", apexScan=" + apexScan + ", startScan=" + startScan + ", stopScan=" + getStopScan() + ", ions=" + ions.size() + "]";
+	}
+}
@@ -0,0 +1,390 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Lablicate GmbH.
+ *
+ * All rights reserved.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Dr. Philip Wenig - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.chemclipse.chromatogram.msd.peak.detector.supplier.amdis.internal.deconvolution;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.eclipse.chemclipse.chromatogram.msd.peak.detector.supplier.amdis.settings.PeakDetectorDeconvolutionSettings;
+import org.eclipse.chemclipse.msd.model.matrix.ExtractedMatrix;
+
+/**
+ * Component perception in the manner of AMDIS, calculated on the ion traces:
+ * <ol>
+ * <li>The noise of each ion trace is estimated by the median of the absolute scan to scan differences.</li>
+ * <li>Local maxima above the given S/N are collected. Maxima of several ions at the same scan indicate a component.</li>
+ * <li>The ion with the sharpest maximum is the model ion. Its profile is the shape of the component.</li>
+ * <li>The purified spectrum contains all ions that fit the shape with the required correlation.</li>
+ * <li>Ions shared by co-eluting components are removed from both spectra, except the model ions.</li>
+ * </ol>
+ * The scans are processed in windows in parallel. The maxima are collected within the window,
+ * but the components are traced on the complete ion traces, hence a component belongs to the
+ * window that contains its apex, even if it extends into the neighbouring window.
+ */
+public class ComponentPerception {
+
+	private static final int MIN_WINDOW_SIZE = 256;
+	private static final int MIN_SCANS = 3;
+	/*
+	 * Maxima of different ions within this distance belong to the same component.
+	 */
+	private static final int APEX_TOLERANCE = 1;
+	//
+	private final int peakWidth;
+	private final float minModelIonSignalToNoiseRatio;
+	private final float minShapeCorrelation;
+	private final int minNumberOfIons;
+	private final Set<Integer> omittedIons;
+
+	public ComponentPerception(PeakDetectorDeconvolutionSettings settings) {
+
+		peakWidth = Math.max(PeakDetectorDeconvolutionSettings.MIN_PEAK_WIDTH, Math.min(PeakDetectorDeconvolutionSettings.MAX_PEAK_WIDTH, settings.getPeakWidth()));
+		minModelIonSignalToNoiseRatio = settings.getMinModelIonSignalToNoiseRatio();
+		minShapeCorrelation = settings.getMinShapeCorrelation();
+		minNumberOfIons = Math.max(1, settings.getMinNumberOfIons());
+		omittedIons = settings.getOmittedIonSet();
+	}
+
+	public List<Component> process(ExtractedMatrix extractedMatrix) {
+
+		int numberOfColumns = extractedMatrix.getNumberOfColumns();
+		double[] ions = new double[numberOfColumns];
+		float[][] columns = new float[numberOfColumns][];
+		IntStream.range(0, numberOfColumns).parallel().forEach(column -> {
+			ions[column] = extractedMatrix.getIon(column);
+			columns[column] = extractedMatrix.getColumn(column);
+		});
+		return process(ions, columns, extractedMatrix.getNumberOfScans());
+	}
+
+	/**
+	 * Returns the components sorted by their apex scan.
+	 *
+	 * @param ions
+	 * @param columns
+	 * @param numberOfScans
+	 * @return {@link List}
+	 */
+	public List<Component> process(double[] ions, float[][] columns, int numberOfScans) {
+
+		IonTrace[] traces = IntStream.range(0, ions.length).parallel() //
+				.filter(column -> !omittedIons.contains((int)Math.round(ions[column]))) //
+				.mapToObj(column -> new IonTrace(ions[column], columns[column])) //
+				.toArray(IonTrace[]::new);
+		//
+		int windowSize = Math.max(MIN_WINDOW_SIZE, 8 * peakWidth);
+		int numberOfWindows = (numberOfScans + windowSize - 1) / windowSize;
+		List<Component> components = IntStream.range(0, numberOfWindows).parallel() //
+				.mapToObj(window -> processWindow(traces, window * windowSize, Math.min(numberOfScans, (window + 1) * windowSize))) //
+				.flatMap(List::stream) //
+				.collect(Collectors.toList());
+		/*
+		 * The shared ions are removed after all windows have been processed,
+		 * as co-eluting components may belong to neighbouring windows.
+		 */
+		removeSharedIons(components);
+		return components.stream() //
+				.filter(component -> component.getIons().size() >= minNumberOfIons) //
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * Perceives the components that have their apex in [startScan, stopScan).
+	 */
+	private List<Component> processWindow(IonTrace[] traces, int startScan, int stopScan) {
+
+		List<Maximum> maxima = new ArrayList<>();
+		for(IonTrace trace : traces) {
+			collectMaxima(trace, startScan, stopScan, maxima);
+		}
+		/*
+		 * Sharpest maxima first within the same scan.
+		 */
+		Collections.sort(maxima, Comparator.comparingInt((Maximum maximum) -> maximum.scan).thenComparing(Comparator.comparingDouble((Maximum maximum) -> maximum.sharpness).reversed()));
+		//
+		List<Component> components = new ArrayList<>();
+		int index = 0;
+		while(index < maxima.size()) {
+			Maximum modelMaximum = maxima.get(index);
+			int groupStart = modelMaximum.scan;
+			while(index < maxima.size() && maxima.get(index).scan <= groupStart + APEX_TOLERANCE) {
+				Maximum maximum = maxima.get(index);
+				if(maximum.sharpness > modelMaximum.sharpness) {
+					modelMaximum = maximum;
+				}
+				index++;
+			}
+			Component component = createComponent(modelMaximum, traces);
+			if(component != null) {
+				components.add(component);
+			}
+		}
+		return components;
+	}
+
+	/**
+	 * Components are co-eluting if the apex of one component is within the range of the other.
+	 * The abundance of a shared ion can't be assigned, hence it is removed from both spectra.
+	 * The components are sorted by their apex scan.
+	 */
+	private void removeSharedIons(List<Component> components) {
+
+		int maxApexDistance = 4 * peakWidth;
+		List<Set<Double>> sharedIons = new ArrayList<>();
+		for(int i = 0; i < components.size(); i++) {
+			sharedIons.add(new HashSet<>());
+		}
+		//
+		for(int i = 0; i < components.size(); i++) {
+			Component component = components.get(i);
+			for(int j = i + 1; j < components.size(); j++) {
+				Component other = components.get(j);
+				if(other.getApexScan() - component.getApexScan() > maxApexDistance) {
+					break;
+				}
+				if(isCoeluting(component, other)) {
+					for(Double ion : component.getIons().keySet()) {
+						if(other.getIons().containsKey(ion)) {
+							sharedIons.get(i).add(ion);
+							sharedIons.get(j).add(ion);
+						}
+					}
+				}
+			}
+		}
+		//
+		for(int i = 0; i < components.size(); i++) {
+			Component component = components.get(i);
+			for(Double ion : sharedIons.get(i)) {
+				if(ion != component.getModelIon()) {
+					component.removeIon(ion);
+				}
+			}
+		}
+	}
+
+	private boolean isCoeluting(Component component, Component other) {
+
+		return isWithinRange(component.getApexScan(), other) || isWithinRange(other.getApexScan(), component);
+	}
+
+	private boolean isWithinRange(int scan, Component component) {
+
+		return scan >= component.getStartScan() && scan <= component.getStopScan();
+	}
+
+	private void collectMaxima(IonTrace trace, int startScan, int stopScan, List<Maximum> maxima) {
+
+		float[] values = trace.values;
+		int halfWidth = Math.max(1, peakWidth / 2);
+		for(int scan = startScan; scan < stopScan; scan++) {
+			float value = values[scan];
+			if(value <= 0.0f || !isLocalMaximum(values, scan, halfWidth)) {
+				continue;
+			}
+			float height = value - getMinimum(values, scan - peakWidth, scan + peakWidth);
+			if(height > 0.0f && height >= minModelIonSignalToNoiseRatio * trace.noise) {
+				maxima.add(new Maximum(trace, scan, getSharpness(values, scan, halfWidth, trace.noise)));
+			}
+		}
+	}
+
+	/**
+	 * The first scan of a plateau is the maximum.
+	 */
+	private boolean isLocalMaximum(float[] values, int scan, int halfWidth) {
+
+		float value = values[scan];
+		int start = Math.max(0, scan - halfWidth);
+		int stop = Math.min(values.length - 1, scan + halfWidth);
+		for(int i = start; i <= stop; i++) {
+			if(values[i] > value || (i < scan && values[i] == value)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * The sharpness is the mean of the steepest slope on each side, in units of noise per scan.
+	 */
+	private float getSharpness(float[] values, int scan, int halfWidth, float noise) {
+
+		float value = values[scan];
+		float left = 0.0f;
+		float right = 0.0f;
+		for(int k = 1; k <= halfWidth; k++) {
+			if(scan - k >= 0) {
+				left = Math.max(left, (value - values[scan - k]) / k);
+			}
+			if(scan + k < values.length) {
+				right = Math.max(right, (value - values[scan + k]) / k);
+			}
+		}
+		return (left + right) / (2.0f * noise);
+	}
+
+	private Component createComponent(Maximum modelMaximum, IonTrace[] traces) {
+
+		float[] values = modelMaximum.trace.values;
+		float noise = modelMaximum.trace.noise;
+		int apex = modelMaximum.scan;
+		int limit = 2 * peakWidth;
+		float floor = getMinimum(values, apex - limit, apex + limit) + noise;
+		/*
+		 * Follow the model ion down to the baseline on both sides.
+		 */
+		int start = apex;
+		while(start > 0 && apex - start < limit && values[start] > floor && values[start - 1] <= values[start] + noise) {
+			start--;
+		}
+		int stop = apex;
+		while(stop < values.length - 1 && stop - apex < limit && values[stop] > floor && values[stop + 1] <= values[stop] + noise) {
+			stop++;
+		}
+		if(stop - start + 1 < MIN_SCANS) {
+			return null;
+		}
+		/*
+		 * Remove the linear baseline and normalize the shape.
+		 */
+		double[] shape = new double[stop - start + 1];
+		double startValue = values[start];
+		double slope = (values[stop] - startValue) / (stop - start);
+		for(int i = 0; i < shape.length; i++) {
+			shape[i] = Math.max(0.0d, values[start + i] - (startValue + slope * i));
+		}
+		double apexHeight = shape[apex - start];
+		if(apexHeight <= 0.0d) {
+			return null;
+		}
+		for(int i = 0; i < shape.length; i++) {
+			shape[i] /= apexHeight;
+		}
+		//
+		Component component = new Component(modelMaximum.trace.ion, apex, start, shape);
+		for(IonTrace trace : traces) {
+			float abundance = getPurifiedAbundance(trace, start, shape);
+			if(abundance > 0.0f) {
+				component.addIon(trace.ion, abundance);
+			}
+		}
+		return component;
+	}
+
+	/**
+	 * Fits the trace by a * shape + b. The scale a is the abundance at the apex,
+	 * as the shape is 1 at the apex. Returns 0 if the trace doesn't match the shape.
+	 */
+	private float getPurifiedAbundance(IonTrace trace, int start, double[] shape) {
+
+		float[] values = trace.values;
+		int n = shape.length;
+		double sumShape = 0.0d;
+		double sumValue = 0.0d;
+		double sumShapeShape = 0.0d;
+		double sumValueValue = 0.0d;
+		double sumShapeValue = 0.0d;
+		for(int i = 0; i < n; i++) {
+			double model = shape[i];
+			double value = values[start + i];
+			sumShape += model;
+			sumValue += value;
+			sumShapeShape += model * model;
+			sumValueValue += value * value;
+			sumShapeValue += model * value;
+		}
+		double covariance = sumShapeValue - sumShape * sumValue / n;
+		double varianceShape = sumShapeShape - sumShape * sumShape / n;
+		double varianceValue = sumValueValue - sumValue * sumValue / n;
+		if(covariance <= 0.0d || varianceShape <= 0.0d || varianceValue <= 0.0d) {
+			return 0.0f;
+		}
+		//
+		double correlation = covariance / Math.sqrt(varianceShape * varianceValue);
+		if(correlation < minShapeCorrelation) {
+			return 0.0f;
+		}
+		double abundance = covariance / varianceShape;
+		return (abundance > trace.noise) ? (float)abundance : 0.0f;
+	}
+
+	private static float getMinimum(float[] values, int start, int stop) {
+
+		float minimum = Float.MAX_VALUE;
+		for(int i = Math.max(0, start); i <= Math.min(values.length - 1, stop); i++) {
+			minimum = Math.min(minimum, values[i]);
+		}
+		return minimum;
+	}
+
+	private static final class IonTrace {
+
+		private final double ion;
+		private final float[] values;
+		private final float noise;
+
+		private IonTrace(double ion, float[] values) {
+
+			this.ion = ion;
+			this.values = values;
+			this.noise = calculateNoise(values);
+		}
+
+		/*
+		 * Median of the absolute differences. Noise free traces use the smallest
+		 * positive difference instead, to keep the S/N finite.
+		 */
+		private static float calculateNoise(float[] values) {
+
+			if(values.length < 2) {
+				return Float.MIN_NORMAL;
+			}
+			float[] differences = new float[values.length - 1];
+			float minDifference = Float.MAX_VALUE;
+			for(int i = 1; i < values.length; i++) {
+				float difference = Math.abs(values[i] - values[i - 1]);
+				differences[i - 1] = difference;
+				if(difference > 0.0f && difference < minDifference) {
+					minDifference = difference;
+				}
+			}
+			Arrays.sort(differences);
+			float median = differences[differences.length / 2];
+			if(median > 0.0f) {
+				return median;
+			}
+			return (minDifference < Float.MAX_VALUE) ? minDifference : Float.MIN_NORMAL;
+		}
+	}
+
+	private static final class Maximum {
+
+		private final IonTrace trace;
+		private final int scan;
+		private final float sharpness;
+
+		private Maximum(IonTrace trace, int scan, float sharpness) {
+
+			this.trace = trace;
+			this.scan = scan;
+			this.sharpness = sharpness;
+		}
+	}
+}
@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Lablicate GmbH.
+ *
+ * All rights reserved.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Dr. Philip Wenig - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.chemclipse.chromatogram.msd.peak.detector.supplier.amdis.internal.deconvolution;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.chemclipse.chromatogram.msd.peak.detector.supplier.amdis.settings.PeakDetectorDeconvolutionSettings;
+import org.eclipse.chemclipse.chromatogram.msd.peak.detector.supplier.amdis.support.PeakProcessorSupport;
+import org.eclipse.chemclipse.model.core.IPeakIntensityValues;
+import org.eclipse.chemclipse.model.exceptions.AbundanceLimitExceededException;
+import org.eclipse.chemclipse.model.exceptions.PeakException;
+import org.eclipse.chemclipse.model.implementation.PeakIntensityValues;
+import org.eclipse.chemclipse.msd.model.core.IChromatogramMSD;
+import org.eclipse.chemclipse.msd.model.core.IChromatogramPeakMSD;
+import org.eclipse.chemclipse.msd.model.core.IPeakMassSpectrum;
+import org.eclipse.chemclipse.msd.model.core.IPeakModelMSD;
+import org.eclipse.chemclipse.msd.model.core.selection.IChromatogramSelectionMSD;
+import org.eclipse.chemclipse.msd.model.exceptions.IonLimitExceededException;
+import org.eclipse.chemclipse.msd.model.implementation.ChromatogramPeakMSD;
+import org.eclipse.chemclipse.msd.model.implementation.PeakIon;
+import org.eclipse.chemclipse.msd.model.implementation.PeakMassSpectrum;
+import org.eclipse.chemclipse.msd.model.implementation.PeakModelMSD;
+import org.eclipse.chemclipse.msd.model.matrix.ExtractedMatrix;
+import org.eclipse.chemclipse.processing.core.DefaultProcessingResult;
+import org.eclipse.chemclipse.processing.core.IProcessingResult;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.SubMonitor;
+
+/**
+ * Deconvolutes the chromatogram selection within the JVM, no export to AMDIS is required.
+ */
+public class DeconvolutionIdentifier {
+
+	public static final String IDENTIFIER = "Deconvolution Identifier";
+	public static final String DETECTOR_DESCRIPTION = "Deconvolution";
+
+	public IProcessingResult<Void> calculateAndSetDeconvolutedPeaks(IChromatogramSelectionMSD chromatogramSelection, PeakDetectorDeconvolutionSettings peakDetectorSettings, IProgressMonitor monitor) {
+
+		SubMonitor subMonitor = SubMonitor.convert(monitor, "Deconvolute the chromatogram", 100);
+		DefaultProcessingResult<Void> result = new DefaultProcessingResult<>();
+		/*
+		 * Ion traces
+		 */
+		ExtractedMatrix extractedMatrix = new ExtractedMatrix(chromatogramSelection);
+		if(extractedMatrix.getNumberOfScans() == 0 || extractedMatrix.getNumberOfColumns() == 0) {
+			result.addWarnMessage(IDENTIFIER, "The chromatogram selection contains no ions.");
+			return result;
+		}
+		subMonitor.worked(20);
+		/*
+		 * Components
+		 */
+		ComponentPerception componentPerception = new ComponentPerception(peakDetectorSettings);
+		List<Component> components = componentPerception.process(extractedMatrix);
+		subMonitor.worked(60);
+		/*
+		 * Peaks
+		 */
+		IChromatogramMSD chromatogram = chromatogramSelection.getChromatogram();
+		int[] retentionTimes = extractedMatrix.getRetentionTimes();
+		List<IChromatogramPeakMSD> peaks = new ArrayList<>();
+		for(Component component : components) {
+			try {
+				peaks.add(createPeak(chromatogram, component, retentionTimes));
+			} catch(IllegalArgumentException | PeakException | AbundanceLimitExceededException | IonLimitExceededException e) {
+				result.addWarnMessage(IDENTIFIER, "Adding the component failed: " + e);
+			}
+		}
+		result.addMessages(PeakProcessorSupport.insertChromatogramPeaks(chromatogramSelection, peaks, peakDetectorSettings));
+		subMonitor.worked(20);
+		return result;
+	}
+
+	private IChromatogramPeakMSD createPeak(IChromatogramMSD chromatogram, Component component, int[] retentionTimes) throws IllegalArgumentException, PeakException, AbundanceLimitExceededException, IonLimitExceededException {
+
+		/*
+		 * The intensity values need to be normalized, the
+		 * purified mass spectrum holds the signal at the apex.
+		 */
+		IPeakIntensityValues peakIntensityValues = new PeakIntensityValues(Float.MAX_VALUE);
+		double[] shape = component.getShape();
+		int startScan = component.getStartScan();
+		for(int i = 0; i < shape.length; i++) {
+			peakIntensityValues.addIntensityValue(retentionTimes[startScan + i], (float)shape[i]);
+		}
+		peakIntensityValues.normalize();
+		//
+		IPeakMassSpectrum peakMassSpectrum = new PeakMassSpectrum();
+		for(Map.Entry<Double, Float> ion : component.getIons().entrySet()) {
+			peakMassSpectrum.addIon(new PeakIon(ion.getKey(), ion.getValue()));
+		}
+		//
+		IPeakModelMSD peakModel = new PeakModelMSD(peakMassSpectrum, peakIntensityValues, 0.0f, 0.0f);
+		IChromatogramPeakMSD chromatogramPeak = new ChromatogramPeakMSD(peakModel, chromatogram);
+		chromatogramPeak.setDetectorDescription(DETECTOR_DESCRIPTION);
+		return chromatogramPeak;
+	}
+}
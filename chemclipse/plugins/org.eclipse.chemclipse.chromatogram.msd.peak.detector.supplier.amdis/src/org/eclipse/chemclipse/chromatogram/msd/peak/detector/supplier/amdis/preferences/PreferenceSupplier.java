@@ -16,6 +16,7 @@ import java.util.Map;
 
 import org.eclipse.chemclipse.chromatogram.msd.peak.detector.supplier.amdis.Activator;
 import org.eclipse.chemclipse.chromatogram.msd.peak.detector.supplier.amdis.settings.IOnsiteSettings;
+import org.eclipse.chemclipse.chromatogram.msd.peak.detector.supplier.amdis.settings.PeakDetectorDeconvolutionSettings;
 import org.eclipse.chemclipse.chromatogram.msd.peak.detector.supplier.amdis.settings.PeakDetectorELUSettings;
 import org.eclipse.chemclipse.chromatogram.msd.peak.detector.supplier.amdis.settings.PeakDetectorSettings;
 import org.eclipse.chemclipse.support.preferences.IPreferenceSupplier;
@@ -202,6 +203,14 @@ public class PreferenceSupplier implements IPreferenceSupplier {
 		return peakDetectorSettings;
 	}
 
+	public static PeakDetectorDeconvolutionSettings getPeakDetectorDeconvolutionSettings() {
+
+		PeakDetectorDeconvolutionSettings peakDetectorSettings = new PeakDetectorDeconvolutionSettings();
+		setPeakDetectorSettings(peakDetectorSettings);
+		//
+		return peakDetectorSettings;
+	}
+
 	public static void setPeakDetectorSettings(PeakDetectorSettings peakDetectorSettings) {
 
 		IEclipsePreferences preferences = INSTANCE().getPreferences();
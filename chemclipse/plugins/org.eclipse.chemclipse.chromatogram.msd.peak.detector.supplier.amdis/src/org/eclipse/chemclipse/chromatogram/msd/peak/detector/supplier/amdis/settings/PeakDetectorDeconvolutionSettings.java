@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Lablicate GmbH.
+ *
+ * All rights reserved.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Dr. Philip Wenig - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.chemclipse.chromatogram.msd.peak.detector.supplier.amdis.settings;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class PeakDetectorDeconvolutionSettings extends PeakDetectorSettings {
+
+	public static final int MIN_PEAK_WIDTH = 3;
+	public static final int MAX_PEAK_WIDTH = 100;
+	//
+	@JsonProperty(value = "Peak Width (Scans)", defaultValue = "12")
+	private int peakWidth = 12;
+	@JsonProperty(value = "Min Model Ion S/N", defaultValue = "10.0")
+	private float minModelIonSignalToNoiseRatio = 10.0f;
+	@JsonProperty(value = "Min Shape Correlation", defaultValue = "0.9")
+	private float minShapeCorrelation = 0.9f;
+	@JsonProperty(value = "Min Number of Ions", defaultValue = "3")
+	private int minNumberOfIons = 3;
+	@JsonProperty(value = "Omitted m/z", defaultValue = "18 28")
+	private String omittedIons = "18 28";
+
+	public int getPeakWidth() {
+
+		return peakWidth;
+	}
+
+	public void setPeakWidth(int peakWidth) {
+
+		this.peakWidth = Math.max(MIN_PEAK_WIDTH, Math.min(MAX_PEAK_WIDTH, peakWidth));
+	}
+
+	public float getMinModelIonSignalToNoiseRatio() {
+
+		return minModelIonSignalToNoiseRatio;
+	}
+
+	public void setMinModelIonSignalToNoiseRatio(float minModelIonSignalToNoiseRatio) {
+
+		this.minModelIonSignalToNoiseRatio = minModelIonSignalToNoiseRatio;
+	}
+
+	public float getMinShapeCorrelation() {
+
+		return minShapeCorrelation;
+	}
+
+	public void setMinShapeCorrelation(float minShapeCorrelation) {
+
+		this.minShapeCorrelation = minShapeCorrelation;
+	}
+
+	public int getMinNumberOfIons() {
+
+		return minNumberOfIons;
+	}
+
+	public void setMinNumberOfIons(int minNumberOfIons) {
+
+		this.minNumberOfIons = minNumberOfIons;
+	}
+
+	public String getOmittedIons() {
+
+		return omittedIons;
+	}
+
+	public void setOmittedIons(String omittedIons) {
+
+		this.omittedIons = omittedIons;
+	}
+
+	/**
+	 * Returns the nominal m/z values that shall be omitted, e.g. "18 28" -> 18, 28.
+	 *
+	 * @return {@link Set}
+	 */
+	@JsonIgnore
+	public Set<Integer> getOmittedIonSet() {
+
+		Set<Integer> ions = new HashSet<>();
+		if(omittedIons != null) {
+			for(String value : omittedIons.trim().split("[\\s,;]+")) {
+				try {
+					int ion = Integer.parseInt(value);
+					if(ion > 0) {
+						ions.add(ion);
+					}
+				} catch(NumberFormatException e) {
+					// Skip invalid values.
+				}
+			}
+		}
+		return ions;
+	}
+}
@@ -109,15 +109,7 @@ public class PeakProcessorSupport {
 							/*
 							 * Add the peak.
 							 */
-							int retentionTimeMax = chromatogramPeakMSD.getPeakModel().getRetentionTimeAtPeakMaximum();
-							if(peakDetectorSettings.isFilterModelPeaks()) {
-								if(!peakMaxRetentionTimes.contains(retentionTimeMax)) {
-									peakMaxRetentionTimes.add(retentionTimeMax);
-									chromatogram.addPeak(chromatogramPeakMSD);
-								}
-							} else {
-								chromatogram.addPeak(chromatogramPeakMSD);
-							}
+							addPeak(chromatogram, chromatogramPeakMSD, peakDetectorSettings, peakMaxRetentionTimes);
 						} catch(Exception e) {
 							result.addWarnMessage(AmdisIdentifier.IDENTIFIER, "Pre check failed for peak: " + e);
 						}
@@ -132,6 +124,45 @@ public class PeakProcessorSupport {
 		return result;
 	}
 
+	/**
+	 * Adds the peaks that are within the chromatogram selection and match the settings.
+	 *
+	 * @param chromatogramSelection
+	 * @param peaks
+	 * @param peakDetectorSettings
+	 * @return {@link IProcessingResult}
+	 */
+	public static IProcessingResult<Void> insertChromatogramPeaks(IChromatogramSelectionMSD chromatogramSelection, List<IChromatogramPeakMSD> peaks, PeakDetectorSettings peakDetectorSettings) {
+
+		DefaultProcessingResult<Void> result = new DefaultProcessingResult<>();
+		IChromatogramMSD chromatogram = chromatogramSelection.getChromatogram();
+		int startRetentionTime = chromatogramSelection.getStartRetentionTime();
+		int stopRetentionTime = chromatogramSelection.getStopRetentionTime();
+		Set<Integer> peakMaxRetentionTimes = new HashSet<>();
+		//
+		for(IChromatogramPeakMSD peak : peaks) {
+			if(isValidPeak(peak, startRetentionTime, stopRetentionTime, peakDetectorSettings)) {
+				addPeak(chromatogram, peak, peakDetectorSettings, peakMaxRetentionTimes);
+			}
+		}
+		return result;
+	}
+
+	/*
+	 * If model peaks are filtered, only the first peak at a retention time is added.
+	 */
+	private static void addPeak(IChromatogramMSD chromatogram, IChromatogramPeakMSD peak, PeakDetectorSettings peakDetectorSettings, Set<Integer> peakMaxRetentionTimes) {
+
+		int retentionTimeMax = peak.getPeakModel().getRetentionTimeAtPeakMaximum();
+		if(peakDetectorSettings.isFilterModelPeaks()) {
+			if(peakMaxRetentionTimes.add(retentionTimeMax)) {
+				chromatogram.addPeak(peak);
+			}
+		} else {
+			chromatogram.addPeak(peak);
+		}
+	}
+
 	private static boolean isValidPeak(IChromatogramPeakMSD peak, int startRetentionTime, int stopRetentionTime, PeakDetectorSettings peakDetectorSettings) {
 
 		/*
@@ -15,6 +15,7 @@ import org.eclipse.chemclipse.chromatogram.msd.process.supplier.batchprocess.pre
 import org.eclipse.chemclipse.chromatogram.msd.process.supplier.batchprocess.ui.Activator;
 import org.eclipse.jface.preference.DirectoryFieldEditor;
 import org.eclipse.jface.preference.FieldEditorPreferencePage;
+import org.eclipse.jface.preference.IntegerFieldEditor;
 import org.eclipse.ui.IWorkbench;
 import org.eclipse.ui.IWorkbenchPreferencePage;
 
@@ -35,6 +36,9 @@ public class PreferencePage extends FieldEditorPreferencePage implements IWorkbe
 	public void createFieldEditors() {
 
 		addField(new DirectoryFieldEditor(PreferenceSupplier.P_FILTER_PATH_IMPORT_RECORDS, "Path Import Records", getFieldEditorParent()));
+		IntegerFieldEditor parallelism = new IntegerFieldEditor(PreferenceSupplier.P_PARALLELISM, "Chromatograms processed in parallel", getFieldEditorParent());
+		parallelism.setValidRange(PreferenceSupplier.MIN_PARALLELISM, PreferenceSupplier.MAX_PARALLELISM);
+		addField(parallelism);
 	}
 
 	/*
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010, 2018 Lablicate GmbH.
+ * Copyright (c) 2010, 2020 Lablicate GmbH.
  * 
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -18,6 +18,7 @@ import java.io.IOException;
 import org.eclipse.chemclipse.chromatogram.msd.process.supplier.batchprocess.core.BatchProcess;
 import org.eclipse.chemclipse.chromatogram.msd.process.supplier.batchprocess.io.JobReader;
 import org.eclipse.chemclipse.chromatogram.msd.process.supplier.batchprocess.model.BatchProcessJob;
+import org.eclipse.chemclipse.chromatogram.msd.process.supplier.batchprocess.preferences.PreferenceSupplier;
 import org.eclipse.chemclipse.converter.exceptions.FileIsEmptyException;
 import org.eclipse.chemclipse.converter.exceptions.FileIsNotReadableException;
 import org.eclipse.chemclipse.logging.core.Logger;
@@ -28,6 +29,10 @@ import org.eclipse.chemclipse.xxd.process.support.ProcessTypeSupport;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.NullProgressMonitor;
 
+/**
+ * -batchfile /path/to/job.obj [parallelism]
+ * The optional parallelism defines the number of chromatograms processed at the same time.
+ */
 public class Processor extends AbstractCommandLineProcessor implements ICommandLineProcessor {
 
 	private static final Logger logger = Logger.getLogger(Processor.class);
@@ -41,13 +46,14 @@ public class Processor extends AbstractCommandLineProcessor implements ICommandL
 		JobReader reader = new JobReader();
 		String filePath = args[0].trim();
 		File file = new File(filePath);
+		int parallelism = getParallelism(args);
 		try {
 			IProgressMonitor monitor = new NullProgressMonitor();
 			logger.info("Read batch process");
 			BatchProcessJob batchProcessJob = reader.read(file, monitor);
-			logger.info("Execute batch process");
+			logger.info("Execute batch process (parallelism: " + parallelism + ")");
 			BatchProcess bp = new BatchProcess(new DataType[]{DataType.CSD, DataType.MSD, DataType.WSD}, new ProcessTypeSupport());
-			bp.execute(batchProcessJob, monitor);
+			bp.execute(batchProcessJob, parallelism, monitor);
 		} catch(FileNotFoundException e) {
 			logger.warn(e);
 		} catch(FileIsNotReadableException e) {
@@ -58,4 +64,16 @@ public class Processor extends AbstractCommandLineProcessor implements ICommandL
 			logger.warn(e);
 		}
 	}
+
+	private int getParallelism(String[] args) {
+
+		if(args.length > 1) {
+			try {
+				return PreferenceSupplier.getValidParallelism(Integer.parseInt(args[1].trim()));
+			} catch(NumberFormatException e) {
+				logger.warn("The parallelism is not a valid number: " + args[1]);
+			}
+		}
+		return PreferenceSupplier.getParallelism();
+	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010, 2019 Lablicate GmbH.
+ * Copyright (c) 2010, 2020 Lablicate GmbH.
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -12,12 +12,25 @@
  *******************************************************************************/
 package org.eclipse.chemclipse.chromatogram.msd.process.supplier.batchprocess.core;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.eclipse.chemclipse.chromatogram.msd.process.supplier.batchprocess.internal.support.MemoryAdmission;
 import org.eclipse.chemclipse.chromatogram.msd.process.supplier.batchprocess.model.BatchProcessJob;
+import org.eclipse.chemclipse.chromatogram.msd.process.supplier.batchprocess.preferences.PreferenceSupplier;
 import org.eclipse.chemclipse.converter.model.IChromatogramInputEntry;
 import org.eclipse.chemclipse.logging.core.Logger;
 import org.eclipse.chemclipse.model.selection.IChromatogramSelection;
 import org.eclipse.chemclipse.model.supplier.IChromatogramSelectionProcessSupplier;
 import org.eclipse.chemclipse.model.types.DataType;
+import org.eclipse.chemclipse.model.updates.ChromatogramUpdateDispatcher;
 import org.eclipse.chemclipse.processing.core.IProcessingInfo;
 import org.eclipse.chemclipse.processing.core.ProcessingInfo;
 import org.eclipse.chemclipse.processing.core.exceptions.TypeCastException;
@@ -28,11 +41,21 @@ import org.eclipse.chemclipse.processing.supplier.ProcessSupplierContext;
 import org.eclipse.chemclipse.xxd.process.support.ChromatogramTypeSupport;
 import org.eclipse.chemclipse.xxd.process.support.ProcessTypeSupport;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.SubMonitor;
 
 public class BatchProcess {
 
 	private static final Logger logger = Logger.getLogger(BatchProcess.class);
 	private static final String DESCRIPTION = "Batch Processor";
+	/*
+	 * A loaded and processed chromatogram needs several times the size of its file.
+	 * The chromatograms processed in parallel may use the given share of the max heap.
+	 */
+	private static final long MEMORY_FACTOR = 10;
+	private static final double MEMORY_BUDGET = 0.75d;
+	private static final long CANCEL_CHECK_INTERVAL = 500; // milliseconds
+	//
 	private final ChromatogramTypeSupport chromatogramTypeSupport;
 	private final ProcessSupplierContext processSupplierContext;
 
@@ -46,8 +69,31 @@ public class BatchProcess {
 		chromatogramTypeSupport = new ChromatogramTypeSupport(dataTypes);
 	}
 
+	/**
+	 * Executes the job with the parallelism stored in the preferences.
+	 *
+	 * @param batchProcessJob
+	 * @param monitor
+	 * @return {@link IProcessingInfo}
+	 */
 	public IProcessingInfo<?> execute(BatchProcessJob batchProcessJob, IProgressMonitor monitor) {
 
+		return execute(batchProcessJob, PreferenceSupplier.getParallelism(), monitor);
+	}
+
+	/**
+	 * Executes the job. If the parallelism is greater than 1, the given number of chromatograms
+	 * is loaded, processed and written at the same time. The messages are collected per
+	 * chromatogram and added in the order of the input entries, independent of the completion order.
+	 * The processors of the method run concurrently then, hence they must not share unsynchronized state.
+	 *
+	 * @param batchProcessJob
+	 * @param parallelism
+	 * @param monitor
+	 * @return {@link IProcessingInfo}
+	 */
+	public IProcessingInfo<?> execute(BatchProcessJob batchProcessJob, int parallelism, IProgressMonitor monitor) {
+
 		IProcessingInfo<?> processingInfo = new ProcessingInfo<>();
 		/*
 		 * The batch process jobs must not be null.
@@ -56,28 +102,133 @@ public class BatchProcess {
 			processingInfo.addErrorMessage(DESCRIPTION, "The batch job and/or process method was null.");
 		} else {
 			IProcessMethod processMethod = batchProcessJob.getProcessMethod();
-			for(IChromatogramInputEntry chromatogramInput : batchProcessJob.getChromatogramInputEntries()) {
-				String pathChromatogram = chromatogramInput.getInputFile();
-				IProcessingInfo<IChromatogramSelection<?, ?>> processingInfoX = chromatogramTypeSupport.getChromatogramSelection(pathChromatogram, monitor);
-				if(!processingInfoX.hasErrorMessages()) {
-					try {
-						IChromatogramSelection<?, ?> chromatogramSelection = processingInfoX.getProcessingResult();
-						ProcessingInfo<?> processorResult = new ProcessingInfo<>();
-						ProcessEntryContainer.applyProcessEntries(processMethod, new ProcessExecutionContext(monitor, processorResult, processSupplierContext), IChromatogramSelectionProcessSupplier.createConsumer(chromatogramSelection));
-						if(processorResult.hasErrorMessages()) {
-							processingInfo.addErrorMessage(DESCRIPTION, "Processing: " + pathChromatogram + " failed");
-						} else {
-							processingInfo.addInfoMessage(DESCRIPTION, "Processing: " + pathChromatogram + " completed");
-						}
-						processingInfo.addMessages(processorResult);
-					} catch(TypeCastException e) {
-						logger.warn(e);
-						processingInfo.addErrorMessage(DESCRIPTION, "Failure to process: " + pathChromatogram);
-					}
-				} else {
+			List<IChromatogramInputEntry> chromatogramInputs = batchProcessJob.getChromatogramInputEntries();
+			int threads = Math.min(parallelism, chromatogramInputs.size());
+			if(threads > 1) {
+				executeParallel(processMethod, chromatogramInputs, threads, processingInfo, monitor);
+			} else {
+				for(IChromatogramInputEntry chromatogramInput : chromatogramInputs) {
+					processingInfo.addMessages(process(processMethod, chromatogramInput, monitor));
+				}
+			}
+		}
+		return processingInfo;
+	}
+
+	private void executeParallel(IProcessMethod processMethod, List<IChromatogramInputEntry> chromatogramInputs, int threads, IProcessingInfo<?> processingInfo, IProgressMonitor monitor) {
+
+		SubMonitor subMonitor = SubMonitor.convert(monitor, DESCRIPTION, chromatogramInputs.size());
+		MemoryAdmission memoryAdmission = new MemoryAdmission((long)(Runtime.getRuntime().maxMemory() * MEMORY_BUDGET));
+		ExecutorService executorService = Executors.newFixedThreadPool(threads);
+		boolean canceled = false;
+		try {
+			List<Future<IProcessingInfo<?>>> futures = new ArrayList<>();
+			for(IChromatogramInputEntry chromatogramInput : chromatogramInputs) {
+				futures.add(executorService.submit(() -> process(processMethod, chromatogramInput, memoryAdmission)));
+			}
+			/*
+			 * Collect the results in the order of the input entries.
+			 */
+			for(int i = 0; i < futures.size(); i++) {
+				String pathChromatogram = chromatogramInputs.get(i).getInputFile();
+				subMonitor.subTask(pathChromatogram);
+				Future<IProcessingInfo<?>> future = futures.get(i);
+				try {
+					processingInfo.addMessages(waitFor(future, subMonitor));
+				} catch(ExecutionException e) {
+					logger.warn(e);
 					processingInfo.addErrorMessage(DESCRIPTION, "Failure to process: " + pathChromatogram);
+				} catch(InterruptedException e) {
+					Thread.currentThread().interrupt();
+					processingInfo.addWarnMessage(DESCRIPTION, "The batch process has been interrupted.");
+					canceled = true;
+					return;
 				}
+				//
+				if(subMonitor.isCanceled()) {
+					processingInfo.addWarnMessage(DESCRIPTION, "The batch process has been canceled.");
+					canceled = true;
+					return;
+				}
+				subMonitor.worked(1);
+			}
+		} finally {
+			/*
+			 * If the process has been canceled, waiting jobs are skipped and running jobs are interrupted.
+			 * In both cases, the running jobs have finished when this method returns.
+			 */
+			if(canceled) {
+				executorService.shutdownNow();
+			} else {
+				executorService.shutdown();
+			}
+			awaitTermination(executorService);
+		}
+	}
+
+	private void awaitTermination(ExecutorService executorService) {
+
+		try {
+			while(!executorService.awaitTermination(CANCEL_CHECK_INTERVAL, TimeUnit.MILLISECONDS)) {
+				/*
+				 * Wait until the running jobs have finished.
+				 */
 			}
+		} catch(InterruptedException e) {
+			executorService.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private IProcessingInfo<?> waitFor(Future<IProcessingInfo<?>> future, IProgressMonitor monitor) throws ExecutionException, InterruptedException {
+
+		while(true) {
+			try {
+				return future.get(CANCEL_CHECK_INTERVAL, TimeUnit.MILLISECONDS);
+			} catch(TimeoutException e) {
+				if(monitor.isCanceled()) {
+					return new ProcessingInfo<>();
+				}
+			}
+		}
+	}
+
+	private IProcessingInfo<?> process(IProcessMethod processMethod, IChromatogramInputEntry chromatogramInput, MemoryAdmission memoryAdmission) throws InterruptedException {
+
+		long memory = memoryAdmission.acquire(new File(chromatogramInput.getInputFile()).length() * MEMORY_FACTOR);
+		try {
+			return process(processMethod, chromatogramInput, new NullProgressMonitor());
+		} finally {
+			memoryAdmission.release(memory);
+		}
+	}
+
+	private IProcessingInfo<?> process(IProcessMethod processMethod, IChromatogramInputEntry chromatogramInput, IProgressMonitor monitor) {
+
+		IProcessingInfo<?> processingInfo = new ProcessingInfo<>();
+		String pathChromatogram = chromatogramInput.getInputFile();
+		IProcessingInfo<IChromatogramSelection<?, ?>> processingInfoX = chromatogramTypeSupport.getChromatogramSelection(pathChromatogram, monitor);
+		if(!processingInfoX.hasErrorMessages()) {
+			try {
+				IChromatogramSelection<?, ?> chromatogramSelection = processingInfoX.getProcessingResult();
+				/*
+				 * The chromatogram is not displayed, hence there is no need to inform listeners.
+				 */
+				chromatogramSelection.getChromatogram().getUpdateDispatcher().setMode(ChromatogramUpdateDispatcher.Mode.DISABLED);
+				ProcessingInfo<?> processorResult = new ProcessingInfo<>();
+				ProcessEntryContainer.applyProcessEntries(processMethod, new ProcessExecutionContext(monitor, processorResult, processSupplierContext), IChromatogramSelectionProcessSupplier.createConsumer(chromatogramSelection));
+				if(processorResult.hasErrorMessages()) {
+					processingInfo.addErrorMessage(DESCRIPTION, "Processing: " + pathChromatogram + " failed");
+				} else {
+					processingInfo.addInfoMessage(DESCRIPTION, "Processing: " + pathChromatogram + " completed");
+				}
+				processingInfo.addMessages(processorResult);
+			} catch(TypeCastException e) {
+				logger.warn(e);
+				processingInfo.addErrorMessage(DESCRIPTION, "Failure to process: " + pathChromatogram);
+			}
+		} else {
+			processingInfo.addErrorMessage(DESCRIPTION, "Failure to process: " + pathChromatogram);
 		}
 		return processingInfo;
 	}
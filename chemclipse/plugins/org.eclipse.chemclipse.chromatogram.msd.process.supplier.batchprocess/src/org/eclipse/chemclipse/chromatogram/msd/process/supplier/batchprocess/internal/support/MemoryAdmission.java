@@ -0,0 +1,53 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Lablicate GmbH.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Dr. Philip Wenig - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.chemclipse.chromatogram.msd.process.supplier.batchprocess.internal.support;
+
+/**
+ * Limits the estimated memory of the chromatograms that are processed at the same time.
+ * A request that is larger than the budget is admitted if no other request is active,
+ * hence each chromatogram will be processed finally.
+ */
+public class MemoryAdmission {
+
+	private final long budget;
+	private long reserved = 0;
+	private int active = 0;
+
+	public MemoryAdmission(long budget) {
+		this.budget = budget;
+	}
+
+	/**
+	 * Blocks until the requested memory is available.
+	 *
+	 * @param memory
+	 * @return the reserved memory, which must be passed to {@link #release(long)}
+	 * @throws InterruptedException
+	 */
+	public synchronized long acquire(long memory) throws InterruptedException {
+
+		long request = Math.min(Math.max(0, memory), budget);
+		while(active > 0 && reserved + request > budget) {
+			wait();
+		}
+		reserved += request;
+		active++;
+		return request;
+	}
+
+	public synchronized void release(long memory) {
+
+		reserved -= memory;
+		active--;
+		notifyAll();
+	}
+}
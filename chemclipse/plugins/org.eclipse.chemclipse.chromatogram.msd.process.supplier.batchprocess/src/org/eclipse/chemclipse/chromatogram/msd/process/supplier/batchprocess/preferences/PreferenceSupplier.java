@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2018 Lablicate GmbH.
+ * Copyright (c) 2018, 2020 Lablicate GmbH.
  * 
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -24,6 +24,10 @@ public class PreferenceSupplier implements IPreferenceSupplier {
 
 	public static final String P_FILTER_PATH_IMPORT_RECORDS = "filterPathImportRecords";
 	public static final String DEF_FILTER_PATH_IMPORT_RECORDS = "";
+	public static final String P_PARALLELISM = "parallelism";
+	public static final int DEF_PARALLELISM = 1; // sequential
+	public static final int MIN_PARALLELISM = 1;
+	public static final int MAX_PARALLELISM = 64;
 	//
 	private static IPreferenceSupplier preferenceSupplier;
 
@@ -52,6 +56,7 @@ public class PreferenceSupplier implements IPreferenceSupplier {
 
 		Map<String, String> defaultValues = new HashMap<String, String>();
 		defaultValues.put(P_FILTER_PATH_IMPORT_RECORDS, DEF_FILTER_PATH_IMPORT_RECORDS);
+		defaultValues.put(P_PARALLELISM, Integer.toString(DEF_PARALLELISM));
 		return defaultValues;
 	}
 
@@ -60,4 +65,20 @@ public class PreferenceSupplier implements IPreferenceSupplier {
 
 		return getScopeContext().getNode(getPreferenceNode());
 	}
+
+	/**
+	 * Returns the number of chromatograms that are processed in parallel.
+	 *
+	 * @return int
+	 */
+	public static int getParallelism() {
+
+		IEclipsePreferences preferences = INSTANCE().getPreferences();
+		return getValidParallelism(preferences.getInt(P_PARALLELISM, DEF_PARALLELISM));
+	}
+
+	public static int getValidParallelism(int parallelism) {
+
+		return Math.max(MIN_PARALLELISM, Math.min(MAX_PARALLELISM, parallelism));
+	}
 }
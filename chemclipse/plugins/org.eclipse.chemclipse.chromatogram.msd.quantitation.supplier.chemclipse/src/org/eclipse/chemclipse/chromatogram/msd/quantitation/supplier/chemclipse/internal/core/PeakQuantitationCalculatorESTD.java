@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2013, 2019 Lablicate GmbH.
+ * Copyright (c) 2013, 2020 Lablicate GmbH.
  * 
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -20,6 +20,7 @@ import org.eclipse.chemclipse.chromatogram.msd.quantitation.supplier.chemclipse.
 import org.eclipse.chemclipse.chromatogram.msd.quantitation.supplier.chemclipse.io.DatabaseSupport;
 import org.eclipse.chemclipse.chromatogram.msd.quantitation.supplier.chemclipse.preferences.PreferenceSupplier;
 import org.eclipse.chemclipse.model.core.IPeak;
+import org.eclipse.chemclipse.model.identifier.IIdentificationTarget;
 import org.eclipse.chemclipse.model.quantitation.IQuantitationCompound;
 import org.eclipse.chemclipse.model.quantitation.IQuantitationDatabase;
 import org.eclipse.chemclipse.model.quantitation.IQuantitationEntry;
@@ -32,6 +33,7 @@ public class PeakQuantitationCalculatorESTD extends AbstractPeakQuantitationCalc
 
 	/**
 	 * Calculates the quantitation results for each peak.
+	 * The database is shared by all calls and indexed once per batch.
 	 * 
 	 * @param peaks
 	 * @param peakQuantifierSettings
@@ -42,15 +44,17 @@ public class PeakQuantitationCalculatorESTD extends AbstractPeakQuantitationCalc
 
 		IProcessingInfo processingInfo = new ProcessingInfo();
 		DatabaseSupport databaseSupport = new DatabaseSupport();
-		IQuantitationDatabase quantitationDatabase = databaseSupport.load();
+		IQuantitationDatabase quantitationDatabase = databaseSupport.loadCached();
 		if(quantitationDatabase != null && quantitationDatabase.size() > 0) {
 			QuantitationCalculatorMSD calculator = new QuantitationCalculatorMSD();
+			QuantitationCompoundIndex quantitationCompoundIndex = new QuantitationCompoundIndex(quantitationDatabase);
+			String quantitationStrategy = PreferenceSupplier.getQuantitationStrategy();
 			for(IPeak peakMSD : peaks) {
 				/*
 				 * Try to quantify the selected peak.
 				 * The results will be added to the peak.
 				 */
-				Set<IQuantitationCompound> quantitationCompoundsMSD = getQuantitationEntries(quantitationDatabase, peakMSD);
+				Set<IQuantitationCompound> quantitationCompoundsMSD = getQuantitationEntries(quantitationCompoundIndex, quantitationStrategy, peakMSD);
 				List<IQuantitationEntry> entries = calculator.calculateQuantitationResults(peakMSD, quantitationCompoundsMSD, processingInfo);
 				for(IQuantitationEntry quantitationEntry : entries) {
 					peakMSD.addQuantitationEntry(quantitationEntry);
@@ -62,41 +66,44 @@ public class PeakQuantitationCalculatorESTD extends AbstractPeakQuantitationCalc
 		return processingInfo;
 	}
 
-	private Set<IQuantitationCompound> getQuantitationEntries(Set<IQuantitationCompound> quantitationCompounds, IPeak peakToQuantify) {
+	/**
+	 * Add the compounds that match certain conditions:
+	 * Retention Time Window
+	 * Assigned Reference
+	 * Name match
+	 * ...
+	 */
+	private Set<IQuantitationCompound> getQuantitationEntries(QuantitationCompoundIndex quantitationCompoundIndex, String quantitationStrategy, IPeak peakToQuantify) {
 
-		String quantitationStratregy = PreferenceSupplier.getQuantitationStrategy();
-		//
 		Set<IQuantitationCompound> filteredQuantitationCompounds = new HashSet<IQuantitationCompound>();
-		for(IQuantitationCompound quantitationCompound : quantitationCompounds) {
-			/*
-			 * Add the compound if it matches certain conditions:
-			 * Retention Time Window
-			 * Assigned Reference
-			 * Name match
-			 * ...
-			 */
-			switch(quantitationStratregy) {
-				case PreferenceSupplier.QUANTITATION_STRATEGY_RETENTION_TIME:
-					int retentionTime = peakToQuantify.getPeakModel().getRetentionTimeAtPeakMaximum();
+		switch(quantitationStrategy) {
+			case PreferenceSupplier.QUANTITATION_STRATEGY_RETENTION_TIME:
+				int retentionTime = peakToQuantify.getPeakModel().getRetentionTimeAtPeakMaximum();
+				for(IQuantitationCompound quantitationCompound : quantitationCompoundIndex.getQuantitationCompounds()) {
 					IRetentionTimeWindow retentionTimeWindow = quantitationCompound.getRetentionTimeWindow();
 					if(retentionTimeWindow.isRetentionTimeInWindow(retentionTime)) {
 						filteredQuantitationCompounds.add(quantitationCompound);
 					}
-					break;
-				case PreferenceSupplier.QUANTITATION_STRATEGY_REFERENCES:
-					if(doQuantify(peakToQuantify, quantitationCompound.getName())) {
-						filteredQuantitationCompounds.add(quantitationCompound);
-					}
-					break;
-				case PreferenceSupplier.QUANTITATION_STRATEGY_NAME:
-					if(isIdentifierMatch(peakToQuantify, quantitationCompound.getName())) {
-						filteredQuantitationCompounds.add(quantitationCompound);
+				}
+				break;
+			case PreferenceSupplier.QUANTITATION_STRATEGY_REFERENCES:
+				List<String> quantitationReferences = peakToQuantify.getQuantitationReferences();
+				if(quantitationReferences.size() == 0) {
+					filteredQuantitationCompounds.addAll(quantitationCompoundIndex.getQuantitationCompounds());
+				} else {
+					for(String quantitationReference : quantitationReferences) {
+						filteredQuantitationCompounds.addAll(quantitationCompoundIndex.getQuantitationCompounds(quantitationReference));
 					}
-					break;
-				default:
-					filteredQuantitationCompounds.add(quantitationCompound);
-					break;
-			}
+				}
+				break;
+			case PreferenceSupplier.QUANTITATION_STRATEGY_NAME:
+				for(IIdentificationTarget target : peakToQuantify.getTargets()) {
+					filteredQuantitationCompounds.addAll(quantitationCompoundIndex.getQuantitationCompounds(target.getLibraryInformation().getName()));
+				}
+				break;
+			default:
+				filteredQuantitationCompounds.addAll(quantitationCompoundIndex.getQuantitationCompounds());
+				break;
 		}
 		return filteredQuantitationCompounds;
 	}
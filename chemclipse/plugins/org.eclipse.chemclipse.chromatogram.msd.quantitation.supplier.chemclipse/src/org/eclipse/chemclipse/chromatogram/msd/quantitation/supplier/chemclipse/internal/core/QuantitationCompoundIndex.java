@@ -0,0 +1,69 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Lablicate GmbH.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Dr. Philip Wenig - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.chemclipse.chromatogram.msd.quantitation.supplier.chemclipse.internal.core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.eclipse.chemclipse.model.quantitation.IQuantitationCompound;
+
+/**
+ * Maps the case normalized names to the quantitation compounds.
+ * The index is a snapshot, hence it must be created again
+ * if compounds are added, removed or renamed.
+ */
+public class QuantitationCompoundIndex {
+
+	private final List<IQuantitationCompound> quantitationCompounds;
+	private final Map<String, List<IQuantitationCompound>> nameIndex;
+
+	public QuantitationCompoundIndex(Collection<IQuantitationCompound> quantitationCompounds) {
+		this.quantitationCompounds = new ArrayList<>(quantitationCompounds);
+		this.nameIndex = new HashMap<>();
+		for(IQuantitationCompound quantitationCompound : this.quantitationCompounds) {
+			nameIndex.computeIfAbsent(normalize(quantitationCompound.getName()), key -> new ArrayList<>(1)).add(quantitationCompound);
+		}
+	}
+
+	public List<IQuantitationCompound> getQuantitationCompounds() {
+
+		return Collections.unmodifiableList(quantitationCompounds);
+	}
+
+	/**
+	 * Returns the compounds with the given name, ignoring the case and
+	 * leading/trailing whitespace. The list is empty if none matches.
+	 *
+	 * @param name
+	 * @return List
+	 */
+	public List<IQuantitationCompound> getQuantitationCompounds(String name) {
+
+		List<IQuantitationCompound> compounds = nameIndex.get(normalize(name));
+		return (compounds != null) ? Collections.unmodifiableList(compounds) : Collections.emptyList();
+	}
+
+	public int size() {
+
+		return quantitationCompounds.size();
+	}
+
+	public static String normalize(String name) {
+
+		return (name != null) ? name.trim().toLowerCase(Locale.ROOT) : "";
+	}
+}
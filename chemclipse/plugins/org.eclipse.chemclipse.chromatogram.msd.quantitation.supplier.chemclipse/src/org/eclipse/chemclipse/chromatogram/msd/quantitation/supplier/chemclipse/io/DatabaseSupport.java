@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2019 Lablicate GmbH.
+ * Copyright (c) 2019, 2020 Lablicate GmbH.
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -25,6 +25,13 @@ public class DatabaseSupport {
 
 	@SuppressWarnings("unused")
 	private static final Logger logger = Logger.getLogger(DatabaseSupport.class);
+	/*
+	 * The shared database is reloaded if the selected file has been changed.
+	 */
+	private static File cachedFile = null;
+	private static long cachedLength = -1;
+	private static long cachedLastModified = -1;
+	private static IQuantitationDatabase cachedDatabase = null;
 
 	/**
 	 * Tries to load the quantitation database from the given file.
@@ -35,16 +42,42 @@ public class DatabaseSupport {
 	 */
 	public IQuantitationDatabase load() {
 
-		IQuantitationDatabase quantitationDatabase = null;
+		return load(new File(PreferenceSupplier.getSelectedQuantitationDatabase()));
+	}
+
+	/**
+	 * Returns the selected quantitation database, which is shared by all callers.
+	 * It is loaded only if the file has been changed since the last call.
+	 * The database must not be modified, use {@link #load()} to edit it.
+	 * Result could be null if the operation failed.
+	 *
+	 * @return {@link IQuantitationDatabase}
+	 */
+	public IQuantitationDatabase loadCached() {
+
 		File file = new File(PreferenceSupplier.getSelectedQuantitationDatabase());
-		//
-		if(file != null && file.exists()) {
+		synchronized(DatabaseSupport.class) {
+			long length = file.length();
+			long lastModified = file.lastModified();
+			if(cachedDatabase == null || !file.equals(cachedFile) || length != cachedLength || lastModified != cachedLastModified) {
+				cachedDatabase = load(file);
+				cachedFile = file;
+				cachedLength = length;
+				cachedLastModified = lastModified;
+			}
+			return cachedDatabase;
+		}
+	}
 
-			IProcessingInfo<IQuantitationDatabase> processingInfo = QuantDBConverter.convert(file, new NullProgressMonitor());
-			quantitationDatabase = processingInfo.getProcessingResult();
+	/**
+	 * Forces the shared database to be loaded again on the next call of {@link #loadCached()}.
+	 */
+	public static void clearCache() {
+
+		synchronized(DatabaseSupport.class) {
+			cachedFile = null;
+			cachedDatabase = null;
 		}
-		//
-		return quantitationDatabase;
 	}
 
 	public void save(IQuantitationDatabase quantitationDatabase) {
@@ -54,7 +87,18 @@ public class DatabaseSupport {
 			String converterId = quantitationDatabase.getConverterId();
 			if(file != null && file.exists() && !"".equals(converterId)) {
 				QuantDBConverter.convert(file, quantitationDatabase, converterId, new NullProgressMonitor());
+				clearCache();
 			}
 		}
 	}
+
+	private IQuantitationDatabase load(File file) {
+
+		IQuantitationDatabase quantitationDatabase = null;
+		if(file.exists()) {
+			IProcessingInfo<IQuantitationDatabase> processingInfo = QuantDBConverter.convert(file, new NullProgressMonitor());
+			quantitationDatabase = processingInfo.getProcessingResult();
+		}
+		return quantitationDatabase;
+	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2014, 2019 Lablicate GmbH.
+ * Copyright (c) 2014, 2020 Lablicate GmbH.
  * 
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -27,6 +27,7 @@ import org.eclipse.chemclipse.model.support.IAnalysisSegment;
 import org.eclipse.chemclipse.model.support.NoiseSegment;
 import org.eclipse.chemclipse.model.support.SegmentValidator;
 import org.eclipse.chemclipse.numeric.statistics.Calculations;
+import org.eclipse.chemclipse.numeric.statistics.RunningStatistics;
 import org.eclipse.core.runtime.IProgressMonitor;
 
 /*
@@ -61,14 +62,16 @@ public class NoiseCalculator implements INoiseCalculator {
 
 		if(chromatogram != null) {
 			List<NoiseSegment> noiseSegments = getNoiseSegments(chromatogram, null);
-			List<Double> deltaNoiseHeights = new ArrayList<Double>();
+			double[] deltaNoiseHeights = new double[noiseSegments.size()];
+			int index = 0;
 			for(NoiseSegment noiseSegment : noiseSegments) {
-				deltaNoiseHeights.add(noiseSegment.getNoiseFactor());
+				deltaNoiseHeights[index++] = noiseSegment.getNoiseFactor();
 			}
 			/*
-			 * Calculate the mean value of the standard deviations.
+			 * Calculate the median value of the delta noise heights.
+			 * The array is not used afterwards, hence it can be reordered.
 			 */
-			double medianNoiseHeight = Calculations.getMedian(deltaNoiseHeights);
+			double medianNoiseHeight = Calculations.getMedianInPlace(deltaNoiseHeights, deltaNoiseHeights.length);
 			if(medianNoiseHeight > 0) {
 				return (float)medianNoiseHeight;
 			} else {
@@ -95,19 +98,21 @@ public class NoiseCalculator implements INoiseCalculator {
 		 * Get the total signal values.
 		 */
 		double[] values = new double[segmentWidth];
+		RunningStatistics statistics = new RunningStatistics();
 		int counter = 0;
 		for(int scan = segment.getStartScan(); scan <= segment.getStopScan(); scan++) {
 			ITotalScanSignal signal = signals.getTotalScanSignal(scan);
 			if(signal != null) {
 				values[counter] = signal.getTotalSignal();
 			}
+			statistics.add(values[counter]);
 			counter++;
 		}
 		/*
 		 * Check if the segment is accepted.<br/> If yes, than calculate its
 		 * delta signal height.<br/> If no, than throw an exception.
 		 */
-		double mean = Calculations.getMean(values);
+		double mean = statistics.getMean();
 		if(!segmentValidator.acceptSegment(values, mean)) {
 			/*
 			 * The calling method has now the chance to not add the value to its
@@ -118,9 +123,7 @@ public class NoiseCalculator implements INoiseCalculator {
 			/*
 			 * Calculate the difference between highest and lowest value.
 			 */
-			double highestValue = Calculations.getMax(values);
-			double lowestValue = Calculations.getMin(values);
-			return highestValue - lowestValue;
+			return statistics.getMax() - statistics.getMin();
 		}
 	}
 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2014, 2019 Lablicate GmbH.
+ * Copyright (c) 2014, 2020 Lablicate GmbH.
  * 
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -13,10 +13,11 @@
 package org.eclipse.chemclipse.chromatogram.xxd.calculator.supplier.noise.stein.core;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
-import java.util.function.Consumer;
+import java.util.stream.IntStream;
 
 import org.eclipse.chemclipse.model.core.IChromatogram;
 import org.eclipse.chemclipse.model.core.IScan;
@@ -30,12 +31,14 @@ import org.eclipse.chemclipse.model.support.SegmentValidator;
 import org.eclipse.chemclipse.msd.model.core.IChromatogramMSD;
 import org.eclipse.chemclipse.msd.model.core.IIon;
 import org.eclipse.chemclipse.msd.model.exceptions.IonLimitExceededException;
+import org.eclipse.chemclipse.msd.model.exceptions.NoExtractedIonSignalStoredException;
 import org.eclipse.chemclipse.msd.model.implementation.Ion;
 import org.eclipse.chemclipse.msd.model.implementation.ScanMSD;
 import org.eclipse.chemclipse.msd.model.noise.CalculatorSupport;
 import org.eclipse.chemclipse.msd.model.noise.IonNoiseCalculator;
 import org.eclipse.chemclipse.msd.model.noise.IonNoiseSegment;
 import org.eclipse.chemclipse.msd.model.xic.ExtractedIonSignalExtractor;
+import org.eclipse.chemclipse.msd.model.xic.IExtractedIonSignal;
 import org.eclipse.chemclipse.msd.model.xic.IExtractedIonSignalExtractor;
 import org.eclipse.chemclipse.msd.model.xic.IExtractedIonSignals;
 import org.eclipse.chemclipse.numeric.statistics.Calculations;
@@ -48,6 +51,8 @@ import org.eclipse.core.runtime.SubMonitor;
  */
 public class NoiseCalculator implements IonNoiseCalculator {
 
+	private static final int ION_BLOCK_SIZE = 64;
+	//
 	private IChromatogram<?> chromatogram;
 	private float noiseFactor = Float.NaN;
 
@@ -74,22 +79,13 @@ public class NoiseCalculator implements IonNoiseCalculator {
 	private float calculateNoiseFactorByStein(IChromatogram<?> chromatogram) {
 
 		if(chromatogram != null) {
-			List<Double> noiseFactors = new ArrayList<Double>();
-			Consumer<NoiseSegment> consumer = segment -> noiseFactors.add(segment.getNoiseFactor());
-			getNoiseSegments(chromatogram, null).forEach(consumer);
+			double[] noiseFactors;
 			if(chromatogram instanceof IChromatogramMSD) {
-				IChromatogramMSD chromatogramMSD = (IChromatogramMSD)chromatogram;
-				SegmentValidator segmentValidator = new SegmentValidator();
-				IExtractedIonSignalExtractor extractedIonSignalExtractor = new ExtractedIonSignalExtractor(chromatogramMSD);
-				IExtractedIonSignals extractedSignals = extractedIonSignalExtractor.getExtractedIonSignals();
-				int startIon = extractedSignals.getStartIon();
-				int stopIon = extractedSignals.getStopIon();
-				for(int ion = startIon; ion <= stopIon; ion++) {
-					List<NoiseSegment> ionNoiseSegments = getNoiseSegments(ion, chromatogram.getMeasurementResult(ChromatogramSegmentation.class), segmentValidator, extractedSignals);
-					ionNoiseSegments.forEach(consumer);
-				}
+				noiseFactors = calculateNoiseFactors((IChromatogramMSD)chromatogram);
+			} else {
+				noiseFactors = getNoiseSegments(chromatogram, null).stream().mapToDouble(NoiseSegment::getNoiseFactor).toArray();
 			}
-			double median = Calculations.getMedian(noiseFactors);
+			double median = Calculations.getMedianInPlace(noiseFactors, noiseFactors.length);
 			if(median > 0) {
 				return (float)median;
 			} else {
@@ -104,23 +100,107 @@ public class NoiseCalculator implements IonNoiseCalculator {
 	}
 
 	/**
-	 * Calculates the noise factor for the given segment if the segment is valid.
+	 * Calculates the noise factors of the TIC and of each ion for all valid segments.
+	 * The ions are processed in parallel blocks. Each block reads its ions of the segment
+	 * scans column wise in one pass, hence each abundance is read only once.
 	 * 
-	 * @param baseSegment
+	 * @param chromatogram
+	 * @return double[]
+	 */
+	private static double[] calculateNoiseFactors(IChromatogramMSD chromatogram) {
+
+		ChromatogramSegmentation segmentation = chromatogram.getMeasurementResult(ChromatogramSegmentation.class);
+		if(segmentation == null) {
+			return new double[0];
+		}
+		//
+		List<ChromatogramSegment> segments = segmentation.getResult();
+		IExtractedIonSignalExtractor extractedIonSignalExtractor = new ExtractedIonSignalExtractor(chromatogram);
+		IExtractedIonSignals signals = extractedIonSignalExtractor.getExtractedIonSignals();
+		/*
+		 * The first row is the TIC, followed by the ions from start to stop ion.
+		 */
+		int startIon = signals.getStartIon();
+		int rows = Math.max(0, signals.getStopIon() - startIon + 1) + 1;
+		int blocks = (rows + ION_BLOCK_SIZE - 1) / ION_BLOCK_SIZE;
+		double[][] noiseFactors = IntStream.range(0, blocks).parallel().mapToObj(block -> {
+			int startRow = block * ION_BLOCK_SIZE;
+			int stopRow = Math.min(rows, startRow + ION_BLOCK_SIZE);
+			return calculateNoiseFactors(signals, segments, startIon, startRow, stopRow);
+		}).toArray(double[][]::new);
+		//
+		return Arrays.stream(noiseFactors).flatMapToDouble(Arrays::stream).toArray();
+	}
+
+	private static double[] calculateNoiseFactors(IExtractedIonSignals signals, List<ChromatogramSegment> segments, int startIon, int startRow, int stopRow) {
+
+		SegmentValidator segmentValidator = new SegmentValidator();
+		int maxWidth = 0;
+		for(IAnalysisSegment segment : segments) {
+			maxWidth = Math.max(maxWidth, segment.getWidth());
+		}
+		float[][] values = new float[stopRow - startRow][maxWidth];
+		double[] buffer = new double[maxWidth];
+		double[] noiseFactors = new double[segments.size() * values.length];
+		int size = 0;
+		//
+		for(IAnalysisSegment segment : segments) {
+			int width = segment.getWidth();
+			for(int column = 0; column < width; column++) {
+				try {
+					IExtractedIonSignal signal = signals.getExtractedIonSignal(segment.getStartScan() + column);
+					for(int row = startRow; row < stopRow; row++) {
+						int ion = (row == 0) ? (int)IIon.TIC_ION : startIon + row - 1;
+						/*
+						 * If the ion represents the TIC than use the total signal,
+						 * otherwise get the abundance of the given ion.
+						 */
+						values[row - startRow][column] = (ion == IIon.TIC_ION) ? signal.getTotalSignal() : signal.getAbundance(ion);
+					}
+				} catch(NoExtractedIonSignalStoredException e) {
+					for(float[] row : values) {
+						row[column] = 0;
+					}
+				}
+			}
+			//
+			for(float[] row : values) {
+				double noiseFactor = calculateNoiseFactor(segmentValidator, row, width, buffer);
+				if(!Double.isNaN(noiseFactor)) {
+					noiseFactors[size++] = noiseFactor;
+				}
+			}
+		}
+		return Arrays.copyOf(noiseFactors, size);
+	}
+
+	/**
+	 * Calculates the noise factor for the first length values if the segment is valid.
+	 * Otherwise, NaN is returned.
 	 * 
+	 * @param segmentValidator
 	 * @param values
-	 * @return
+	 * @param length
+	 * @param buffer
+	 * @return double
 	 */
-	private static Double calculateNoiseFactor(SegmentValidator segmentValidator, float[] values) {
+	private static double calculateNoiseFactor(SegmentValidator segmentValidator, float[] values, int length, double[] buffer) {
 
-		double mean = Calculations.getMean(values);
-		if(!segmentValidator.acceptSegment(values, mean)) {
-			return null;
+		float sum = 0.0f;
+		for(int i = 0; i < length; i++) {
+			sum += values[i];
+		}
+		double mean = (length > 0) ? sum / length : 0.0f;
+		if(!segmentValidator.acceptSegment(values, length, mean)) {
+			return Double.NaN;
 		} else {
 			/*
 			 * Calculate the median from mean.
 			 */
-			double medianFromMedian = Calculations.getMedianDeviationFromMedian(values);
+			for(int i = 0; i < length; i++) {
+				buffer[i] = values[i];
+			}
+			double medianFromMedian = Calculations.getMedianDeviationFromMedianInPlace(buffer, length);
 			return medianFromMedian / Math.sqrt(mean);
 		}
 	}
@@ -140,8 +220,9 @@ public class NoiseCalculator implements IonNoiseCalculator {
 				SubMonitor subMonitor = SubMonitor.convert(monitor, segments.size());
 				List<NoiseSegment> result = new ArrayList<>();
 				for(IAnalysisSegment segment : segments) {
-					Double factor = calculateNoiseFactor(segmentValidator, signals.getValues(segment));
-					if(factor != null) {
+					float[] values = signals.getValues(segment);
+					double factor = calculateNoiseFactor(segmentValidator, values, values.length, new double[values.length]);
+					if(!Double.isNaN(factor)) {
 						NoiseSegment noiseSegment = new SteinNoiseSegment(segment, factor);
 						result.add(noiseSegment);
 					}
@@ -175,8 +256,9 @@ public class NoiseCalculator implements IonNoiseCalculator {
 		if(segmentation != null) {
 			List<ChromatogramSegment> segments = segmentation.getResult();
 			for(IAnalysisSegment segment : segments) {
-				Double factor = calculateNoiseFactor(segmentValidator, signals.getValues(segment, (int)ion));
-				if(factor != null) {
+				float[] values = signals.getValues(segment, (int)ion);
+				double factor = calculateNoiseFactor(segmentValidator, values, values.length, new double[values.length]);
+				if(!Double.isNaN(factor)) {
 					IScan scan;
 					if(ion == IIon.TIC_ION) {
 						scan = CalculatorSupport.getCombinedMassSpectrum(signals, segment).normalize();
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2015, 2018 Lablicate GmbH.
+ * Copyright (c) 2015, 2020 Lablicate GmbH.
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -11,11 +11,15 @@
  *******************************************************************************/
 package org.eclipse.chemclipse.chromatogram.xxd.classifier.supplier.durbinwatson.processor;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
 import org.eclipse.chemclipse.chromatogram.xxd.classifier.supplier.durbinwatson.result.IDurbinWatsonClassifierResult;
 import org.eclipse.chemclipse.chromatogram.xxd.classifier.supplier.durbinwatson.result.SavitzkyGolayFilterRating;
 import org.eclipse.chemclipse.chromatogram.xxd.classifier.supplier.durbinwatson.settings.ClassifierSettings;
 import org.eclipse.chemclipse.chromatogram.xxd.filter.supplier.savitzkygolay.preferences.PreferenceSupplier;
-import org.eclipse.chemclipse.chromatogram.xxd.filter.supplier.savitzkygolay.processor.SavitzkyGolayProcessor;
+import org.eclipse.chemclipse.chromatogram.xxd.filter.supplier.savitzkygolay.processor.SavitzkyGolayFilter;
 import org.eclipse.chemclipse.chromatogram.xxd.filter.supplier.savitzkygolay.settings.ChromatogramFilterSettings;
 import org.eclipse.chemclipse.logging.core.Logger;
 import org.eclipse.chemclipse.model.core.IChromatogram;
@@ -48,7 +52,6 @@ public class DurbinWatsonProcessor {
 
 	public void durbinWatsonMain(double[] valuesOriginal, ClassifierSettings classifierSettings, IDurbinWatsonClassifierResult durbinWatsonClassifierResult, IProgressMonitor monitor) {
 
-		SavitzkyGolayProcessor savitzkyGolayProcessor = new SavitzkyGolayProcessor();
 		/*
 		 * Iterate through the width
 		 */
@@ -62,11 +65,12 @@ public class DurbinWatsonProcessor {
 			maxWidth = valuesOriginal.length;
 		}
 		//
+		List<ChromatogramFilterSettings> candidates = new ArrayList<>();
 		for(int derivative = minDerivative; derivative <= maxDerivative; derivative++) {
 			for(int order = minOrder; order <= maxOrder; order++) {
 				for(int width = minWidth; width <= maxWidth; width++) {
 					/*
-					 * Create the settings and test.
+					 * Create the settings.
 					 * Width must be odd.
 					 */
 					if(width % 2 == 1) {
@@ -74,42 +78,55 @@ public class DurbinWatsonProcessor {
 						filterSettings.setDerivative(derivative);
 						filterSettings.setOrder(order);
 						filterSettings.setWidth(width);
-						double[] valuesSmoothed = savitzkyGolayProcessor.smooth(valuesOriginal, filterSettings, monitor);
-						double rating = calculateDurbinWatsonRating(valuesOriginal, valuesSmoothed);
-						/*
-						 * Store the result
-						 */
-						durbinWatsonClassifierResult.getSavitzkyGolayFilterRatings().add(new SavitzkyGolayFilterRating(rating, filterSettings));
+						candidates.add(filterSettings);
 					}
 				}
 			}
 		}
+		/*
+		 * The candidates are independent, hence they are rated in parallel.
+		 * The filters are shared via the kernel cache.
+		 */
+		double[] ratings = IntStream.range(0, candidates.size()).parallel().mapToDouble(i -> {
+			ChromatogramFilterSettings filterSettings = candidates.get(i);
+			SavitzkyGolayFilter filter = SavitzkyGolayFilter.getInstance(filterSettings.getOrder(), filterSettings.getWidth(), filterSettings.getDerivative());
+			return calculateDurbinWatsonRating(valuesOriginal, filter);
+		}).toArray();
+		/*
+		 * Store the results in the order of the sweep.
+		 */
+		for(int i = 0; i < candidates.size(); i++) {
+			durbinWatsonClassifierResult.getSavitzkyGolayFilterRatings().add(new SavitzkyGolayFilterRating(ratings[i], candidates.get(i)));
+		}
 	}
 
-	private double calculateDurbinWatsonRating(double[] valuesOriginal, double[] valuesSmoothed) {
+	/**
+	 * The residuals are calculated on the fly, the smoothed array is not allocated.
+	 * 
+	 * @param valuesOriginal
+	 * @param filter
+	 * @return double
+	 */
+	private double calculateDurbinWatsonRating(double[] valuesOriginal, SavitzkyGolayFilter filter) {
 
 		double rating = 0;
-		if(valuesOriginal.length == valuesSmoothed.length) {
-			/*
-			 * Calculate the denominator
-			 */
-			double denominator = 0;
-			for(int i = 0; i < valuesOriginal.length; i++) {
-				denominator += Math.pow(valuesOriginal[i] - valuesSmoothed[i], 2);
-			}
-			/*
-			 * Calculate the nominator
-			 */
-			if(denominator != 0) {
-				double nominator = 0;
-				for(int i = 1; i < valuesOriginal.length; i++) {
-					nominator += Math.pow((valuesOriginal[i] - valuesSmoothed[i]) - (valuesOriginal[i - 1] - valuesSmoothed[i - 1]), 2);
-				}
-				/*
-				 * A correction could be applied too.
-				 */
-				rating = nominator / denominator;
+		double denominator = 0;
+		double nominator = 0;
+		double residualPrevious = 0;
+		for(int i = 0; i < valuesOriginal.length; i++) {
+			double residual = valuesOriginal[i] - filter.apply(valuesOriginal, i);
+			denominator += residual * residual;
+			if(i > 0) {
+				double difference = residual - residualPrevious;
+				nominator += difference * difference;
 			}
+			residualPrevious = residual;
+		}
+		/*
+		 * A correction could be applied too.
+		 */
+		if(denominator != 0) {
+			rating = nominator / denominator;
 		}
 		return rating;
 	}
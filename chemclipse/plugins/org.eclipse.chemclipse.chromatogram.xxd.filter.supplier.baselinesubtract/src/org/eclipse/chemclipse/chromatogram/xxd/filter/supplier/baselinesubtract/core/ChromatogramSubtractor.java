@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2019 Lablicate GmbH.
+ * Copyright (c) 2019, 2020 Lablicate GmbH.
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -31,12 +31,21 @@ public class ChromatogramSubtractor {
 		if(chromatogramMaster != null && chromatogramSubtract != null) {
 			int startScan = chromatogramMaster.getScanNumber(startRetentionTime);
 			int stopScan = chromatogramMaster.getScanNumber(stopRetentionTime);
+			/*
+			 * Map the retention times of the master scans in one pass.
+			 */
+			int size = Math.max(0, stopScan - startScan + 1);
+			int[] retentionTimes = new int[size];
+			for(int i = 0; i < size; i++) {
+				IScan scanMaster = chromatogramMaster.getScan(startScan + i);
+				retentionTimes[i] = (scanMaster != null) ? scanMaster.getRetentionTime() : 0;
+			}
+			int[] scanNumbersSubtract = chromatogramSubtract.getScanNumbers(retentionTimes);
 			//
 			for(int i = startScan; i <= stopScan; i++) {
 				IScan scanMaster = chromatogramMaster.getScan(i);
 				if(scanMaster != null) {
-					int scanNumberSubtract = chromatogramSubtract.getScanNumber(scanMaster.getRetentionTime());
-					IScan scanSubtract = chromatogramSubtract.getScan(scanNumberSubtract);
+					IScan scanSubtract = chromatogramSubtract.getScan(scanNumbersSubtract[i - startScan]);
 					if(scanSubtract != null) {
 						/*
 						 * Subtract the signal.
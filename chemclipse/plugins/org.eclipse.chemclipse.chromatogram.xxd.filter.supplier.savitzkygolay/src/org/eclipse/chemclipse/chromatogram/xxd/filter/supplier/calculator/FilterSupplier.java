@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2018 Lablicate GmbH.
+ * Copyright (c) 2018, 2020 Lablicate GmbH.
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -18,6 +18,7 @@ import java.util.List;
 
 import org.eclipse.chemclipse.chromatogram.xxd.filter.supplier.savitzkygolay.processor.SavitzkyGolayFilter;
 import org.eclipse.chemclipse.chromatogram.xxd.filter.supplier.savitzkygolay.processor.SavitzkyGolayProcessor;
+import org.eclipse.chemclipse.model.core.IScan;
 import org.eclipse.chemclipse.model.exceptions.AbundanceLimitExceededException;
 import org.eclipse.chemclipse.msd.model.core.IIon;
 import org.eclipse.chemclipse.msd.model.core.IIonProvider;
@@ -45,7 +46,7 @@ public class FilterSupplier {
 		List<IIon> ions = new ArrayList<>(massSpectrum.getIons());
 		Collections.sort(ions, new IonValueComparator());
 		double[] intensityValues = getIntensityValues(ions);
-		SavitzkyGolayFilter filter = new SavitzkyGolayFilter(order, width, derivative);
+		SavitzkyGolayFilter filter = SavitzkyGolayFilter.getInstance(order, width, derivative);
 		double[] smoothed = SavitzkyGolayProcessor.smooth(intensityValues, filter, monitor);
 		int i = 0;
 		int smoothedIons = result.getProcessingResult();
@@ -58,6 +59,12 @@ public class FilterSupplier {
 			}
 			i++;
 		}
+		/*
+		 * The abundances have been modified in place.
+		 */
+		if(massSpectrum instanceof IScan) {
+			((IScan)massSpectrum).setDirty(true);
+		}
 		result.setProcessingResult(smoothedIons);
 	}
 
@@ -35,8 +35,7 @@ public class ChromatogramFilterMSD extends AbstractChromatogramFilterMSD {
 		IChromatogramFilterResult chromatogramFilterResult;
 		if(settings.getPerIonCalculation() == true) {
 			ExtractedMatrix extractedMatrix = new ExtractedMatrix(chromatogramSelection);
-			double[][] matrix = extractedMatrix.getMatrix();
-			SavitzkyGolayProcessor.apply(matrix, (ChromatogramFilterSettings)filterSettings, monitor);
+			SavitzkyGolayProcessor.apply(extractedMatrix, (ChromatogramFilterSettings)filterSettings, monitor);
 			extractedMatrix.updateSignal();
 			chromatogramFilterResult = new ChromatogramFilterResult(ResultStatus.OK, "The Savitzky-Golay filter has been applied successfully.");
 		} else {
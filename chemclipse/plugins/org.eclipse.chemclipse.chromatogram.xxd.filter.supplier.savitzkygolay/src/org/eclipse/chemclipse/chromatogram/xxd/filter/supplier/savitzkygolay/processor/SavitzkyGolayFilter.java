@@ -8,9 +8,13 @@
  * 
  * Contributors:
  * Lorenz Gerber - initial API and implementation
+ * Dr. Philip Wenig - kernel cache, precalculated start/stop weights
  *******************************************************************************/
 package org.eclipse.chemclipse.chromatogram.xxd.filter.supplier.savitzkygolay.processor;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import org.apache.commons.math3.linear.LUDecomposition;
 import org.apache.commons.math3.linear.MatrixUtils;
 import org.apache.commons.math3.linear.QRDecomposition;
@@ -20,8 +24,17 @@ import org.apache.commons.math3.stat.StatUtils;
 import org.apache.commons.math3.util.CombinatoricsUtils;
 import org.eclipse.chemclipse.chromatogram.xxd.filter.supplier.savitzkygolay.preferences.PreferenceSupplier;
 
+/**
+ * The filter is immutable after construction, hence an instance can be shared
+ * between threads. Use {@link #getInstance(int, int, int)} to reuse the kernels.
+ */
 public class SavitzkyGolayFilter {
 
+	/*
+	 * The key is calculated by the rectified order, width and derivative.
+	 */
+	private static final Map<Long, SavitzkyGolayFilter> FILTER_CACHE = new ConcurrentHashMap<>();
+	//
 	private final int derivative;
 	private final int order;
 	private final int width;
@@ -32,18 +45,55 @@ public class SavitzkyGolayFilter {
 	private double[][] startStopWeights;
 	private double[][] uStart;
 	private double[][] uStop;
+	private double[][] startValues;
+	private double[][] stopValues;
 
 	public SavitzkyGolayFilter(int order, int width, int derivative) {
 
 		// Validate and rectify input
-		width = Math.max(PreferenceSupplier.MIN_WIDTH, (1 + 2 * Math.round((width - 1) / 2)));
-		order = (int)StatUtils.min(new double[]{Math.max(0, order), 5, (width - 1)});
-		derivative = Math.min(Math.max(0, derivative), order);
+		width = rectifyWidth(width);
+		order = rectifyOrder(order, width);
+		derivative = rectifyDerivative(derivative, order);
 		this.derivative = derivative;
 		this.order = order;
 		this.width = width;
 		calculateConvolutionWeights();
 		filterCoefficients = weights[derivative];
+		startValues = calculateStartStopValues(uStart);
+		stopValues = calculateStartStopValues(uStop);
+	}
+
+	/**
+	 * Returns a shared filter instance. The convolution weights are calculated
+	 * only once for each rectified combination of order, width and derivative.
+	 * 
+	 * @param order
+	 * @param width
+	 * @param derivative
+	 * @return {@link SavitzkyGolayFilter}
+	 */
+	public static SavitzkyGolayFilter getInstance(int order, int width, int derivative) {
+
+		int rectifiedWidth = rectifyWidth(width);
+		int rectifiedOrder = rectifyOrder(order, rectifiedWidth);
+		int rectifiedDerivative = rectifyDerivative(derivative, rectifiedOrder);
+		long key = ((long)rectifiedWidth << 16) | (rectifiedOrder << 8) | rectifiedDerivative;
+		return FILTER_CACHE.computeIfAbsent(key, k -> new SavitzkyGolayFilter(rectifiedOrder, rectifiedWidth, rectifiedDerivative));
+	}
+
+	public int getDerivative() {
+
+		return derivative;
+	}
+
+	public int getOrder() {
+
+		return order;
+	}
+
+	public int getWidth() {
+
+		return width;
 	}
 
 	public double[] getFactorialAdjustedFilterCoefficients() {
@@ -66,6 +116,41 @@ public class SavitzkyGolayFilter {
 		return newTicValues;
 	}
 
+	/**
+	 * Returns the smoothed value at the given index without
+	 * smoothing the complete array. The result equals apply(ticValues)[index].
+	 * 
+	 * @param ticValues
+	 * @param index
+	 * @return double
+	 */
+	public double apply(double[] ticValues, int index) {
+
+		int p = (width - 1) / 2;
+		if(index < p) {
+			return applyStart(ticValues, index);
+		} else if(index < ticValues.length - p) {
+			return applyMiddle(ticValues, index);
+		} else {
+			return applyEnd(ticValues, index);
+		}
+	}
+
+	private static int rectifyWidth(int width) {
+
+		return Math.max(PreferenceSupplier.MIN_WIDTH, (1 + 2 * Math.round((width - 1) / 2)));
+	}
+
+	private static int rectifyOrder(int order, int width) {
+
+		return (int)StatUtils.min(new double[]{Math.max(0, order), 5, (width - 1)});
+	}
+
+	private static int rectifyDerivative(int derivative, int order) {
+
+		return Math.min(Math.max(0, derivative), order);
+	}
+
 	private void calculateConvolutionWeights() {
 
 		// Set up the normal equations for the desired least-squares fit
@@ -245,24 +330,26 @@ public class SavitzkyGolayFilter {
 		return array;
 	}
 
-	private void processStart(double[] ticValues, double[] newTicValues) {
+	private double[][] calculateStartStopValues(double[][] u) {
 
-		int p = (width - 1) / 2;
-		for(int i = 0; i < p; i++) {
-			double[] values = new double[width];
+		double[][] startStopValues = new double[u.length][width];
+		for(int i = 0; i < u.length; i++) {
 			for(int j = 0; j < width; j++) {
 				double newVal = 0;
 				for(int k = 0; k < order - derivative + 1; k++) {
-					newVal += uStart[i][k] * startStopWeights[k][j];
+					newVal += u[i][k] * startStopWeights[k][j];
 				}
-				values[j] = newVal;
+				startStopValues[i][j] = newVal;
 			}
-			//
-			double newTic = 0;
-			for(int j = 0; j < width; j++) {
-				newTic += ticValues[j] * values[j];
-			}
-			newTicValues[i] = newTic;
+		}
+		return startStopValues;
+	}
+
+	private void processStart(double[] ticValues, double[] newTicValues) {
+
+		int p = (width - 1) / 2;
+		for(int i = 0; i < p; i++) {
+			newTicValues[i] = applyStart(ticValues, i);
 		}
 	}
 
@@ -270,34 +357,47 @@ public class SavitzkyGolayFilter {
 
 		int p = (width - 1) / 2;
 		for(int i = p; i < ticValues.length - p; i++) {
-			double newTic = 0;
-			for(int j = -p, k = 0; j <= p; j++, k++) {
-				double ticValue = ticValues[i + j];
-				double sgValue = filterCoefficients[k];
-				newTic += (ticValue * sgValue) * derivativeCoefficients[0];
-			}
-			newTicValues[i] = newTic;
+			newTicValues[i] = applyMiddle(ticValues, i);
 		}
 	}
 
 	private void processEnd(double[] ticValues, double[] newTicValues) {
 
 		int p = (width - 1) / 2;
-		for(int i = ticValues.length - p, m = 0; i < ticValues.length; i++, m++) {
-			double[] values = new double[width];
-			for(int j = 0; j < width; j++) {
-				double newVal = 0;
-				for(int k = 0; k < order - derivative + 1; k++) {
-					newVal += uStop[m][k] * startStopWeights[k][j];
-				}
-				values[j] = newVal;
-			}
-			//
-			double newTic = 0;
-			for(int j = 0, k = ticValues.length - width; j < width; j++, k++) {
-				newTic += ticValues[k] * values[j];
-			}
-			newTicValues[i] = newTic;
+		for(int i = ticValues.length - p; i < ticValues.length; i++) {
+			newTicValues[i] = applyEnd(ticValues, i);
+		}
+	}
+
+	private double applyStart(double[] ticValues, int index) {
+
+		double[] values = startValues[index];
+		double newTic = 0;
+		for(int j = 0; j < width; j++) {
+			newTic += ticValues[j] * values[j];
+		}
+		return newTic;
+	}
+
+	private double applyMiddle(double[] ticValues, int index) {
+
+		int p = (width - 1) / 2;
+		double newTic = 0;
+		for(int j = -p, k = 0; j <= p; j++, k++) {
+			double ticValue = ticValues[index + j];
+			double sgValue = filterCoefficients[k];
+			newTic += (ticValue * sgValue) * derivativeCoefficients[0];
+		}
+		return newTic;
+	}
+
+	private double applyEnd(double[] ticValues, int index) {
+
+		double[] values = stopValues[index - (ticValues.length - (width - 1) / 2)];
+		double newTic = 0;
+		for(int j = 0, k = ticValues.length - width; j < width; j++, k++) {
+			newTic += ticValues[k] * values[j];
 		}
+		return newTic;
 	}
 }
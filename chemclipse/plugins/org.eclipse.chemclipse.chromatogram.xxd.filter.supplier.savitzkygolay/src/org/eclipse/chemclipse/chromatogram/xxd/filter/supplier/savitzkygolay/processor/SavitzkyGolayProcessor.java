@@ -12,6 +12,8 @@
  *******************************************************************************/
 package org.eclipse.chemclipse.chromatogram.xxd.filter.supplier.savitzkygolay.processor;
 
+import java.util.stream.IntStream;
+
 import org.eclipse.chemclipse.chromatogram.filter.result.ChromatogramFilterResult;
 import org.eclipse.chemclipse.chromatogram.filter.result.IChromatogramFilterResult;
 import org.eclipse.chemclipse.chromatogram.filter.result.ResultStatus;
@@ -23,6 +25,7 @@ import org.eclipse.chemclipse.model.selection.IChromatogramSelection;
 import org.eclipse.chemclipse.model.signals.ITotalScanSignal;
 import org.eclipse.chemclipse.model.signals.ITotalScanSignals;
 import org.eclipse.chemclipse.model.signals.TotalScanSignalExtractor;
+import org.eclipse.chemclipse.msd.model.matrix.ExtractedMatrix;
 import org.eclipse.core.runtime.IProgressMonitor;
 
 @SuppressWarnings("rawtypes")
@@ -76,13 +79,13 @@ public class SavitzkyGolayProcessor {
 
 	public static double[] smooth(double[] ticValues, ChromatogramFilterSettings filterSettings, IProgressMonitor monitor) {
 
-		SavitzkyGolayFilter filter = new SavitzkyGolayFilter(filterSettings.getOrder(), filterSettings.getWidth(), filterSettings.getDerivative());
+		SavitzkyGolayFilter filter = SavitzkyGolayFilter.getInstance(filterSettings.getOrder(), filterSettings.getWidth(), filterSettings.getDerivative());
 		return smoothValues(ticValues, filter, monitor);
 	}
 
 	public static double[] smooth(double[] ticValues, int derivative, int order, int width, IProgressMonitor monitor) {
 
-		SavitzkyGolayFilter filter = new SavitzkyGolayFilter(order, width, derivative);
+		SavitzkyGolayFilter filter = SavitzkyGolayFilter.getInstance(order, width, derivative);
 		return smoothValues(ticValues, filter, monitor);
 	}
 
@@ -98,7 +101,7 @@ public class SavitzkyGolayProcessor {
 		int derivative = filterSettings.getDerivative();
 		int order = filterSettings.getOrder();
 		int width = filterSettings.getWidth();
-		SavitzkyGolayFilter filter = new SavitzkyGolayFilter(order, width, derivative);
+		SavitzkyGolayFilter filter = SavitzkyGolayFilter.getInstance(order, width, derivative);
 		return smoothValues(ticValues, filter, monitor);
 	}
 
@@ -119,24 +122,60 @@ public class SavitzkyGolayProcessor {
 		return new ChromatogramFilterResult(ResultStatus.OK, "The Savitzky-Golay filter has been applied successfully.");
 	}
 
+	/**
+	 * Smoothes each ion trace (column) of the matrix. The columns are processed in parallel.
+	 * 
+	 * @param matrix
+	 * @param filterSettings
+	 * @param monitor
+	 */
 	public static void apply(double[][] matrix, ChromatogramFilterSettings filterSettings, IProgressMonitor monitor) {
 
-		double[] ionSignal = new double[matrix.length];
-		int derivative = filterSettings.getDerivative();
-		int order = filterSettings.getOrder();
-		int width = filterSettings.getWidth();
-		SavitzkyGolayFilter filter = new SavitzkyGolayFilter(order, width, derivative);
-		for(int i = 0; i < matrix[0].length; i++) {
+		if(matrix.length == 0) {
+			return;
+		}
+		SavitzkyGolayFilter filter = createFilter(filterSettings);
+		IntStream.range(0, matrix[0].length).parallel().forEach(i -> {
+			double[] ionSignal = new double[matrix.length];
 			for(int j = 0; j < matrix.length; j++) {
 				ionSignal[j] = matrix[j][i];
 			}
-			ionSignal = smoothValues(ionSignal, filter, monitor);
+			ionSignal = smoothIonSignal(ionSignal, filter, monitor);
 			for(int j = 0; j < matrix.length; j++) {
-				if(ionSignal[j] < 0.0) {
-					ionSignal[j] = 0.0;
-				}
 				matrix[j][i] = ionSignal[j];
 			}
+		});
+	}
+
+	/**
+	 * Smoothes each ion trace (column) of the extracted matrix. The columns are processed in parallel.
+	 * 
+	 * @param extractedMatrix
+	 * @param filterSettings
+	 * @param monitor
+	 */
+	public static void apply(ExtractedMatrix extractedMatrix, ChromatogramFilterSettings filterSettings, IProgressMonitor monitor) {
+
+		SavitzkyGolayFilter filter = createFilter(filterSettings);
+		extractedMatrix.filterColumns(ionSignal -> smoothIonSignal(ionSignal, filter, monitor));
+	}
+
+	private static SavitzkyGolayFilter createFilter(ChromatogramFilterSettings filterSettings) {
+
+		int derivative = filterSettings.getDerivative();
+		int order = filterSettings.getOrder();
+		int width = filterSettings.getWidth();
+		return SavitzkyGolayFilter.getInstance(order, width, derivative);
+	}
+
+	private static double[] smoothIonSignal(double[] ionSignal, SavitzkyGolayFilter filter, IProgressMonitor monitor) {
+
+		double[] values = smoothValues(ionSignal, filter, monitor);
+		for(int j = 0; j < values.length; j++) {
+			if(values[j] < 0.0) {
+				values[j] = 0.0;
+			}
 		}
+		return values;
 	}
 }
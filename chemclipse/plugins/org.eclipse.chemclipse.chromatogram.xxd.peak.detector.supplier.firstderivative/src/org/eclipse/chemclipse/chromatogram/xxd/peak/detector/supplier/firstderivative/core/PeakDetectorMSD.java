@@ -18,6 +18,10 @@ import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 import org.eclipse.chemclipse.chromatogram.msd.peak.detector.core.IPeakDetectorMSD;
@@ -33,6 +37,7 @@ import org.eclipse.chemclipse.chromatogram.xxd.peak.detector.supplier.firstderiv
 import org.eclipse.chemclipse.chromatogram.xxd.peak.detector.supplier.firstderivative.support.FirstDerivativeDetectorSlopes;
 import org.eclipse.chemclipse.chromatogram.xxd.peak.detector.supplier.firstderivative.support.IFirstDerivativeDetectorSlope;
 import org.eclipse.chemclipse.chromatogram.xxd.peak.detector.supplier.firstderivative.support.IFirstDerivativeDetectorSlopes;
+import org.eclipse.chemclipse.chromatogram.xxd.peak.detector.supplier.firstderivative.support.TraceSignals;
 import org.eclipse.chemclipse.logging.core.Logger;
 import org.eclipse.chemclipse.model.exceptions.ChromatogramIsNullException;
 import org.eclipse.chemclipse.model.signals.ITotalScanSignal;
@@ -137,8 +142,12 @@ public class PeakDetectorMSD extends BasePeakDetector implements IPeakDetectorMS
 	 */
 	public List<IChromatogramPeakMSD> detectPeaks(IChromatogramSelectionMSD chromatogramSelection, PeakDetectorSettingsMSD peakDetectorSettings, List<NoiseSegment> noiseSegments, IProgressMonitor monitor) {
 
-		List<IChromatogramPeakMSD> extractPeaks = new ArrayList<>();
 		Collection<IMarkedIons> filterIons = peakDetectorSettings.getFilterIons();
+		if(peakDetectorSettings.isUseIndividualTraces() && filterIons.size() > 1) {
+			return detectPeaksInTraces(chromatogramSelection, peakDetectorSettings, new ArrayList<>(filterIons), noiseSegments, monitor);
+		}
+		//
+		List<IChromatogramPeakMSD> extractPeaks = new ArrayList<>();
 		for(IMarkedIons ions : filterIons) {
 			Threshold threshold = peakDetectorSettings.getThreshold();
 			WindowSize windowSize = peakDetectorSettings.getMovingAverageWindowSize();
@@ -197,16 +206,152 @@ public class PeakDetectorMSD extends BasePeakDetector implements IPeakDetectorMS
 			}
 			List<IChromatogramPeakMSD> peaks = extractPeaks(rawPeaks, chromatogramSelection.getChromatogram(), peakDetectorSettings, ions);
 			if(peakDetectorSettings.isUseIndividualTraces()) {
-				String classifier = "Trace " + ions.getIonsNominal().iterator().next();
-				for(IChromatogramPeakMSD msd : peaks) {
-					msd.addClassifier(classifier);
-				}
+				addTraceClassifier(peaks, ions);
 			}
 			extractPeaks.addAll(peaks);
 		}
 		return extractPeaks;
 	}
 
+	/**
+	 * The signals of all traces are extracted in one pass over the scans.
+	 * Afterwards, each trace is detected in an own task. The chromatogram selection
+	 * is not modified, the noise segments are mapped to scan ranges instead.
+	 * The peaks are returned in the order of the traces, independent of the task execution.
+	 */
+	private List<IChromatogramPeakMSD> detectPeaksInTraces(IChromatogramSelectionMSD chromatogramSelection, PeakDetectorSettingsMSD peakDetectorSettings, List<IMarkedIons> traces, List<NoiseSegment> noiseSegments, IProgressMonitor monitor) {
+
+		List<IChromatogramPeakMSD> extractPeaks = new ArrayList<>();
+		IChromatogramMSD chromatogram = chromatogramSelection.getChromatogram();
+		List<int[]> scanRanges = getScanRanges(chromatogramSelection, noiseSegments);
+		if(scanRanges.isEmpty()) {
+			return extractPeaks;
+		}
+		/*
+		 * Extract the signals of all traces in the overall scan range.
+		 */
+		int startScan = Integer.MAX_VALUE;
+		int stopScan = Integer.MIN_VALUE;
+		for(int[] scanRange : scanRanges) {
+			startScan = Math.min(startScan, scanRange[0]);
+			stopScan = Math.max(stopScan, scanRange[1]);
+		}
+		TraceSignals traceSignals = new TraceSignals(chromatogram, startScan, stopScan, traces);
+		/*
+		 * The noise factor is calculated lazily on first use.
+		 * Calculate it before the tasks are started, as the peak validation needs it.
+		 */
+		chromatogram.getSignalToNoiseRatio(0.0f);
+		Threshold threshold = peakDetectorSettings.getThreshold();
+		WindowSize windowSize = peakDetectorSettings.getMovingAverageWindowSize();
+		//
+		SubMonitor subMonitor = SubMonitor.convert(monitor, traces.size());
+		int threads = Math.min(Runtime.getRuntime().availableProcessors(), traces.size());
+		ExecutorService executorService = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<List<IChromatogramPeakMSD>>> futures = new ArrayList<>();
+			for(int i = 0; i < traces.size(); i++) {
+				int trace = i;
+				IMarkedIons ions = traces.get(trace);
+				futures.add(executorService.submit(() -> {
+					List<IRawPeak> rawPeaks = new ArrayList<>();
+					for(int[] scanRange : scanRanges) {
+						IFirstDerivativeDetectorSlopes slopes = traceSignals.getFirstDerivativeSlopes(trace, scanRange[0], scanRange[1], NORMALIZATION_BASE);
+						if(!WindowSize.NONE.equals(windowSize)) {
+							slopes.calculateMovingAverage(windowSize);
+						}
+						rawPeaks.addAll(getRawPeaks(slopes, threshold, null));
+					}
+					List<IChromatogramPeakMSD> peaks = extractPeaks(rawPeaks, chromatogram, peakDetectorSettings, ions);
+					addTraceClassifier(peaks, ions);
+					return peaks;
+				}));
+			}
+			/*
+			 * Merge the peaks in the order of the traces.
+			 */
+			for(Future<List<IChromatogramPeakMSD>> future : futures) {
+				if(subMonitor.isCanceled()) {
+					break;
+				}
+				extractPeaks.addAll(future.get());
+				subMonitor.worked(1);
+			}
+		} catch(InterruptedException e) {
+			logger.warn(e);
+			Thread.currentThread().interrupt();
+		} catch(ExecutionException e) {
+			logger.warn(e);
+		} finally {
+			executorService.shutdownNow();
+		}
+		return extractPeaks;
+	}
+
+	/**
+	 * Returns the scan ranges that are used for the detection.
+	 * The ranges are the same as the ones used by the sequential detection, which sets
+	 * the retention time range of the selection to each range between the noise segments.
+	 * Invalid ranges are skipped, as no signals are available for them.
+	 *
+	 * @param chromatogramSelection
+	 * @param noiseSegments
+	 * @return List<int[]>
+	 */
+	private static List<int[]> getScanRanges(IChromatogramSelectionMSD chromatogramSelection, List<NoiseSegment> noiseSegments) {
+
+		IChromatogramMSD chromatogram = chromatogramSelection.getChromatogram();
+		int startRetentionTime = chromatogramSelection.getStartRetentionTime();
+		int stopRetentionTime = chromatogramSelection.getStopRetentionTime();
+		List<int[]> retentionTimeRanges = new ArrayList<>();
+		if(noiseSegments != null && noiseSegments.size() > 0) {
+			/*
+			 * | --- [S] --- [N] --- [E] --- |
+			 */
+			Iterator<NoiseSegment> iterator = noiseSegments.iterator();
+			NoiseSegment noiseSegment = iterator.next();
+			retentionTimeRanges.add(new int[]{startRetentionTime, noiseSegment.getStartRetentionTime()});
+			while(iterator.hasNext()) {
+				int startRetentionTimeSegment = noiseSegment.getStopRetentionTime();
+				noiseSegment = iterator.next();
+				retentionTimeRanges.add(new int[]{startRetentionTimeSegment, noiseSegment.getStartRetentionTime()});
+			}
+			retentionTimeRanges.add(new int[]{noiseSegment.getStopRetentionTime(), stopRetentionTime});
+		} else {
+			retentionTimeRanges.add(new int[]{startRetentionTime, stopRetentionTime});
+		}
+		//
+		List<int[]> scanRanges = new ArrayList<>();
+		int numberOfScans = chromatogram.getNumberOfScans();
+		for(int[] retentionTimeRange : retentionTimeRanges) {
+			/*
+			 * Validate the range like the chromatogram selection does.
+			 */
+			int start = retentionTimeRange[0];
+			int stop = retentionTimeRange[1];
+			if(start <= 0 || start > stop || start < chromatogram.getStartRetentionTime()) {
+				start = chromatogram.getStartRetentionTime();
+			}
+			if(stop <= 0 || stop < start || stop > chromatogram.getStopRetentionTime()) {
+				stop = chromatogram.getStopRetentionTime();
+			}
+			int startScan = chromatogram.getScanNumber(start);
+			int stopScan = chromatogram.getScanNumber(stop);
+			if(startScan >= 1 && stopScan <= numberOfScans && startScan <= stopScan) {
+				scanRanges.add(new int[]{startScan, stopScan});
+			}
+		}
+		return scanRanges;
+	}
+
+	private static void addTraceClassifier(List<IChromatogramPeakMSD> peaks, IMarkedIons ions) {
+
+		String classifier = "Trace " + ions.getIonsNominal().iterator().next();
+		for(IChromatogramPeakMSD msd : peaks) {
+			msd.addClassifier(classifier);
+		}
+	}
+
 	/**
 	 * Builds from each raw peak a valid {@link IChromatogramPeakMSD} and adds it to the
 	 * chromatogram.
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2019 Lablicate GmbH.
+ * Copyright (c) 2008, 2020 Lablicate GmbH.
  * 
  * All rights reserved.
  * This program and the accompanying materials are made available under the
@@ -29,4 +29,8 @@ public class FirstDerivativeDetectorSlopes extends DetectorSlopes implements IFi
 	public FirstDerivativeDetectorSlopes(Collection<?> signals) {
 		super(0, signals.size() - 1);
 	}
+
+	public FirstDerivativeDetectorSlopes(int startScan, int stopScan) {
+		super(startScan, stopScan);
+	}
 }
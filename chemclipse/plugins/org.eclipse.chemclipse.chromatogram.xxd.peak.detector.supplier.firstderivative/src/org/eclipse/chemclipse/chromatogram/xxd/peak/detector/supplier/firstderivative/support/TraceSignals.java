@@ -0,0 +1,176 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Lablicate GmbH.
+ *
+ * All rights reserved.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Dr. Philip Wenig - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.chemclipse.chromatogram.xxd.peak.detector.supplier.firstderivative.support;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.chemclipse.msd.model.core.AbstractIon;
+import org.eclipse.chemclipse.msd.model.core.IChromatogramMSD;
+import org.eclipse.chemclipse.msd.model.core.IIon;
+import org.eclipse.chemclipse.msd.model.core.IVendorMassSpectrum;
+import org.eclipse.chemclipse.msd.model.core.support.IMarkedIons;
+import org.eclipse.chemclipse.msd.model.core.support.IMarkedIons.IonMarkMode;
+import org.eclipse.chemclipse.numeric.core.IPoint;
+import org.eclipse.chemclipse.numeric.core.Point;
+
+/**
+ * Stores the signals of several ion traces column wise, one float array per trace.<br/>
+ * The signals of all traces are extracted in one pass over the scans.
+ * Afterwards, the instance is only read, hence the slopes of different traces
+ * can be calculated concurrently.
+ */
+public class TraceSignals {
+
+	private final int startScan;
+	private final int stopScan;
+	private final int[] retentionTimes;
+	private final float[][] signals;
+
+	/**
+	 * The traces are summed like IScanMSD.getTotalSignal(IMarkedIons).
+	 * In mode EXCLUDE, the abundances of the marked ions are summed.
+	 * In mode INCLUDE, the abundances of the marked ions are subtracted from the total signal.
+	 *
+	 * @param chromatogram
+	 * @param startScan
+	 * @param stopScan
+	 * @param traces
+	 */
+	public TraceSignals(IChromatogramMSD chromatogram, int startScan, int stopScan, List<IMarkedIons> traces) {
+
+		this.startScan = startScan;
+		this.stopScan = stopScan;
+		int numberOfScans = Math.max(0, stopScan - startScan + 1);
+		retentionTimes = new int[numberOfScans];
+		signals = new float[traces.size()][numberOfScans];
+		/*
+		 * Nominal ion -> traces
+		 */
+		int maxIon = -1;
+		for(IMarkedIons trace : traces) {
+			for(int ion : trace.getIonsNominal()) {
+				maxIon = Math.max(maxIon, ion);
+			}
+		}
+		int[][] lookup = new int[maxIon + 1][];
+		boolean[] complement = new boolean[traces.size()];
+		for(int i = 0; i < traces.size(); i++) {
+			IMarkedIons trace = traces.get(i);
+			complement[i] = trace.getMode() == IonMarkMode.INCLUDE;
+			for(int ion : trace.getIonsNominal()) {
+				if(ion >= 0) {
+					int[] indices = lookup[ion];
+					indices = (indices == null) ? new int[1] : Arrays.copyOf(indices, indices.length + 1);
+					indices[indices.length - 1] = i;
+					lookup[ion] = indices;
+				}
+			}
+		}
+		/*
+		 * Single pass over the scans.
+		 */
+		for(int scan = startScan; scan <= stopScan; scan++) {
+			int index = scan - startScan;
+			IVendorMassSpectrum massSpectrum = chromatogram.getSupplierScan(scan);
+			retentionTimes[index] = massSpectrum.getRetentionTime();
+			float totalSignal = 0.0f;
+			for(IIon ion : massSpectrum.getIons()) {
+				float abundance = ion.getAbundance();
+				totalSignal += abundance;
+				int nominal = AbstractIon.getIon(ion.getIon());
+				if(nominal >= 0 && nominal <= maxIon && lookup[nominal] != null) {
+					for(int trace : lookup[nominal]) {
+						signals[trace][index] += abundance;
+					}
+				}
+			}
+			for(int trace = 0; trace < complement.length; trace++) {
+				if(complement[trace]) {
+					signals[trace][index] = totalSignal - signals[trace][index];
+				}
+			}
+		}
+	}
+
+	public int getStartScan() {
+
+		return startScan;
+	}
+
+	public int getStopScan() {
+
+		return stopScan;
+	}
+
+	/**
+	 * Returns the number of traces.
+	 *
+	 * @return int
+	 */
+	public int size() {
+
+		return signals.length;
+	}
+
+	public float getSignal(int trace, int scan) {
+
+		return signals[trace][scan - startScan];
+	}
+
+	/**
+	 * Returns the slopes of the trace in the given scan range.
+	 * The signals are normalized to the given base within the scan range.
+	 * The stored signals are not modified.
+	 *
+	 * @param trace
+	 * @param startScan
+	 * @param stopScan
+	 * @param normalizationBase
+	 * @return {@link IFirstDerivativeDetectorSlopes}
+	 */
+	public IFirstDerivativeDetectorSlopes getFirstDerivativeSlopes(int trace, int startScan, int stopScan, float normalizationBase) {
+
+		if(startScan < this.startScan || stopScan > this.stopScan || startScan > stopScan) {
+			return new FirstDerivativeDetectorSlopes(0, -1);
+		}
+		float[] values = signals[trace];
+		int start = startScan - this.startScan;
+		int stop = stopScan - this.startScan;
+		float max = values[start];
+		for(int i = start + 1; i <= stop; i++) {
+			if(values[i] > max) {
+				max = values[i];
+			}
+		}
+		/*
+		 * Use double for a better precision.
+		 */
+		double factor = 0.0d;
+		if(max != 0.0d) {
+			factor = normalizationBase / (double)max;
+		}
+		/*
+		 * Fill the slope list.
+		 */
+		IFirstDerivativeDetectorSlopes slopes = new FirstDerivativeDetectorSlopes(startScan, stopScan - 1);
+		float abundance = (float)(factor * values[start]);
+		for(int i = start; i < stop; i++) {
+			float nextAbundance = (float)(factor * values[i + 1]);
+			IPoint p1 = new Point(retentionTimes[i], abundance);
+			IPoint p2 = new Point(retentionTimes[i + 1], nextAbundance);
+			slopes.add(new FirstDerivativeDetectorSlope(p1, p2, retentionTimes[i]));
+			abundance = nextAbundance;
+		}
+		return slopes;
+	}
+}
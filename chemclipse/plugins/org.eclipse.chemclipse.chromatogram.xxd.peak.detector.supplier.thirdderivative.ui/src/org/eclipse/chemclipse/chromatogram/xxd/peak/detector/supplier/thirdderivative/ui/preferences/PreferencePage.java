@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2014, 2018 Lablicate GmbH.
+ * Copyright (c) 2014, 2020 Lablicate GmbH.
  * 
  * All rights reserved.
  * This program and the accompanying materials are made available under the
@@ -11,12 +11,15 @@
  *******************************************************************************/
 package org.eclipse.chemclipse.chromatogram.xxd.peak.detector.supplier.thirdderivative.ui.preferences;
 
+import org.eclipse.chemclipse.chromatogram.peak.detector.model.Threshold;
 import org.eclipse.chemclipse.chromatogram.xxd.peak.detector.supplier.thirdderivative.preferences.PreferenceSupplier;
 import org.eclipse.chemclipse.chromatogram.xxd.peak.detector.supplier.thirdderivative.ui.Activator;
-
+import org.eclipse.chemclipse.numeric.statistics.WindowSize;
 import org.eclipse.jface.preference.BooleanFieldEditor;
+import org.eclipse.jface.preference.ComboFieldEditor;
 import org.eclipse.jface.preference.FieldEditorPreferencePage;
 import org.eclipse.jface.preference.IntegerFieldEditor;
+import org.eclipse.jface.preference.RadioGroupFieldEditor;
 import org.eclipse.ui.IWorkbenchPreferencePage;
 import org.eclipse.ui.IWorkbench;
 
@@ -35,8 +38,13 @@ public class PreferencePage extends FieldEditorPreferencePage implements IWorkbe
 	 */
 	public void createFieldEditors() {
 
+		String[][] options = new String[][]{{"&OFF", Threshold.OFF.toString()}, {"&LOW", Threshold.LOW.toString()}, {"&MEDIUM", Threshold.MEDIUM.toString()}, {"&HIGH", Threshold.HIGH.toString()}};
+		addField(new RadioGroupFieldEditor(PreferenceSupplier.P_THRESHOLD, "Set a threshold level", 1, options, getFieldEditorParent()));
 		addField(new BooleanFieldEditor(PreferenceSupplier.P_INCLUDE_BACKGROUND, "Selected: Use VV - Deselected: Use BV or VB", getFieldEditorParent()));
 		addField(new IntegerFieldEditor(PreferenceSupplier.P_MIN_SN_RATIO, "Minimum S/N ratio (0 = add all peaks)", getFieldEditorParent()));
+		addField(new ComboFieldEditor(PreferenceSupplier.P_WINDOW_SIZE, "Savitzky-Golay window size (min. 5)", WindowSize.getElements(), getFieldEditorParent()));
+		addField(new BooleanFieldEditor(PreferenceSupplier.P_USE_NOISE_SEGMENTS, "Use Noise-Segments", getFieldEditorParent()));
+		addField(new BooleanFieldEditor(PreferenceSupplier.P_OPTIMIZE_BASELINE, "Optimize Baseline (VV)", getFieldEditorParent()));
 	}
 
 	/*
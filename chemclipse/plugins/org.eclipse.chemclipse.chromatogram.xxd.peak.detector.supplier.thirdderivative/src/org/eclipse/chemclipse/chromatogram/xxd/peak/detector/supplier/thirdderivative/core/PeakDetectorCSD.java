@@ -0,0 +1,140 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Lablicate GmbH.
+ *
+ * All rights reserved.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Dr. Philip Wenig - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.chemclipse.chromatogram.xxd.peak.detector.supplier.thirdderivative.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.chemclipse.chromatogram.csd.peak.detector.core.IPeakDetectorCSD;
+import org.eclipse.chemclipse.chromatogram.csd.peak.detector.settings.IPeakDetectorSettingsCSD;
+import org.eclipse.chemclipse.chromatogram.peak.detector.support.IRawPeak;
+import org.eclipse.chemclipse.chromatogram.xxd.calculator.core.noise.NoiseChromatogramClassifier;
+import org.eclipse.chemclipse.chromatogram.xxd.peak.detector.supplier.thirdderivative.preferences.PreferenceSupplier;
+import org.eclipse.chemclipse.chromatogram.xxd.peak.detector.supplier.thirdderivative.settings.PeakDetectorSettingsCSD;
+import org.eclipse.chemclipse.csd.model.core.IChromatogramCSD;
+import org.eclipse.chemclipse.csd.model.core.IChromatogramPeakCSD;
+import org.eclipse.chemclipse.csd.model.core.selection.IChromatogramSelectionCSD;
+import org.eclipse.chemclipse.csd.model.core.support.PeakBuilderCSD;
+import org.eclipse.chemclipse.logging.core.Logger;
+import org.eclipse.chemclipse.model.exceptions.PeakException;
+import org.eclipse.chemclipse.model.support.NoiseSegment;
+import org.eclipse.chemclipse.model.support.ScanRange;
+import org.eclipse.chemclipse.processing.core.IProcessingInfo;
+import org.eclipse.chemclipse.processing.core.MessageType;
+import org.eclipse.chemclipse.processing.core.ProcessingMessage;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.SubMonitor;
+
+public class PeakDetectorCSD extends ThirdDerivativePeakDetector implements IPeakDetectorCSD {
+
+	private static final Logger logger = Logger.getLogger(PeakDetectorCSD.class);
+
+	@SuppressWarnings({"rawtypes", "unchecked"})
+	@Override
+	public IProcessingInfo detect(IChromatogramSelectionCSD chromatogramSelection, IPeakDetectorSettingsCSD detectorSettings, IProgressMonitor monitor) {
+
+		IProcessingInfo processingInfo = validate(chromatogramSelection, detectorSettings, monitor);
+		if(!processingInfo.hasErrorMessages()) {
+			if(detectorSettings instanceof PeakDetectorSettingsCSD) {
+				SubMonitor subMonitor = SubMonitor.convert(monitor, 100);
+				PeakDetectorSettingsCSD peakDetectorSettings = (PeakDetectorSettingsCSD)detectorSettings;
+				IChromatogramCSD chromatogram = chromatogramSelection.getChromatogram();
+				/*
+				 * Extract the noise segments.
+				 */
+				List<NoiseSegment> noiseSegments = null;
+				if(peakDetectorSettings.isUseNoiseSegments()) {
+					noiseSegments = NoiseChromatogramClassifier.getNoiseSegments(chromatogram, chromatogramSelection, false, subMonitor.split(10));
+				}
+				/*
+				 * Detect and add the peaks.
+				 */
+				List<IChromatogramPeakCSD> peaks = detectPeaks(chromatogramSelection, peakDetectorSettings, noiseSegments, subMonitor.split(90));
+				for(IChromatogramPeakCSD peak : peaks) {
+					chromatogram.addPeak(peak);
+				}
+				processingInfo.addMessage(new ProcessingMessage(MessageType.INFO, DETECTOR_DESCRIPTION, peaks.size() + " peak(s) have been detected."));
+			} else {
+				logger.warn("Settings is not of type: " + PeakDetectorSettingsCSD.class);
+			}
+		}
+		return processingInfo;
+	}
+
+	@SuppressWarnings("rawtypes")
+	@Override
+	public IProcessingInfo detect(IChromatogramSelectionCSD chromatogramSelection, IProgressMonitor monitor) {
+
+		PeakDetectorSettingsCSD peakDetectorSettings = PreferenceSupplier.getPeakDetectorSettingsCSD();
+		return detect(chromatogramSelection, peakDetectorSettings, monitor);
+	}
+
+	/**
+	 * Use this method if peaks shall be detected without adding them to the chromatogram.
+	 * Additionally, noise segments are used if not null.
+	 *
+	 * @param chromatogramSelection
+	 * @param peakDetectorSettings
+	 * @param noiseSegments
+	 * @param monitor
+	 * @return List<IChromatogramPeakCSD>
+	 */
+	public List<IChromatogramPeakCSD> detectPeaks(IChromatogramSelectionCSD chromatogramSelection, PeakDetectorSettingsCSD peakDetectorSettings, List<NoiseSegment> noiseSegments, IProgressMonitor monitor) {
+
+		IChromatogramCSD chromatogram = chromatogramSelection.getChromatogram();
+		List<int[]> scanRanges = getScanRanges(chromatogramSelection, noiseSegments);
+		List<IRawPeak> rawPeaks = getRawPeaks(chromatogram, scanRanges, peakDetectorSettings.getMovingAverageWindowSize(), peakDetectorSettings.getThreshold());
+		return extractPeaks(rawPeaks, chromatogram, peakDetectorSettings);
+	}
+
+	/**
+	 * Builds from each raw peak a valid {@link IChromatogramPeakCSD}.
+	 *
+	 * @param rawPeaks
+	 * @param chromatogram
+	 * @return List<IChromatogramPeakCSD>
+	 */
+	private List<IChromatogramPeakCSD> extractPeaks(List<IRawPeak> rawPeaks, IChromatogramCSD chromatogram, PeakDetectorSettingsCSD peakDetectorSettings) {
+
+		List<IChromatogramPeakCSD> peaks = new ArrayList<>();
+		boolean includeBackground = peakDetectorSettings.isIncludeBackground();
+		boolean optimizeBaseline = peakDetectorSettings.isOptimizeBaseline();
+		//
+		for(IRawPeak rawPeak : rawPeaks) {
+			try {
+				/*
+				 * Optimize the scan range.
+				 */
+				ScanRange scanRange = new ScanRange(rawPeak.getStartScan(), rawPeak.getStopScan());
+				if(includeBackground && optimizeBaseline) {
+					scanRange = optimizeBaseline(chromatogram, scanRange.getStartScan(), rawPeak.getMaximumScan(), scanRange.getStopScan(), null);
+				}
+				/*
+				 * includeBackground
+				 * false: BV or VB
+				 * true: VV
+				 */
+				IChromatogramPeakCSD peak = PeakBuilderCSD.createPeak(chromatogram, scanRange, includeBackground);
+				if(peak != null && peak.getSignalToNoiseRatio() >= peakDetectorSettings.getMinimumSignalToNoiseRatio()) {
+					peak.setDetectorDescription(DETECTOR_DESCRIPTION);
+					peaks.add(peak);
+				}
+			} catch(IllegalArgumentException e) {
+				logger.warn(e);
+			} catch(PeakException e) {
+				logger.warn(e);
+			}
+		}
+		//
+		return peaks;
+	}
+}
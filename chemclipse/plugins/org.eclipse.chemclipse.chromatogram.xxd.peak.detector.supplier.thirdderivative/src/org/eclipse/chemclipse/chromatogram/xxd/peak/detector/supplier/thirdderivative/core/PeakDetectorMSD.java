@@ -0,0 +1,246 @@
+/*******************************************************************************
+ * Copyright (c) 2014, 2020 Lablicate GmbH.
+ *
+ * All rights reserved.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Dr. Philip Wenig - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.chemclipse.chromatogram.xxd.peak.detector.supplier.thirdderivative.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import org.eclipse.chemclipse.chromatogram.msd.peak.detector.core.IPeakDetectorMSD;
+import org.eclipse.chemclipse.chromatogram.msd.peak.detector.settings.IPeakDetectorSettingsMSD;
+import org.eclipse.chemclipse.chromatogram.peak.detector.model.Threshold;
+import org.eclipse.chemclipse.chromatogram.peak.detector.support.IRawPeak;
+import org.eclipse.chemclipse.chromatogram.xxd.calculator.core.noise.NoiseChromatogramClassifier;
+import org.eclipse.chemclipse.chromatogram.xxd.peak.detector.supplier.firstderivative.support.TraceSignals;
+import org.eclipse.chemclipse.chromatogram.xxd.peak.detector.supplier.thirdderivative.preferences.PreferenceSupplier;
+import org.eclipse.chemclipse.chromatogram.xxd.peak.detector.supplier.thirdderivative.settings.PeakDetectorSettingsMSD;
+import org.eclipse.chemclipse.chromatogram.xxd.peak.detector.supplier.thirdderivative.support.DerivativeBuffers;
+import org.eclipse.chemclipse.chromatogram.xxd.peak.detector.supplier.thirdderivative.support.DerivativeFilter;
+import org.eclipse.chemclipse.logging.core.Logger;
+import org.eclipse.chemclipse.model.support.NoiseSegment;
+import org.eclipse.chemclipse.model.support.ScanRange;
+import org.eclipse.chemclipse.msd.model.core.IChromatogramMSD;
+import org.eclipse.chemclipse.msd.model.core.IChromatogramPeakMSD;
+import org.eclipse.chemclipse.msd.model.core.selection.IChromatogramSelectionMSD;
+import org.eclipse.chemclipse.msd.model.core.support.IMarkedIons;
+import org.eclipse.chemclipse.msd.model.core.support.PeakBuilderMSD;
+import org.eclipse.chemclipse.processing.core.IProcessingInfo;
+import org.eclipse.chemclipse.processing.core.MessageType;
+import org.eclipse.chemclipse.processing.core.ProcessingMessage;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.SubMonitor;
+
+public class PeakDetectorMSD extends ThirdDerivativePeakDetector implements IPeakDetectorMSD {
+
+	private static final Logger logger = Logger.getLogger(PeakDetectorMSD.class);
+
+	@SuppressWarnings({"rawtypes", "unchecked"})
+	@Override
+	public IProcessingInfo detect(IChromatogramSelectionMSD chromatogramSelection, IPeakDetectorSettingsMSD detectorSettings, IProgressMonitor monitor) {
+
+		IProcessingInfo processingInfo = validate(chromatogramSelection, detectorSettings, monitor);
+		if(!processingInfo.hasErrorMessages()) {
+			if(detectorSettings instanceof PeakDetectorSettingsMSD) {
+				SubMonitor subMonitor = SubMonitor.convert(monitor, 100);
+				PeakDetectorSettingsMSD peakDetectorSettings = (PeakDetectorSettingsMSD)detectorSettings;
+				IChromatogramMSD chromatogram = chromatogramSelection.getChromatogram();
+				/*
+				 * Extract the noise segments.
+				 */
+				List<NoiseSegment> noiseSegments = null;
+				if(peakDetectorSettings.isUseNoiseSegments()) {
+					noiseSegments = NoiseChromatogramClassifier.getNoiseSegments(chromatogram, chromatogramSelection, false, subMonitor.split(10));
+				}
+				/*
+				 * Detect and add the peaks.
+				 */
+				List<IChromatogramPeakMSD> peaks = detectPeaks(chromatogramSelection, peakDetectorSettings, noiseSegments, subMonitor.split(90));
+				for(IChromatogramPeakMSD peak : peaks) {
+					chromatogram.addPeak(peak);
+				}
+				processingInfo.addMessage(new ProcessingMessage(MessageType.INFO, DETECTOR_DESCRIPTION, peaks.size() + " peak(s) have been detected."));
+			} else {
+				logger.warn("Settings is not of type: " + PeakDetectorSettingsMSD.class);
+			}
+		}
+		return processingInfo;
+	}
+
+	@SuppressWarnings("rawtypes")
+	@Override
+	public IProcessingInfo detect(IChromatogramSelectionMSD chromatogramSelection, IProgressMonitor monitor) {
+
+		PeakDetectorSettingsMSD peakDetectorSettings = PreferenceSupplier.getPeakDetectorSettingsMSD();
+		return detect(chromatogramSelection, peakDetectorSettings, monitor);
+	}
+
+	/**
+	 * Use this method if peaks shall be detected without adding them to the chromatogram.
+	 * Additionally, noise segments are used if not null.
+	 * The signals of all traces are extracted in one pass over the scans.
+	 * If more than one trace is used, the traces are detected in parallel, each
+	 * thread reusing its derivative buffers. The peaks are returned in the order of the traces.
+	 *
+	 * @param chromatogramSelection
+	 * @param peakDetectorSettings
+	 * @param noiseSegments
+	 * @param monitor
+	 * @return List<IChromatogramPeakMSD>
+	 */
+	public List<IChromatogramPeakMSD> detectPeaks(IChromatogramSelectionMSD chromatogramSelection, PeakDetectorSettingsMSD peakDetectorSettings, List<NoiseSegment> noiseSegments, IProgressMonitor monitor) {
+
+		List<IChromatogramPeakMSD> extractPeaks = new ArrayList<>();
+		IChromatogramMSD chromatogram = chromatogramSelection.getChromatogram();
+		List<int[]> scanRanges = getScanRanges(chromatogramSelection, noiseSegments);
+		List<IMarkedIons> traces = new ArrayList<>(peakDetectorSettings.getFilterIons());
+		if(scanRanges.isEmpty() || traces.isEmpty()) {
+			return extractPeaks;
+		}
+		/*
+		 * Extract the signals of all traces in the overall scan range.
+		 */
+		int startScan = Integer.MAX_VALUE;
+		int stopScan = Integer.MIN_VALUE;
+		for(int[] scanRange : scanRanges) {
+			startScan = Math.min(startScan, scanRange[0]);
+			stopScan = Math.max(stopScan, scanRange[1]);
+		}
+		TraceSignals traceSignals = new TraceSignals(chromatogram, startScan, stopScan, traces);
+		DerivativeFilter filter = DerivativeFilter.getInstance(peakDetectorSettings.getMovingAverageWindowSize().getSize());
+		/*
+		 * The noise factor is calculated lazily on first use.
+		 * Calculate it before the tasks are started, as the peak validation needs it.
+		 */
+		chromatogram.getSignalToNoiseRatio(0.0f);
+		int threads = Math.min(Runtime.getRuntime().availableProcessors(), traces.size());
+		SubMonitor subMonitor = SubMonitor.convert(monitor, threads);
+		List<List<IChromatogramPeakMSD>> tracePeaks = new ArrayList<>(Collections.nCopies(traces.size(), null));
+		if(threads <= 1) {
+			detectPeaksInTraces(chromatogram, traceSignals, traces, 0, 1, scanRanges, filter, peakDetectorSettings, tracePeaks);
+			subMonitor.worked(1);
+		} else {
+			/*
+			 * Each task detects every n-th trace with its own buffers.
+			 */
+			ExecutorService executorService = Executors.newFixedThreadPool(threads);
+			try {
+				List<Future<?>> futures = new ArrayList<>();
+				for(int i = 0; i < threads; i++) {
+					int firstTrace = i;
+					futures.add(executorService.submit(() -> detectPeaksInTraces(chromatogram, traceSignals, traces, firstTrace, threads, scanRanges, filter, peakDetectorSettings, tracePeaks)));
+				}
+				for(Future<?> future : futures) {
+					if(subMonitor.isCanceled()) {
+						break;
+					}
+					future.get();
+					subMonitor.worked(1);
+				}
+			} catch(InterruptedException e) {
+				logger.warn(e);
+				Thread.currentThread().interrupt();
+			} catch(ExecutionException e) {
+				logger.warn(e);
+			} finally {
+				executorService.shutdownNow();
+			}
+		}
+		/*
+		 * Merge the peaks in the order of the traces.
+		 */
+		for(List<IChromatogramPeakMSD> peaks : tracePeaks) {
+			if(peaks != null) {
+				extractPeaks.addAll(peaks);
+			}
+		}
+		return extractPeaks;
+	}
+
+	private void detectPeaksInTraces(IChromatogramMSD chromatogram, TraceSignals traceSignals, List<IMarkedIons> traces, int firstTrace, int step, List<int[]> scanRanges, DerivativeFilter filter, PeakDetectorSettingsMSD peakDetectorSettings, List<List<IChromatogramPeakMSD>> tracePeaks) {
+
+		Threshold threshold = peakDetectorSettings.getThreshold();
+		DerivativeBuffers buffers = new DerivativeBuffers();
+		for(int trace = firstTrace; trace < traces.size(); trace += step) {
+			List<IRawPeak> rawPeaks = new ArrayList<>();
+			for(int[] scanRange : scanRanges) {
+				int startScan = scanRange[0];
+				int stopScan = scanRange[1];
+				float[] signals = buffers.getSignals(startScan, stopScan - startScan + 1);
+				for(int scan = startScan; scan <= stopScan; scan++) {
+					signals[scan - startScan] = traceSignals.getSignal(trace, scan);
+				}
+				detectRawPeaks(buffers, filter, getScanInterval(chromatogram, startScan, stopScan), threshold, rawPeaks);
+			}
+			IMarkedIons ions = traces.get(trace);
+			List<IChromatogramPeakMSD> peaks = extractPeaks(rawPeaks, chromatogram, peakDetectorSettings, ions);
+			if(peakDetectorSettings.isUseIndividualTraces()) {
+				addTraceClassifier(peaks, ions);
+			}
+			tracePeaks.set(trace, peaks);
+		}
+	}
+
+	private static void addTraceClassifier(List<IChromatogramPeakMSD> peaks, IMarkedIons ions) {
+
+		String classifier = "Trace " + ions.getIonsNominal().iterator().next();
+		for(IChromatogramPeakMSD msd : peaks) {
+			msd.addClassifier(classifier);
+		}
+	}
+
+	/**
+	 * Builds from each raw peak a valid {@link IChromatogramPeakMSD}.
+	 *
+	 * @param rawPeaks
+	 * @param chromatogram
+	 * @return List<IChromatogramPeakMSD>
+	 */
+	private List<IChromatogramPeakMSD> extractPeaks(List<IRawPeak> rawPeaks, IChromatogramMSD chromatogram, PeakDetectorSettingsMSD peakDetectorSettings, IMarkedIons ions) {
+
+		List<IChromatogramPeakMSD> peaks = new ArrayList<>();
+		Set<Integer> traces = ions.getIonsNominal().stream().map(e -> e.intValue()).collect(Collectors.toSet());
+		boolean includeBackground = peakDetectorSettings.isIncludeBackground();
+		boolean optimizeBaseline = peakDetectorSettings.isOptimizeBaseline();
+		//
+		for(IRawPeak rawPeak : rawPeaks) {
+			try {
+				/*
+				 * Optimize the scan range.
+				 */
+				ScanRange scanRange = new ScanRange(rawPeak.getStartScan(), rawPeak.getStopScan());
+				if(includeBackground && optimizeBaseline) {
+					scanRange = optimizeBaseline(chromatogram, scanRange.getStartScan(), rawPeak.getMaximumScan(), scanRange.getStopScan(), ions);
+				}
+				/*
+				 * includeBackground
+				 * false: BV or VB
+				 * true: VV
+				 */
+				IChromatogramPeakMSD peak = PeakBuilderMSD.createPeak(chromatogram, scanRange, includeBackground, traces, ions.getMode());
+				if(peak != null && peak.getSignalToNoiseRatio() >= peakDetectorSettings.getMinimumSignalToNoiseRatio()) {
+					peak.setDetectorDescription(DETECTOR_DESCRIPTION);
+					peaks.add(peak);
+				}
+			} catch(Exception e) {
+				logger.debug(e.getLocalizedMessage());
+			}
+		}
+		//
+		return peaks;
+	}
+}
@@ -0,0 +1,114 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Lablicate GmbH.
+ *
+ * All rights reserved.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Dr. Philip Wenig - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.chemclipse.chromatogram.xxd.peak.detector.supplier.thirdderivative.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.chemclipse.chromatogram.peak.detector.support.IRawPeak;
+import org.eclipse.chemclipse.chromatogram.wsd.peak.detector.core.IPeakDetectorWSD;
+import org.eclipse.chemclipse.chromatogram.wsd.peak.detector.settings.IPeakDetectorSettingsWSD;
+import org.eclipse.chemclipse.chromatogram.xxd.peak.detector.supplier.thirdderivative.preferences.PreferenceSupplier;
+import org.eclipse.chemclipse.chromatogram.xxd.peak.detector.supplier.thirdderivative.settings.PeakDetectorSettingsWSD;
+import org.eclipse.chemclipse.logging.core.Logger;
+import org.eclipse.chemclipse.model.exceptions.PeakException;
+import org.eclipse.chemclipse.model.support.ScanRange;
+import org.eclipse.chemclipse.processing.core.IProcessingInfo;
+import org.eclipse.chemclipse.processing.core.MessageType;
+import org.eclipse.chemclipse.processing.core.ProcessingMessage;
+import org.eclipse.chemclipse.wsd.model.core.IChromatogramPeakWSD;
+import org.eclipse.chemclipse.wsd.model.core.IChromatogramWSD;
+import org.eclipse.chemclipse.wsd.model.core.selection.IChromatogramSelectionWSD;
+import org.eclipse.chemclipse.wsd.model.core.support.PeakBuilderWSD;
+import org.eclipse.core.runtime.IProgressMonitor;
+
+public class PeakDetectorWSD extends ThirdDerivativePeakDetector implements IPeakDetectorWSD {
+
+	private static final Logger logger = Logger.getLogger(PeakDetectorWSD.class);
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public IProcessingInfo<?> detect(IChromatogramSelectionWSD chromatogramSelection, IPeakDetectorSettingsWSD detectorSettings, IProgressMonitor monitor) {
+
+		IProcessingInfo<?> processingInfo = validate(chromatogramSelection, detectorSettings, monitor);
+		if(!processingInfo.hasErrorMessages()) {
+			if(detectorSettings instanceof PeakDetectorSettingsWSD) {
+				PeakDetectorSettingsWSD peakDetectorSettings = (PeakDetectorSettingsWSD)detectorSettings;
+				List<IChromatogramPeakWSD> peaks = detectPeaks(chromatogramSelection, peakDetectorSettings, monitor);
+				IChromatogramWSD chromatogram = chromatogramSelection.getChromatogram();
+				for(IChromatogramPeakWSD peak : peaks) {
+					chromatogram.addPeak(peak);
+				}
+				processingInfo.addMessage(new ProcessingMessage(MessageType.INFO, DETECTOR_DESCRIPTION, peaks.size() + " peak(s) have been detected."));
+			} else {
+				logger.warn("Settings is not of type: " + PeakDetectorSettingsWSD.class);
+			}
+		}
+		return processingInfo;
+	}
+
+	@Override
+	public IProcessingInfo<?> detect(IChromatogramSelectionWSD chromatogramSelection, IProgressMonitor monitor) {
+
+		PeakDetectorSettingsWSD peakDetectorSettings = PreferenceSupplier.getPeakDetectorSettingsWSD();
+		return detect(chromatogramSelection, peakDetectorSettings, monitor);
+	}
+
+	/**
+	 * Use this method if peaks shall be detected without adding them to the chromatogram.
+	 *
+	 * @param chromatogramSelection
+	 * @param peakDetectorSettings
+	 * @param monitor
+	 * @return List<IChromatogramPeakWSD>
+	 */
+	public List<IChromatogramPeakWSD> detectPeaks(IChromatogramSelectionWSD chromatogramSelection, PeakDetectorSettingsWSD peakDetectorSettings, IProgressMonitor monitor) {
+
+		IChromatogramWSD chromatogram = chromatogramSelection.getChromatogram();
+		List<int[]> scanRanges = getScanRanges(chromatogramSelection, null);
+		List<IRawPeak> rawPeaks = getRawPeaks(chromatogram, scanRanges, peakDetectorSettings.getMovingAverageWindowSize(), peakDetectorSettings.getThreshold());
+		return extractPeaks(rawPeaks, chromatogram, peakDetectorSettings);
+	}
+
+	/**
+	 * Builds from each raw peak a valid {@link IChromatogramPeakWSD}.
+	 *
+	 * @param rawPeaks
+	 * @param chromatogram
+	 * @return List<IChromatogramPeakWSD>
+	 */
+	private List<IChromatogramPeakWSD> extractPeaks(List<IRawPeak> rawPeaks, IChromatogramWSD chromatogram, PeakDetectorSettingsWSD peakDetectorSettings) {
+
+		List<IChromatogramPeakWSD> peaks = new ArrayList<>();
+		for(IRawPeak rawPeak : rawPeaks) {
+			try {
+				/*
+				 * includeBackground
+				 * false: BV or VB
+				 * true: VV
+				 */
+				ScanRange scanRange = new ScanRange(rawPeak.getStartScan(), rawPeak.getStopScan());
+				IChromatogramPeakWSD peak = PeakBuilderWSD.createPeak(chromatogram, scanRange, peakDetectorSettings.isIncludeBackground());
+				if(peak != null) {
+					peak.setDetectorDescription(DETECTOR_DESCRIPTION);
+					peaks.add(peak);
+				}
+			} catch(IllegalArgumentException e) {
+				logger.warn(e);
+			} catch(PeakException e) {
+				logger.warn(e);
+			}
+		}
+		//
+		return peaks;
+	}
+}
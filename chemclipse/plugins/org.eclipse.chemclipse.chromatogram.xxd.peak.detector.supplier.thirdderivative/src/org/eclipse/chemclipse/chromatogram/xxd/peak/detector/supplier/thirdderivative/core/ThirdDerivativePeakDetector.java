@@ -0,0 +1,324 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Lablicate GmbH.
+ *
+ * All rights reserved.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Dr. Philip Wenig - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.chemclipse.chromatogram.xxd.peak.detector.supplier.thirdderivative.core;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.eclipse.chemclipse.chromatogram.peak.detector.model.Threshold;
+import org.eclipse.chemclipse.chromatogram.peak.detector.support.IRawPeak;
+import org.eclipse.chemclipse.chromatogram.peak.detector.support.RawPeak;
+import org.eclipse.chemclipse.chromatogram.xxd.peak.detector.supplier.firstderivative.core.BasePeakDetector;
+import org.eclipse.chemclipse.chromatogram.xxd.peak.detector.supplier.thirdderivative.support.DerivativeBuffers;
+import org.eclipse.chemclipse.chromatogram.xxd.peak.detector.supplier.thirdderivative.support.DerivativeFilter;
+import org.eclipse.chemclipse.model.core.IChromatogram;
+import org.eclipse.chemclipse.model.core.IPeakModel;
+import org.eclipse.chemclipse.model.selection.IChromatogramSelection;
+import org.eclipse.chemclipse.model.support.NoiseSegment;
+import org.eclipse.chemclipse.numeric.statistics.WindowSize;
+
+/**
+ * The peak borders are detected like in the first derivative detector.
+ * Within the borders, each local minimum of the 2nd derivative (3rd derivative
+ * crosses zero from negative to positive) marks a peak apex, which resolves
+ * shoulders that don't form a valley. The peaks are separated at the maximum
+ * of the 2nd derivative in between.
+ */
+public abstract class ThirdDerivativePeakDetector extends BasePeakDetector {
+
+	public static final String DETECTOR_DESCRIPTION = "Third Derivative";
+	/*
+	 * A 2nd derivative minimum is an apex candidate, if it reaches this ratio of
+	 * the strongest minimum between the peak borders. Two apices are separated,
+	 * if the 2nd derivative rises by the prominence ratio in between.
+	 */
+	private static final double APEX_RATIO = 0.1d;
+	private static final double PROMINENCE_RATIO = 0.1d;
+
+	/**
+	 * Detects the raw peaks in the total signal of the given scan ranges.
+	 * The buffers are reused for all scan ranges.
+	 *
+	 * @param chromatogram
+	 * @param scanRanges
+	 * @param windowSize
+	 * @param threshold
+	 * @return List<IRawPeak>
+	 */
+	protected static List<IRawPeak> getRawPeaks(IChromatogram<?> chromatogram, List<int[]> scanRanges, WindowSize windowSize, Threshold threshold) {
+
+		List<IRawPeak> rawPeaks = new ArrayList<>();
+		DerivativeFilter filter = DerivativeFilter.getInstance(windowSize.getSize());
+		DerivativeBuffers buffers = new DerivativeBuffers();
+		for(int[] scanRange : scanRanges) {
+			int startScan = scanRange[0];
+			int stopScan = scanRange[1];
+			float[] signals = buffers.getSignals(startScan, stopScan - startScan + 1);
+			for(int scan = startScan; scan <= stopScan; scan++) {
+				signals[scan - startScan] = chromatogram.getScan(scan).getTotalSignal();
+			}
+			detectRawPeaks(buffers, filter, getScanInterval(chromatogram, startScan, stopScan), threshold, rawPeaks);
+		}
+		return rawPeaks;
+	}
+
+	/**
+	 * Calculates the derivatives of the signals stored in the buffers and
+	 * adds the raw peaks to the given list.
+	 *
+	 * @param buffers
+	 * @param filter
+	 * @param scanInterval
+	 * @param threshold
+	 * @param rawPeaks
+	 */
+	protected static void detectRawPeaks(DerivativeBuffers buffers, DerivativeFilter filter, double scanInterval, Threshold threshold, List<IRawPeak> rawPeaks) {
+
+		if(buffers.calculate(filter, scanInterval, NORMALIZATION_BASE)) {
+			rawPeaks.addAll(getRawPeaks(buffers, threshold));
+		}
+	}
+
+	/**
+	 * Marks the peaks with start, stop and max.
+	 * The derivatives must have been calculated.
+	 *
+	 * @param buffers
+	 * @param thresholdSetting
+	 * @return List<IRawPeak>
+	 */
+	public static List<IRawPeak> getRawPeaks(DerivativeBuffers buffers, Threshold thresholdSetting) {
+
+		double threshold = getThreshold(thresholdSetting);
+		List<IRawPeak> rawPeaks = new ArrayList<>();
+		int size = buffers.size();
+		int index = 0;
+		while(index < size - CONSECUTIVE_SCAN_STEPS) {
+			int peakStart = detectPeakStart(buffers, index, threshold);
+			if(peakStart < 0) {
+				break;
+			}
+			int peakMaximum = detectPeakMaximum(buffers, peakStart);
+			int peakStop = detectPeakStop(buffers, peakMaximum, threshold);
+			addRawPeaks(buffers, peakStart, peakMaximum, peakStop, rawPeaks);
+			/*
+			 * Begin the detection of the next peak at the end of the actual peak.
+			 */
+			index = Math.max(peakStop, peakStart + 1);
+		}
+		return rawPeaks;
+	}
+
+	/**
+	 * Returns the scan ranges between the noise segments.
+	 * The chromatogram selection is not modified.
+	 * Invalid ranges are skipped, as no signals are available for them.
+	 *
+	 * @param chromatogramSelection
+	 * @param noiseSegments
+	 * @return List<int[]>
+	 */
+	protected static List<int[]> getScanRanges(IChromatogramSelection<?, ?> chromatogramSelection, List<NoiseSegment> noiseSegments) {
+
+		IChromatogram<?> chromatogram = chromatogramSelection.getChromatogram();
+		int startRetentionTime = chromatogramSelection.getStartRetentionTime();
+		int stopRetentionTime = chromatogramSelection.getStopRetentionTime();
+		List<int[]> retentionTimeRanges = new ArrayList<>();
+		if(noiseSegments != null && noiseSegments.size() > 0) {
+			/*
+			 * | --- [S] --- [N] --- [E] --- |
+			 */
+			Iterator<NoiseSegment> iterator = noiseSegments.iterator();
+			NoiseSegment noiseSegment = iterator.next();
+			retentionTimeRanges.add(new int[]{startRetentionTime, noiseSegment.getStartRetentionTime()});
+			while(iterator.hasNext()) {
+				int startRetentionTimeSegment = noiseSegment.getStopRetentionTime();
+				noiseSegment = iterator.next();
+				retentionTimeRanges.add(new int[]{startRetentionTimeSegment, noiseSegment.getStartRetentionTime()});
+			}
+			retentionTimeRanges.add(new int[]{noiseSegment.getStopRetentionTime(), stopRetentionTime});
+		} else {
+			retentionTimeRanges.add(new int[]{startRetentionTime, stopRetentionTime});
+		}
+		//
+		List<int[]> scanRanges = new ArrayList<>();
+		int numberOfScans = chromatogram.getNumberOfScans();
+		for(int[] retentionTimeRange : retentionTimeRanges) {
+			int start = retentionTimeRange[0];
+			int stop = retentionTimeRange[1];
+			if(start <= 0 || start > stop || start < chromatogram.getStartRetentionTime()) {
+				start = chromatogram.getStartRetentionTime();
+			}
+			if(stop <= 0 || stop < start || stop > chromatogram.getStopRetentionTime()) {
+				stop = chromatogram.getStopRetentionTime();
+			}
+			int startScan = chromatogram.getScanNumber(start);
+			int stopScan = chromatogram.getScanNumber(stop);
+			if(startScan >= 1 && stopScan <= numberOfScans && startScan <= stopScan) {
+				scanRanges.add(new int[]{startScan, stopScan});
+			}
+		}
+		return scanRanges;
+	}
+
+	/**
+	 * Returns the mean scan interval in milliseconds.
+	 *
+	 * @param chromatogram
+	 * @param startScan
+	 * @param stopScan
+	 * @return double
+	 */
+	protected static double getScanInterval(IChromatogram<?> chromatogram, int startScan, int stopScan) {
+
+		if(stopScan <= startScan) {
+			return 1.0d;
+		}
+		int startRetentionTime = chromatogram.getScan(startScan).getRetentionTime();
+		int stopRetentionTime = chromatogram.getScan(stopScan).getRetentionTime();
+		return (stopRetentionTime - startRetentionTime) / (double)(stopScan - startScan);
+	}
+
+	private static double getThreshold(Threshold threshold) {
+
+		switch(threshold) {
+			case OFF:
+				return 0.0005d;
+			case LOW:
+				return 0.005d;
+			case MEDIUM:
+				return 0.05d;
+			case HIGH:
+				return 0.5d;
+			default:
+				return 0.005d;
+		}
+	}
+
+	/**
+	 * Returns the first index, where the 1st derivative exceeds the threshold
+	 * on consecutive scans or -1 if there is none.
+	 */
+	private static int detectPeakStart(DerivativeBuffers buffers, int index, double threshold) {
+
+		int steps = 0;
+		for(int i = index; i < buffers.size(); i++) {
+			if(buffers.getFirstDerivative(i) > threshold) {
+				if(++steps == CONSECUTIVE_SCAN_STEPS) {
+					return i - CONSECUTIVE_SCAN_STEPS + 1;
+				}
+			} else {
+				steps = 0;
+			}
+		}
+		return -1;
+	}
+
+	private static int detectPeakMaximum(DerivativeBuffers buffers, int peakStart) {
+
+		int size = buffers.size();
+		for(int i = peakStart + 1; i < size; i++) {
+			if(buffers.getFirstDerivative(i) <= 0.0d) {
+				return i;
+			}
+		}
+		return size - 1;
+	}
+
+	/**
+	 * The peak stops when the descending slope levels off or when
+	 * the signal rises again (valley).
+	 */
+	private static int detectPeakStop(DerivativeBuffers buffers, int peakMaximum, double threshold) {
+
+		int size = buffers.size();
+		boolean descending = false;
+		for(int i = peakMaximum + 1; i < size; i++) {
+			double derivative = buffers.getFirstDerivative(i);
+			if(descending) {
+				if(derivative >= -threshold) {
+					return i;
+				}
+			} else if(derivative < -threshold) {
+				descending = true;
+			} else if(derivative > threshold) {
+				return i;
+			}
+		}
+		return size - 1;
+	}
+
+	/**
+	 * Splits the peak at the shoulders, marked by the local minima of the 2nd derivative.
+	 */
+	private static void addRawPeaks(DerivativeBuffers buffers, int peakStart, int peakMaximum, int peakStop, List<IRawPeak> rawPeaks) {
+
+		int scanOffset = buffers.getStartScan();
+		double minimum = 0.0d;
+		for(int i = peakStart; i <= peakStop; i++) {
+			minimum = Math.min(minimum, buffers.getSecondDerivative(i));
+		}
+		double apexLimit = APEX_RATIO * minimum;
+		double prominence = -PROMINENCE_RATIO * minimum;
+		/*
+		 * Walk through the candidates and keep track of the 2nd derivative
+		 * maximum since the last accepted apex, which is the separation point.
+		 */
+		int start = peakStart;
+		int apex = -1;
+		int separation = -1;
+		double separationValue = Double.NEGATIVE_INFINITY;
+		for(int i = peakStart + 1; i < peakStop; i++) {
+			double secondDerivative = buffers.getSecondDerivative(i);
+			if(apex >= 0 && secondDerivative > separationValue) {
+				separation = i;
+				separationValue = secondDerivative;
+			}
+			if(buffers.getThirdDerivative(i - 1) < 0.0d && buffers.getThirdDerivative(i) >= 0.0d) {
+				int candidate = (buffers.getSecondDerivative(i - 1) < secondDerivative) ? i - 1 : i;
+				double candidateValue = buffers.getSecondDerivative(candidate);
+				if(candidateValue <= apexLimit && candidate > start) {
+					if(apex < 0) {
+						apex = candidate;
+						separationValue = Double.NEGATIVE_INFINITY;
+					} else {
+						double apexValue = buffers.getSecondDerivative(apex);
+						boolean separated = separation > apex && separation < candidate && separationValue - Math.max(apexValue, candidateValue) >= prominence;
+						if(separated && separation - start + 1 >= IPeakModel.MINIMUM_SCANS) {
+							rawPeaks.add(new RawPeak(start + scanOffset, apex + scanOffset, separation + scanOffset));
+							start = separation;
+							apex = candidate;
+							separationValue = Double.NEGATIVE_INFINITY;
+						} else if(candidateValue < apexValue) {
+							/*
+							 * Keep the stronger apex.
+							 */
+							apex = candidate;
+							separationValue = Double.NEGATIVE_INFINITY;
+						}
+					}
+				}
+			}
+		}
+		/*
+		 * The last (or only) peak ends at the peak stop.
+		 */
+		if(apex < 0) {
+			apex = peakMaximum;
+		}
+		apex = Math.max(start + 1, Math.min(apex, peakStop - 1));
+		if(start < apex && apex < peakStop && peakStop - start + 1 >= IPeakModel.MINIMUM_SCANS) {
+			rawPeaks.add(new RawPeak(start + scanOffset, apex + scanOffset, peakStop + scanOffset));
+		}
+	}
+}
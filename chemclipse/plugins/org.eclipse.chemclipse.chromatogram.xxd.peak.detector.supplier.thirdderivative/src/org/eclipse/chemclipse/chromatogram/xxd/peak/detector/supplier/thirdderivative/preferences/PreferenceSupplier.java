@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2014, 2018 Lablicate GmbH.
+ * Copyright (c) 2014, 2020 Lablicate GmbH.
  * 
  * All rights reserved.
  * This program and the accompanying materials are made available under the
@@ -14,8 +14,12 @@ package org.eclipse.chemclipse.chromatogram.xxd.peak.detector.supplier.thirdderi
 import java.util.HashMap;
 import java.util.Map;
 
+import org.eclipse.chemclipse.chromatogram.peak.detector.model.Threshold;
 import org.eclipse.chemclipse.chromatogram.xxd.peak.detector.supplier.thirdderivative.Activator;
-import org.eclipse.chemclipse.chromatogram.xxd.peak.detector.supplier.thirdderivative.settings.PeakDetectorSettings;
+import org.eclipse.chemclipse.chromatogram.xxd.peak.detector.supplier.thirdderivative.settings.PeakDetectorSettingsCSD;
+import org.eclipse.chemclipse.chromatogram.xxd.peak.detector.supplier.thirdderivative.settings.PeakDetectorSettingsMSD;
+import org.eclipse.chemclipse.chromatogram.xxd.peak.detector.supplier.thirdderivative.settings.PeakDetectorSettingsWSD;
+import org.eclipse.chemclipse.numeric.statistics.WindowSize;
 import org.eclipse.chemclipse.support.preferences.IPreferenceSupplier;
 import org.eclipse.core.runtime.preferences.IEclipsePreferences;
 import org.eclipse.core.runtime.preferences.IScopeContext;
@@ -24,10 +28,17 @@ import org.eclipse.core.runtime.preferences.InstanceScope;
 public class PreferenceSupplier implements IPreferenceSupplier {
 
 	public static final String P_THRESHOLD = "threshold";
+	public static final String DEF_THRESHOLD = Threshold.MEDIUM.name();
 	public static final String P_INCLUDE_BACKGROUND = "includeBackground";
 	public static final boolean DEF_INCLUDE_BACKGROUND = false; // false will use BV oder VB, if true VV will be used.
 	public static final String P_MIN_SN_RATIO = "minSNRatio";
 	public static final float DEF_MIN_SN_RATIO = 0.0f; // 0 = all peaks will be added
+	public static final String P_WINDOW_SIZE = "windowSize";
+	public static final String DEF_WINDOW_SIZE = WindowSize.WIDTH_7.name(); // Savitzky-Golay filter width, at least 5
+	public static final String P_USE_NOISE_SEGMENTS = "useNoiseSegments";
+	public static final boolean DEF_USE_NOISE_SEGMENTS = false;
+	public static final String P_OPTIMIZE_BASELINE = "optimizeBaseline";
+	public static final boolean DEF_OPTIMIZE_BASELINE = false;
 	//
 	private static IPreferenceSupplier preferenceSupplier;
 
@@ -55,8 +66,12 @@ public class PreferenceSupplier implements IPreferenceSupplier {
 	public Map<String, String> getDefaultValues() {
 
 		Map<String, String> defaultValues = new HashMap<String, String>();
+		defaultValues.put(P_THRESHOLD, DEF_THRESHOLD);
 		defaultValues.put(P_MIN_SN_RATIO, Float.toString(DEF_MIN_SN_RATIO));
 		defaultValues.put(P_INCLUDE_BACKGROUND, Boolean.toString(DEF_INCLUDE_BACKGROUND));
+		defaultValues.put(P_WINDOW_SIZE, DEF_WINDOW_SIZE);
+		defaultValues.put(P_USE_NOISE_SEGMENTS, Boolean.toString(DEF_USE_NOISE_SEGMENTS));
+		defaultValues.put(P_OPTIMIZE_BASELINE, Boolean.toString(DEF_OPTIMIZE_BASELINE));
 		return defaultValues;
 	}
 
@@ -66,12 +81,40 @@ public class PreferenceSupplier implements IPreferenceSupplier {
 		return getScopeContext().getNode(getPreferenceNode());
 	}
 
-	public static PeakDetectorSettings getPeakDetectorSettings() {
+	public static PeakDetectorSettingsMSD getPeakDetectorSettingsMSD() {
 
 		IEclipsePreferences preferences = INSTANCE().getPreferences();
-		PeakDetectorSettings peakDetectorSettings = new PeakDetectorSettings();
+		PeakDetectorSettingsMSD peakDetectorSettings = new PeakDetectorSettingsMSD();
+		peakDetectorSettings.setThreshold(Threshold.valueOf(preferences.get(P_THRESHOLD, DEF_THRESHOLD)));
 		peakDetectorSettings.setIncludeBackground(preferences.getBoolean(P_INCLUDE_BACKGROUND, DEF_INCLUDE_BACKGROUND));
 		peakDetectorSettings.setMinimumSignalToNoiseRatio(preferences.getFloat(P_MIN_SN_RATIO, DEF_MIN_SN_RATIO));
+		peakDetectorSettings.setMovingAverageWindowSize(WindowSize.valueOf(preferences.get(P_WINDOW_SIZE, DEF_WINDOW_SIZE)));
+		peakDetectorSettings.setUseNoiseSegments(preferences.getBoolean(P_USE_NOISE_SEGMENTS, DEF_USE_NOISE_SEGMENTS));
+		peakDetectorSettings.setOptimizeBaseline(preferences.getBoolean(P_OPTIMIZE_BASELINE, DEF_OPTIMIZE_BASELINE));
+		return peakDetectorSettings;
+	}
+
+	public static PeakDetectorSettingsCSD getPeakDetectorSettingsCSD() {
+
+		IEclipsePreferences preferences = INSTANCE().getPreferences();
+		PeakDetectorSettingsCSD peakDetectorSettings = new PeakDetectorSettingsCSD();
+		peakDetectorSettings.setThreshold(Threshold.valueOf(preferences.get(P_THRESHOLD, DEF_THRESHOLD)));
+		peakDetectorSettings.setIncludeBackground(preferences.getBoolean(P_INCLUDE_BACKGROUND, DEF_INCLUDE_BACKGROUND));
+		peakDetectorSettings.setMinimumSignalToNoiseRatio(preferences.getFloat(P_MIN_SN_RATIO, DEF_MIN_SN_RATIO));
+		peakDetectorSettings.setMovingAverageWindowSize(WindowSize.valueOf(preferences.get(P_WINDOW_SIZE, DEF_WINDOW_SIZE)));
+		peakDetectorSettings.setUseNoiseSegments(preferences.getBoolean(P_USE_NOISE_SEGMENTS, DEF_USE_NOISE_SEGMENTS));
+		peakDetectorSettings.setOptimizeBaseline(preferences.getBoolean(P_OPTIMIZE_BASELINE, DEF_OPTIMIZE_BASELINE));
+		return peakDetectorSettings;
+	}
+
+	public static PeakDetectorSettingsWSD getPeakDetectorSettingsWSD() {
+
+		IEclipsePreferences preferences = INSTANCE().getPreferences();
+		PeakDetectorSettingsWSD peakDetectorSettings = new PeakDetectorSettingsWSD();
+		peakDetectorSettings.setThreshold(Threshold.valueOf(preferences.get(P_THRESHOLD, DEF_THRESHOLD)));
+		peakDetectorSettings.setIncludeBackground(preferences.getBoolean(P_INCLUDE_BACKGROUND, DEF_INCLUDE_BACKGROUND));
+		peakDetectorSettings.setMinimumSignalToNoiseRatio(preferences.getFloat(P_MIN_SN_RATIO, DEF_MIN_SN_RATIO));
+		peakDetectorSettings.setMovingAverageWindowSize(WindowSize.valueOf(preferences.get(P_WINDOW_SIZE, DEF_WINDOW_SIZE)));
 		return peakDetectorSettings;
 	}
 }
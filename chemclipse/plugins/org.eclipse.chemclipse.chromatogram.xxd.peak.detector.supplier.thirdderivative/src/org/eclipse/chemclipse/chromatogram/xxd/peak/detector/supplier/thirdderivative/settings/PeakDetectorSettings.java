@@ -1,44 +0,0 @@
-/*******************************************************************************
- * Copyright (c) 2014, 2018 Lablicate GmbH.
- * 
- * All rights reserved.
- * This program and the accompanying materials are made available under the
- * terms of the Eclipse Public License v1.0 which accompanies this distribution,
- * and is available at http://www.eclipse.org/legal/epl-v10.html
- * 
- * Contributors:
- * Dr. Philip Wenig - initial API and implementation
- *******************************************************************************/
-package org.eclipse.chemclipse.chromatogram.xxd.peak.detector.supplier.thirdderivative.settings;
-
-import org.eclipse.chemclipse.chromatogram.msd.peak.detector.settings.AbstractPeakDetectorSettingsMSD;
-
-import com.fasterxml.jackson.annotation.JsonIgnore;
-
-public class PeakDetectorSettings extends AbstractPeakDetectorSettingsMSD {
-
-	@JsonIgnore
-	private boolean includeBackground = false;
-	@JsonIgnore
-	private float minimumSignalToNoiseRatio;
-
-	public boolean isIncludeBackground() {
-
-		return includeBackground;
-	}
-
-	public void setIncludeBackground(boolean includeBackground) {
-
-		this.includeBackground = includeBackground;
-	}
-
-	public float getMinimumSignalToNoiseRatio() {
-
-		return minimumSignalToNoiseRatio;
-	}
-
-	public void setMinimumSignalToNoiseRatio(float minimumSignalToNoiseRatio) {
-
-		this.minimumSignalToNoiseRatio = minimumSignalToNoiseRatio;
-	}
-}
@@ -0,0 +1,20 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Lablicate GmbH.
+ *
+ * All rights reserved.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Dr. Philip Wenig - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.chemclipse.chromatogram.xxd.peak.detector.supplier.thirdderivative.settings;
+
+/**
+ * The settings are the same as the ones of the first derivative detector.
+ * The window size is the width of the Savitzky-Golay filter, that is used to
+ * calculate the derivatives. Widths below 5 are increased to 5.
+ */
+public class PeakDetectorSettingsMSD extends org.eclipse.chemclipse.chromatogram.xxd.peak.detector.supplier.firstderivative.settings.PeakDetectorSettingsMSD {
+}
@@ -0,0 +1,148 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Lablicate GmbH.
+ *
+ * All rights reserved.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Dr. Philip Wenig - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.chemclipse.chromatogram.xxd.peak.detector.supplier.thirdderivative.support;
+
+/**
+ * Stores the signals of a scan range and their smoothed 1st, 2nd and 3rd derivative
+ * in primitive arrays.<br/>
+ * The arrays grow on demand and are never shrunk, hence one instance is reused for
+ * all scan ranges and traces that are detected by one thread.
+ * The class is not thread safe, each thread needs its own instance.
+ */
+public class DerivativeBuffers {
+
+	private float[] signals = new float[0];
+	private double[] firstDerivatives = new double[0];
+	private double[] secondDerivatives = new double[0];
+	private double[] thirdDerivatives = new double[0];
+	//
+	private int startScan = 1;
+	private int size = 0;
+
+	/**
+	 * Prepares the buffers for the given scan range and returns the signal buffer.
+	 * The first size elements of the buffer must be filled before calling calculate(...).
+	 *
+	 * @param startScan
+	 * @param size
+	 * @return float[]
+	 */
+	public float[] getSignals(int startScan, int size) {
+
+		if(signals.length < size) {
+			int capacity = Math.max(size, signals.length + (signals.length >> 1));
+			signals = new float[capacity];
+			firstDerivatives = new double[capacity];
+			secondDerivatives = new double[capacity];
+			thirdDerivatives = new double[capacity];
+		}
+		this.startScan = startScan;
+		this.size = Math.max(0, size);
+		return signals;
+	}
+
+	/**
+	 * Calculates the derivatives of the signals in one pass over the buffer.
+	 * The signals are normalized to the given base, the derivatives are scaled
+	 * by the scan interval (milliseconds), so that the 1st derivative has the
+	 * unit of the first derivative detector slopes.
+	 * The filter is narrowed if the scan range is smaller than the filter width.
+	 * Returns false, if the scan range is too small to calculate the derivatives.
+	 *
+	 * @param filter
+	 * @param scanInterval
+	 * @param normalizationBase
+	 * @return boolean
+	 */
+	public boolean calculate(DerivativeFilter filter, double scanInterval, float normalizationBase) {
+
+		int width = Math.min(filter.getWidth(), (size % 2 == 0) ? size - 1 : size);
+		if(width < DerivativeFilter.MIN_WIDTH) {
+			return false;
+		}
+		if(width != filter.getWidth()) {
+			filter = DerivativeFilter.getInstance(width);
+		}
+		/*
+		 * Use double for a better precision.
+		 */
+		float max = signals[0];
+		for(int i = 1; i < size; i++) {
+			if(signals[i] > max) {
+				max = signals[i];
+			}
+		}
+		double factor = (max != 0.0f) ? normalizationBase / (double)max : 0.0d;
+		double interval = (scanInterval > 0.0d) ? scanInterval : 1.0d;
+		double factorFirst = factor / interval;
+		double factorSecond = factorFirst / interval;
+		double factorThird = factorSecond / interval;
+		/*
+		 * The window is centered, except at the borders.
+		 */
+		int half = width / 2;
+		int lastCenter = size - 1 - half;
+		for(int i = 0; i < size; i++) {
+			int center;
+			if(i < half) {
+				center = half;
+			} else if(i > lastCenter) {
+				center = lastCenter;
+			} else {
+				center = i;
+			}
+			int position = i - center + half;
+			double[] coefficientsFirst = filter.getCoefficients(1, position);
+			double[] coefficientsSecond = filter.getCoefficients(2, position);
+			double[] coefficientsThird = filter.getCoefficients(3, position);
+			int offset = center - half;
+			double first = 0.0d;
+			double second = 0.0d;
+			double third = 0.0d;
+			for(int j = 0; j < width; j++) {
+				double signal = signals[offset + j];
+				first += coefficientsFirst[j] * signal;
+				second += coefficientsSecond[j] * signal;
+				third += coefficientsThird[j] * signal;
+			}
+			firstDerivatives[i] = first * factorFirst;
+			secondDerivatives[i] = second * factorSecond;
+			thirdDerivatives[i] = third * factorThird;
+		}
+		return true;
+	}
+
+	public int getStartScan() {
+
+		return startScan;
+	}
+
+	public int size() {
+
+		return size;
+	}
+
+	public double getFirstDerivative(int index) {
+
+		return firstDerivatives[index];
+	}
+
+	public double getSecondDerivative(int index) {
+
+		return secondDerivatives[index];
+	}
+
+	public double getThirdDerivative(int index) {
+
+		return thirdDerivatives[index];
+	}
+}
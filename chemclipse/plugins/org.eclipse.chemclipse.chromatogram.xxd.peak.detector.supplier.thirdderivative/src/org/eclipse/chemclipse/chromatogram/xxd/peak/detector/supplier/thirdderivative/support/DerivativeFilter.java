@@ -0,0 +1,175 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Lablicate GmbH.
+ *
+ * All rights reserved.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Dr. Philip Wenig - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.chemclipse.chromatogram.xxd.peak.detector.supplier.thirdderivative.support;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Savitzky-Golay coefficients of a cubic polynomial, used to calculate the smoothed
+ * 1st, 2nd and 3rd derivative of a signal in one pass.<br/>
+ * The coefficients are calculated for each position within the window, hence the
+ * borders of the signal are derived from the first and last window without padding.
+ * The instances are immutable and cached per width, so they can be shared by threads.
+ */
+public class DerivativeFilter {
+
+	/*
+	 * A cubic fit needs at least 5 points to smooth the 3rd derivative.
+	 */
+	public static final int MIN_WIDTH = 5;
+	//
+	private static final int DEGREE = 3;
+	private static final Map<Integer, DerivativeFilter> FILTERS = new ConcurrentHashMap<>();
+	//
+	private final int width;
+	/*
+	 * [derivative - 1][position in window][index in window]
+	 */
+	private final double[][][] coefficients;
+
+	private DerivativeFilter(int width) {
+		this.width = width;
+		this.coefficients = new double[DEGREE][width][width];
+		calculateCoefficients();
+	}
+
+	/**
+	 * Returns the filter of the given width.
+	 * The width is increased to the next odd value and to at least MIN_WIDTH.
+	 *
+	 * @param width
+	 * @return {@link DerivativeFilter}
+	 */
+	public static DerivativeFilter getInstance(int width) {
+
+		int adjustedWidth = Math.max(MIN_WIDTH, width);
+		if(adjustedWidth % 2 == 0) {
+			adjustedWidth++;
+		}
+		return FILTERS.computeIfAbsent(adjustedWidth, DerivativeFilter::new);
+	}
+
+	public int getWidth() {
+
+		return width;
+	}
+
+	/**
+	 * Returns the coefficients of the derivative (1, 2 or 3) that are applied on
+	 * the window, if the derived value is located at the given position of the window.
+	 * The center of the window is located at position width / 2.
+	 *
+	 * @param derivative
+	 * @param position
+	 * @return double[]
+	 */
+	double[] getCoefficients(int derivative, int position) {
+
+		return coefficients[derivative - 1][position];
+	}
+
+	private void calculateCoefficients() {
+
+		int half = width / 2;
+		/*
+		 * Normal equations (A^T * A) of the polynomial fit, x = -half ... half.
+		 */
+		double[][] normalMatrix = new double[DEGREE + 1][DEGREE + 1];
+		for(int x = -half; x <= half; x++) {
+			for(int row = 0; row <= DEGREE; row++) {
+				for(int column = 0; column <= DEGREE; column++) {
+					normalMatrix[row][column] += Math.pow(x, row + column);
+				}
+			}
+		}
+		double[][] inverse = invert(normalMatrix);
+		/*
+		 * The polynomial coefficients a_k are the projection (A^T * A)^-1 * A^T applied on the window.
+		 */
+		double[][] projection = new double[DEGREE + 1][width];
+		for(int k = 0; k <= DEGREE; k++) {
+			for(int j = 0; j < width; j++) {
+				double x = j - half;
+				double value = 0.0d;
+				for(int l = 0; l <= DEGREE; l++) {
+					value += inverse[k][l] * Math.pow(x, l);
+				}
+				projection[k][j] = value;
+			}
+		}
+		/*
+		 * y(t) = a0 + a1 t + a2 t^2 + a3 t^3
+		 * y'(t) = a1 + 2 a2 t + 3 a3 t^2
+		 * y''(t) = 2 a2 + 6 a3 t
+		 * y'''(t) = 6 a3
+		 */
+		for(int position = 0; position < width; position++) {
+			double t = position - half;
+			for(int j = 0; j < width; j++) {
+				coefficients[0][position][j] = projection[1][j] + 2.0d * t * projection[2][j] + 3.0d * t * t * projection[3][j];
+				coefficients[1][position][j] = 2.0d * projection[2][j] + 6.0d * t * projection[3][j];
+				coefficients[2][position][j] = 6.0d * projection[3][j];
+			}
+		}
+	}
+
+	/**
+	 * Gauss-Jordan elimination with partial pivoting.
+	 * The normal matrix is symmetric and positive definite, hence it is invertible.
+	 *
+	 * @param matrix
+	 * @return double[][]
+	 */
+	private static double[][] invert(double[][] matrix) {
+
+		int size = matrix.length;
+		double[][] augmented = new double[size][2 * size];
+		for(int row = 0; row < size; row++) {
+			System.arraycopy(matrix[row], 0, augmented[row], 0, size);
+			augmented[row][size + row] = 1.0d;
+		}
+		//
+		for(int column = 0; column < size; column++) {
+			int pivot = column;
+			for(int row = column + 1; row < size; row++) {
+				if(Math.abs(augmented[row][column]) > Math.abs(augmented[pivot][column])) {
+					pivot = row;
+				}
+			}
+			double[] swap = augmented[column];
+			augmented[column] = augmented[pivot];
+			augmented[pivot] = swap;
+			//
+			double divisor = augmented[column][column];
+			for(int j = 0; j < 2 * size; j++) {
+				augmented[column][j] /= divisor;
+			}
+			for(int row = 0; row < size; row++) {
+				if(row != column) {
+					double factor = augmented[row][column];
+					if(factor != 0.0d) {
+						for(int j = 0; j < 2 * size; j++) {
+							augmented[row][j] -= factor * augmented[column][j];
+						}
+					}
+				}
+			}
+		}
+		//
+		double[][] inverse = new double[size][size];
+		for(int row = 0; row < size; row++) {
+			System.arraycopy(augmented[row], size, inverse[row], 0, size);
+		}
+		return inverse;
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2018, 2019 Lablicate GmbH.
+ * Copyright (c) 2018, 2020 Lablicate GmbH.
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -20,6 +20,7 @@ import java.util.List;
 import org.eclipse.chemclipse.converter.core.Converter;
 import org.eclipse.chemclipse.converter.core.IMagicNumberMatcher;
 import org.eclipse.chemclipse.converter.exceptions.NoConverterAvailableException;
+import org.eclipse.chemclipse.converter.io.ArchiveEntry;
 import org.eclipse.chemclipse.logging.core.Logger;
 import org.eclipse.chemclipse.model.core.IChromatogram;
 import org.eclipse.chemclipse.model.core.IChromatogramOverview;
@@ -271,6 +272,59 @@ public abstract class AbstractChromatogramConverter<P extends IPeak, T extends I
 		return processingInfo;
 	}
 
+	@Override
+	public IProcessingInfo getChromatogram(ArchiveEntry archiveEntry, boolean overview, IProgressMonitor monitor) {
+
+		IProcessingInfo processingInfo = new ProcessingInfo();
+		List<IProcessingMessage> processingMessagesError = new ArrayList<>();
+		IChromatogramConverterSupport converterSupport = getChromatogramConverterSupport();
+		//
+		try {
+			/*
+			 * The converters are selected by the file name of the entry.
+			 */
+			List<String> availableConverterIds = converterSupport.getAvailableConverterIds(new File(archiveEntry.getFileName()));
+			exitloop:
+			for(String converterId : availableConverterIds) {
+				Object converter = getChromatogramConverter(converterId, Converter.IMPORT_CONVERTER);
+				if(converter instanceof IChromatogramArchiveImportConverter) {
+					IChromatogramArchiveImportConverter importConverter = (IChromatogramArchiveImportConverter)converter;
+					IProcessingInfo processingInfox;
+					if(overview) {
+						processingInfox = importConverter.convertOverview(archiveEntry, monitor);
+					} else {
+						processingInfox = importConverter.convert(archiveEntry, monitor);
+					}
+					//
+					if(!processingInfox.hasErrorMessages()) {
+						Object object = processingInfox.getProcessingResult();
+						if((overview && object instanceof IChromatogramOverview) || type.isInstance(object)) {
+							processingInfo.addMessages(processingInfox);
+							processingInfo.setProcessingResult(object);
+							break exitloop;
+						}
+					} else {
+						processingMessagesError.addAll(processingInfox.getMessages());
+					}
+				}
+			}
+		} catch(NoConverterAvailableException e) {
+			logger.info(e);
+		}
+		/*
+		 * Post process or collect the errors.
+		 */
+		if(type.isInstance(processingInfo.getProcessingResult())) {
+			postProcessChromatogram(processingInfo, monitor);
+		} else if(processingInfo.getProcessingResult() == null) {
+			for(IProcessingMessage processingMessage : processingMessagesError) {
+				processingInfo.addMessage(processingMessage);
+			}
+		}
+		//
+		return processingInfo;
+	}
+
 	@Override
 	public IProcessingInfo convert(File file, T chromatogram, String converterId, IProgressMonitor monitor) {
 
@@ -0,0 +1,54 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Lablicate GmbH.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Dr. Philip Wenig - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.chemclipse.converter.chromatogram;
+
+import org.eclipse.chemclipse.converter.io.ArchiveEntry;
+import org.eclipse.chemclipse.model.core.IChromatogram;
+import org.eclipse.chemclipse.model.core.IChromatogramOverview;
+import org.eclipse.chemclipse.processing.core.IProcessingInfo;
+import org.eclipse.chemclipse.processing.core.ProcessingInfo;
+import org.eclipse.core.runtime.IProgressMonitor;
+
+/**
+ * Import converters implementing this interface read the chromatogram directly
+ * from an entry of an archive. All other converters require the entry to be
+ * extracted to a file first.
+ */
+public interface IChromatogramArchiveImportConverter<R extends IChromatogram<?>> extends IChromatogramImportConverter<R> {
+
+	/**
+	 * Returns an IChromatogramOverview instance or an error message,
+	 * if the entry can't be read by this converter.
+	 *
+	 * @param archiveEntry
+	 * @param monitor
+	 * @return {@link IProcessingInfo}
+	 */
+	default IProcessingInfo<IChromatogramOverview> convertOverview(ArchiveEntry archiveEntry, IProgressMonitor monitor) {
+
+		IProcessingInfo<R> chromatogramInfo = convert(archiveEntry, monitor);
+		ProcessingInfo<IChromatogramOverview> info = new ProcessingInfo<>();
+		info.addMessages(chromatogramInfo);
+		info.setProcessingResult(chromatogramInfo.getProcessingResult());
+		return info;
+	}
+
+	/**
+	 * Returns an IChromatogram instance or an error message,
+	 * if the entry can't be read by this converter.
+	 *
+	 * @param archiveEntry
+	 * @param monitor
+	 * @return {@link IProcessingInfo}
+	 */
+	IProcessingInfo<R> convert(ArchiveEntry archiveEntry, IProgressMonitor monitor);
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2018, 2019 Lablicate GmbH.
+ * Copyright (c) 2018, 2020 Lablicate GmbH.
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -14,10 +14,12 @@ package org.eclipse.chemclipse.converter.chromatogram;
 
 import java.io.File;
 
+import org.eclipse.chemclipse.converter.io.ArchiveEntry;
 import org.eclipse.chemclipse.model.core.IChromatogram;
 import org.eclipse.chemclipse.model.core.IChromatogramOverview;
 import org.eclipse.chemclipse.model.core.IPeak;
 import org.eclipse.chemclipse.processing.core.IProcessingInfo;
+import org.eclipse.chemclipse.processing.core.ProcessingInfo;
 import org.eclipse.core.runtime.IProgressMonitor;
 
 public interface IChromatogramConverter<P extends IPeak, C extends IChromatogram<P>> {
@@ -75,6 +77,21 @@ public interface IChromatogramConverter<P extends IPeak, C extends IChromatogram
 	 */
 	IProcessingInfo<C> getChromatogram(File file, boolean overview, IProgressMonitor monitor);
 
+	/**
+	 * Reads the chromatogram directly from the archive entry.
+	 * Only converters implementing {@link IChromatogramArchiveImportConverter} are used.
+	 * If no converter was able to read the entry, the result is null.
+	 *
+	 * @param archiveEntry
+	 * @param overview
+	 * @param monitor
+	 * @return {@link IProcessingInfo}
+	 */
+	default IProcessingInfo<C> getChromatogram(ArchiveEntry archiveEntry, boolean overview, IProgressMonitor monitor) {
+
+		return new ProcessingInfo<>();
+	}
+
 	/**
 	 * Maybe override to add your own methods.
 	 *
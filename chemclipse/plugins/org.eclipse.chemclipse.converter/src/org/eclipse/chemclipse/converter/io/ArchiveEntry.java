@@ -0,0 +1,360 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Lablicate GmbH.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Dr. Philip Wenig - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.chemclipse.converter.io;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * A file entry of a ZIP archive, which is read in place instead of being extracted.
+ * Uncompressed entries (ZipEntry.STORED) are memory mapped, hence they can be accessed
+ * randomly via {@link #getByteBuffer()}. Compressed entries are inflated on access.<br/>
+ * The entry is valid as long as the given ZipFile is open.
+ */
+public class ArchiveEntry {
+
+	private static final int BUFFER_SIZE = 65536;
+	//
+	private static final int LOCAL_FILE_HEADER = 0x04034b50;
+	private static final int CENTRAL_DIRECTORY_HEADER = 0x02014b50;
+	private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+	private static final int ZIP64_END_OF_CENTRAL_DIRECTORY = 0x06064b50;
+	private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR = 0x07064b50;
+	private static final int ZIP64_EXTRA_FIELD = 0x0001;
+	private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+	//
+	private final File archive;
+	private final ZipFile zipFile;
+	private final ZipEntry zipEntry;
+	private ByteBuffer mappedBuffer;
+
+	public ArchiveEntry(File archive, ZipFile zipFile, ZipEntry zipEntry) {
+		this.archive = archive;
+		this.zipFile = zipFile;
+		this.zipEntry = zipEntry;
+	}
+
+	public File getArchive() {
+
+		return archive;
+	}
+
+	/**
+	 * Returns the name of the entry, including its directories in the archive.
+	 *
+	 * @return String
+	 */
+	public String getName() {
+
+		return zipEntry.getName();
+	}
+
+	/**
+	 * Returns the name of the entry without its directories in the archive.
+	 *
+	 * @return String
+	 */
+	public String getFileName() {
+
+		String name = zipEntry.getName();
+		return name.substring(name.lastIndexOf('/') + 1);
+	}
+
+	/**
+	 * Returns the uncompressed size or -1 if it is unknown.
+	 *
+	 * @return long
+	 */
+	public long getSize() {
+
+		return zipEntry.getSize();
+	}
+
+	public boolean isStored() {
+
+		return zipEntry.getMethod() == ZipEntry.STORED;
+	}
+
+	/**
+	 * Opens a new stream each time it is called.
+	 * Stored entries are read from the mapped archive.
+	 *
+	 * @return {@link InputStream}
+	 * @throws IOException
+	 */
+	public InputStream getInputStream() throws IOException {
+
+		if(isMappable()) {
+			return new ByteBufferInputStream(getByteBuffer());
+		}
+		return new BufferedInputStream(zipFile.getInputStream(zipEntry), BUFFER_SIZE);
+	}
+
+	/**
+	 * Returns a read only buffer, positioned at the start of the entry.
+	 * Stored entries are mapped, compressed entries are inflated into the heap.
+	 * Each call returns an independent view of the data.
+	 *
+	 * @return {@link ByteBuffer}
+	 * @throws IOException
+	 */
+	public ByteBuffer getByteBuffer() throws IOException {
+
+		return getData().duplicate();
+	}
+
+	private synchronized ByteBuffer getData() throws IOException {
+
+		if(mappedBuffer == null) {
+			if(isMappable()) {
+				try (RandomAccessFile randomAccessFile = new RandomAccessFile(archive, "r")) {
+					/*
+					 * The mapped buffer stays valid after the channel has been closed.
+					 */
+					FileChannel fileChannel = randomAccessFile.getChannel();
+					long dataOffset = getDataOffset(fileChannel, zipEntry.getName());
+					mappedBuffer = fileChannel.map(FileChannel.MapMode.READ_ONLY, dataOffset, zipEntry.getSize()).asReadOnlyBuffer();
+				}
+			} else {
+				long size = zipEntry.getSize();
+				if(size > Integer.MAX_VALUE - 8) {
+					throw new IOException("The entry is too large to be read into memory: " + zipEntry.getName());
+				}
+				mappedBuffer = ByteBuffer.wrap(readFully(size)).asReadOnlyBuffer();
+			}
+		}
+		return mappedBuffer;
+	}
+
+	private boolean isMappable() {
+
+		return isStored() && zipEntry.getSize() >= 0 && zipEntry.getSize() <= Integer.MAX_VALUE;
+	}
+
+	private byte[] readFully(long size) throws IOException {
+
+		try (InputStream inputStream = zipFile.getInputStream(zipEntry)) {
+			byte[] data = new byte[size >= 0 ? (int)size : BUFFER_SIZE];
+			int length = 0;
+			int count;
+			while((count = inputStream.read(data, length, data.length - length)) != -1) {
+				length += count;
+				if(length == data.length) {
+					if(size >= 0) {
+						break;
+					}
+					data = Arrays.copyOf(data, data.length * 2);
+				}
+			}
+			return (length == data.length) ? data : Arrays.copyOf(data, length);
+		}
+	}
+
+	/**
+	 * Returns the position of the data of the given entry in the archive.
+	 * The offset is located via the central directory, because
+	 * java.util.zip.ZipFile doesn't offer access to the local header offset.
+	 * ZIP64 archives are supported.
+	 *
+	 * @param fileChannel
+	 * @param entryName
+	 * @return long
+	 * @throws IOException
+	 */
+	public static long getDataOffset(FileChannel fileChannel, String entryName) throws IOException {
+
+		long fileSize = fileChannel.size();
+		int tail = (int)Math.min(fileSize, 0xFFFF + 22);
+		ByteBuffer buffer = read(fileChannel, fileSize - tail, tail);
+		/*
+		 * End of central directory
+		 */
+		int endOfCentralDirectory = -1;
+		for(int i = tail - 22; i >= 0; i--) {
+			if(buffer.getInt(i) == END_OF_CENTRAL_DIRECTORY) {
+				endOfCentralDirectory = i;
+				break;
+			}
+		}
+		//
+		if(endOfCentralDirectory < 0) {
+			throw new IOException("The end of the central directory couldn't be found: " + entryName);
+		}
+		//
+		long centralDirectorySize = buffer.getInt(endOfCentralDirectory + 12) & ZIP64_MAGIC;
+		long centralDirectoryOffset = buffer.getInt(endOfCentralDirectory + 16) & ZIP64_MAGIC;
+		int locator = endOfCentralDirectory - 20;
+		if(locator >= 0 && buffer.getInt(locator) == ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR) {
+			ByteBuffer zip64 = read(fileChannel, buffer.getLong(locator + 8), 56);
+			if(zip64.getInt(0) == ZIP64_END_OF_CENTRAL_DIRECTORY) {
+				centralDirectorySize = zip64.getLong(40);
+				centralDirectoryOffset = zip64.getLong(48);
+			}
+		}
+		/*
+		 * Central directory
+		 */
+		ByteBuffer centralDirectory = read(fileChannel, centralDirectoryOffset, (int)centralDirectorySize);
+		byte[] name = entryName.getBytes(StandardCharsets.UTF_8);
+		int position = 0;
+		while(position + 46 <= centralDirectory.limit() && centralDirectory.getInt(position) == CENTRAL_DIRECTORY_HEADER) {
+			long uncompressedSize = centralDirectory.getInt(position + 24) & ZIP64_MAGIC;
+			long compressedSize = centralDirectory.getInt(position + 20) & ZIP64_MAGIC;
+			int nameLength = centralDirectory.getShort(position + 28) & 0xFFFF;
+			int extraLength = centralDirectory.getShort(position + 30) & 0xFFFF;
+			int commentLength = centralDirectory.getShort(position + 32) & 0xFFFF;
+			long localHeaderOffset = centralDirectory.getInt(position + 42) & ZIP64_MAGIC;
+			//
+			if(isName(centralDirectory, position + 46, nameLength, name)) {
+				if(localHeaderOffset == ZIP64_MAGIC) {
+					localHeaderOffset = getZip64LocalHeaderOffset(centralDirectory, position + 46 + nameLength, extraLength, uncompressedSize, compressedSize, entryName);
+				}
+				ByteBuffer localHeader = read(fileChannel, localHeaderOffset, 30);
+				if(localHeader.getInt(0) != LOCAL_FILE_HEADER) {
+					throw new IOException("The local file header is corrupt: " + entryName);
+				}
+				int localNameLength = localHeader.getShort(26) & 0xFFFF;
+				int localExtraLength = localHeader.getShort(28) & 0xFFFF;
+				return localHeaderOffset + 30 + localNameLength + localExtraLength;
+			}
+			position += 46 + nameLength + extraLength + commentLength;
+		}
+		//
+		throw new IOException("There could be found no entry given with the name: " + entryName);
+	}
+
+	private static long getZip64LocalHeaderOffset(ByteBuffer centralDirectory, int start, int extraLength, long uncompressedSize, long compressedSize, String entryName) throws IOException {
+
+		int position = start;
+		int stop = start + extraLength;
+		while(position + 4 <= stop) {
+			int id = centralDirectory.getShort(position) & 0xFFFF;
+			int length = centralDirectory.getShort(position + 2) & 0xFFFF;
+			if(id == ZIP64_EXTRA_FIELD) {
+				int field = position + 4;
+				if(uncompressedSize == ZIP64_MAGIC) {
+					field += 8;
+				}
+				if(compressedSize == ZIP64_MAGIC) {
+					field += 8;
+				}
+				return centralDirectory.getLong(field);
+			}
+			position += 4 + length;
+		}
+		throw new IOException("The zip64 extra field is missing: " + entryName);
+	}
+
+	private static boolean isName(ByteBuffer buffer, int position, int length, byte[] name) {
+
+		if(length != name.length) {
+			return false;
+		}
+		//
+		for(int i = 0; i < length; i++) {
+			if(buffer.get(position + i) != name[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static ByteBuffer read(FileChannel fileChannel, long position, int length) throws IOException {
+
+		ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+		while(buffer.hasRemaining()) {
+			if(fileChannel.read(buffer, position + buffer.position()) < 0) {
+				throw new IOException("Unexpected end of file at position: " + position);
+			}
+		}
+		buffer.flip();
+		return buffer;
+	}
+
+	/**
+	 * Reads the remaining bytes of the given buffer.
+	 */
+	public static final class ByteBufferInputStream extends InputStream {
+
+		private final ByteBuffer buffer;
+
+		public ByteBufferInputStream(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		@Override
+		public int read() throws IOException {
+
+			if(!buffer.hasRemaining()) {
+				return -1;
+			}
+			return buffer.get() & 0xFF;
+		}
+
+		@Override
+		public int read(byte[] bytes, int offset, int length) throws IOException {
+
+			if(length == 0) {
+				return 0;
+			}
+			//
+			int available = Math.min(length, buffer.remaining());
+			if(available == 0) {
+				return -1;
+			}
+			buffer.get(bytes, offset, available);
+			return available;
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+
+			int skip = (int)Math.max(0, Math.min(n, buffer.remaining()));
+			buffer.position(buffer.position() + skip);
+			return skip;
+		}
+
+		@Override
+		public int available() throws IOException {
+
+			return buffer.remaining();
+		}
+
+		@Override
+		public boolean markSupported() {
+
+			return true;
+		}
+
+		@Override
+		public synchronized void mark(int readlimit) {
+
+			buffer.mark();
+		}
+
+		@Override
+		public synchronized void reset() throws IOException {
+
+			buffer.reset();
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012, 2018 Lablicate GmbH.
+ * Copyright (c) 2012, 2020 Lablicate GmbH.
  * 
  * All rights reserved.
  * This program and the accompanying materials are made available under the
@@ -14,52 +14,111 @@ package org.eclipse.chemclipse.converter.io.support;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.RandomAccessFile;
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.HashMap;
 import java.util.Map;
 
-import org.eclipse.chemclipse.converter.io.streams.DataInputStream;
 import org.eclipse.chemclipse.logging.core.Logger;
 
+/**
+ * Files are memory mapped instead of being copied to the heap. Files larger than 2 GB
+ * are mapped in windows of 1 GB, values crossing a window border are assembled byte by byte.<br/>
+ * The mapped data is read only and shared by the readers created via {@link #slice(long, long)},
+ * hence several threads can read disjoint regions concurrently. A single reader is not thread safe.<br/>
+ * The mapping is not released forcibly, as slices could still read the shared windows.
+ * Call {@link #close()} when the file has been read to drop the references of this reader.
+ * The garbage collector releases the mapping after the last slice is gone.
+ */
 public abstract class AbstractArrayReader implements IArrayReader {
 
 	private static final Logger logger = Logger.getLogger(AbstractArrayReader.class);
 	//
-	private int position;
-	private byte[] data;
-	private int length;
+	private static final int WINDOW_SHIFT = 30; // 1 GB
+	private static final long WINDOW_SIZE = 1L << WINDOW_SHIFT;
+	private static final long WINDOW_MASK = WINDOW_SIZE - 1;
+	//
+	private ByteBuffer[] windows;
+	private long offset;
+	private long length;
+	private long position;
 	private Map<Byte, String> charMap = new HashMap<>();
 
 	public AbstractArrayReader(byte[] data) {
-		initialize(data);
+		initialize(new ByteBuffer[]{ByteBuffer.wrap(data)}, 0, data.length);
 	}
 
 	public AbstractArrayReader(File file) throws FileNotFoundException, IOException {
-		byte[] data = getByteArrayFromFile(file);
-		initialize(data);
+		try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r")) {
+			/*
+			 * The mapped buffers stay valid after the channel has been closed.
+			 */
+			FileChannel fileChannel = randomAccessFile.getChannel();
+			long size = fileChannel.size();
+			ByteBuffer[] windows = new ByteBuffer[(int)Math.max(1, (size + WINDOW_SIZE - 1) >>> WINDOW_SHIFT)];
+			for(int i = 0; i < windows.length; i++) {
+				long start = i * WINDOW_SIZE;
+				windows[i] = fileChannel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(WINDOW_SIZE, size - start));
+			}
+			initialize(windows, 0, size);
+		}
 	}
 
-	private byte[] getByteArrayFromFile(File file) throws FileNotFoundException, IOException {
-
-		int length = (int)file.length();
-		byte[] data = new byte[length];
-		DataInputStream is = new DataInputStream(file);
-		is.read(data);
-		is.close();
-		return data;
+	/**
+	 * Creates a reader on a region of the data of the given reader.
+	 * The data is shared, the position is independent.
+	 * 
+	 * @param arrayReader
+	 * @param position
+	 * @param length
+	 */
+	protected AbstractArrayReader(AbstractArrayReader arrayReader, long position, long length) {
+		if(position < 0 || length < 0 || position + length > arrayReader.length) {
+			throw new IndexOutOfBoundsException("The region " + position + " + " + length + " exceeds the length " + arrayReader.length);
+		}
+		initialize(arrayReader.windows, arrayReader.offset + position, length);
 	}
 
+	/**
+	 * Returns the total number of bytes or Integer.MAX_VALUE if
+	 * the data is larger. Use {@link #getSize()} in such a case.
+	 */
 	@Override
 	public int getLength() {
 
+		return (int)Math.min(length, Integer.MAX_VALUE);
+	}
+
+	@Override
+	public long getSize() {
+
 		return length;
 	}
 
-	private void initialize(byte[] data) {
+	@Override
+	public IArrayReader slice(long position, long length) {
+
+		return new RegionArrayReader(this, position, length);
+	}
 
+	/**
+	 * Releases the data of this reader. The slices of this reader
+	 * keep their data until they are garbage collected.
+	 */
+	@Override
+	public void close() {
+
+		initialize(new ByteBuffer[]{ByteBuffer.allocate(0)}, 0, 0);
+	}
+
+	private void initialize(ByteBuffer[] windows, long offset, long length) {
+
+		this.windows = windows;
+		this.offset = offset;
+		this.length = length;
 		position = 0;
-		this.data = data;
-		this.length = data.length;
 		//
 		charMap.put((byte)-60, "Ä");
 		charMap.put((byte)-42, "Ö");
@@ -72,6 +131,15 @@ public abstract class AbstractArrayReader implements IArrayReader {
 	@Override
 	public int getPosition() {
 
+		if(position > Integer.MAX_VALUE) {
+			throw new IllegalStateException("The position " + position + " exceeds the int range, use getLongPosition().");
+		}
+		return (int)position;
+	}
+
+	@Override
+	public long getLongPosition() {
+
 		return position;
 	}
 
@@ -102,10 +170,16 @@ public abstract class AbstractArrayReader implements IArrayReader {
 		}
 	}
 
+	@Override
+	public void seek(long position) {
+
+		this.position = position;
+	}
+
 	@Override
 	public byte readByte() {
 
-		return data[position++];
+		return get(position++);
 	}
 
 	@Override
@@ -215,11 +289,10 @@ public abstract class AbstractArrayReader implements IArrayReader {
 		if(numBytes <= 0 || numBytes > 8) {
 			return 0;
 		}
-		byte[] tmp = getByteArray(numBytes);
 		long result = 0;
 		int shift = 0;
 		for(int i = 0; i < numBytes; i++) {
-			result |= (tmp[i] & 0xFFL) << shift;
+			result |= (get(position++) & 0xFFL) << shift;
 			shift += 8;
 		}
 		return result;
@@ -314,11 +387,10 @@ public abstract class AbstractArrayReader implements IArrayReader {
 		if(numBytes <= 0 || numBytes > 8) {
 			return 0;
 		}
-		byte[] tmp = getByteArray(numBytes);
 		long result = 0;
 		int shift = (numBytes - 1) * 8;
 		for(int i = 0; i < numBytes; i++) {
-			result |= (tmp[i] & 0xFFL) << shift;
+			result |= (get(position++) & 0xFFL) << shift;
 			shift -= 8;
 		}
 		return result;
@@ -355,7 +427,7 @@ public abstract class AbstractArrayReader implements IArrayReader {
 	public int read4BUIntegerME() {
 
 		byte[] tmp = getByteArray(4);
-		return (int)(((tmp[0] & 0xFF) << 16) | ((tmp[1] & 0x7F) << 24) | (tmp[2] & 0xFF) | ((tmp[3] & 0xFF) << 8));
+		return ((tmp[0] & 0xFF) << 16) | ((tmp[1] & 0x7F) << 24) | (tmp[2] & 0xFF) | ((tmp[3] & 0xFF) << 8);
 	}
 
 	/**
@@ -393,14 +465,12 @@ public abstract class AbstractArrayReader implements IArrayReader {
 		/*
 		 * The first byte defines the length of the string.
 		 */
-		length = data[position++];
+		length = readByte();
 		byte[] bytes = new byte[length];
 		/*
 		 * Reading the bytes from the array.
 		 */
-		for(int i = 0; i < readBytes; i++) {
-			tmp[i] = data[position++];
-		}
+		read(tmp, 0, readBytes);
 		/*
 		 * Reading the bytes and copying only the length of the string from the
 		 * array.
@@ -435,9 +505,7 @@ public abstract class AbstractArrayReader implements IArrayReader {
 	private byte[] getByteArray(int count) {
 
 		byte[] tmp = new byte[count];
-		for(int i = 0; i < count; i++) {
-			tmp[i] = data[position++];
-		}
+		read(tmp, 0, count);
 		return tmp;
 	}
 
@@ -454,12 +522,44 @@ public abstract class AbstractArrayReader implements IArrayReader {
 		/*
 		 * Data
 		 */
-		for(int j = 0; j < count; j++) {
-			tmp[i++] = data[position++];
-		}
+		read(tmp, i, count);
 		return tmp;
 	}
 
+	private byte get(long index) {
+
+		if(index < 0 || index >= length) {
+			throw new ArrayIndexOutOfBoundsException("Index " + index + " is out of range: " + length);
+		}
+		long absolute = offset + index;
+		return windows[(int)(absolute >>> WINDOW_SHIFT)].get((int)(absolute & WINDOW_MASK));
+	}
+
+	/**
+	 * Copies the bytes at the current position and moves the position forward.
+	 * Absolute access is used, hence the shared buffers are not modified.
+	 */
+	private void read(byte[] bytes, int start, int count) {
+
+		if(count < 0 || position < 0 || position + count > length) {
+			throw new ArrayIndexOutOfBoundsException("The range " + position + " + " + count + " is out of range: " + length);
+		}
+		int index = start;
+		int remaining = count;
+		while(remaining > 0) {
+			long absolute = offset + position;
+			ByteBuffer window = windows[(int)(absolute >>> WINDOW_SHIFT)];
+			int windowPosition = (int)(absolute & WINDOW_MASK);
+			int chunk = Math.min(remaining, window.limit() - windowPosition);
+			ByteBuffer view = window.duplicate();
+			view.position(windowPosition);
+			view.get(bytes, index, chunk);
+			index += chunk;
+			remaining -= chunk;
+			position += chunk;
+		}
+	}
+
 	@Override
 	public String readString(int readBytes) {
 
@@ -476,10 +576,7 @@ public abstract class AbstractArrayReader implements IArrayReader {
 	@Override
 	public String readString(int readBytes, String charsetName) {
 
-		byte[] data = new byte[readBytes];
-		for(int i = 0; i < readBytes; i++) {
-			data[i] = readByte();
-		}
+		byte[] data = getByteArray(readBytes);
 		String result = "";
 		try {
 			result = new String(data, charsetName);
@@ -489,4 +586,11 @@ public abstract class AbstractArrayReader implements IArrayReader {
 		//
 		return result;
 	}
+
+	private static final class RegionArrayReader extends AbstractArrayReader {
+
+		private RegionArrayReader(AbstractArrayReader arrayReader, long position, long length) {
+			super(arrayReader, position, length);
+		}
+	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012, 2018 Lablicate GmbH.
+ * Copyright (c) 2012, 2020 Lablicate GmbH.
  * 
  * All rights reserved.
  * This program and the accompanying materials are made available under the
@@ -15,13 +15,29 @@ public interface IArrayReader extends IBigEndianArrayReader, ILittleEndianArrayR
 
 	/**
 	 * Total number of bytes of the file.
+	 * Files larger than 2 GB return Integer.MAX_VALUE, see {@link #getSize()}.
 	 * 
 	 * @return long
 	 */
 	int getLength();
 
+	/**
+	 * Total number of bytes of the file.
+	 * 
+	 * @return long
+	 */
+	long getSize();
+
+	/**
+	 * Returns the current position.
+	 * Throws an IllegalStateException if the position exceeds 2 GB, see {@link #getLongPosition()}.
+	 * 
+	 * @return int
+	 */
 	int getPosition();
 
+	long getLongPosition();
+
 	void increasePosition();
 
 	void decreasePosition();
@@ -36,6 +52,34 @@ public interface IArrayReader extends IBigEndianArrayReader, ILittleEndianArrayR
 	 */
 	void seek(int position);
 
+	/**
+	 * Moves to the given position, which may exceed 2 GB.
+	 * 
+	 * @param position
+	 */
+	void seek(long position);
+
+	/**
+	 * Returns an independent reader on the given region, starting at position 0.
+	 * The data is shared, hence the regions can be read concurrently by
+	 * different threads.
+	 * 
+	 * @param position
+	 * @param length
+	 * @return {@link IArrayReader}
+	 */
+	IArrayReader slice(long position, long length);
+
+	/**
+	 * Releases the data, e.g. the memory mapping of the file.
+	 * The mapping is released by the garbage collector, once
+	 * neither the reader nor its slices are referenced.
+	 * The reader must not be used afterwards.
+	 */
+	default void close() {
+
+	}
+
 	byte readByte();
 
 	byte[] readBytes(int i);
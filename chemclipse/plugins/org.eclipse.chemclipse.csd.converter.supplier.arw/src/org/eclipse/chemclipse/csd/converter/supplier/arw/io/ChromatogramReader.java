@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2014, 2018 Lablicate GmbH.
+ * Copyright (c) 2014, 2020 Lablicate GmbH.
  * 
  * All rights reserved.
  * This program and the accompanying materials are made available under the
@@ -57,6 +57,7 @@ public class ChromatogramReader extends AbstractChromatogramCSDReader {
 		//
 		IChromatogramArrayReader in = new ChromatogramArrayReader(file);
 		String input = in.readBytesAsString(in.getLength());
+		in.close();
 		Matcher matcher = scanPattern.matcher(input);
 		while(matcher.find()) {
 			String retentionTimeInMinutes = matcher.group(1).replace(",", ".");
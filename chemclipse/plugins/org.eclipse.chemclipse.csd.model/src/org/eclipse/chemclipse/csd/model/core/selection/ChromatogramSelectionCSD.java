@@ -113,7 +113,7 @@ public class ChromatogramSelectionCSD extends AbstractChromatogramSelection<IChr
 		 * Fire an update.
 		 */
 		if(fireUpdate) {
-			ChromatogramSelectionCSDUpdateNotifier.fireUpdateChange(this, false);
+			fireUpdateChange(false);
 		}
 	}
 
@@ -151,7 +151,7 @@ public class ChromatogramSelectionCSD extends AbstractChromatogramSelection<IChr
 			 * Fire update change if necessary.
 			 */
 			if(update) {
-				ChromatogramSelectionCSDUpdateNotifier.fireUpdateChange(this, false);
+				fireUpdateChange(false);
 			}
 		}
 	}
@@ -175,7 +175,7 @@ public class ChromatogramSelectionCSD extends AbstractChromatogramSelection<IChr
 			 * Fire update change if neccessary.
 			 */
 			if(update) {
-				ChromatogramSelectionCSDUpdateNotifier.fireUpdateChange(this, false);
+				fireUpdateChange(false);
 			}
 		}
 	}
@@ -183,6 +183,9 @@ public class ChromatogramSelectionCSD extends AbstractChromatogramSelection<IChr
 	@Override
 	public void fireUpdateChange(boolean forceReload) {
 
+		if(deferUpdate(forceReload)) {
+			return;
+		}
 		ChromatogramSelectionCSDUpdateNotifier.fireUpdateChange(this, forceReload);
 	}
 
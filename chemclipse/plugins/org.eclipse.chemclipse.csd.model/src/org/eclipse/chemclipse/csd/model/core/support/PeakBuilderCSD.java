@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2014, 2018 Lablicate GmbH.
+ * Copyright (c) 2014, 2020 Lablicate GmbH.
  * 
  * All rights reserved.
  * This program and the accompanying materials are made available under the
@@ -178,8 +178,8 @@ public class PeakBuilderCSD {
 		 * Build a new peakIntensityValues object and add the normalized total
 		 * ion signals.
 		 */
-		IPeakIntensityValues peakIntensityValues = new PeakIntensityValues();
 		List<ITotalScanSignal> signals = peakIntensityTotalIonSignals.getTotalScanSignals();
+		IPeakIntensityValues peakIntensityValues = new PeakIntensityValues(IPeakIntensityValues.MAX_INTENSITY, signals.size());
 		for(ITotalScanSignal signal : signals) {
 			peakIntensityValues.addIntensityValue(signal.getRetentionTime(), signal.getTotalSignal());
 		}
@@ -34,28 +34,25 @@ import org.eclipse.chemclipse.model.baseline.BaselineModel;
 import org.eclipse.chemclipse.model.baseline.IBaselineModel;
 import org.eclipse.chemclipse.model.columns.ISeparationColumnIndices;
 import org.eclipse.chemclipse.model.columns.SeparationColumnFactory;
-import org.eclipse.chemclipse.model.exceptions.ChromatogramIsNullException;
 import org.eclipse.chemclipse.model.identifier.IIdentificationTarget;
 import org.eclipse.chemclipse.model.implementation.TripleQuadMethod;
 import org.eclipse.chemclipse.model.notifier.IChromatogramSelectionUpdateNotifier;
 import org.eclipse.chemclipse.model.processor.IChromatogramProcessor;
 import org.eclipse.chemclipse.model.selection.IChromatogramSelection;
-import org.eclipse.chemclipse.model.signals.ITotalScanSignalExtractor;
-import org.eclipse.chemclipse.model.signals.ITotalScanSignals;
-import org.eclipse.chemclipse.model.signals.TotalScanSignalExtractor;
 import org.eclipse.chemclipse.model.support.IAnalysisSegment;
 import org.eclipse.chemclipse.model.support.IScanRange;
+import org.eclipse.chemclipse.model.support.RetentionTimeIndex;
+import org.eclipse.chemclipse.model.updates.ChromatogramUpdateDispatcher;
 import org.eclipse.chemclipse.model.updates.IChromatogramUpdateListener;
 import org.eclipse.chemclipse.model.versioning.IVersionManagement;
+import org.eclipse.chemclipse.model.versioning.ScanRevisionStore;
 import org.eclipse.chemclipse.model.versioning.VersionManagement;
 import org.eclipse.chemclipse.support.history.EditHistory;
 import org.eclipse.chemclipse.support.history.EditInformation;
 import org.eclipse.chemclipse.support.history.IEditHistory;
 import org.eclipse.chemclipse.support.preferences.SupportPreferences;
 import org.eclipse.core.runtime.IProgressMonitor;
-import org.eclipse.core.runtime.ISafeRunnable;
 import org.eclipse.core.runtime.Platform;
-import org.eclipse.core.runtime.SafeRunner;
 
 public abstract class AbstractChromatogram<T extends IPeak> extends AbstractMeasurement implements IChromatogram<T> {
 
@@ -79,11 +76,15 @@ public abstract class AbstractChromatogram<T extends IPeak> extends AbstractMeas
 	 * the chromatogram.<br/> It is important e.g. for the GUI to known when it
 	 * has to update itself.
 	 */
-	private final List<IChromatogramUpdateListener> updateSupport;
+	private final ChromatogramUpdateDispatcher updateSupport;
 	/*
 	 * The version management handles the temporary files and revision names.
 	 */
 	private final IVersionManagement versionManagement;
+	/*
+	 * The scan revisions are stored as deltas.
+	 */
+	private final ScanRevisionStore scanRevisionStore;
 	/*
 	 * EditHistory stores all information about the edit operations processed on
 	 * the chromatogram.
@@ -97,6 +98,14 @@ public abstract class AbstractChromatogram<T extends IPeak> extends AbstractMeas
 	 * Store all scans in this list.<br/>
 	 */
 	private final List<IScan> scans = new ArrayList<>();
+	/*
+	 * Maps the retention times to scan numbers.
+	 */
+	private final RetentionTimeIndex retentionTimeIndex = new RetentionTimeIndex();
+	/*
+	 * Calculated on demand, reset if the chromatogram has been modified.
+	 */
+	private transient volatile ChromatogramStatistics statistics = null;
 	/*
 	 * Some vendors store several chromatograms in one file.
 	 */
@@ -125,8 +134,9 @@ public abstract class AbstractChromatogram<T extends IPeak> extends AbstractMeas
 	 */
 	public AbstractChromatogram() {
 
-		updateSupport = new ArrayList<IChromatogramUpdateListener>(5);
+		updateSupport = new ChromatogramUpdateDispatcher();
 		versionManagement = new VersionManagement();
+		scanRevisionStore = new ScanRevisionStore(versionManagement, this::getScanFingerprint);
 		editHistory = new EditHistory();
 		baselineModel = new BaselineModel(this);
 		referencedChromatograms = new ArrayList<IChromatogram<?>>();
@@ -237,50 +247,43 @@ public abstract class AbstractChromatogram<T extends IPeak> extends AbstractMeas
 		}
 	}
 
-	// TODO optimieren - verbraucht zu viel Prozessorzeit
 	@Override
-	public float getMinSignal() {
+	public ChromatogramStatistics getStatistics() {
 
-		float minSignal = Float.MAX_VALUE;
-		float actSignal = 0.0f;
-		if(getNumberOfScans() < 1) {
-			return 0;
-		}
-		/*
-		 * Do the for loop if at least one scan exists.
-		 */
-		for(IScan scan : getScans()) {
-			actSignal = scan.getTotalSignal();
-			minSignal = (minSignal > actSignal) ? actSignal : minSignal;
+		List<IScan> scans = getScans();
+		ChromatogramStatistics chromatogramStatistics = statistics;
+		if(chromatogramStatistics == null || chromatogramStatistics.getModCount() != modCount || chromatogramStatistics.getNumberOfScans() != scans.size()) {
+			chromatogramStatistics = new ChromatogramStatistics(scans, modCount);
+			statistics = chromatogramStatistics;
 		}
-		return minSignal;
+		return chromatogramStatistics;
+	}
+
+	/**
+	 * Forces the statistics to be recalculated on the next access.
+	 * It is called when the chromatogram or one of its scans has been modified.
+	 */
+	protected void resetStatistics() {
+
+		statistics = null;
+	}
+
+	@Override
+	public float getMinSignal() {
+
+		return getStatistics().getMinSignal();
 	}
 
 	@Override
 	public float getMaxSignal() {
 
-		return getMaxSignal(containsScanCycles());
+		return getStatistics().getMaxSignal();
 	}
 
-	// TODO optimieren - verbraucht zu viel Prozessorzeit
 	@Override
 	public float getMaxSignal(boolean condenseCycleNumberScans) {
 
-		float maxSignal = 0;
-		if(getNumberOfScans() >= 1) {
-			/*
-			 * Do the for loop if at least one scan exists.
-			 */
-			try {
-				ITotalScanSignalExtractor totalIonSignalExtractor;
-				totalIonSignalExtractor = new TotalScanSignalExtractor(this);
-				ITotalScanSignals signals = totalIonSignalExtractor.getTotalScanSignals(this, true, condenseCycleNumberScans);
-				maxSignal = signals.getMaxSignal();
-			} catch(ChromatogramIsNullException e) {
-				logger.warn(e);
-			}
-		}
-		return maxSignal;
+		return getStatistics().getMaxSignal(condenseCycleNumberScans);
 	}
 
 	@Override
@@ -340,45 +343,73 @@ public abstract class AbstractChromatogram<T extends IPeak> extends AbstractMeas
 			return getNumberOfScans();
 		}
 		/*
-		 * Calculate the scan number starting point to not iterate through all
-		 * getScans().
-		 */
-		// TODO optimize!! It doesn't work if the scan intervals are not equal of length!!
-		/*
-		 * int startScan = (retentionTime - getScanDelay()) / scanInterval - 1;
-		 * if(startScan < 1) {
-		 * startScan = 1;
-		 * }
-		 */
-		// TODO optimieren? Collections.binarySearch?
-		for(int scan = 1; scan <= getNumberOfScans(); scan++) {
-			if(getScan(scan).getRetentionTime() > retentionTime) {
-				return --scan;
-			}
-		}
-		/*
+		 * The first scan with a greater retention time is searched in the index.
 		 * If there was no fit, return 0.
 		 */
-		return 0;
+		int scanNumber;
+		synchronized(retentionTimeIndex) {
+			scanNumber = getRetentionTimeIndex().getPosition(retentionTime);
+		}
+		return (scanNumber < getNumberOfScans()) ? scanNumber : 0;
 	}
 
 	@Override
-	public float getTotalSignal() {
+	public int[] getScanNumbers(int[] retentionTimes) {
 
-		float totalSignal = 0.0f;
-		/*
-		 * If there is no scan stored, return 0;
-		 */
-		if(getNumberOfScans() < 1) {
-			return 0;
+		int[] scanNumbers = new int[retentionTimes.length];
+		int numberOfScans = getNumberOfScans();
+		if(numberOfScans == 0 || getScanInterval() == 0) {
+			return scanNumbers;
 		}
-		/*
-		 * Do the for loop if at least one scan exists.
-		 */
-		for(IScan scan : getScans()) {
-			totalSignal += scan.getTotalSignal();
+		//
+		int[] positions;
+		synchronized(retentionTimeIndex) {
+			positions = getRetentionTimeIndex().getPositions(retentionTimes);
+		}
+		//
+		int startRetentionTime = getStartRetentionTime();
+		int stopRetentionTime = getStopRetentionTime();
+		for(int i = 0; i < retentionTimes.length; i++) {
+			int retentionTime = retentionTimes[i];
+			if(retentionTime < startRetentionTime || retentionTime > stopRetentionTime) {
+				scanNumbers[i] = 0;
+			} else if(retentionTime == stopRetentionTime) {
+				scanNumbers[i] = numberOfScans;
+			} else {
+				scanNumbers[i] = (positions[i] < numberOfScans) ? positions[i] : 0;
+			}
+		}
+		return scanNumbers;
+	}
+
+	/**
+	 * Returns the retention time index, which is rebuild if the number of scans has changed.
+	 * Synchronize on the index when using it.
+	 */
+	private RetentionTimeIndex getRetentionTimeIndex() {
+
+		List<IScan> scans = getScans();
+		if(!retentionTimeIndex.isValid(scans.size())) {
+			retentionTimeIndex.build(scans);
+		}
+		return retentionTimeIndex;
+	}
+
+	/**
+	 * Forces the retention time index to be rebuild on the next access.
+	 * It is called when the retention time of one of the scans has been modified.
+	 */
+	protected void resetRetentionTimeIndex() {
+
+		synchronized(retentionTimeIndex) {
+			retentionTimeIndex.clear();
 		}
-		return totalSignal;
+	}
+
+	@Override
+	public float getTotalSignal() {
+
+		return getStatistics().getTotalSignal();
 	}
 
 	@Override
@@ -399,6 +430,10 @@ public abstract class AbstractChromatogram<T extends IPeak> extends AbstractMeas
 			scan.setRetentionTime(actual);
 			actual += getScanInterval();
 		}
+		synchronized(retentionTimeIndex) {
+			retentionTimeIndex.clear();
+		}
+		resetStatistics();
 		/*
 		 * Forces all listeners to be updated.
 		 */
@@ -411,8 +446,16 @@ public abstract class AbstractChromatogram<T extends IPeak> extends AbstractMeas
 		scan.setParentChromatogram(this);
 		List<IScan> list = getScans();
 		int lastScan = list.size();
+		synchronized(retentionTimeIndex) {
+			if(retentionTimeIndex.isValid(lastScan)) {
+				retentionTimeIndex.add(scan.getRetentionTime());
+			} else {
+				retentionTimeIndex.clear();
+			}
+		}
 		scan.setScanNumber(++lastScan);
 		list.add(scan);
+		resetStatistics();
 	}
 
 	@Override
@@ -447,6 +490,10 @@ public abstract class AbstractChromatogram<T extends IPeak> extends AbstractMeas
 		List<IScan> list = getScans();
 		if(position > 0 && position <= list.size()) {
 			list.remove(--position);
+			synchronized(retentionTimeIndex) {
+				retentionTimeIndex.clear();
+			}
+			resetStatistics();
 		}
 	}
 
@@ -494,7 +541,7 @@ public abstract class AbstractChromatogram<T extends IPeak> extends AbstractMeas
 	public boolean canRedo() {
 
 		boolean result = false;
-		if(isUndoable() && versionManagement.getNextScanRevision().exists()) {
+		if(isUndoable() && scanRevisionStore.isRecorded(versionManagement.getRevision() + 1)) {
 			result = true;
 		}
 		return result;
@@ -506,8 +553,10 @@ public abstract class AbstractChromatogram<T extends IPeak> extends AbstractMeas
 		if(!isUndoable()) {
 			return;
 		}
-		File file = versionManagement.getActualScanRevision();
-		writeSerializedChromatogram(file);
+		int revision = versionManagement.getRevision();
+		if(!scanRevisionStore.isRecorded(revision)) {
+			scanRevisionStore.record(revision, getScans());
+		}
 		// TODO set scans = null;
 	}
 
@@ -517,10 +566,8 @@ public abstract class AbstractChromatogram<T extends IPeak> extends AbstractMeas
 		if(!isUndoable()) {
 			return;
 		}
-		File file = versionManagement.getActualScanRevision();
-		if(file.exists()) {
-			readSerializedChromatogram(file);
-		}
+		scanRevisionStore.restore(versionManagement.getRevision(), this);
+		resetStatistics();
 	}
 
 	@Override
@@ -560,6 +607,7 @@ public abstract class AbstractChromatogram<T extends IPeak> extends AbstractMeas
 				List<IScan> scans = getScans();
 				scans.clear();
 				scans.addAll((ArrayList<IScan>)inputObject);
+				resetStatistics();
 			}
 		} catch(FileNotFoundException e) {
 			logger.warn(e);
@@ -606,13 +654,19 @@ public abstract class AbstractChromatogram<T extends IPeak> extends AbstractMeas
 	@Override
 	public void addChromatogramUpdateListener(IChromatogramUpdateListener listener) {
 
-		updateSupport.add(listener);
+		updateSupport.addListener(listener);
 	}
 
 	@Override
 	public void removeChromatogramUpdateListener(IChromatogramUpdateListener listener) {
 
-		updateSupport.remove(listener);
+		updateSupport.removeListener(listener);
+	}
+
+	@Override
+	public ChromatogramUpdateDispatcher getUpdateDispatcher() {
+
+		return updateSupport;
 	}
 
 	/**
@@ -626,29 +680,13 @@ public abstract class AbstractChromatogram<T extends IPeak> extends AbstractMeas
 		 * should be marked to be recalculated if they are needed.
 		 */
 		recalculateTheNoiseFactor();
+		resetStatistics();
 		/**
 		 * Inform all listeners if a chromatogram value has changed, for example
 		 * a mass spectrum.<br/>
-		 * The update action is encapsulated in a ISafeRunnable object to handle
-		 * failures of the implementing listeners.
+		 * The dispatcher merges the updates of a batch, see {@link ChromatogramUpdateDispatcher}.
 		 */
-		for(final IChromatogramUpdateListener listener : updateSupport) {
-			ISafeRunnable runnable = new ISafeRunnable() {
-
-				@Override
-				public void handleException(Throwable exception) {
-
-					logger.warn(exception);
-				}
-
-				@Override
-				public void run() throws Exception {
-
-					listener.update(forceReload);
-				}
-			};
-			SafeRunner.run(runnable);
-		}
+		updateSupport.fireUpdate(forceReload);
 	}
 
 	@Override
@@ -838,15 +876,13 @@ public abstract class AbstractChromatogram<T extends IPeak> extends AbstractMeas
 		@SuppressWarnings("rawtypes")
 		final IChromatogramSelection chromatogramSelection = chromatogramProcessor.getChromatogramSelection();
 		if(chromatogramSelection != null && chromatogramSelection.getChromatogram() == this) {
-			File file;
 			/*
 			 * Save the first revision if neccessary.
 			 */
 			if(isUndoable) {
-				if(getVersionManagement().isBaseRevision()) {
+				if(getVersionManagement().isBaseRevision() && !scanRevisionStore.isRecorded(getVersionManagement().getRevision())) {
 					monitor.subTask("Save the actual state.");
-					file = getVersionManagement().getActualScanRevision();
-					writeSerializedChromatogram(file);
+					scanRevisionStore.record(getVersionManagement().getRevision(), getScans());
 				}
 			}
 			/*
@@ -868,14 +904,14 @@ public abstract class AbstractChromatogram<T extends IPeak> extends AbstractMeas
 			 * Perform the operation.
 			 */
 			chromatogramProcessor.execute(monitor);
+			resetStatistics();
 			/*
 			 * Save the actual state.
 			 */
 			if(isUndoable) {
 				monitor.subTask("Save the undoable state.");
 				getVersionManagement().doOperation();
-				file = getVersionManagement().getActualScanRevision();
-				writeSerializedChromatogram(file);
+				scanRevisionStore.record(getVersionManagement().getRevision(), getScans());
 			}
 			monitor.subTask("Edit the history entries.");
 			getEditHistory().add(new EditInformation(chromatogramProcessor.getDescription()));
@@ -898,12 +934,11 @@ public abstract class AbstractChromatogram<T extends IPeak> extends AbstractMeas
 			 * Redo
 			 */
 			if(isUndoable()) {
-				File file = getVersionManagement().getNextScanRevision();
-				if(file.exists()) {
-					readSerializedChromatogram(file);
+				if(scanRevisionStore.restore(getVersionManagement().getRevision() + 1, this)) {
 					getVersionManagement().redoOperation();
 					getEditHistory().add(new EditInformation("redo operation performed"));
 				}
+				resetStatistics();
 				//
 				fireUpdate(chromatogramSelection);
 			}
@@ -920,22 +955,47 @@ public abstract class AbstractChromatogram<T extends IPeak> extends AbstractMeas
 			 * Undo
 			 */
 			if(isUndoable()) {
-				File file = getVersionManagement().getPreviousScanRevision();
-				if(file.exists()) {
-					readSerializedChromatogram(file);
+				if(canUndo() && scanRevisionStore.restore(getVersionManagement().getRevision() - 1, this)) {
 					getVersionManagement().undoOperation();
 					getEditHistory().add(new EditInformation("undo operation performed"));
 				}
+				resetStatistics();
 				//
 				fireUpdate(chromatogramSelection);
 			}
 		}
 	}
 
+	/**
+	 * Returns the fingerprint of the scan data, which is used to detect the scans
+	 * that have been changed by an undoable operation. Specific chromatogram types
+	 * shall add their signals, e.g. the ions.
+	 * 
+	 * @param scan
+	 * @return long
+	 */
+	protected long getScanFingerprint(IScan scan) {
+
+		long fingerprint = ScanRevisionStore.fingerprint();
+		fingerprint = ScanRevisionStore.fingerprint(fingerprint, scan.getRetentionTime());
+		fingerprint = ScanRevisionStore.fingerprint(fingerprint, scan.getRetentionTimeColumn1());
+		fingerprint = ScanRevisionStore.fingerprint(fingerprint, scan.getRetentionTimeColumn2());
+		fingerprint = ScanRevisionStore.fingerprint(fingerprint, scan.getRelativeRetentionTime());
+		fingerprint = ScanRevisionStore.fingerprint(fingerprint, Float.floatToIntBits(scan.getRetentionIndex()));
+		fingerprint = ScanRevisionStore.fingerprint(fingerprint, scan.getScanNumber());
+		fingerprint = ScanRevisionStore.fingerprint(fingerprint, Float.floatToIntBits(scan.getTotalSignal()));
+		fingerprint = ScanRevisionStore.fingerprint(fingerprint, scan.getTargets().size());
+		return fingerprint;
+	}
+
 	@Override
 	public void setUnloaded() {
 
 		unloaded = true;
+		/*
+		 * Delete the temporary scan revision files.
+		 */
+		scanRevisionStore.clear();
 	}
 
 	@Override
@@ -947,13 +1007,7 @@ public abstract class AbstractChromatogram<T extends IPeak> extends AbstractMeas
 	@Override
 	public boolean containsScanCycles() {
 
-		int defaultCycleNumber = 1;
-		for(IScan scan : getScans()) {
-			if(scan.getCycleNumber() != defaultCycleNumber) {
-				return true;
-			}
-		}
-		return false;
+		return getStatistics().containsScanCycles();
 	}
 
 	@Override
@@ -1080,6 +1134,7 @@ public abstract class AbstractChromatogram<T extends IPeak> extends AbstractMeas
 		} else {
 			modCount = 0;
 		}
+		resetStatistics();
 	}
 
 	@Override
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2018 Lablicate GmbH.
+ * Copyright (c) 2008, 2020 Lablicate GmbH.
  * 
  * All rights reserved.
  * This program and the accompanying materials are made available under the
@@ -11,14 +11,11 @@
  *******************************************************************************/
 package org.eclipse.chemclipse.model.core;
 
+import java.util.AbstractMap;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Iterator;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 import java.util.Map.Entry;
-import java.util.NavigableMap;
-import java.util.TreeMap;
 
 import org.eclipse.chemclipse.model.exceptions.PeakException;
 import org.eclipse.chemclipse.model.support.ITwoPoints;
@@ -28,15 +25,31 @@ import org.eclipse.chemclipse.numeric.core.Point;
 import org.eclipse.chemclipse.numeric.equations.LinearEquation;
 import org.eclipse.chemclipse.numeric.exceptions.PointIsNullException;
 
+/**
+ * The intensity values are stored in two parallel arrays, sorted ascending by retention time.
+ * Peaks are usually built scan by scan, hence values are appended in most cases.
+ * The index of the highest intensity and the inflection point equations are cached
+ * until the values are modified.
+ */
 public abstract class AbstractPeakIntensityValues implements IPeakIntensityValues {
 
 	/**
 	 * Renew the UUID on change.
 	 */
-	private static final long serialVersionUID = 1597422380319731942L;
+	private static final long serialVersionUID = 7394160521878364512L;
 	//
-	private NavigableMap<Integer, Float> intensityValues;
+	private static final int DEFAULT_CAPACITY = 16;
+	private static final int NO_INDEX = -1;
+	//
+	private int[] retentionTimes;
+	private float[] intensities;
+	private int size;
 	private float maxIntensity;
+	//
+	private int highestIndex = NO_INDEX;
+	private transient float inflectionPointSignal = Float.NaN;
+	private transient LinearEquation increasingInflectionPointEquation;
+	private transient LinearEquation decreasingInflectionPointEquation;
 
 	/**
 	 * The intensity values must contain at least 3 key (retention time) value
@@ -47,8 +60,7 @@ public abstract class AbstractPeakIntensityValues implements IPeakIntensityValue
 	 * intensity (key - value) mappings.
 	 */
 	public AbstractPeakIntensityValues() {
-		intensityValues = new TreeMap<Integer, Float>();
-		maxIntensity = MAX_INTENSITY;
+		this(MAX_INTENSITY, DEFAULT_CAPACITY);
 	}
 
 	/**
@@ -59,17 +71,29 @@ public abstract class AbstractPeakIntensityValues implements IPeakIntensityValue
 	 * @param maxIntensity
 	 */
 	public AbstractPeakIntensityValues(float maxIntensity) {
-		this();
-		if(maxIntensity > 0.0f) {
-			this.maxIntensity = maxIntensity;
-		}
+		this(maxIntensity, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Use this constructor if the number of intensity values is known in advance,
+	 * e.g. when reading a stored peak.
+	 * 
+	 * @param maxIntensity
+	 * @param initialCapacity
+	 */
+	public AbstractPeakIntensityValues(float maxIntensity, int initialCapacity) {
+		int capacity = (initialCapacity > 0) ? initialCapacity : DEFAULT_CAPACITY;
+		retentionTimes = new int[capacity];
+		intensities = new float[capacity];
+		this.maxIntensity = (maxIntensity > 0.0f) ? maxIntensity : MAX_INTENSITY;
 	}
 
 	@Override
 	public void addIntensityValue(int retentionTime, float relativeIntensity) {
 
 		if(retentionTime >= 0 && relativeIntensity >= 0 && relativeIntensity <= maxIntensity) {
-			intensityValues.put(retentionTime, relativeIntensity);
+			put(retentionTime, relativeIntensity);
+			resetCache();
 		}
 	}
 
@@ -77,17 +101,14 @@ public abstract class AbstractPeakIntensityValues implements IPeakIntensityValue
 	public Entry<Integer, Float> getHighestIntensityValue() {
 
 		/*
-		 * Search for an element which fits the getValue() condition
+		 * The first element which fits the getValue() condition
 		 * [entry.getValue() == MAX_INTENSITY].
-		 */
-		for(Map.Entry<Integer, Float> entry : intensityValues.entrySet()) {
-			if(entry.getValue() == maxIntensity) {
-				return entry;
-			}
-		}
-		/*
 		 * If no element MAX_INTENSITY was stored, null will be returned.
 		 */
+		int index = getHighestIndex();
+		if(index != NO_INDEX) {
+			return getEntry(index);
+		}
 		return null;
 	}
 
@@ -95,18 +116,26 @@ public abstract class AbstractPeakIntensityValues implements IPeakIntensityValue
 	public Entry<Integer, Float> getIntensityValue(int retentionTime) {
 
 		if(retentionTime >= getStartRetentionTime() && retentionTime <= getStopRetentionTime()) {
-			return intensityValues.floorEntry(retentionTime);
-		} else {
-			return null;
+			int index = Arrays.binarySearch(retentionTimes, 0, size, retentionTime);
+			if(index < 0) {
+				/*
+				 * Floor entry: the insertion point is the first greater retention time.
+				 */
+				index = -index - 2;
+			}
+			if(index >= 0) {
+				return getEntry(index);
+			}
 		}
+		return null;
 	}
 
 	@Override
 	public int getStartRetentionTime() {
 
 		int retentionTime = 0;
-		if(size() > 0) {
-			retentionTime = intensityValues.firstKey();
+		if(size > 0) {
+			retentionTime = retentionTimes[0];
 		}
 		return retentionTime;
 	}
@@ -115,8 +144,8 @@ public abstract class AbstractPeakIntensityValues implements IPeakIntensityValue
 	public int getStopRetentionTime() {
 
 		int retentionTime = 0;
-		if(size() > 0) {
-			retentionTime = intensityValues.lastKey();
+		if(size > 0) {
+			retentionTime = retentionTimes[size - 1];
 		}
 		return retentionTime;
 	}
@@ -124,35 +153,39 @@ public abstract class AbstractPeakIntensityValues implements IPeakIntensityValue
 	@Override
 	public void replaceRetentionTimes(List<Integer> retentionTimes) {
 
-		if(intensityValues.size() == retentionTimes.size()) {
+		if(size == retentionTimes.size()) {
+			float[] intensitiesOld = intensities;
+			int sizeOld = size;
 			/*
-			 * Create a new map.
+			 * Replace the old by the new values.
+			 * The new retention times could be unsorted, hence put is used.
 			 */
-			int i = 0;
-			NavigableMap<Integer, Float> intensityValuesNew = new TreeMap<Integer, Float>();
-			for(Map.Entry<Integer, Float> intensityValue : intensityValues.entrySet()) {
-				intensityValuesNew.put(retentionTimes.get(i++), intensityValue.getValue());
+			this.retentionTimes = new int[sizeOld];
+			intensities = new float[sizeOld];
+			size = 0;
+			for(int i = 0; i < sizeOld; i++) {
+				put(retentionTimes.get(i), intensitiesOld[i]);
 			}
-			/*
-			 * Replace the old by the new map.
-			 */
-			intensityValues = intensityValuesNew;
+			resetCache();
 		}
 	}
 
 	@Override
 	public int size() {
 
-		return intensityValues.size();
+		return size;
 	}
 
 	@Override
 	public LinearEquation calculateIncreasingInflectionPointEquation(float totalSignal) throws PeakException {
 
-		Map.Entry<Integer, Float> entry = getHighestIntensityValue();
-		if(entry != null) {
-			NavigableMap<Integer, Float> increasingValues = intensityValues.headMap(entry.getKey(), true);
-			return calculateInflectionPointEquation(increasingValues, totalSignal);
+		int index = getHighestIndex();
+		if(index != NO_INDEX) {
+			if(increasingInflectionPointEquation == null || Float.compare(inflectionPointSignal, totalSignal) != 0) {
+				resetInflectionPointEquations(totalSignal);
+				increasingInflectionPointEquation = calculateInflectionPointEquation(0, index, totalSignal);
+			}
+			return increasingInflectionPointEquation;
 		}
 		return null;
 	}
@@ -160,10 +193,13 @@ public abstract class AbstractPeakIntensityValues implements IPeakIntensityValue
 	@Override
 	public LinearEquation calculateDecreasingInflectionPointEquation(float totalSignal) throws PeakException {
 
-		Map.Entry<Integer, Float> entry = getHighestIntensityValue();
-		if(entry != null) {
-			NavigableMap<Integer, Float> decreasingValues = intensityValues.tailMap(entry.getKey(), true);
-			return calculateInflectionPointEquation(decreasingValues, totalSignal);
+		int index = getHighestIndex();
+		if(index != NO_INDEX) {
+			if(decreasingInflectionPointEquation == null || Float.compare(inflectionPointSignal, totalSignal) != 0) {
+				resetInflectionPointEquations(totalSignal);
+				decreasingInflectionPointEquation = calculateInflectionPointEquation(index, size - 1, totalSignal);
+			}
+			return decreasingInflectionPointEquation;
 		}
 		return null;
 	}
@@ -171,25 +207,33 @@ public abstract class AbstractPeakIntensityValues implements IPeakIntensityValue
 	@Override
 	public List<Integer> getRetentionTimes() {
 
-		return new ArrayList<Integer>(intensityValues.keySet());
+		List<Integer> list = new ArrayList<>(size);
+		for(int i = 0; i < size; i++) {
+			list.add(retentionTimes[i]);
+		}
+		return list;
 	}
 
 	@Override
 	public void normalize() {
 
+		if(size == 0) {
+			return;
+		}
 		// Get the max intensity of the collection.
-		float maxIntensityValue = Collections.max(intensityValues.values());
+		float maxIntensityValue = intensities[0];
+		for(int i = 1; i < size; i++) {
+			maxIntensityValue = Math.max(maxIntensityValue, intensities[i]);
+		}
 		/*
 		 * Cause collection could contain intensity value higher than MAX_INTENSITY,
 		 * set maxIntensity to MAX_INTENSITY and normalize the values.
 		 */
 		this.maxIntensity = MAX_INTENSITY;
-		Iterator<Integer> iterator = intensityValues.navigableKeySet().iterator();
-		while(iterator.hasNext()) {
-			int key = iterator.next();
-			float actualIntensity = intensityValues.get(key);
-			intensityValues.put(key, calculateNormalizedIntensityValue(maxIntensityValue, actualIntensity));
+		for(int i = 0; i < size; i++) {
+			intensities[i] = calculateNormalizedIntensityValue(maxIntensityValue, intensities[i]);
 		}
+		resetCache();
 	}
 
 	private float calculateNormalizedIntensityValue(float maxIntensityValue, float actualIntensity) {
@@ -213,51 +257,127 @@ public abstract class AbstractPeakIntensityValues implements IPeakIntensityValue
 
 	// ------------------------------private methods
 	/**
-	 * Calculates a inflection point equation.
+	 * Inserts the value at its sorted position or overwrites the value
+	 * that is stored at the given retention time.
+	 */
+	private void put(int retentionTime, float intensity) {
+
+		int index;
+		if(size == 0 || retentionTime > retentionTimes[size - 1]) {
+			index = size;
+		} else {
+			index = Arrays.binarySearch(retentionTimes, 0, size, retentionTime);
+			if(index >= 0) {
+				intensities[index] = intensity;
+				return;
+			}
+			index = -index - 1;
+		}
+		//
+		if(size == retentionTimes.length) {
+			int capacity = Math.max(DEFAULT_CAPACITY, size + (size >> 1));
+			retentionTimes = Arrays.copyOf(retentionTimes, capacity);
+			intensities = Arrays.copyOf(intensities, capacity);
+		}
+		//
+		if(index < size) {
+			System.arraycopy(retentionTimes, index, retentionTimes, index + 1, size - index);
+			System.arraycopy(intensities, index, intensities, index + 1, size - index);
+		}
+		retentionTimes[index] = retentionTime;
+		intensities[index] = intensity;
+		size++;
+	}
+
+	private Entry<Integer, Float> getEntry(int index) {
+
+		return new AbstractMap.SimpleImmutableEntry<>(retentionTimes[index], intensities[index]);
+	}
+
+	private int getHighestIndex() {
+
+		if(highestIndex == NO_INDEX) {
+			for(int i = 0; i < size; i++) {
+				if(intensities[i] == maxIntensity) {
+					highestIndex = i;
+					break;
+				}
+			}
+		}
+		return highestIndex;
+	}
+
+	private void resetCache() {
+
+		highestIndex = NO_INDEX;
+		resetInflectionPointEquations(Float.NaN);
+	}
+
+	private void resetInflectionPointEquations(float totalSignal) {
+
+		if(Float.compare(inflectionPointSignal, totalSignal) != 0) {
+			inflectionPointSignal = totalSignal;
+			increasingInflectionPointEquation = null;
+			decreasingInflectionPointEquation = null;
+		}
+	}
+
+	/**
+	 * Calculates a inflection point equation between the given indices (inclusive).
 	 * 
 	 * @throws PeakException
 	 */
-	private LinearEquation calculateInflectionPointEquation(NavigableMap<Integer, Float> values, float totalSignal) throws PeakException {
+	private LinearEquation calculateInflectionPointEquation(int start, int stop, float totalSignal) throws PeakException {
 
-		NavigableMap<Double, ITwoPoints> slopes = new TreeMap<Double, ITwoPoints>();
+		ITwoPoints steepest = null;
+		double steepestSlope = 0.0d;
 		IPoint p1 = null;
-		Map.Entry<Integer, Float> e1 = null;
 		IPoint p2 = null;
-		Map.Entry<Integer, Float> e2 = null;
-		ITwoPoints points = null;
-		List<Integer> keys = new ArrayList<Integer>(values.keySet());
-		for(int i = 0; i < keys.size() - 1; i++) {
+		for(int i = start; i < stop; i++) {
 			/*
-			 * Use the existing entry and point to avoid unnecessary object
-			 * creation.
+			 * Use the existing point to avoid unnecessary object creation.
 			 */
-			if(e1 == null) {
-				e1 = values.floorEntry(keys.get(i));
-				p1 = new Point(e1.getKey(), (e1.getValue() / maxIntensity) * totalSignal);
+			if(p1 == null) {
+				p1 = new Point(retentionTimes[i], (intensities[i] / maxIntensity) * totalSignal);
 			} else {
-				e1 = e2;
 				p1 = p2;
 			}
-			e2 = values.floorEntry(keys.get(i + 1));
-			p2 = new Point(e2.getKey(), (e2.getValue() / maxIntensity) * totalSignal);
+			p2 = new Point(retentionTimes[i + 1], (intensities[i + 1] / maxIntensity) * totalSignal);
 			try {
-				points = new TwoPoints(p1, p2);
-				slopes.put(Math.abs(points.getSlope()), points);
+				ITwoPoints points = new TwoPoints(p1, p2);
+				/*
+				 * There are increasing and decreasing slopes, hence the absolute value is compared.
+				 * On equal slopes, the last pair is used.
+				 */
+				double slope = Math.abs(points.getSlope());
+				if(steepest == null || Double.compare(slope, steepestSlope) >= 0) {
+					steepest = points;
+					steepestSlope = slope;
+				}
 			} catch(PointIsNullException e) {
 			}
 		}
-		/*
-		 * Why can i use the highest entry here? Are there not increasing and
-		 * decreasing slopes? Yes, but the slope has been added to the list with
-		 * its absolute value Math.abs(points.getSlope()), for that this
-		 * statement is correct.
-		 */
-		Entry<Double, ITwoPoints> entry = slopes.lastEntry();
-		if(entry != null) {
-			return entry.getValue().getLinearEquation();
+		//
+		if(steepest != null) {
+			return steepest.getLinearEquation();
 		} else {
-			throw new PeakException("The inflection point equation could not be calculated. [values=" + values + ", totalSignal: " + totalSignal);
+			throw new PeakException("The inflection point equation could not be calculated. [values=" + toString(start, stop) + ", totalSignal: " + totalSignal);
+		}
+	}
+
+	private String toString(int start, int stop) {
+
+		StringBuilder builder = new StringBuilder("{");
+		for(int i = start; i <= stop && i < size; i++) {
+			if(i > start) {
+				builder.append(", ");
+			}
+			builder.append(retentionTimes[i]);
+			builder.append("=");
+			builder.append(intensities[i]);
 		}
+		builder.append("}");
+		return builder.toString();
 	}
 	// ------------------------------private methods
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012, 2019 Lablicate GmbH.
+ * Copyright (c) 2012, 2020 Lablicate GmbH.
  * 
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -113,6 +113,12 @@ public abstract class AbstractScan extends AbstractSignal implements IScan {
 		if(retentionTime >= 0) {
 			this.retentionTime = retentionTime;
 			setDirty(true);
+			/*
+			 * The scan numbers of the chromatogram are searched by retention time.
+			 */
+			if(parentChromatogram instanceof AbstractChromatogram) {
+				((AbstractChromatogram<?>)parentChromatogram).resetRetentionTimeIndex();
+			}
 		}
 	}
 
@@ -255,6 +261,7 @@ public abstract class AbstractScan extends AbstractSignal implements IScan {
 	public void setCycleNumber(int cycleNumber) {
 
 		this.cycleNumber = cycleNumber;
+		setDirty(true);
 	}
 
 	@Override
@@ -273,6 +280,12 @@ public abstract class AbstractScan extends AbstractSignal implements IScan {
 	public void setDirty(boolean isDirty) {
 
 		this.isDirty = isDirty;
+		/*
+		 * The statistics of the chromatogram depend on the scan values.
+		 */
+		if(isDirty && parentChromatogram instanceof AbstractChromatogram) {
+			((AbstractChromatogram<?>)parentChromatogram).resetStatistics();
+		}
 	}
 
 	@Override
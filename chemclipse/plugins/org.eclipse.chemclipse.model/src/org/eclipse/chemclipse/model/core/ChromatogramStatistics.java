@@ -0,0 +1,170 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Lablicate GmbH.
+ *
+ * All rights reserved.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Dr. Philip Wenig - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.chemclipse.model.core;
+
+import java.util.List;
+
+/**
+ * Summary statistics of the total signals of a chromatogram.<br/>
+ * The values are calculated in a single pass over the scans. The instance is immutable,
+ * use {@link IChromatogram#getStatistics()} to get the values of the actual chromatogram state.
+ */
+public final class ChromatogramStatistics {
+
+	private static final int DEFAULT_CYCLE_NUMBER = 1;
+	//
+	private final int modCount;
+	private final int numberOfScans;
+	private final float minSignal;
+	private final float maxSignal;
+	private final float maxSignalCondensed;
+	private final float totalSignal;
+	private final int startRetentionTime;
+	private final int stopRetentionTime;
+	private final int scanInterval;
+	private final boolean containsScanCycles;
+
+	/**
+	 * The signal values are calculated like the chromatogram did it before:
+	 * min and total use the plain total signals, max uses the total signals
+	 * validated to be positive, optionally summed up by scan cycle.
+	 *
+	 * @param scans
+	 * @param modCount
+	 */
+	ChromatogramStatistics(List<IScan> scans, int modCount) {
+
+		this.modCount = modCount;
+		numberOfScans = scans.size();
+		//
+		float min = Float.MAX_VALUE;
+		float max = 0.0f;
+		float maxCondensed = 0.0f;
+		float total = 0.0f;
+		boolean scanCycles = false;
+		int cycleNumber = 0;
+		float cycleSignal = 0.0f;
+		for(int i = 0; i < numberOfScans; i++) {
+			IScan scan = scans.get(i);
+			float signal = scan.getTotalSignal();
+			min = (min > signal) ? signal : min;
+			max = (signal > max) ? signal : max;
+			total += signal;
+			/*
+			 * Consecutive scans of the same cycle are summed up.
+			 */
+			int cycle = scan.getCycleNumber();
+			if(cycle != DEFAULT_CYCLE_NUMBER) {
+				scanCycles = true;
+			}
+			if(i > 0 && cycle == cycleNumber) {
+				cycleSignal += signal;
+			} else {
+				maxCondensed = getMaxPositive(maxCondensed, cycleSignal);
+				cycleNumber = cycle;
+				cycleSignal = signal;
+			}
+		}
+		maxCondensed = getMaxPositive(maxCondensed, cycleSignal);
+		//
+		if(numberOfScans > 0) {
+			minSignal = min;
+			startRetentionTime = scans.get(0).getRetentionTime();
+			stopRetentionTime = scans.get(numberOfScans - 1).getRetentionTime();
+		} else {
+			minSignal = 0.0f;
+			startRetentionTime = 0;
+			stopRetentionTime = 0;
+		}
+		maxSignal = max;
+		maxSignalCondensed = maxCondensed;
+		totalSignal = total;
+		scanInterval = (numberOfScans > 1) ? Math.round((stopRetentionTime - startRetentionTime) / (float)(numberOfScans - 1)) : 0;
+		containsScanCycles = scanCycles;
+	}
+
+	/**
+	 * Returns the modification count of the chromatogram when the statistics were calculated.
+	 *
+	 * @return int
+	 */
+	public int getModCount() {
+
+		return modCount;
+	}
+
+	public int getNumberOfScans() {
+
+		return numberOfScans;
+	}
+
+	public float getMinSignal() {
+
+		return minSignal;
+	}
+
+	/**
+	 * Returns the highest total signal, scans of the same cycle are summed if they exist.
+	 *
+	 * @return float
+	 */
+	public float getMaxSignal() {
+
+		return getMaxSignal(containsScanCycles);
+	}
+
+	public float getMaxSignal(boolean condenseCycleNumberScans) {
+
+		return condenseCycleNumberScans ? maxSignalCondensed : maxSignal;
+	}
+
+	public float getTotalSignal() {
+
+		return totalSignal;
+	}
+
+	public int getStartRetentionTime() {
+
+		return startRetentionTime;
+	}
+
+	public int getStopRetentionTime() {
+
+		return stopRetentionTime;
+	}
+
+	/**
+	 * Returns the mean distance of the scans in milliseconds, measured by the retention times.
+	 *
+	 * @return int
+	 */
+	public int getScanInterval() {
+
+		return scanInterval;
+	}
+
+	public boolean containsScanCycles() {
+
+		return containsScanCycles;
+	}
+
+	private static float getMaxPositive(float max, float signal) {
+
+		return (signal > max) ? signal : max;
+	}
+
+	@Override
+	public String toString() {
+
+		return "ChromatogramStatistics [numberOfScans=" + numberOfScans + ", minSignal=" + minSignal + ", maxSignal=" + maxSignal + ", totalSignal=" + totalSignal + ", startRetentionTime=" + startRetentionTime + ", stopRetentionTime=" + stopRetentionTime + ", scanInterval=" + scanInterval + "]";
+	}
+}
@@ -194,6 +194,15 @@ public interface IChromatogram<T extends IPeak> extends SegmentedMeasurement, IM
 	 */
 	boolean containsScanCycles();
 
+	/**
+	 * Returns the summary statistics of the total signals, e.g. min, max and total signal.
+	 * The statistics are calculated in a single pass on first access and kept until
+	 * the chromatogram or one of its scans has been modified.
+	 * 
+	 * @return {@link ChromatogramStatistics}
+	 */
+	ChromatogramStatistics getStatistics();
+
 	/**
 	 * Returns the scans identified by the scan cycle id.
 	 * 
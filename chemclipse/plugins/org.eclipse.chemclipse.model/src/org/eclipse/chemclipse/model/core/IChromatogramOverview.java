@@ -163,6 +163,23 @@ public interface IChromatogramOverview extends IMeasurementInfo {
 	 */
 	int getScanNumber(float retentionTime);
 
+	/**
+	 * Returns the corresponding scan numbers to the given retention times.<br/>
+	 * See {@link #getScanNumber(int)}. If the retention times are sorted
+	 * ascending, they are mapped in one pass.
+	 * 
+	 * @param retentionTimes
+	 * @return int[]
+	 */
+	default int[] getScanNumbers(int[] retentionTimes) {
+
+		int[] scanNumbers = new int[retentionTimes.length];
+		for(int i = 0; i < retentionTimes.length; i++) {
+			scanNumbers[i] = getScanNumber(retentionTimes[i]);
+		}
+		return scanNumbers;
+	}
+
 	/**
 	 * Returns the number of scans.
 	 * 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2014, 2018 Lablicate GmbH.
+ * Copyright (c) 2014, 2020 Lablicate GmbH.
  * 
  * All rights reserved.
  * This program and the accompanying materials are made available under the
@@ -19,7 +19,7 @@ public class PeakIntensityValues extends AbstractPeakIntensityValues implements
 	/**
 	 * Renew the UUID on change.
 	 */
-	private static final long serialVersionUID = 8596503209176077779L;
+	private static final long serialVersionUID = 2207781693315240981L;
 
 	public PeakIntensityValues() {
 		super();
@@ -28,4 +28,8 @@ public class PeakIntensityValues extends AbstractPeakIntensityValues implements
 	public PeakIntensityValues(float maxIntensity) {
 		super(maxIntensity);
 	}
+
+	public PeakIntensityValues(float maxIntensity, int initialCapacity) {
+		super(maxIntensity, initialCapacity);
+	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2013, 2018 Lablicate GmbH.
+ * Copyright (c) 2013, 2020 Lablicate GmbH.
  * 
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -40,6 +40,7 @@ public class Scan extends AbstractScan implements IScan {
 
 		if(totalSignal >= 0) {
 			this.totalSignal = totalSignal;
+			setDirty(true);
 		}
 	}
 }
@@ -30,6 +30,13 @@ public abstract class AbstractChromatogramSelection<T extends IChromatogramPeak,
 	private boolean overlaySelected;
 	private boolean lockOffset;
 	private Point offset;
+	/*
+	 * Batched updates, confined to the thread that has started the batch.
+	 */
+	private Thread batchThread = null;
+	private int batchDepth = 0;
+	private boolean pendingUpdate = false;
+	private boolean pendingForceReload = false;
 
 	public AbstractChromatogramSelection(C chromatogram) throws ChromatogramIsNullException {
 		this(chromatogram, true);
@@ -231,6 +238,64 @@ public abstract class AbstractChromatogramSelection<T extends IChromatogramPeak,
 		setStopAbundance(stopAbundance, false);
 	}
 
+	@Override
+	public synchronized void beginUpdate() {
+
+		/*
+		 * A batch started by another thread is not affected.
+		 */
+		Thread thread = Thread.currentThread();
+		if(batchThread == null) {
+			batchThread = thread;
+		}
+		if(batchThread == thread) {
+			batchDepth++;
+		}
+	}
+
+	@Override
+	public void endUpdate() {
+
+		boolean forceReload;
+		synchronized(this) {
+			if(batchThread != Thread.currentThread()) {
+				return;
+			}
+			if(batchDepth > 0) {
+				batchDepth--;
+			}
+			if(batchDepth > 0) {
+				return;
+			}
+			batchThread = null;
+			if(!pendingUpdate) {
+				return;
+			}
+			forceReload = pendingForceReload;
+			pendingUpdate = false;
+			pendingForceReload = false;
+		}
+		fireUpdateChange(forceReload);
+	}
+
+	/**
+	 * Returns true if the update has been recorded to be fired at the end of the actual batch.
+	 * Only the updates of the thread that has started the batch are deferred.
+	 * Implementations call this method first in fireUpdateChange(boolean forceReload).
+	 *
+	 * @param forceReload
+	 * @return boolean
+	 */
+	protected synchronized boolean deferUpdate(boolean forceReload) {
+
+		if(batchDepth > 0 && batchThread == Thread.currentThread()) {
+			pendingUpdate = true;
+			pendingForceReload |= forceReload;
+			return true;
+		}
+		return false;
+	}
+
 	@Override
 	public boolean isOverlaySelected() {
 
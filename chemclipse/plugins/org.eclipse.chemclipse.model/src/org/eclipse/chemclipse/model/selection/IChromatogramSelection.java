@@ -138,6 +138,18 @@ public interface IChromatogramSelection<P extends IPeak, C extends IChromatogram
 	 */
 	void fireUpdateChange(boolean forceReload);
 
+	/**
+	 * Starts a batch. The updates fired until the outermost batch is ended
+	 * are merged into one update. Batches can be nested.
+	 * The batch is confined to the calling thread, updates fired by other threads are not deferred.
+	 */
+	void beginUpdate();
+
+	/**
+	 * Ends a batch and fires the merged update if it is the outermost batch.
+	 */
+	void endUpdate();
+
 	/**
 	 * Returns the selected scan of the current chromatogram or null, if none is
 	 * stored.
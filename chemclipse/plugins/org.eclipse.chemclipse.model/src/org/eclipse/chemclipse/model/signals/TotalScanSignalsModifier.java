@@ -12,7 +12,6 @@
  *******************************************************************************/
 package org.eclipse.chemclipse.model.signals;
 
-import java.util.Arrays;
 import java.util.List;
 
 import org.eclipse.chemclipse.model.exceptions.CalculationException;
@@ -130,18 +129,16 @@ public class TotalScanSignalsModifier {
 		/*
 		 * Get all total abundance values.
 		 */
-		float[] allSignals = new float[totalIonSignals.size()];
+		double[] allSignals = new double[totalIonSignals.size()];
 		List<ITotalScanSignal> signals = totalIonSignals.getTotalScanSignals();
 		int i = 0;
 		for(ITotalScanSignal signal : signals) {
 			allSignals[i++] = signal.getTotalSignal();
 		}
 		/*
-		 * Calculate the median value.
+		 * Calculate the median value by selection, which also works for less than 3 signals.
 		 */
-		Arrays.sort(allSignals);
-		int middle = allSignals.length / 2;
-		float medianSignal = (allSignals.length % 2 == 1) ? allSignals[middle] : (allSignals[middle - 1] + allSignals[middle]) / 2.0f;
+		float medianSignal = (float)Calculations.getPercentileInPlace(allSignals, allSignals.length, 50.0d);
 		if(medianSignal == 0) {
 			throw new CalculationException("The median abundance must not be 0.");
 		}
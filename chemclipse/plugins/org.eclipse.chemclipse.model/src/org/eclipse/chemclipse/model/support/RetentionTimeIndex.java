@@ -0,0 +1,226 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Lablicate GmbH.
+ *
+ * All rights reserved.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Dr. Philip Wenig - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.chemclipse.model.support;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.chemclipse.model.core.IScan;
+
+/**
+ * Stores the retention times of the scans in a primitive array to map
+ * retention times to scan numbers without accessing the scans.<br/>
+ * If the retention times are ascending, an interpolation guess followed
+ * by a binary search is used. Otherwise, the array is searched linearly.
+ */
+public class RetentionTimeIndex {
+
+	private int[] retentionTimes = new int[0];
+	private int size = 0;
+	private boolean ascending = true;
+	private boolean valid = false;
+
+	/**
+	 * Rebuilds the index.
+	 *
+	 * @param scans
+	 */
+	public void build(List<? extends IScan> scans) {
+
+		size = 0;
+		ascending = true;
+		if(retentionTimes.length < scans.size()) {
+			retentionTimes = new int[scans.size()];
+		}
+		for(IScan scan : scans) {
+			append(scan.getRetentionTime());
+		}
+		valid = true;
+	}
+
+	/**
+	 * Appends the retention time of a scan that has been added at the end.
+	 * Nothing happens if the index is not valid.
+	 *
+	 * @param retentionTime
+	 */
+	public void add(int retentionTime) {
+
+		if(valid) {
+			if(size == retentionTimes.length) {
+				retentionTimes = Arrays.copyOf(retentionTimes, Math.max(16, size * 2));
+			}
+			append(retentionTime);
+		}
+	}
+
+	/**
+	 * Marks the index as invalid. It has to be rebuild before it is used again.
+	 */
+	public void clear() {
+
+		valid = false;
+	}
+
+	/**
+	 * Returns whether the index is valid for the given number of scans.
+	 *
+	 * @param numberOfScans
+	 * @return boolean
+	 */
+	public boolean isValid(int numberOfScans) {
+
+		return valid && size == numberOfScans;
+	}
+
+	public int size() {
+
+		return size;
+	}
+
+	public boolean isAscending() {
+
+		return ascending;
+	}
+
+	/**
+	 * Returns the indexed retention time at the given position (0 based).
+	 *
+	 * @param position
+	 * @return int
+	 */
+	public int getRetentionTime(int position) {
+
+		return retentionTimes[position];
+	}
+
+	/**
+	 * Returns the position (0 based) of the first retention time that is greater than
+	 * the given retention time, hence the number of the scan (1 based) that is equal or
+	 * lower than the given retention time. If there is no greater retention time, size()
+	 * is returned.
+	 *
+	 * @param retentionTime
+	 * @return int
+	 */
+	public int getPosition(int retentionTime) {
+
+		if(size == 0) {
+			return 0;
+		}
+		//
+		if(!ascending) {
+			for(int i = 0; i < size; i++) {
+				if(retentionTimes[i] > retentionTime) {
+					return i;
+				}
+			}
+			return size;
+		}
+		//
+		if(retentionTime < retentionTimes[0]) {
+			return 0;
+		} else if(retentionTime >= retentionTimes[size - 1]) {
+			return size;
+		}
+		/*
+		 * Gallop from the interpolated position until the
+		 * bounds are found and search binary within them.
+		 */
+		int guess = getInterpolatedPosition(retentionTime);
+		int low;
+		int high;
+		int step = 1;
+		if(retentionTimes[guess] <= retentionTime) {
+			low = guess + 1;
+			high = size;
+			while(guess + step < size) {
+				int probe = guess + step;
+				if(retentionTimes[probe] > retentionTime) {
+					high = probe;
+					break;
+				}
+				low = probe + 1;
+				step <<= 1;
+			}
+		} else {
+			low = 0;
+			high = guess;
+			while(guess - step >= 0) {
+				int probe = guess - step;
+				if(retentionTimes[probe] <= retentionTime) {
+					low = probe + 1;
+					break;
+				}
+				high = probe;
+				step <<= 1;
+			}
+		}
+		//
+		while(low < high) {
+			int middle = (low + high) >>> 1;
+			if(retentionTimes[middle] <= retentionTime) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Returns the positions of the ascending sorted retention times in one pass.
+	 * See {@link #getPosition(int)}.
+	 *
+	 * @param retentionTimes
+	 * @return int[]
+	 */
+	public int[] getPositions(int[] retentionTimes) {
+
+		int[] positions = new int[retentionTimes.length];
+		if(!ascending) {
+			for(int i = 0; i < retentionTimes.length; i++) {
+				positions[i] = getPosition(retentionTimes[i]);
+			}
+		} else {
+			int position = 0;
+			for(int i = 0; i < retentionTimes.length; i++) {
+				if(i > 0 && retentionTimes[i] < retentionTimes[i - 1]) {
+					position = 0;
+				}
+				while(position < size && this.retentionTimes[position] <= retentionTimes[i]) {
+					position++;
+				}
+				positions[i] = position;
+			}
+		}
+		return positions;
+	}
+
+	private void append(int retentionTime) {
+
+		if(size > 0 && retentionTime < retentionTimes[size - 1]) {
+			ascending = false;
+		}
+		retentionTimes[size++] = retentionTime;
+	}
+
+	private int getInterpolatedPosition(int retentionTime) {
+
+		long range = (long)retentionTimes[size - 1] - retentionTimes[0];
+		if(range <= 0) {
+			return 0;
+		}
+		long position = ((long)retentionTime - retentionTimes[0]) * (size - 1) / range;
+		return (int)Math.max(0, Math.min(size - 1, position));
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2014, 2019 Lablicate GmbH.
+ * Copyright (c) 2014, 2020 Lablicate GmbH.
  * 
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -16,11 +16,42 @@ public class SegmentValidator {
 
 	public boolean acceptSegment(float[] values, double mean) {
 
-		double[] doubles = new double[values.length];
-		for(int i = 0; i < doubles.length; i++) {
-			doubles[i] = values[i];
+		return acceptSegment(values, values.length, mean);
+	}
+
+	/**
+	 * Validates the first length values of the array.
+	 * See {@link #acceptSegment(double[], double)}.
+	 * 
+	 * @param values
+	 * @param length
+	 * @param mean
+	 * @return boolean
+	 */
+	public boolean acceptSegment(float[] values, int length, double mean) {
+
+		if(length < 1) {
+			return false;
+		}
+		boolean isAbove = false;
+		if(values[0] >= mean) {
+			isAbove = true;
+		}
+		int crossings = 0;
+		for(int i = 0; i < length - 1; i++) {
+			if(isAbove) {
+				if(values[i + 1] < mean) {
+					crossings++;
+					isAbove = false;
+				}
+			} else {
+				if(values[i + 1] > mean) {
+					crossings++;
+					isAbove = true;
+				}
+			}
 		}
-		return acceptSegment(doubles, mean);
+		return crossings > (length / 2);
 	}
 
 	/**
@@ -0,0 +1,297 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Lablicate GmbH.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Dr. Philip Wenig - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.chemclipse.model.updates;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.chemclipse.logging.core.Logger;
+import org.eclipse.core.runtime.ISafeRunnable;
+import org.eclipse.core.runtime.SafeRunner;
+
+/**
+ * Dispatches the update events of a chromatogram to the registered {@link IChromatogramUpdateListener}s.<br/>
+ * Updates fired between {@link #beginUpdate()} and {@link #endUpdate()} are merged into one event,
+ * which is dispatched when the outermost batch ends. A merged event forces a reload if one
+ * of the merged updates has requested it.
+ *
+ * <pre>
+ * dispatcher.beginUpdate();
+ * try {
+ * 	...
+ * } finally {
+ * 	dispatcher.endUpdate();
+ * }
+ * </pre>
+ */
+public class ChromatogramUpdateDispatcher {
+
+	public enum Mode {
+		/**
+		 * Each update is dispatched immediately on the calling thread.
+		 */
+		SYNCHRONOUS,
+		/**
+		 * Updates are merged and dispatched at most once per interval on a background thread.
+		 */
+		COALESCED,
+		/**
+		 * Updates are not dispatched at all, e.g. in headless batch runs.
+		 */
+		DISABLED
+	}
+
+	/*
+	 * Roughly one frame at 25 frames per second.
+	 */
+	public static final long DEFAULT_INTERVAL = 40; // milliseconds
+	public static final String PROPERTY_MODE = "org.eclipse.chemclipse.model.updates.mode";
+	//
+	private static final Logger logger = Logger.getLogger(ChromatogramUpdateDispatcher.class);
+	private static volatile Mode defaultMode = getInitialMode();
+	//
+	private final List<IChromatogramUpdateListener> listeners = new CopyOnWriteArrayList<>();
+	private volatile Mode mode = null;
+	private volatile long interval = DEFAULT_INTERVAL;
+	/*
+	 * Guarded by this.
+	 */
+	private int batchDepth = 0;
+	private boolean pending = false;
+	private boolean pendingForceReload = false;
+	private boolean scheduled = false;
+
+	/**
+	 * The mode used by all dispatchers that have no specific mode.
+	 * The initial value can be set via the system property {@value #PROPERTY_MODE}.
+	 *
+	 * @return {@link Mode}
+	 */
+	public static Mode getDefaultMode() {
+
+		return defaultMode;
+	}
+
+	public static void setDefaultMode(Mode mode) {
+
+		if(mode != null) {
+			defaultMode = mode;
+		}
+	}
+
+	public void addListener(IChromatogramUpdateListener listener) {
+
+		listeners.add(listener);
+	}
+
+	public void removeListener(IChromatogramUpdateListener listener) {
+
+		listeners.remove(listener);
+	}
+
+	public Mode getMode() {
+
+		Mode actualMode = mode;
+		return (actualMode != null) ? actualMode : defaultMode;
+	}
+
+	/**
+	 * Sets the mode of this dispatcher. Null resets it to the default mode.
+	 *
+	 * @param mode
+	 */
+	public void setMode(Mode mode) {
+
+		this.mode = mode;
+		if(mode == Mode.DISABLED) {
+			synchronized(this) {
+				pending = false;
+				pendingForceReload = false;
+			}
+		}
+	}
+
+	public long getInterval() {
+
+		return interval;
+	}
+
+	/**
+	 * Sets the interval in milliseconds used to coalesce the updates in mode COALESCED.
+	 *
+	 * @param interval
+	 */
+	public void setInterval(long interval) {
+
+		if(interval >= 0) {
+			this.interval = interval;
+		}
+	}
+
+	/**
+	 * Starts a batch. Batches can be nested.
+	 */
+	public synchronized void beginUpdate() {
+
+		batchDepth++;
+	}
+
+	/**
+	 * Ends a batch. If it is the outermost batch, the merged update is dispatched.
+	 */
+	public void endUpdate() {
+
+		boolean forceReload;
+		synchronized(this) {
+			if(batchDepth > 0) {
+				batchDepth--;
+			}
+			if(batchDepth > 0 || !pending || scheduled) {
+				return;
+			}
+			if(getMode() == Mode.COALESCED) {
+				schedule();
+				return;
+			}
+			forceReload = pendingForceReload;
+			pending = false;
+			pendingForceReload = false;
+		}
+		dispatch(forceReload);
+	}
+
+	public synchronized boolean isBatchUpdate() {
+
+		return batchDepth > 0;
+	}
+
+	/**
+	 * Requests to inform the listeners. Depending on the mode and the actual batch,
+	 * the listeners are informed immediately, later or not at all.
+	 *
+	 * @param forceReload
+	 */
+	public void fireUpdate(boolean forceReload) {
+
+		Mode actualMode = getMode();
+		if(actualMode == Mode.DISABLED) {
+			return;
+		}
+		//
+		synchronized(this) {
+			if(batchDepth > 0 || actualMode == Mode.COALESCED) {
+				pending = true;
+				pendingForceReload |= forceReload;
+				if(batchDepth == 0 && !scheduled) {
+					schedule();
+				}
+				return;
+			}
+		}
+		dispatch(forceReload);
+	}
+
+	/**
+	 * Dispatches a pending update immediately on the calling thread.
+	 */
+	public void flush() {
+
+		boolean forceReload;
+		synchronized(this) {
+			if(!pending) {
+				return;
+			}
+			forceReload = pendingForceReload;
+			pending = false;
+			pendingForceReload = false;
+		}
+		dispatch(forceReload);
+	}
+
+	private void schedule() {
+
+		scheduled = true;
+		SchedulerHolder.SCHEDULER.schedule(this::dispatchScheduled, interval, TimeUnit.MILLISECONDS);
+	}
+
+	private void dispatchScheduled() {
+
+		boolean forceReload;
+		synchronized(this) {
+			scheduled = false;
+			/*
+			 * The end of the batch dispatches the update.
+			 */
+			if(batchDepth > 0 || !pending) {
+				return;
+			}
+			forceReload = pendingForceReload;
+			pending = false;
+			pendingForceReload = false;
+		}
+		if(getMode() != Mode.DISABLED) {
+			dispatch(forceReload);
+		}
+	}
+
+	/**
+	 * The update action is encapsulated in a ISafeRunnable object to handle
+	 * failures of the implementing listeners.
+	 */
+	private void dispatch(boolean forceReload) {
+
+		for(IChromatogramUpdateListener listener : listeners) {
+			SafeRunner.run(new ISafeRunnable() {
+
+				@Override
+				public void handleException(Throwable exception) {
+
+					logger.warn(exception);
+				}
+
+				@Override
+				public void run() throws Exception {
+
+					listener.update(forceReload);
+				}
+			});
+		}
+	}
+
+	private static Mode getInitialMode() {
+
+		String value = System.getProperty(PROPERTY_MODE);
+		if(value != null) {
+			try {
+				return Mode.valueOf(value.trim().toUpperCase());
+			} catch(IllegalArgumentException e) {
+				logger.warn(e);
+			}
+		}
+		return Mode.SYNCHRONOUS;
+	}
+
+	/**
+	 * The scheduler is created on first use only.
+	 */
+	private static final class SchedulerHolder {
+
+		private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "Chromatogram Update Dispatcher");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+}
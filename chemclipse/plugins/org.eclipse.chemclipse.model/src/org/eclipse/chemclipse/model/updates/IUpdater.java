@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2018 Lablicate GmbH.
+ * Copyright (c) 2008, 2020 Lablicate GmbH.
  * 
  * All rights reserved.
  * This program and the accompanying materials are made available under the
@@ -39,4 +39,13 @@ public interface IUpdater {
 	 * @param listener
 	 */
 	void removeChromatogramUpdateListener(IChromatogramUpdateListener listener);
+
+	/**
+	 * Returns the dispatcher, which informs the listeners.<br/>
+	 * Use it to merge the updates of several modifications into one event,
+	 * or to skip the updates in headless batch runs.
+	 * 
+	 * @return {@link ChromatogramUpdateDispatcher}
+	 */
+	ChromatogramUpdateDispatcher getUpdateDispatcher();
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2018 Lablicate GmbH.
+ * Copyright (c) 2008, 2020 Lablicate GmbH.
  * 
  * All rights reserved.
  * This program and the accompanying materials are made available under the
@@ -69,6 +69,14 @@ public interface IVersionManagement {
 	 */
 	public File getNextScanRevision();
 
+	/**
+	 * Returns the file of the given scan revision.<br/>
+	 * 
+	 * @param revision
+	 * @return File
+	 */
+	public File getScanRevision(int revision);
+
 	/**
 	 * Returns the temporary storage directory of the actual chromatogram.
 	 * 
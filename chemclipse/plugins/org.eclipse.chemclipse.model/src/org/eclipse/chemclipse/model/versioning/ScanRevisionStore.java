@@ -0,0 +1,371 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Lablicate GmbH.
+ *
+ * All rights reserved.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Dr. Philip Wenig - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.chemclipse.model.versioning;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+import org.eclipse.chemclipse.logging.core.Logger;
+import org.eclipse.chemclipse.model.core.IChromatogram;
+import org.eclipse.chemclipse.model.core.IScan;
+
+/**
+ * Stores the scan revisions of a chromatogram as deltas.<br/>
+ * The first revision contains all scans. Each following revision contains only
+ * the scans that have been changed by the operation, detected by the dirty flag
+ * and a fingerprint of the scan. A full revision is written again if scans have
+ * been added, removed or replaced.<br/>
+ * Each scan is stored in its own frame, hence undo and redo read only the
+ * scans that differ between the actual and the requested revision.
+ */
+public class ScanRevisionStore {
+
+	private static final Logger logger = Logger.getLogger(ScanRevisionStore.class);
+	/*
+	 * FNV-1a 64 bit
+	 */
+	private static final long FINGERPRINT_OFFSET = 0xcbf29ce484222325L;
+	private static final long FINGERPRINT_PRIME = 0x100000001b3L;
+	//
+	private final IVersionManagement versionManagement;
+	private final ToLongFunction<IScan> scanFingerprint;
+	private final Map<Integer, ScanRevision> scanRevisions = new HashMap<>();
+	/*
+	 * The state of the actual revision.
+	 */
+	private int actualRevision = -1;
+	private IScan[] actualScans = new IScan[0];
+	private long[] actualFingerprints = new long[0];
+
+	public ScanRevisionStore(IVersionManagement versionManagement, ToLongFunction<IScan> scanFingerprint) {
+		this.versionManagement = versionManagement;
+		this.scanFingerprint = scanFingerprint;
+	}
+
+	/**
+	 * Returns the initial value of a scan fingerprint.
+	 *
+	 * @return long
+	 */
+	public static long fingerprint() {
+
+		return FINGERPRINT_OFFSET;
+	}
+
+	/**
+	 * Adds the value to the scan fingerprint.
+	 *
+	 * @param fingerprint
+	 * @param value
+	 * @return long
+	 */
+	public static long fingerprint(long fingerprint, long value) {
+
+		return (fingerprint ^ value) * FINGERPRINT_PRIME;
+	}
+
+	/**
+	 * Returns whether the given revision has been recorded.
+	 *
+	 * @param revision
+	 * @return boolean
+	 */
+	public synchronized boolean isRecorded(int revision) {
+
+		return scanRevisions.containsKey(revision);
+	}
+
+	/**
+	 * Records the scans as the given revision.<br/>
+	 * All following revisions are discarded, they can't be redone anymore.
+	 *
+	 * @param revision
+	 * @param scans
+	 */
+	public synchronized void record(int revision, List<IScan> scans) {
+
+		discard(revision);
+		boolean full = actualRevision != revision - 1 || !scanRevisions.containsKey(revision - 1) || !isSameStructure(scans);
+		//
+		int size = scans.size();
+		long[] fingerprints = new long[size];
+		int[] changed = new int[size];
+		int count = 0;
+		for(int i = 0; i < size; i++) {
+			IScan scan = scans.get(i);
+			fingerprints[i] = scanFingerprint.applyAsLong(scan);
+			if(full || scan.isDirty() || fingerprints[i] != actualFingerprints[i]) {
+				changed[count++] = i;
+			}
+			scan.setDirty(false);
+		}
+		//
+		ScanRevision scanRevision = write(versionManagement.getScanRevision(revision), full, size, Arrays.copyOf(changed, count), scans);
+		if(scanRevision != null) {
+			scanRevisions.put(revision, scanRevision);
+			actualRevision = revision;
+		} else {
+			/*
+			 * The next revision must be a full revision.
+			 */
+			actualRevision = -1;
+		}
+		actualScans = scans.toArray(new IScan[size]);
+		actualFingerprints = fingerprints;
+	}
+
+	/**
+	 * Restores the scans of the given revision in the chromatogram.
+	 * Returns false if the revision is not available.
+	 *
+	 * @param revision
+	 * @param chromatogram
+	 * @return boolean
+	 */
+	public synchronized boolean restore(int revision, IChromatogram<?> chromatogram) {
+
+		if(!scanRevisions.containsKey(revision)) {
+			return false;
+		}
+		//
+		List<IScan> scans = chromatogram.getScans();
+		boolean rebuild = actualRevision < 0 || !isSameStructure(scans);
+		int from = Math.min(actualRevision, revision);
+		int to = Math.max(actualRevision, revision);
+		for(int i = from + 1; i <= to && !rebuild; i++) {
+			ScanRevision scanRevision = scanRevisions.get(i);
+			rebuild = scanRevision == null || scanRevision.full;
+		}
+		//
+		Map<Integer, RandomAccessFile> files = new HashMap<>();
+		try {
+			if(rebuild) {
+				int base = getFullRevision(revision);
+				if(base < 0) {
+					logger.warn("The scan revision " + revision + " can't be restored.");
+					return false;
+				}
+				/*
+				 * The latest revision wins.
+				 */
+				int size = scanRevisions.get(base).size;
+				int[] sources = new int[size];
+				Arrays.fill(sources, base);
+				for(int i = base + 1; i <= revision; i++) {
+					for(int index : scanRevisions.get(i).indices) {
+						sources[index] = i;
+					}
+				}
+				//
+				List<IScan> restoredScans = new ArrayList<>(size);
+				for(int index = 0; index < size; index++) {
+					restoredScans.add(read(files, sources[index], index));
+				}
+				scans.clear();
+				scans.addAll(restoredScans);
+				actualScans = new IScan[size];
+				actualFingerprints = new long[size];
+				for(int index = 0; index < size; index++) {
+					update(chromatogram, scans.get(index), index);
+				}
+			} else {
+				boolean[] marked = new boolean[scans.size()];
+				for(int i = from + 1; i <= to; i++) {
+					for(int index : scanRevisions.get(i).indices) {
+						marked[index] = true;
+					}
+				}
+				//
+				for(int index = 0; index < marked.length; index++) {
+					if(marked[index]) {
+						IScan scan = read(files, getSourceRevision(revision, index), index);
+						scans.set(index, scan);
+						update(chromatogram, scan, index);
+					}
+				}
+			}
+			actualRevision = revision;
+			return true;
+		} catch(IOException | ClassNotFoundException e) {
+			logger.warn(e);
+			return false;
+		} finally {
+			for(RandomAccessFile file : files.values()) {
+				try {
+					file.close();
+				} catch(IOException e) {
+					logger.warn(e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Deletes all revisions.
+	 */
+	public synchronized void clear() {
+
+		discard(0);
+		actualRevision = -1;
+		actualScans = new IScan[0];
+		actualFingerprints = new long[0];
+	}
+
+	private void discard(int revision) {
+
+		Iterator<Integer> iterator = scanRevisions.keySet().iterator();
+		while(iterator.hasNext()) {
+			int key = iterator.next();
+			if(key >= revision) {
+				iterator.remove();
+				File file = versionManagement.getScanRevision(key);
+				if(file.exists() && !file.delete()) {
+					logger.warn("The scan revision " + file + " could not be deleted.");
+				}
+			}
+		}
+	}
+
+	private boolean isSameStructure(List<IScan> scans) {
+
+		if(scans.size() != actualScans.length) {
+			return false;
+		}
+		//
+		for(int i = 0; i < actualScans.length; i++) {
+			if(scans.get(i) != actualScans[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void update(IChromatogram<?> chromatogram, IScan scan, int index) {
+
+		scan.setParentChromatogram(chromatogram);
+		scan.setDirty(false);
+		actualScans[index] = scan;
+		actualFingerprints[index] = scanFingerprint.applyAsLong(scan);
+	}
+
+	/**
+	 * Returns the latest full revision, the delta revisions up to the given revision must be available.
+	 */
+	private int getFullRevision(int revision) {
+
+		for(int i = revision; i >= 0; i--) {
+			ScanRevision scanRevision = scanRevisions.get(i);
+			if(scanRevision == null) {
+				return -1;
+			} else if(scanRevision.full) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the latest revision that contains the scan.
+	 */
+	private int getSourceRevision(int revision, int index) throws IOException {
+
+		for(int i = revision; i >= 0; i--) {
+			ScanRevision scanRevision = scanRevisions.get(i);
+			if(scanRevision == null) {
+				break;
+			} else if(scanRevision.getPosition(index) >= 0) {
+				return i;
+			}
+		}
+		throw new IOException("The scan " + index + " of revision " + revision + " is not available.");
+	}
+
+	private ScanRevision write(File file, boolean full, int size, int[] indices, List<IScan> scans) {
+
+		long[] offsets = new long[indices.length + 1];
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		try (OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(file))) {
+			for(int i = 0; i < indices.length; i++) {
+				buffer.reset();
+				try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(buffer)) {
+					objectOutputStream.writeObject(scans.get(indices[i]));
+				}
+				buffer.writeTo(outputStream);
+				offsets[i + 1] = offsets[i] + buffer.size();
+			}
+			return new ScanRevision(full, size, indices, offsets);
+		} catch(IOException e) {
+			logger.warn(e);
+			return null;
+		}
+	}
+
+	private IScan read(Map<Integer, RandomAccessFile> files, int revision, int index) throws IOException, ClassNotFoundException {
+
+		ScanRevision scanRevision = scanRevisions.get(revision);
+		int position = scanRevision.getPosition(index);
+		RandomAccessFile file = files.get(revision);
+		if(file == null) {
+			file = new RandomAccessFile(versionManagement.getScanRevision(revision), "r");
+			files.put(revision, file);
+		}
+		//
+		byte[] data = new byte[(int)(scanRevision.offsets[position + 1] - scanRevision.offsets[position])];
+		file.seek(scanRevision.offsets[position]);
+		file.readFully(data);
+		try (ObjectInputStream objectInputStream = new ObjectInputStream(new ByteArrayInputStream(data))) {
+			return (IScan)objectInputStream.readObject();
+		}
+	}
+
+	private static class ScanRevision {
+
+		private final boolean full;
+		private final int size;
+		private final int[] indices;
+		private final long[] offsets;
+
+		public ScanRevision(boolean full, int size, int[] indices, long[] offsets) {
+			this.full = full;
+			this.size = size;
+			this.indices = indices;
+			this.offsets = offsets;
+		}
+
+		/**
+		 * Returns the position of the scan frame or -1 if the scan is not stored.
+		 */
+		public int getPosition(int index) {
+
+			if(full) {
+				return index < size ? index : -1;
+			}
+			int position = Arrays.binarySearch(indices, index);
+			return position >= 0 ? position : -1;
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2018 Lablicate GmbH.
+ * Copyright (c) 2008, 2020 Lablicate GmbH.
  * 
  * All rights reserved.
  * This program and the accompanying materials are made available under the
@@ -140,6 +140,13 @@ public class VersionManagement implements IVersionManagement {
 		return new File(file);
 	}
 
+	@Override
+	public File getScanRevision(int revision) {
+
+		String file = storageDirectoryScans.getAbsolutePath() + File.separator + SCAN_HIBERNATE_FILE + MARKER + validateRevision(revision);
+		return new File(file);
+	}
+
 	@Override
 	public File getStorageDirectory() {
 
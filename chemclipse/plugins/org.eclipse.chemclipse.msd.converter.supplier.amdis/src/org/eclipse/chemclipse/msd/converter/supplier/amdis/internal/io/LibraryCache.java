@@ -0,0 +1,261 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Lablicate GmbH.
+ *
+ * All rights reserved.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Dr. Philip Wenig - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.chemclipse.msd.converter.supplier.amdis.internal.io;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import org.eclipse.chemclipse.logging.core.Logger;
+import org.eclipse.chemclipse.model.core.RetentionIndexType;
+import org.eclipse.chemclipse.model.identifier.ILibraryInformation;
+import org.eclipse.chemclipse.msd.converter.supplier.amdis.model.IVendorLibraryMassSpectrum;
+import org.eclipse.chemclipse.msd.converter.supplier.amdis.model.VendorLibraryMassSpectrum;
+import org.eclipse.chemclipse.msd.model.core.IIon;
+
+/**
+ * Binary sidecar of a MSP/MSL library, stored as ".[library name].cache" next to the library.
+ * It is valid as long as the size and modification date of the library, the converter and the
+ * reference identifier settings are unchanged.<br/>
+ * Layout: header, records, offset table (int per record), position of the offset table (int).
+ * Each record contains the library information as length prefixed UTF-8 strings and the ions as
+ * primitive arrays. The file is memory mapped on load and the records are decoded in parallel.
+ */
+public class LibraryCache {
+
+	private static final Logger logger = Logger.getLogger(LibraryCache.class);
+	//
+	private static final int MAGIC = 0x434C4942; // CLIB
+	private static final int VERSION = 1;
+	private static final String CACHE_PREFIX = ".";
+	private static final String CACHE_EXTENSION = ".cache";
+	private static final String TEMP_EXTENSION = ".tmp";
+	//
+	private final String converterId;
+	private final String referenceIdentifierMarker;
+	private final String referenceIdentifierPrefix;
+
+	public LibraryCache(String converterId, String referenceIdentifierMarker, String referenceIdentifierPrefix) {
+
+		this.converterId = converterId;
+		this.referenceIdentifierMarker = (referenceIdentifierMarker != null) ? referenceIdentifierMarker : "";
+		this.referenceIdentifierPrefix = (referenceIdentifierPrefix != null) ? referenceIdentifierPrefix : "";
+	}
+
+	public static File getCacheFile(File file) {
+
+		return new File(file.getAbsoluteFile().getParentFile(), CACHE_PREFIX + file.getName() + CACHE_EXTENSION);
+	}
+
+	/**
+	 * Returns the cached mass spectra or null, if the cache is not available or outdated.
+	 *
+	 * @param file
+	 * @return {@link IVendorLibraryMassSpectrum}[]
+	 */
+	public IVendorLibraryMassSpectrum[] read(File file) {
+
+		File cacheFile = getCacheFile(file);
+		if(!cacheFile.isFile()) {
+			return null;
+		}
+		//
+		try (RandomAccessFile randomAccessFile = new RandomAccessFile(cacheFile, "r"); FileChannel channel = randomAccessFile.getChannel()) {
+			if(channel.size() > Integer.MAX_VALUE) {
+				return null;
+			}
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if(buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+				return null;
+			}
+			if(buffer.getLong() != file.length() || buffer.getLong() != file.lastModified()) {
+				return null;
+			}
+			if(!converterId.equals(getString(buffer)) || !referenceIdentifierMarker.equals(getString(buffer)) || !referenceIdentifierPrefix.equals(getString(buffer))) {
+				return null;
+			}
+			int size = buffer.getInt();
+			int offsetTable = buffer.getInt(buffer.limit() - Integer.BYTES);
+			if(size < 0 || offsetTable < buffer.position() || offsetTable + (long)size * Integer.BYTES != buffer.limit() - Integer.BYTES) {
+				return null;
+			}
+			/*
+			 * Each task works on its own view of the mapped buffer.
+			 */
+			return IntStream.range(0, size).parallel().mapToObj(index -> {
+				ByteBuffer view = buffer.duplicate();
+				view.position(buffer.getInt(offsetTable + index * Integer.BYTES));
+				return readMassSpectrum(view);
+			}).toArray(IVendorLibraryMassSpectrum[]::new);
+		} catch(IOException | RuntimeException e) {
+			logger.warn(e);
+			return null;
+		}
+	}
+
+	/**
+	 * Writes the cache. Failures are logged only, the library is parsed again next time.
+	 *
+	 * @param file
+	 * @param massSpectra
+	 */
+	public void write(File file, List<IVendorLibraryMassSpectrum> massSpectra) {
+
+		File cacheFile = getCacheFile(file);
+		File tempFile = new File(cacheFile.getPath() + TEMP_EXTENSION);
+		long length = file.length();
+		long lastModified = file.lastModified();
+		boolean success = false;
+		//
+		try (DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+			outputStream.writeInt(MAGIC);
+			outputStream.writeInt(VERSION);
+			outputStream.writeLong(length);
+			outputStream.writeLong(lastModified);
+			putString(outputStream, converterId);
+			putString(outputStream, referenceIdentifierMarker);
+			putString(outputStream, referenceIdentifierPrefix);
+			outputStream.writeInt(massSpectra.size());
+			//
+			int[] offsets = new int[massSpectra.size()];
+			for(int i = 0; i < offsets.length; i++) {
+				offsets[i] = outputStream.size();
+				writeMassSpectrum(outputStream, massSpectra.get(i));
+			}
+			int offsetTable = outputStream.size();
+			for(int offset : offsets) {
+				outputStream.writeInt(offset);
+			}
+			outputStream.writeInt(offsetTable);
+			/*
+			 * DataOutputStream.size() stops counting at Integer.MAX_VALUE.
+			 * Larger files can't be mapped by one buffer.
+			 */
+			success = outputStream.size() < Integer.MAX_VALUE;
+		} catch(IOException e) {
+			logger.warn(e);
+		}
+		//
+		if(success && file.length() == length && file.lastModified() == lastModified) {
+			if(cacheFile.exists() && !cacheFile.delete()) {
+				logger.warn("The library cache can't be replaced: " + cacheFile);
+			}
+			if(!tempFile.renameTo(cacheFile)) {
+				logger.warn("The library cache can't be stored: " + cacheFile);
+			}
+		}
+		if(tempFile.exists() && !tempFile.delete()) {
+			logger.warn("The temporary library cache can't be deleted: " + tempFile);
+		}
+	}
+
+	private void writeMassSpectrum(DataOutputStream outputStream, IVendorLibraryMassSpectrum massSpectrum) throws IOException {
+
+		ILibraryInformation libraryInformation = massSpectrum.getLibraryInformation();
+		putString(outputStream, libraryInformation.getName());
+		putString(outputStream, libraryInformation.getReferenceIdentifier());
+		putString(outputStream, libraryInformation.getFormula());
+		putString(outputStream, libraryInformation.getCasNumber());
+		putString(outputStream, libraryInformation.getDatabase());
+		putString(outputStream, libraryInformation.getSmiles());
+		putString(outputStream, libraryInformation.getComments());
+		Set<String> synonyms = libraryInformation.getSynonyms();
+		outputStream.writeInt(synonyms.size());
+		for(String synonym : synonyms) {
+			putString(outputStream, synonym);
+		}
+		outputStream.writeDouble(libraryInformation.getMolWeight());
+		//
+		outputStream.writeInt(massSpectrum.getRetentionTime());
+		outputStream.writeInt(massSpectrum.getRelativeRetentionTime());
+		outputStream.writeFloat(massSpectrum.getRetentionIndex());
+		Map<RetentionIndexType, Float> retentionIndices = massSpectrum.getRetentionIndicesTyped();
+		outputStream.writeInt(retentionIndices.size());
+		for(Map.Entry<RetentionIndexType, Float> retentionIndex : retentionIndices.entrySet()) {
+			putString(outputStream, retentionIndex.getKey().name());
+			outputStream.writeFloat(retentionIndex.getValue());
+		}
+		//
+		List<IIon> ions = massSpectrum.getIons();
+		outputStream.writeInt(ions.size());
+		for(IIon ion : ions) {
+			outputStream.writeDouble(ion.getIon());
+		}
+		for(IIon ion : ions) {
+			outputStream.writeFloat(ion.getAbundance());
+		}
+	}
+
+	private IVendorLibraryMassSpectrum readMassSpectrum(ByteBuffer buffer) {
+
+		IVendorLibraryMassSpectrum massSpectrum = new VendorLibraryMassSpectrum();
+		ILibraryInformation libraryInformation = massSpectrum.getLibraryInformation();
+		libraryInformation.setName(getString(buffer));
+		libraryInformation.setReferenceIdentifier(getString(buffer));
+		libraryInformation.setFormula(getString(buffer));
+		libraryInformation.setCasNumber(getString(buffer));
+		libraryInformation.setDatabase(getString(buffer));
+		libraryInformation.setSmiles(getString(buffer));
+		libraryInformation.setComments(getString(buffer));
+		int numberOfSynonyms = buffer.getInt();
+		Set<String> synonyms = new HashSet<>();
+		for(int i = 0; i < numberOfSynonyms; i++) {
+			synonyms.add(getString(buffer));
+		}
+		libraryInformation.setSynonyms(synonyms);
+		libraryInformation.setMolWeight(buffer.getDouble());
+		//
+		massSpectrum.setRetentionTime(buffer.getInt());
+		massSpectrum.setRelativeRetentionTime(buffer.getInt());
+		massSpectrum.setRetentionIndex(buffer.getFloat());
+		int numberOfRetentionIndices = buffer.getInt();
+		for(int i = 0; i < numberOfRetentionIndices; i++) {
+			RetentionIndexType retentionIndexType = RetentionIndexType.valueOf(getString(buffer));
+			massSpectrum.setRetentionIndex(retentionIndexType, buffer.getFloat());
+		}
+		//
+		int numberOfIons = buffer.getInt();
+		double[] ions = new double[numberOfIons];
+		float[] abundances = new float[numberOfIons];
+		buffer.asDoubleBuffer().get(ions);
+		buffer.position(buffer.position() + numberOfIons * Double.BYTES);
+		buffer.asFloatBuffer().get(abundances);
+		massSpectrum.addIons(ions, abundances, numberOfIons);
+		return massSpectrum;
+	}
+
+	private static void putString(DataOutputStream outputStream, String value) throws IOException {
+
+		byte[] bytes = (value != null) ? value.getBytes(StandardCharsets.UTF_8) : new byte[0];
+		outputStream.writeInt(bytes.length);
+		outputStream.write(bytes);
+	}
+
+	private static String getString(ByteBuffer buffer) {
+
+		byte[] bytes = new byte[buffer.getInt()];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,61 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Lablicate GmbH.
+ *
+ * All rights reserved.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Dr. Philip Wenig - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.chemclipse.msd.converter.supplier.amdis.internal.io;
+
+import java.util.Arrays;
+
+/**
+ * A MSP/MSL record, split into the header (the fields in front of "Num Peaks:") and the ions.
+ */
+public class LibraryRecord {
+
+	private String header = "";
+	private double[] ions = new double[16];
+	private float[] abundances = new float[16];
+	private int numberOfIons;
+
+	public String getHeader() {
+
+		return header;
+	}
+
+	public double[] getIons() {
+
+		return ions;
+	}
+
+	public float[] getAbundances() {
+
+		return abundances;
+	}
+
+	public int getNumberOfIons() {
+
+		return numberOfIons;
+	}
+
+	void setHeader(String header) {
+
+		this.header = header;
+	}
+
+	void addIon(double ion, float abundance) {
+
+		if(numberOfIons == ions.length) {
+			ions = Arrays.copyOf(ions, numberOfIons * 2);
+			abundances = Arrays.copyOf(abundances, numberOfIons * 2);
+		}
+		ions[numberOfIons] = ion;
+		abundances[numberOfIons] = abundance;
+		numberOfIons++;
+	}
+}
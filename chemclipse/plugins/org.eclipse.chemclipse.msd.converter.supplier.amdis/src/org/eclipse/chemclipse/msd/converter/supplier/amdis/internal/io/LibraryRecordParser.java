@@ -0,0 +1,219 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Lablicate GmbH.
+ *
+ * All rights reserved.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Dr. Philip Wenig - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.chemclipse.msd.converter.supplier.amdis.internal.io;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Parses the records delivered by the {@link LibraryTokenizer}.
+ * All pairs of ion and abundance after "Num Peaks:" are ions, if the abundance is > 0.
+ * A pair consists of the ion "[+]?\d+\.?\d*", at least one delimiter and the abundance
+ * "[+-]?\d+\.?\d*([eE][+-]?\d+)?". The text in front of "Num Peaks:" is the header,
+ * it is decoded only if the record contains ions.<br/>
+ * Instances are stateless and can be shared by several threads.
+ */
+public class LibraryRecordParser {
+
+	/*
+	 * MSP: "41 100; 43 200;", MSL: "(41 100) (43 200)"
+	 */
+	public static final String DELIMITERS_MSP = "\t ,;:";
+	public static final String DELIMITERS_MSL = " \t\n\u000B\f\r";
+	//
+	private static final byte[] NUM_PEAKS = "NUM PEAKS:".getBytes();
+	private static final int MAX_FAST_DIGITS = 15;
+	//
+	private final boolean[] delimiters = new boolean[128];
+
+	public LibraryRecordParser(String delimiters) {
+
+		for(char delimiter : delimiters.toCharArray()) {
+			this.delimiters[delimiter] = true;
+		}
+	}
+
+	public LibraryRecord parse(byte[] data, int start, int stop) {
+
+		LibraryRecord record = new LibraryRecord();
+		int numPeaks = indexOfNumPeaks(data, start, stop);
+		if(numPeaks >= 0) {
+			/*
+			 * Skip the number of peaks, the ions follow.
+			 */
+			int position = numPeaks + NUM_PEAKS.length;
+			while(position < stop && (data[position] == ' ' || data[position] == '\t')) {
+				position++;
+			}
+			while(position < stop && isDigit(data[position])) {
+				position++;
+			}
+			parseIons(record, data, position, stop);
+			if(record.getNumberOfIons() > 0) {
+				record.setHeader(decode(data, start, numPeaks));
+			}
+		}
+		return record;
+	}
+
+	private void parseIons(LibraryRecord record, byte[] data, int start, int stop) {
+
+		int position = start;
+		while(position < stop) {
+			int ionStop = matchIon(data, position, stop);
+			if(ionStop > position) {
+				int abundanceStart = ionStop;
+				while(abundanceStart < stop && isDelimiter(data[abundanceStart])) {
+					abundanceStart++;
+				}
+				if(abundanceStart > ionStop) {
+					int abundanceStop = matchAbundance(data, abundanceStart, stop);
+					if(abundanceStop > abundanceStart) {
+						float abundance = (float)parseNumber(data, abundanceStart, abundanceStop);
+						if(abundance > 0) {
+							record.addIon(parseNumber(data, position, ionStop), abundance);
+						}
+						position = abundanceStop;
+						continue;
+					}
+				}
+			}
+			position++;
+		}
+	}
+
+	private boolean isDelimiter(byte value) {
+
+		return value >= 0 && delimiters[value];
+	}
+
+	/*
+	 * [+]?\d+\.?\d*
+	 */
+	private static int matchIon(byte[] data, int start, int stop) {
+
+		int position = start;
+		if(position < stop && data[position] == '+') {
+			position++;
+		}
+		return matchDecimal(data, position, stop);
+	}
+
+	/*
+	 * [+-]?\d+\.?\d*([eE][+-]?\d+)?
+	 */
+	private static int matchAbundance(byte[] data, int start, int stop) {
+
+		int position = start;
+		if(position < stop && (data[position] == '+' || data[position] == '-')) {
+			position++;
+		}
+		position = matchDecimal(data, position, stop);
+		if(position < 0) {
+			return -1;
+		}
+		if(position < stop && (data[position] == 'e' || data[position] == 'E')) {
+			int exponent = position + 1;
+			if(exponent < stop && (data[exponent] == '+' || data[exponent] == '-')) {
+				exponent++;
+			}
+			int digits = exponent;
+			while(digits < stop && isDigit(data[digits])) {
+				digits++;
+			}
+			if(digits > exponent) {
+				position = digits;
+			}
+		}
+		return position;
+	}
+
+	/*
+	 * \d+\.?\d*
+	 */
+	private static int matchDecimal(byte[] data, int start, int stop) {
+
+		int position = start;
+		while(position < stop && isDigit(data[position])) {
+			position++;
+		}
+		if(position == start) {
+			return -1;
+		}
+		if(position < stop && data[position] == '.') {
+			position++;
+			while(position < stop && isDigit(data[position])) {
+				position++;
+			}
+		}
+		return position;
+	}
+
+	/**
+	 * Integers are converted directly, all other values by Double.parseDouble.
+	 */
+	private static double parseNumber(byte[] data, int start, int stop) {
+
+		int position = start;
+		boolean negative = false;
+		if(data[position] == '+' || data[position] == '-') {
+			negative = data[position] == '-';
+			position++;
+		}
+		if(stop - position <= MAX_FAST_DIGITS) {
+			long value = 0;
+			int digits = position;
+			while(digits < stop && isDigit(data[digits])) {
+				value = value * 10 + (data[digits] - '0');
+				digits++;
+			}
+			if(digits == stop) {
+				return negative ? -value : value;
+			}
+		}
+		return Double.parseDouble(new String(data, start, stop - start, StandardCharsets.US_ASCII));
+	}
+
+	/**
+	 * Decodes the bytes like the US-ASCII charset.
+	 */
+	private static String decode(byte[] data, int start, int stop) {
+
+		char[] chars = new char[stop - start];
+		for(int i = 0; i < chars.length; i++) {
+			byte value = data[start + i];
+			chars[i] = (value < 0) ? '\uFFFD' : (char)value;
+		}
+		return new String(chars);
+	}
+
+	/**
+	 * Case insensitive search of "Num Peaks:".
+	 */
+	private static int indexOfNumPeaks(byte[] data, int start, int stop) {
+
+		for(int i = start; i <= stop - NUM_PEAKS.length; i++) {
+			int j = 0;
+			while(j < NUM_PEAKS.length && Character.toUpperCase((char)data[i + j]) == NUM_PEAKS[j]) {
+				j++;
+			}
+			if(j == NUM_PEAKS.length) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static boolean isDigit(byte value) {
+
+		return value >= '0' && value <= '9';
+	}
+}
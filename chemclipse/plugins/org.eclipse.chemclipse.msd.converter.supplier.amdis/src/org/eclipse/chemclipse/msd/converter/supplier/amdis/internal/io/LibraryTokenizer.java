@@ -0,0 +1,211 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Lablicate GmbH.
+ *
+ * All rights reserved.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Dr. Philip Wenig - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.chemclipse.msd.converter.supplier.amdis.internal.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Splits a MSP/MSL library in one pass into records, without decoding the bytes to strings.
+ * The records are divided by blank lines. A "NAME:" line starts a new record too, if the
+ * current record has a name already, as some libraries omit the blank lines.<br/>
+ * The records are handed over in batches, each batch owns its data and can be parsed
+ * independently. Line delimiters are normalized to '\n'.
+ */
+public class LibraryTokenizer {
+
+	public static final int DEFAULT_BATCH_SIZE = 2048;
+	//
+	private static final int BUFFER_SIZE = 65536;
+	private static final byte[] NAME_KEY = "NAME:".getBytes();
+	//
+	private final int batchSize;
+	//
+	private RecordBatch batch;
+	private byte[] line = new byte[256];
+	private int lineLength;
+	private int recordStart;
+	private boolean recordHasName;
+
+	public LibraryTokenizer() {
+
+		this(DEFAULT_BATCH_SIZE);
+	}
+
+	public LibraryTokenizer(int batchSize) {
+
+		this.batchSize = Math.max(1, batchSize);
+	}
+
+	/**
+	 * Reads the stream until its end. The stream is not closed.
+	 *
+	 * @param inputStream
+	 * @param consumer
+	 * @throws IOException
+	 */
+	public void tokenize(InputStream inputStream, Consumer<RecordBatch> consumer) throws IOException {
+
+		batch = new RecordBatch(batchSize);
+		lineLength = 0;
+		recordStart = 0;
+		recordHasName = false;
+		//
+		byte[] buffer = new byte[BUFFER_SIZE];
+		int length;
+		while((length = inputStream.read(buffer)) != -1) {
+			for(int i = 0; i < length; i++) {
+				byte value = buffer[i];
+				if(value == '\n') {
+					finishLine(consumer);
+				} else if(value != '\r') {
+					if(lineLength == line.length) {
+						line = Arrays.copyOf(line, line.length * 2);
+					}
+					line[lineLength++] = value;
+				}
+			}
+		}
+		/*
+		 * Don't forget the last line and record.
+		 */
+		finishLine(consumer);
+		finishRecord(consumer);
+		if(batch.size() > 0) {
+			consumer.accept(batch);
+		}
+		batch = null;
+	}
+
+	private void finishLine(Consumer<RecordBatch> consumer) {
+
+		if(isBlank(line, lineLength)) {
+			finishRecord(consumer);
+		} else {
+			boolean isName = isName(line, lineLength);
+			if(isName && recordHasName) {
+				finishRecord(consumer);
+			}
+			batch.append(line, lineLength);
+			recordHasName |= isName;
+		}
+		lineLength = 0;
+	}
+
+	private void finishRecord(Consumer<RecordBatch> consumer) {
+
+		if(batch.length() > recordStart) {
+			batch.addRecord(recordStart, batch.length());
+			if(batch.size() >= batchSize) {
+				consumer.accept(batch);
+				batch = new RecordBatch(batchSize);
+			}
+		}
+		recordStart = batch.length();
+		recordHasName = false;
+	}
+
+	private static boolean isBlank(byte[] data, int length) {
+
+		for(int i = 0; i < length; i++) {
+			byte value = data[i];
+			if(value != ' ' && value != '\t' && value != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isName(byte[] data, int length) {
+
+		int start = 0;
+		while(start < length && (data[start] == ' ' || data[start] == '\t')) {
+			start++;
+		}
+		if(length - start < NAME_KEY.length) {
+			return false;
+		}
+		for(int i = 0; i < NAME_KEY.length; i++) {
+			if(Character.toUpperCase((char)data[start + i]) != NAME_KEY[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * The records of a batch, stored as ranges of one byte array.
+	 * Each line of a record is terminated by '\n'.
+	 */
+	public static final class RecordBatch {
+
+		private byte[] data = new byte[BUFFER_SIZE];
+		private int length;
+		private int[] starts;
+		private int[] stops;
+		private int size;
+
+		private RecordBatch(int capacity) {
+
+			starts = new int[capacity];
+			stops = new int[capacity];
+		}
+
+		public byte[] getData() {
+
+			return data;
+		}
+
+		public int size() {
+
+			return size;
+		}
+
+		public int getStart(int record) {
+
+			return starts[record];
+		}
+
+		public int getStop(int record) {
+
+			return stops[record];
+		}
+
+		private int length() {
+
+			return length;
+		}
+
+		private void append(byte[] line, int lineLength) {
+
+			if(length + lineLength + 1 > data.length) {
+				data = Arrays.copyOf(data, Math.max(data.length * 2, length + lineLength + 1));
+			}
+			System.arraycopy(line, 0, data, length, lineLength);
+			length += lineLength;
+			data[length++] = '\n';
+		}
+
+		private void addRecord(int start, int stop) {
+
+			if(size == starts.length) {
+				starts = Arrays.copyOf(starts, size * 2);
+				stops = Arrays.copyOf(stops, size * 2);
+			}
+			starts[size] = start;
+			stops[size] = stop;
+			size++;
+		}
+	}
+}
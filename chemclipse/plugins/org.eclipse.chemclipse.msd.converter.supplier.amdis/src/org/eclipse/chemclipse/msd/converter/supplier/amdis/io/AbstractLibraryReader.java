@@ -0,0 +1,153 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Lablicate GmbH.
+ *
+ * All rights reserved.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Dr. Philip Wenig - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.chemclipse.msd.converter.supplier.amdis.io;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.eclipse.chemclipse.converter.exceptions.FileIsEmptyException;
+import org.eclipse.chemclipse.converter.exceptions.FileIsNotReadableException;
+import org.eclipse.chemclipse.msd.converter.io.AbstractMassSpectraReader;
+import org.eclipse.chemclipse.msd.converter.io.IMassSpectraReader;
+import org.eclipse.chemclipse.msd.converter.preferences.PreferenceSupplier;
+import org.eclipse.chemclipse.msd.converter.supplier.amdis.internal.io.LibraryCache;
+import org.eclipse.chemclipse.msd.converter.supplier.amdis.internal.io.LibraryRecord;
+import org.eclipse.chemclipse.msd.converter.supplier.amdis.internal.io.LibraryRecordParser;
+import org.eclipse.chemclipse.msd.converter.supplier.amdis.internal.io.LibraryTokenizer;
+import org.eclipse.chemclipse.msd.converter.supplier.amdis.internal.io.LibraryTokenizer.RecordBatch;
+import org.eclipse.chemclipse.msd.converter.supplier.amdis.model.IVendorLibraryMassSpectrum;
+import org.eclipse.chemclipse.msd.model.core.IMassSpectra;
+import org.eclipse.chemclipse.msd.model.implementation.MassSpectra;
+import org.eclipse.core.runtime.IProgressMonitor;
+
+/**
+ * Reads MSP/MSL libraries. The file is split into batches of records in one pass,
+ * while the batches are parsed in parallel. The result is stored in a binary cache
+ * next to the library, which is memory mapped instead of parsing the library again.
+ */
+public abstract class AbstractLibraryReader extends AbstractMassSpectraReader implements IMassSpectraReader {
+
+	private final String converterId;
+	private final LibraryRecordParser recordParser;
+	private boolean useCache = org.eclipse.chemclipse.msd.converter.supplier.amdis.preferences.PreferenceSupplier.isUseLibraryCache();
+
+	protected AbstractLibraryReader(String converterId, String ionDelimiters) {
+
+		this.converterId = converterId;
+		this.recordParser = new LibraryRecordParser(ionDelimiters);
+	}
+
+	public void setUseCache(boolean useCache) {
+
+		this.useCache = useCache;
+	}
+
+	@Override
+	public IMassSpectra read(File file, IProgressMonitor monitor) throws FileNotFoundException, FileIsNotReadableException, FileIsEmptyException, IOException {
+
+		String referenceIdentifierMarker = PreferenceSupplier.getReferenceIdentifierMarker();
+		String referenceIdentifierPrefix = PreferenceSupplier.getReferenceIdentifierPrefix();
+		LibraryCache libraryCache = new LibraryCache(converterId, referenceIdentifierMarker, referenceIdentifierPrefix);
+		//
+		List<IVendorLibraryMassSpectrum> libraryMassSpectra = null;
+		if(useCache) {
+			IVendorLibraryMassSpectrum[] cachedMassSpectra = libraryCache.read(file);
+			if(cachedMassSpectra != null) {
+				libraryMassSpectra = Arrays.asList(cachedMassSpectra);
+			}
+		}
+		//
+		if(libraryMassSpectra == null) {
+			try (InputStream inputStream = new BufferedInputStream(new FileInputStream(file))) {
+				libraryMassSpectra = readMassSpectra(inputStream, referenceIdentifierMarker, referenceIdentifierPrefix);
+			}
+			if(useCache && !libraryMassSpectra.isEmpty()) {
+				libraryCache.write(file, libraryMassSpectra);
+			}
+		}
+		//
+		IMassSpectra massSpectra = new MassSpectra();
+		for(IVendorLibraryMassSpectrum libraryMassSpectrum : libraryMassSpectra) {
+			massSpectra.addMassSpectrum(libraryMassSpectrum);
+		}
+		massSpectra.setConverterId(converterId);
+		massSpectra.setName(file.getName());
+		return massSpectra;
+	}
+
+	/**
+	 * Returns the mass spectra in the order of the stream.
+	 * The preferences are read by the calling thread only.
+	 *
+	 * @param inputStream
+	 * @param referenceIdentifierMarker
+	 * @param referenceIdentifierPrefix
+	 * @return {@link List}
+	 * @throws IOException
+	 */
+	protected List<IVendorLibraryMassSpectrum> readMassSpectra(InputStream inputStream, String referenceIdentifierMarker, String referenceIdentifierPrefix) throws IOException {
+
+		List<CompletableFuture<List<IVendorLibraryMassSpectrum>>> batches = new ArrayList<>();
+		LibraryTokenizer tokenizer = new LibraryTokenizer();
+		tokenizer.tokenize(inputStream, batch -> batches.add(CompletableFuture.supplyAsync(() -> parseBatch(batch, referenceIdentifierMarker, referenceIdentifierPrefix))));
+		//
+		List<IVendorLibraryMassSpectrum> massSpectra = new ArrayList<>();
+		try {
+			for(CompletableFuture<List<IVendorLibraryMassSpectrum>> batch : batches) {
+				massSpectra.addAll(batch.join());
+			}
+		} catch(CompletionException e) {
+			throw new IOException(e.getCause());
+		}
+		return massSpectra;
+	}
+
+	private List<IVendorLibraryMassSpectrum> parseBatch(RecordBatch batch, String referenceIdentifierMarker, String referenceIdentifierPrefix) {
+
+		List<IVendorLibraryMassSpectrum> massSpectra = new ArrayList<>(batch.size());
+		byte[] data = batch.getData();
+		for(int i = 0; i < batch.size(); i++) {
+			LibraryRecord record = recordParser.parse(data, batch.getStart(i), batch.getStop(i));
+			/*
+			 * Store the mass spectrum only if there is at least 1 ion.
+			 */
+			if(record.getNumberOfIons() > 0) {
+				IVendorLibraryMassSpectrum massSpectrum = createMassSpectrum(record, referenceIdentifierMarker, referenceIdentifierPrefix);
+				massSpectrum.addIons(record.getIons(), record.getAbundances(), record.getNumberOfIons());
+				if(massSpectrum.getNumberOfIons() > 0) {
+					massSpectra.add(massSpectrum);
+				}
+			}
+		}
+		return massSpectra;
+	}
+
+	/**
+	 * Creates the mass spectrum and sets the library information given by the record.
+	 * The ions are added afterwards.
+	 *
+	 * @param record
+	 * @param referenceIdentifierMarker
+	 * @param referenceIdentifierPrefix
+	 * @return {@link IVendorLibraryMassSpectrum}
+	 */
+	protected abstract IVendorLibraryMassSpectrum createMassSpectrum(LibraryRecord record, String referenceIdentifierMarker, String referenceIdentifierPrefix);
+}
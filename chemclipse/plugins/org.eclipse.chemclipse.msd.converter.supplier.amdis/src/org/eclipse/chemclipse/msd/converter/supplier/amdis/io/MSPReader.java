@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2018 Lablicate GmbH.
+ * Copyright (c) 2008, 2020 Lablicate GmbH.
  * 
  * All rights reserved.
  * This program and the accompanying materials are made available under the
@@ -11,47 +11,26 @@
  *******************************************************************************/
 package org.eclipse.chemclipse.msd.converter.supplier.amdis.io;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.nio.charset.Charset;
-import java.util.ArrayList;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import org.eclipse.chemclipse.converter.exceptions.FileIsEmptyException;
-import org.eclipse.chemclipse.converter.exceptions.FileIsNotReadableException;
 import org.eclipse.chemclipse.logging.core.Logger;
 import org.eclipse.chemclipse.model.core.AbstractChromatogram;
-import org.eclipse.chemclipse.model.exceptions.AbundanceLimitExceededException;
 import org.eclipse.chemclipse.model.identifier.ILibraryInformation;
-import org.eclipse.chemclipse.msd.converter.io.AbstractMassSpectraReader;
-import org.eclipse.chemclipse.msd.converter.io.IMassSpectraReader;
-import org.eclipse.chemclipse.msd.converter.preferences.PreferenceSupplier;
+import org.eclipse.chemclipse.msd.converter.supplier.amdis.internal.io.LibraryRecord;
+import org.eclipse.chemclipse.msd.converter.supplier.amdis.internal.io.LibraryRecordParser;
 import org.eclipse.chemclipse.msd.converter.supplier.amdis.model.IVendorLibraryMassSpectrum;
 import org.eclipse.chemclipse.msd.converter.supplier.amdis.model.VendorLibraryMassSpectrum;
-import org.eclipse.chemclipse.msd.model.core.IIon;
-import org.eclipse.chemclipse.msd.model.core.IMassSpectra;
-import org.eclipse.chemclipse.msd.model.exceptions.IonLimitExceededException;
-import org.eclipse.chemclipse.msd.model.implementation.Ion;
-import org.eclipse.chemclipse.msd.model.implementation.MassSpectra;
-import org.eclipse.core.runtime.IProgressMonitor;
 
-public class MSPReader extends AbstractMassSpectraReader implements IMassSpectraReader {
+public class MSPReader extends AbstractLibraryReader {
 
 	private static final Logger logger = Logger.getLogger(MSPReader.class);
 	private static final String CONVERTER_ID = "org.eclipse.chemclipse.msd.converter.supplier.amdis.massspectrum.msp";
 	/**
 	 * Pre-compile all patterns to be a little bit faster.
 	 */
-	private static final String LINE_END = "\n";
 	private static final Pattern namePattern = Pattern.compile("(NAME:)(.*)", Pattern.CASE_INSENSITIVE);
 	private static final Pattern nameRetentionTimePattern = Pattern.compile("(rt:\\s*)(\\d+\\.?\\d*([eE][+-]?\\d+)?)(\\s*min)", Pattern.CASE_INSENSITIVE); // (rt: 10.818 min)
 	private static final Pattern formulaPattern = Pattern.compile("(FORMULA:)(.*)", Pattern.CASE_INSENSITIVE);
@@ -66,127 +45,18 @@ public class MSPReader extends AbstractMassSpectraReader implements IMassSpectra
 	private static final Pattern retentionTimePattern = Pattern.compile("(RT:)(.*)", Pattern.CASE_INSENSITIVE);
 	private static final Pattern relativeRetentionTimePattern = Pattern.compile("(RRT:)(.*)", Pattern.CASE_INSENSITIVE);
 	private static final Pattern retentionIndexPattern = Pattern.compile("(RI:)(.*)", Pattern.CASE_INSENSITIVE);
-	private static final Pattern dataPattern = Pattern.compile("(.*)(Num Peaks:)(\\s*)(\\d*)(.*)", Pattern.CASE_INSENSITIVE | Pattern.MULTILINE | Pattern.DOTALL);
-	private static final Pattern ionPattern = Pattern.compile("([+]?\\d+\\.?\\d*)([\t ,;:]+)([+-]?\\d+\\.?\\d*([eE][+-]?\\d+)?)");
 	//
 	private static final String RETENTION_INDICES_DELIMITER = ", ";
 
-	@Override
-	public IMassSpectra read(File file, IProgressMonitor monitor) throws FileNotFoundException, FileIsNotReadableException, FileIsEmptyException, IOException {
-
-		List<String> massSpectraData = getMassSpectraData(file);
-		IMassSpectra massSpectra = extractMassSpectra(massSpectraData);
-		massSpectra.setConverterId(CONVERTER_ID);
-		massSpectra.setName(file.getName());
-		return massSpectra;
-	}
-
-	/**
-	 * Returns a list of mass spectral data.
-	 * 
-	 * @throws IOException
-	 */
-	private List<String> getMassSpectraData(File file) throws IOException {
-
-		Charset charSet = Charset.forName("US-ASCII");
-		BufferedInputStream bufferedInputStream = new BufferedInputStream(new FileInputStream(file));
-		InputStreamReader inputStreamReader = new InputStreamReader(bufferedInputStream, charSet);
-		BufferedReader bufferedReader = new BufferedReader(inputStreamReader);
-		List<String> massSpectraData = new ArrayList<String>();
-		StringBuilder builder = new StringBuilder();
-		String line;
-		while((line = bufferedReader.readLine()) != null) {
-			/*
-			 * The mass spectra are divided by empty lines. If the builder has
-			 * at least 1 char, then add a new potential mass spectrum to the
-			 * mass spectra data list. Don't forget to build a new
-			 * StringBuilder. In all other cases append the found lines to the
-			 * StringBuilder.
-			 */
-			if(line.length() == 0) {
-				addMassSpectrumData(builder, massSpectraData);
-				builder = new StringBuilder();
-			} else {
-				builder.append(line);
-				builder.append(LINE_END);
-			}
-		}
-		/*
-		 * Don't forget to add the last mass spectrum.
-		 */
-		addMassSpectrumData(builder, massSpectraData);
-		/*
-		 * Close the streams.
-		 */
-		bufferedReader.close();
-		inputStreamReader.close();
-		bufferedInputStream.close();
-		return massSpectraData;
-	}
-
-	/**
-	 * Adds the content from the StringBuilder to the mass spectra data list, if
-	 * the length is > 0.
-	 * 
-	 * @param builder
-	 * @param massSpectraData
-	 */
-	private void addMassSpectrumData(StringBuilder builder, List<String> massSpectraData) {
-
-		String massSpectrumData;
-		if(builder.length() > 0) {
-			massSpectrumData = builder.toString();
-			massSpectraData.add(massSpectrumData);
-		}
-	}
-
-	/**
-	 * Returns a mass spectra object or null, if something has gone wrong.
-	 * 
-	 * @param massSpectraData
-	 * @return IMassSpectra
-	 */
-	private IMassSpectra extractMassSpectra(List<String> massSpectraData) {
+	public MSPReader() {
 
-		IMassSpectra massSpectra = new MassSpectra();
-		String referenceIdentifierMarker = PreferenceSupplier.getReferenceIdentifierMarker();
-		String referenceIdentifierPrefix = PreferenceSupplier.getReferenceIdentifierPrefix();
-		//
-		if(massSpectraData.size() > 1) {
-			/*
-			 * Iterates through the saved mass spectrum text data and converts it to
-			 * a mass spectrum.
-			 */
-			for(String massSpectrumData : massSpectraData) {
-				addMassSpectrum(massSpectra, massSpectrumData, referenceIdentifierMarker, referenceIdentifierPrefix);
-			}
-		} else if(massSpectraData.size() == 1) {
-			/*
-			 * Sometimes, mass spectra are not separated by an empty line.
-			 * Hence, check if several name patterns can be detected in the text.
-			 */
-			String[] splittedMassSpectra = massSpectraData.get(0).split("(NAME:|name:)");
-			for(String splittedMassSpectrum : splittedMassSpectra) {
-				if(!splittedMassSpectrum.equals("")) {
-					if(splittedMassSpectra.length == 1) {
-						addMassSpectrum(massSpectra, splittedMassSpectrum, referenceIdentifierMarker, referenceIdentifierPrefix);
-					} else {
-						addMassSpectrum(massSpectra, "NAME:" + splittedMassSpectrum, referenceIdentifierMarker, referenceIdentifierPrefix);
-					}
-				}
-			}
-		}
-		return massSpectra;
+		super(CONVERTER_ID, LibraryRecordParser.DELIMITERS_MSP);
 	}
 
-	/**
-	 * Detect a mass spectrum and add it to the given mass spectra.
-	 * 
-	 * @param massSpectra
-	 * @param massSpectrumData
-	 */
-	private void addMassSpectrum(IMassSpectra massSpectra, String massSpectrumData, String referenceIdentifierMarker, String referenceIdentifierPrefix) {
+	@Override
+	protected IVendorLibraryMassSpectrum createMassSpectrum(LibraryRecord record, String referenceIdentifierMarker, String referenceIdentifierPrefix) {
 
+		String massSpectrumData = record.getHeader();
 		IVendorLibraryMassSpectrum massSpectrum = new VendorLibraryMassSpectrum();
 		ILibraryInformation libraryInformation = massSpectrum.getLibraryInformation();
 		/*
@@ -222,60 +92,10 @@ public class MSPReader extends AbstractMassSpectraReader implements IMassSpectra
 		int relativeRetentionTime = extractContentAsInt(massSpectrumData, relativeRetentionTimePattern, 2);
 		massSpectrum.setRelativeRetentionTime(relativeRetentionTime);
 		String retentionIndices = extractContentAsString(massSpectrumData, retentionIndexPattern, 2);
-		extractRetentionIndices(massSpectrum, retentionIndices, RETENTION_INDICES_DELIMITER);
-		/*
-		 * Extracts all ions and stored them.
-		 */
-		extractIons(massSpectrum, massSpectrumData);
-		/*
-		 * Store the mass spectrum in mass spectra if there is at least 1 mass
-		 * fragment.
-		 */
-		if(massSpectrum.getNumberOfIons() > 0) {
-			massSpectra.addMassSpectrum(massSpectrum);
-		}
-	}
-
-	/**
-	 * Extracts all ion from the given mass spectrum data and stores
-	 * them in the given mass spectrum.
-	 * 
-	 * @param massSpectrum
-	 * @param massSpectrumData
-	 */
-	private void extractIons(IVendorLibraryMassSpectrum massSpectrum, String massSpectrumData) {
-
-		String ionData = "";
-		Matcher data = dataPattern.matcher(massSpectrumData);
-		data.find();
-		if(data.matches()) {
-			ionData = data.group(5);
-		}
-		//
-		IIon amdisIon = null;
-		double ion;
-		float abundance;
-		Matcher ions = ionPattern.matcher(ionData);
-		while(ions.find()) {
-			try {
-				/*
-				 * Get the ion and abundance values.
-				 */
-				ion = Double.parseDouble(ions.group(1));
-				abundance = Float.parseFloat(ions.group(3));
-				/*
-				 * Create the ion and store it in mass spectrum.
-				 */
-				if(abundance > 0) {
-					amdisIon = new Ion(ion, abundance);
-					massSpectrum.addIon(amdisIon);
-				}
-			} catch(AbundanceLimitExceededException e) {
-				logger.warn(e);
-			} catch(IonLimitExceededException e) {
-				logger.warn(e);
-			}
+		if(!retentionIndices.isEmpty()) {
+			extractRetentionIndices(massSpectrum, retentionIndices, RETENTION_INDICES_DELIMITER);
 		}
+		return massSpectrum;
 	}
 
 	/**
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2019 Lablicate GmbH.
+ * Copyright (c) 2011, 2020 Lablicate GmbH.
  * 
  * All rights reserved.
  * This program and the accompanying materials are made available under the
@@ -15,9 +15,7 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 import org.apache.commons.csv.CSVFormat;
@@ -153,10 +151,7 @@ public class ChromatogramReader extends AbstractChromatogramMSDReader implements
 				logger.warn(e);
 			}
 		} else {
-			List<IIon> ions = getIons(csvRecord, ionsMap);
-			for(IIon ion : ions) {
-				massSpectrum.addIon(ion);
-			}
+			addIons(massSpectrum, csvRecord, ionsMap);
 		}
 		return massSpectrum;
 	}
@@ -175,24 +170,32 @@ public class ChromatogramReader extends AbstractChromatogramMSDReader implements
 		return ion;
 	}
 
-	private List<IIon> getIons(CSVRecord csvRecord, Map<Integer, Float> ionsMap) {
+	private void addIons(IVendorMassSpectrum massSpectrum, CSVRecord csvRecord, Map<Integer, Float> ionsMap) {
 
-		List<IIon> ions = new ArrayList<IIon>();
+		/*
+		 * The values are passed to the scan without creating ions,
+		 * hence the limits of the vendor ion are checked here.
+		 */
+		int size = csvRecord.size() - Ion_COLUMN_START;
+		double[] ions = new double[Math.max(0, size)];
+		float[] abundances = new float[Math.max(0, size)];
+		int count = 0;
 		for(int index = Ion_COLUMN_START; index < csvRecord.size(); index++) {
 			String abundanceValue = csvRecord.get(index);
 			if(!abundanceValue.equals(ZERO_VALUE)) {
 				float abundance = Float.valueOf(abundanceValue);
 				float ion = ionsMap.get(index);
-				try {
-					IIon csvIon = new VendorIon(ion, abundance);
-					ions.add(csvIon);
-				} catch(AbundanceLimitExceededException e) {
-					logger.warn(e);
-				} catch(IonLimitExceededException e) {
-					logger.warn(e);
+				if(abundance < VendorIon.MIN_ABUNDANCE || abundance > VendorIon.MAX_ABUNDANCE || Float.isNaN(abundance)) {
+					logger.warn("The value abundance: " + abundance + " is out of limit " + VendorIon.MIN_ABUNDANCE + " - " + VendorIon.MAX_ABUNDANCE);
+				} else if(ion < VendorIon.MIN_ION || ion > VendorIon.MAX_ION || Float.isNaN(ion)) {
+					logger.warn("The value ion: " + ion + " is out of limit " + VendorIon.MIN_ION + " - " + VendorIon.MAX_ION);
+				} else {
+					ions[count] = ion;
+					abundances[count] = abundance;
+					count++;
 				}
 			}
 		}
-		return ions;
+		massSpectrum.addIons(ions, abundances, count);
 	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2018 Lablicate GmbH.
+ * Copyright (c) 2011, 2020 Lablicate GmbH.
  * 
  * All rights reserved.
  * This program and the accompanying materials are made available under the
@@ -11,8 +11,11 @@
  *******************************************************************************/
 package org.eclipse.chemclipse.msd.converter.supplier.csv.model;
 
+import java.util.List;
+
 import org.eclipse.chemclipse.model.exceptions.AbundanceLimitExceededException;
 import org.eclipse.chemclipse.msd.model.core.AbstractVendorMassSpectrum;
+import org.eclipse.chemclipse.msd.model.core.ColumnarIonList;
 import org.eclipse.chemclipse.msd.model.core.IIon;
 import org.eclipse.chemclipse.msd.model.exceptions.IonLimitExceededException;
 import org.eclipse.chemclipse.logging.core.Logger;
@@ -32,6 +35,15 @@ public class VendorScan extends AbstractVendorMassSpectrum implements IVendorSca
 	public static final int MIN_RETENTION_TIME = 0;
 	public static final int MAX_RETENTION_TIME = Integer.MAX_VALUE;
 
+	/**
+	 * The ions are stored in primitive arrays, sorted by m/z.
+	 */
+	@Override
+	protected List<IIon> createIonList() {
+
+		return new ColumnarIonList();
+	}
+
 	// -------------------------------------------ISupplierMassSpectrum
 	@Override
 	public int getMaxPossibleIons() {
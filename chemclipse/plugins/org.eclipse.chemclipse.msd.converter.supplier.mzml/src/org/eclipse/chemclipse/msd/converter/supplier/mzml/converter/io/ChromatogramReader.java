@@ -1,40 +1,221 @@
 /*******************************************************************************
- * Copyright (c) 2013, 2018 Lablicate GmbH.
- * 
+ * Copyright (c) 2013, 2020 Lablicate GmbH.
+ *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
  * http://www.eclipse.org/legal/epl-v10.html
- * 
+ *
  * Contributors:
  * Dr. Philip Wenig - initial API and implementation
  *******************************************************************************/
 package org.eclipse.chemclipse.msd.converter.supplier.mzml.converter.io;
 
+import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.DataFormatException;
 
-import org.eclipse.core.runtime.IProgressMonitor;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 import org.eclipse.chemclipse.converter.exceptions.FileIsEmptyException;
 import org.eclipse.chemclipse.converter.exceptions.FileIsNotReadableException;
+import org.eclipse.chemclipse.logging.core.Logger;
 import org.eclipse.chemclipse.model.core.IChromatogramOverview;
+import org.eclipse.chemclipse.model.exceptions.AbundanceLimitExceededException;
 import org.eclipse.chemclipse.msd.converter.io.AbstractChromatogramMSDReader;
 import org.eclipse.chemclipse.msd.converter.io.IChromatogramMSDReader;
+import org.eclipse.chemclipse.msd.converter.supplier.mzml.converter.model.IVendorChromatogram;
+import org.eclipse.chemclipse.msd.converter.supplier.mzml.converter.model.IVendorScan;
+import org.eclipse.chemclipse.msd.converter.supplier.mzml.converter.model.VendorChromatogram;
+import org.eclipse.chemclipse.msd.converter.supplier.mzml.converter.model.VendorIon;
+import org.eclipse.chemclipse.msd.converter.supplier.mzml.converter.model.VendorScan;
+import org.eclipse.chemclipse.msd.converter.supplier.mzml.converter.model.VendorScanProxy;
+import org.eclipse.chemclipse.msd.converter.supplier.mzml.internal.io.ChromatogramSupport;
+import org.eclipse.chemclipse.msd.converter.supplier.mzml.internal.io.SpectrumReader;
+import org.eclipse.chemclipse.msd.converter.supplier.mzml.internal.io.SpectrumStore;
+import org.eclipse.chemclipse.msd.model.core.AbstractIon;
 import org.eclipse.chemclipse.msd.model.core.IChromatogramMSD;
+import org.eclipse.chemclipse.msd.model.core.IIonTransition;
+import org.eclipse.chemclipse.msd.model.core.IIonTransitionSettings;
+import org.eclipse.chemclipse.msd.model.exceptions.IonLimitExceededException;
+import org.eclipse.chemclipse.msd.model.exceptions.IonTransitionIsNullException;
+import org.eclipse.core.runtime.IProgressMonitor;
 
+/**
+ * The spectra of an indexedmzML file are loaded as proxies. The ions
+ * are read on demand via the spectrum offsets.
+ * Otherwise, the file is streamed completely. If the file contains no spectra,
+ * the scans are created from the selected reaction monitoring traces.
+ * The overview contains only the total signal of each spectrum as TIC ion.
+ */
 public class ChromatogramReader extends AbstractChromatogramMSDReader implements IChromatogramMSDReader {
 
+	private static final Logger logger = Logger.getLogger(ChromatogramReader.class);
+	private static final int ION_PRECISION = 4;
+	/*
+	 * mzML stores only the isolation window target of the SRM traces.
+	 */
+	private static final double FILTER_RESOLUTION = 1.0d;
+
 	@Override
 	public IChromatogramOverview readOverview(File file, IProgressMonitor monitor) throws FileNotFoundException, FileIsNotReadableException, FileIsEmptyException, IOException {
 
-		return null;
+		return readChromatogram(file, true);
 	}
 
 	@Override
 	public IChromatogramMSD read(File file, IProgressMonitor monitor) throws FileNotFoundException, FileIsNotReadableException, FileIsEmptyException, IOException {
 
-		return null;
+		return readChromatogram(file, false);
+	}
+
+	private IVendorChromatogram readChromatogram(File file, boolean overview) throws IOException {
+
+		IVendorChromatogram chromatogram = new VendorChromatogram();
+		SpectrumReader spectrumReader = new SpectrumReader();
+		try {
+			long[] offsets = spectrumReader.readSpectrumOffsets(file);
+			if(offsets != null) {
+				try {
+					if(overview) {
+						readScanHeaders(file, offsets, spectrumReader, chromatogram);
+					} else {
+						readScanProxies(file, offsets, spectrumReader, chromatogram);
+					}
+				} catch(XMLStreamException e) {
+					/*
+					 * The offsets are invalid, e.g. if the line endings have been modified.
+					 */
+					logger.warn("The spectrum index couldn't be used: " + e.getMessage());
+					chromatogram = new VendorChromatogram();
+					offsets = null;
+				}
+			}
+			//
+			if(offsets == null) {
+				readScans(file, spectrumReader, chromatogram, !overview);
+			}
+		} catch(XMLStreamException e) {
+			logger.warn(e);
+		} catch(DataFormatException e) {
+			logger.warn(e);
+		} finally {
+			spectrumReader.dispose();
+		}
+		//
+		chromatogram.setConverterId("");
+		chromatogram.setFile(file);
+		return chromatogram;
+	}
+
+	private void readScanProxies(File file, long[] offsets, SpectrumReader spectrumReader, IVendorChromatogram chromatogram) throws IOException, XMLStreamException, DataFormatException {
+
+		SpectrumStore spectrumStore = new SpectrumStore(file, offsets.length);
+		IVendorScan[] scans = new IVendorScan[offsets.length];
+		for(int i = 0; i < offsets.length; i++) {
+			scans[i] = new VendorScanProxy(spectrumStore, offsets[i]);
+		}
+		//
+		spectrumReader.readSpectrumHeaders(file, offsets, scans);
+		for(IVendorScan scan : scans) {
+			chromatogram.addScan(scan);
+		}
+	}
+
+	private void readScanHeaders(File file, long[] offsets, SpectrumReader spectrumReader, IVendorChromatogram chromatogram) throws IOException, XMLStreamException, DataFormatException {
+
+		IVendorScan[] scans = new IVendorScan[offsets.length];
+		for(int i = 0; i < offsets.length; i++) {
+			scans[i] = new VendorScan();
+		}
+		//
+		spectrumReader.readSpectrumHeaders(file, offsets, scans);
+		for(IVendorScan scan : scans) {
+			chromatogram.addScan(scan);
+		}
+	}
+
+	private void readScans(File file, SpectrumReader spectrumReader, IVendorChromatogram chromatogram, boolean readIons) throws IOException, XMLStreamException, DataFormatException {
+
+		List<ChromatogramSupport> chromatogramSupports = new ArrayList<>();
+		boolean hasSpectra = false;
+		try (InputStream inputStream = new BufferedInputStream(new FileInputStream(file))) {
+			XMLStreamReader reader = spectrumReader.createReader(inputStream);
+			try {
+				while(reader.hasNext()) {
+					if(reader.next() == XMLStreamConstants.START_ELEMENT) {
+						String name = reader.getLocalName();
+						if(SpectrumReader.NODE_SPECTRUM.equals(name)) {
+							IVendorScan scan = new VendorScan();
+							spectrumReader.readSpectrum(reader, scan, readIons);
+							chromatogram.addScan(scan);
+							hasSpectra = true;
+						} else if(SpectrumReader.NODE_CHROMATOGRAM.equals(name) && !hasSpectra) {
+							ChromatogramSupport chromatogramSupport = spectrumReader.readChromatogram(reader);
+							if(chromatogramSupport != null) {
+								chromatogramSupports.add(chromatogramSupport);
+							}
+						}
+					}
+				}
+			} finally {
+				reader.close();
+			}
+		}
+		//
+		if(!hasSpectra) {
+			addTransitionScans(chromatogramSupports, chromatogram);
+		}
+	}
+
+	/**
+	 * Each retention time of the SRM traces results in a scan.
+	 * The daughter ions are used as ions, the parent ion and collision energy
+	 * are kept in the ion transition.
+	 */
+	private void addTransitionScans(List<ChromatogramSupport> chromatogramSupports, IVendorChromatogram chromatogram) {
+
+		IIonTransitionSettings ionTransitionSettings = chromatogram.getIonTransitionSettings();
+		Map<Integer, IVendorScan> scans = new TreeMap<>();
+		for(ChromatogramSupport chromatogramSupport : chromatogramSupports) {
+			double ion = AbstractIon.getIon(chromatogramSupport.getDaughterIon(), ION_PRECISION);
+			double parentIon = AbstractIon.getIon(chromatogramSupport.getParentIon(), ION_PRECISION);
+			IIonTransition ionTransition = ionTransitionSettings.getIonTransition(parentIon, ion, chromatogramSupport.getCollisionEnergy(), FILTER_RESOLUTION, FILTER_RESOLUTION, 0);
+			for(Map.Entry<Integer, Float> entry : chromatogramSupport.getRetentionTimeIntensities().entrySet()) {
+				IVendorScan scan = scans.get(entry.getKey());
+				if(scan == null) {
+					scan = new VendorScan();
+					scan.setRetentionTime(entry.getKey());
+					scans.put(entry.getKey(), scan);
+				}
+				//
+				float intensity = entry.getValue();
+				try {
+					if(intensity >= VendorIon.MIN_ABUNDANCE && intensity <= VendorIon.MAX_ABUNDANCE) {
+						scan.addIon(new VendorIon(ion, intensity, ionTransition));
+					}
+				} catch(AbundanceLimitExceededException e) {
+					logger.warn(e);
+				} catch(IonLimitExceededException e) {
+					logger.warn(e);
+				} catch(IonTransitionIsNullException e) {
+					logger.warn(e);
+				}
+			}
+		}
+		//
+		for(IVendorScan scan : scans.values()) {
+			chromatogram.addScan(scan);
+		}
 	}
 }
@@ -0,0 +1,17 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Lablicate GmbH.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ * Dr. Philip Wenig - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.chemclipse.msd.converter.supplier.mzml.converter.model;
+
+import org.eclipse.chemclipse.msd.model.core.IVendorMassSpectrumProxy;
+
+public interface IVendorScanProxy extends IVendorScan, IVendorMassSpectrumProxy {
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2013, 2018 Lablicate GmbH.
+ * Copyright (c) 2013, 2020 Lablicate GmbH.
  * 
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -11,6 +11,7 @@
  *******************************************************************************/
 package org.eclipse.chemclipse.msd.converter.supplier.mzml.converter.model;
 
+import org.eclipse.chemclipse.model.core.IScan;
 import org.eclipse.chemclipse.msd.model.core.AbstractChromatogramMSD;
 
 public class VendorChromatogram extends AbstractChromatogramMSD implements IVendorChromatogram {
@@ -20,4 +21,18 @@ public class VendorChromatogram extends AbstractChromatogramMSD implements IVend
 
 		return extractNameFromFile("mzMLChromatogram");
 	}
+
+	@Override
+	public void setUnloaded() {
+
+		super.setUnloaded();
+		/*
+		 * Close the indexedmzML file, otherwise it is locked until all spectra have been loaded.
+		 */
+		for(IScan scan : getScans()) {
+			if(scan instanceof VendorScanProxy) {
+				((VendorScanProxy)scan).closeSpectrumStore();
+			}
+		}
+	}
 }
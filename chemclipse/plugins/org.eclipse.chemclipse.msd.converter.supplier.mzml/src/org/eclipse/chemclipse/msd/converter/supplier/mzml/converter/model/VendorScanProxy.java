@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Lablicate GmbH.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Dr. Philip Wenig - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.chemclipse.msd.converter.supplier.mzml.converter.model;
+
+import java.io.IOException;
+import java.util.zip.DataFormatException;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.eclipse.chemclipse.logging.core.Logger;
+import org.eclipse.chemclipse.model.exceptions.AbundanceLimitExceededException;
+import org.eclipse.chemclipse.msd.converter.supplier.mzml.internal.io.SpectrumStore;
+import org.eclipse.chemclipse.msd.model.core.AbstractVendorMassSpectrumProxy;
+import org.eclipse.chemclipse.msd.model.core.IIon;
+import org.eclipse.chemclipse.msd.model.exceptions.IonLimitExceededException;
+
+/**
+ * The ions are read on demand via the spectrum offset of the indexedmzML file.
+ * All proxies of the file share one {@link SpectrumStore}.
+ */
+public class VendorScanProxy extends AbstractVendorMassSpectrumProxy implements IVendorScanProxy {
+
+	/**
+	 * Renew the serialVersionUID any time you have changed some fields or
+	 * methods.
+	 */
+	private static final long serialVersionUID = 4512783105267398371L;
+	private static final Logger logger = Logger.getLogger(VendorScanProxy.class);
+	//
+	private SpectrumStore spectrumStore;
+	private long offset;
+
+	public VendorScanProxy(SpectrumStore spectrumStore, long offset) {
+		this.spectrumStore = spectrumStore;
+		this.offset = offset;
+	}
+
+	/**
+	 * Closes the file, if it is still opened by the spectrum store.
+	 * The file is opened again on demand.
+	 */
+	public void closeSpectrumStore() {
+
+		spectrumStore.close();
+	}
+
+	@Override
+	public int getMaxPossibleIons() {
+
+		return VendorScan.MAX_MASSFRAGMENTS;
+	}
+
+	@Override
+	public int getMinPossibleRetentionTime() {
+
+		return VendorScan.MIN_RETENTION_TIME;
+	}
+
+	@Override
+	public int getMaxPossibleRetentionTime() {
+
+		return VendorScan.MAX_RETENTION_TIME;
+	}
+
+	@Override
+	public void importIons() {
+
+		try {
+			spectrumStore.readSpectrum(offset, this);
+		} catch(IOException e) {
+			logger.warn(e);
+		} catch(XMLStreamException e) {
+			logger.warn(e);
+		} catch(DataFormatException e) {
+			logger.warn(e);
+		}
+	}
+
+	// -------------------------------IMassSpectrumCloneable
+	/**
+	 * Keep in mind, it is a covariant return.<br/>
+	 * IMassSpectrum is needed. IMzMLMassSpectrum is a subtype of
+	 * ISupplierMassSpectrum is a subtype of IMassSpectrum.
+	 */
+	@Override
+	public IVendorScan makeDeepCopy() throws CloneNotSupportedException {
+
+		IVendorScanProxy massSpectrum = (IVendorScanProxy)super.clone();
+		IVendorIon mzMLIon;
+		/*
+		 * The instance variables have been copied by super.clone();.<br/> The
+		 * ions in the ion list need not to be removed via
+		 * removeAllIons as the method super.clone() has created a new
+		 * list.<br/> It is necessary to fill the list again, as the abstract
+		 * super class does not know each available type of ion.<br/>
+		 * Make a deep copy of all ions.
+		 */
+		for(IIon ion : getIons()) {
+			try {
+				mzMLIon = new VendorIon(ion.getIon(), ion.getAbundance());
+				massSpectrum.addIon(mzMLIon);
+			} catch(AbundanceLimitExceededException e) {
+				logger.warn(e);
+			} catch(IonLimitExceededException e) {
+				logger.warn(e);
+			}
+		}
+		return massSpectrum;
+	}
+
+	@Override
+	protected Object clone() throws CloneNotSupportedException {
+
+		return makeDeepCopy();
+	}
+	// -------------------------------IMassSpectrumCloneable
+}
@@ -0,0 +1,328 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Lablicate GmbH.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Dr. Philip Wenig - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.chemclipse.msd.converter.supplier.mzml.internal.io;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Decodes the base64 encoded content of a binaryDataArray.
+ * The data might be zlib and/or MS-Numpress compressed.
+ * The buffers are reused from array to array, hence an instance must
+ * not be shared between threads.
+ */
+public class BinaryDataDecoder {
+
+	public static final int NUMPRESS_NONE = 0;
+	public static final int NUMPRESS_LINEAR = 1;
+	public static final int NUMPRESS_PIC = 2;
+	public static final int NUMPRESS_SLOF = 3;
+	//
+	private static final int[] BASE64 = new int[128];
+	static {
+		Arrays.fill(BASE64, -1);
+		String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+		for(int i = 0; i < alphabet.length(); i++) {
+			BASE64[alphabet.charAt(i)] = i;
+		}
+	}
+
+	//
+	private final Inflater inflater = new Inflater();
+	private byte[] decoded = new byte[8192];
+	private byte[] inflated = new byte[8192];
+	private int decodedLength = 0;
+	private int quantum = 0;
+	private int quantumSize = 0;
+
+	/**
+	 * Prepares the decoder for the next binary element.
+	 */
+	public void reset() {
+
+		decodedLength = 0;
+		quantum = 0;
+		quantumSize = 0;
+	}
+
+	/**
+	 * Decodes the given base64 characters. The characters may be delivered in
+	 * several chunks, e.g. by subsequent XMLStreamReader CHARACTERS events.
+	 *
+	 * @param characters
+	 * @param start
+	 * @param length
+	 */
+	public void decode(char[] characters, int start, int length) {
+
+		ensureDecodedCapacity(decodedLength + (length / 4 + 1) * 3);
+		int stop = start + length;
+		for(int i = start; i < stop; i++) {
+			char character = characters[i];
+			int value = character < 128 ? BASE64[character] : -1;
+			if(value >= 0) {
+				quantum = (quantum << 6) | value;
+				quantumSize++;
+				if(quantumSize == 4) {
+					decoded[decodedLength++] = (byte)(quantum >> 16);
+					decoded[decodedLength++] = (byte)(quantum >> 8);
+					decoded[decodedLength++] = (byte)quantum;
+					quantum = 0;
+					quantumSize = 0;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the decoded values. mzML stores the binary data always in little endian order.
+	 *
+	 * @param is64Bit
+	 * @param isInteger
+	 * @param zlib
+	 * @param numpress
+	 * @return double[]
+	 * @throws DataFormatException
+	 */
+	public double[] getValues(boolean is64Bit, boolean isInteger, boolean zlib, int numpress) throws DataFormatException {
+
+		flushQuantum();
+		byte[] bytes = decoded;
+		int length = decodedLength;
+		/*
+		 * Compression
+		 */
+		if(zlib) {
+			length = inflate();
+			bytes = inflated;
+		}
+		/*
+		 * MS-Numpress
+		 */
+		switch(numpress) {
+			case NUMPRESS_LINEAR:
+				return decodeLinear(bytes, length);
+			case NUMPRESS_PIC:
+				return decodePic(bytes, length);
+			case NUMPRESS_SLOF:
+				return decodeSlof(bytes, length);
+			default:
+				break;
+		}
+		/*
+		 * Precision
+		 */
+		ByteBuffer byteBuffer = ByteBuffer.wrap(bytes, 0, length).order(ByteOrder.LITTLE_ENDIAN);
+		int size = is64Bit ? 8 : 4;
+		double[] values = new double[length / size];
+		for(int i = 0; i < values.length; i++) {
+			int index = i * size;
+			if(is64Bit) {
+				values[i] = isInteger ? byteBuffer.getLong(index) : byteBuffer.getDouble(index);
+			} else {
+				values[i] = isInteger ? byteBuffer.getInt(index) : byteBuffer.getFloat(index);
+			}
+		}
+		return values;
+	}
+
+	/**
+	 * Releases the native resources of the inflater.
+	 */
+	public void dispose() {
+
+		inflater.end();
+	}
+
+	/*
+	 * The MS-Numpress decoding follows the reference implementation:
+	 * https://github.com/ms-numpress/ms-numpress
+	 */
+	private double[] decodeLinear(byte[] data, int dataSize) throws DataFormatException {
+
+		if(dataSize == 8) {
+			return new double[0];
+		}
+		//
+		if(dataSize < 12) {
+			throw new DataFormatException("Corrupt numpress linear data.");
+		}
+		//
+		double fixedPoint = decodeFixedPoint(data);
+		double[] result = new double[Math.max(2, (dataSize - 8) * 2)];
+		long[] ints = new long[3];
+		for(int i = 0; i < 4; i++) {
+			ints[1] = ints[1] | ((0xff & data[8 + i]) << (i * 8));
+		}
+		result[0] = ints[1] / fixedPoint;
+		if(dataSize == 12) {
+			return Arrays.copyOf(result, 1);
+		}
+		//
+		if(dataSize < 16) {
+			throw new DataFormatException("Corrupt numpress linear data.");
+		}
+		//
+		for(int i = 0; i < 4; i++) {
+			ints[2] = ints[2] | ((0xff & data[12 + i]) << (i * 8));
+		}
+		result[1] = ints[2] / fixedPoint;
+		//
+		int[] position = {16, 0}; // data index, half byte
+		int index = 2;
+		while(position[0] < dataSize) {
+			if(position[0] == (dataSize - 1) && position[1] == 1) {
+				if((data[position[0]] & 0xf) == 0x0) {
+					break;
+				}
+			}
+			ints[0] = ints[1];
+			ints[1] = ints[2];
+			int diff = decodeInt(data, dataSize, position);
+			long extrapolation = ints[1] * 2 - ints[0];
+			long y = extrapolation + diff;
+			result[index++] = y / fixedPoint;
+			ints[2] = y;
+		}
+		return Arrays.copyOf(result, index);
+	}
+
+	private double[] decodePic(byte[] data, int dataSize) throws DataFormatException {
+
+		double[] result = new double[dataSize * 2];
+		int[] position = {0, 0}; // data index, half byte
+		int index = 0;
+		while(position[0] < dataSize) {
+			if(position[0] == (dataSize - 1) && position[1] == 1) {
+				if((data[position[0]] & 0xf) == 0x0) {
+					break;
+				}
+			}
+			result[index++] = decodeInt(data, dataSize, position) & 0xffffffffL;
+		}
+		return Arrays.copyOf(result, index);
+	}
+
+	private double[] decodeSlof(byte[] data, int dataSize) throws DataFormatException {
+
+		if(dataSize < 8) {
+			throw new DataFormatException("Corrupt numpress slof data.");
+		}
+		//
+		double fixedPoint = decodeFixedPoint(data);
+		double[] result = new double[(dataSize - 8) / 2];
+		for(int i = 0; i < result.length; i++) {
+			int x = (0xff & data[8 + i * 2]) | ((0xff & data[9 + i * 2]) << 8);
+			result[i] = Math.exp(x / fixedPoint) - 1;
+		}
+		return result;
+	}
+
+	private double decodeFixedPoint(byte[] data) {
+
+		return ByteBuffer.wrap(data, 0, 8).order(ByteOrder.BIG_ENDIAN).getDouble(0);
+	}
+
+	/**
+	 * Decodes an integer, stored as a variable count of half bytes.
+	 * The position (data index, half byte) is updated.
+	 */
+	private int decodeInt(byte[] data, int dataSize, int[] position) throws DataFormatException {
+
+		int head;
+		if(position[1] == 0) {
+			head = (0xff & data[position[0]]) >> 4;
+		} else {
+			head = 0xf & data[position[0]];
+			position[0]++;
+		}
+		position[1] = 1 - position[1];
+		//
+		int n;
+		int result = 0;
+		if(head <= 8) {
+			n = head;
+		} else {
+			/*
+			 * Leading ones, fill n half bytes.
+			 */
+			n = head - 8;
+			for(int i = 0; i < n; i++) {
+				result = result | (0xf0000000 >>> (4 * i));
+			}
+		}
+		//
+		if(n == 8) {
+			return result;
+		}
+		//
+		if(position[0] + ((8 - n) - (1 - position[1])) / 2 >= dataSize) {
+			throw new DataFormatException("Corrupt numpress data.");
+		}
+		//
+		for(int i = n; i < 8; i++) {
+			int halfByte;
+			if(position[1] == 0) {
+				halfByte = (0xff & data[position[0]]) >> 4;
+			} else {
+				halfByte = 0xf & data[position[0]];
+				position[0]++;
+			}
+			result = result | (halfByte << ((i - n) * 4));
+			position[1] = 1 - position[1];
+		}
+		return result;
+	}
+
+	private void flushQuantum() {
+
+		/*
+		 * Handle the padding, e.g. "xx==" or "xxx=".
+		 */
+		if(quantumSize == 2) {
+			decoded[decodedLength++] = (byte)(quantum >> 4);
+		} else if(quantumSize == 3) {
+			decoded[decodedLength++] = (byte)(quantum >> 10);
+			decoded[decodedLength++] = (byte)(quantum >> 2);
+		}
+		quantum = 0;
+		quantumSize = 0;
+	}
+
+	private int inflate() throws DataFormatException {
+
+		inflater.reset();
+		inflater.setInput(decoded, 0, decodedLength);
+		int length = 0;
+		while(!inflater.finished()) {
+			if(length == inflated.length) {
+				inflated = Arrays.copyOf(inflated, inflated.length * 2);
+			}
+			int count = inflater.inflate(inflated, length, inflated.length - length);
+			if(count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+				break;
+			}
+			length += count;
+		}
+		return length;
+	}
+
+	private void ensureDecodedCapacity(int capacity) {
+
+		if(capacity > decoded.length) {
+			decoded = Arrays.copyOf(decoded, Math.max(capacity, decoded.length * 2));
+		}
+	}
+}
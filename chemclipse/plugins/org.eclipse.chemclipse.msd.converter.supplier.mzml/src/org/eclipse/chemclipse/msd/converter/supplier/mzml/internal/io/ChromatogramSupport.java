@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2013, 2018 Lablicate GmbH.
+ * Copyright (c) 2013, 2020 Lablicate GmbH.
  * 
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -23,12 +23,12 @@ public class ChromatogramSupport {
 	private double daughterIon;
 	private Map<Integer, Float> retentionTimeIntensities;
 
-	public ChromatogramSupport(Number[] numbersRetentionTimeInMinutes, Number[] numbersIntensity) {
+	public ChromatogramSupport(double[] retentionTimesInMinutes, double[] intensities) {
 		retentionTimeIntensities = new HashMap<Integer, Float>();
-		int size = numbersRetentionTimeInMinutes.length;
+		int size = Math.min(retentionTimesInMinutes.length, intensities.length);
 		for(int i = 0; i < size; i++) {
-			int retentionTime = (int)(numbersRetentionTimeInMinutes[i].doubleValue() * AbstractChromatogram.MINUTE_CORRELATION_FACTOR);
-			float intensity = numbersIntensity[i].floatValue();
+			int retentionTime = (int)(retentionTimesInMinutes[i] * AbstractChromatogram.MINUTE_CORRELATION_FACTOR);
+			float intensity = (float)intensities[i];
 			retentionTimeIntensities.put(retentionTime, intensity);
 		}
 	}
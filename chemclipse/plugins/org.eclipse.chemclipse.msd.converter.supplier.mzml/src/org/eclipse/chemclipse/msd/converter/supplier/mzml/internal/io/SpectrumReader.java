@@ -0,0 +1,578 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Lablicate GmbH.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Dr. Philip Wenig - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.chemclipse.msd.converter.supplier.mzml.internal.io;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.DataFormatException;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.eclipse.chemclipse.logging.core.Logger;
+import org.eclipse.chemclipse.model.core.AbstractChromatogram;
+import org.eclipse.chemclipse.model.exceptions.AbundanceLimitExceededException;
+import org.eclipse.chemclipse.msd.converter.supplier.mzml.converter.model.IVendorScan;
+import org.eclipse.chemclipse.msd.converter.supplier.mzml.converter.model.VendorIon;
+import org.eclipse.chemclipse.msd.model.core.AbstractIon;
+import org.eclipse.chemclipse.msd.model.core.IVendorMassSpectrumProxy;
+import org.eclipse.chemclipse.msd.model.exceptions.IonLimitExceededException;
+
+/**
+ * Reads spectrum and chromatogram elements via a StAX stream reader.
+ * An instance reuses its decoder buffers, hence it must not be shared between threads.
+ */
+public class SpectrumReader {
+
+	private static final Logger logger = Logger.getLogger(SpectrumReader.class);
+	//
+	public static final String NODE_SPECTRUM = "spectrum";
+	public static final String NODE_CHROMATOGRAM = "chromatogram";
+	//
+	private static final String NODE_CV_PARAM = "cvParam";
+	private static final String NODE_BINARY_DATA_ARRAY_LIST = "binaryDataArrayList";
+	private static final String NODE_BINARY_DATA_ARRAY = "binaryDataArray";
+	private static final String NODE_BINARY = "binary";
+	private static final String NODE_PRECURSOR = "precursor";
+	private static final String NODE_PRODUCT = "product";
+	private static final String NODE_INDEX = "index";
+	private static final String NODE_OFFSET = "offset";
+	//
+	private static final String MS_LEVEL = "MS:1000511";
+	private static final String SCAN_START_TIME = "MS:1000016";
+	private static final String TOTAL_ION_CURRENT = "MS:1000285";
+	private static final String COLLISION_ENERGY = "MS:1000045";
+	private static final String ISOLATION_WINDOW_TARGET = "MS:1000827";
+	private static final String SRM_CHROMATOGRAM = "MS:1001473";
+	private static final String MZ_ARRAY = "MS:1000514";
+	private static final String INTENSITY_ARRAY = "MS:1000515";
+	private static final String TIME_ARRAY = "MS:1000595";
+	private static final String FLOAT_32_BIT = "MS:1000521";
+	private static final String FLOAT_64_BIT = "MS:1000523";
+	private static final String INTEGER_32_BIT = "MS:1000519";
+	private static final String INTEGER_64_BIT = "MS:1000522";
+	private static final String ZLIB = "MS:1000574";
+	private static final String NUMPRESS_LINEAR = "MS:1002312";
+	private static final String NUMPRESS_PIC = "MS:1002313";
+	private static final String NUMPRESS_SLOF = "MS:1002314";
+	private static final String NUMPRESS_LINEAR_ZLIB = "MS:1002746";
+	private static final String NUMPRESS_PIC_ZLIB = "MS:1002747";
+	private static final String NUMPRESS_SLOF_ZLIB = "MS:1002748";
+	private static final String UNIT_SECOND = "UO:0000010";
+	//
+	private static final Pattern INDEX_LIST_OFFSET = Pattern.compile("<indexListOffset>\\s*(\\d+)\\s*</indexListOffset>");
+	private static final int INDEX_LIST_OFFSET_TAIL = 4096;
+	private static final int ION_PRECISION = 4;
+	//
+	private final XMLInputFactory inputFactory = createInputFactory();
+	private final BinaryDataDecoder binaryDataDecoder = new BinaryDataDecoder();
+
+	/**
+	 * Returns the spectrum offsets of an indexedmzML file.
+	 * Null is returned if no index is available.
+	 *
+	 * @param file
+	 * @return long[]
+	 */
+	public long[] readSpectrumOffsets(File file) {
+
+		try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r")) {
+			long length = randomAccessFile.length();
+			int tail = (int)Math.min(length, INDEX_LIST_OFFSET_TAIL);
+			byte[] buffer = new byte[tail];
+			randomAccessFile.seek(length - tail);
+			randomAccessFile.readFully(buffer);
+			Matcher matcher = INDEX_LIST_OFFSET.matcher(new String(buffer, StandardCharsets.US_ASCII));
+			if(!matcher.find()) {
+				return null;
+			}
+			//
+			long indexListOffset = Long.parseLong(matcher.group(1));
+			if(indexListOffset <= 0 || indexListOffset >= length) {
+				return null;
+			}
+			//
+			XMLStreamReader reader = createReader(randomAccessFile, indexListOffset);
+			long[] offsets = new long[1024];
+			int size = 0;
+			try {
+				boolean isSpectrumIndex = false;
+				while(reader.hasNext()) {
+					int event = reader.next();
+					if(event == XMLStreamConstants.START_ELEMENT) {
+						String name = reader.getLocalName();
+						if(NODE_INDEX.equals(name)) {
+							isSpectrumIndex = NODE_SPECTRUM.equals(reader.getAttributeValue(null, "name"));
+						} else if(NODE_OFFSET.equals(name) && isSpectrumIndex) {
+							if(size == offsets.length) {
+								offsets = Arrays.copyOf(offsets, size * 2);
+							}
+							offsets[size++] = Long.parseLong(reader.getElementText().trim());
+						}
+					} else if(event == XMLStreamConstants.END_ELEMENT && NODE_INDEX.equals(reader.getLocalName()) && isSpectrumIndex) {
+						break;
+					}
+				}
+			} finally {
+				reader.close();
+			}
+			return size > 0 ? Arrays.copyOf(offsets, size) : null;
+		} catch(IOException | XMLStreamException | NumberFormatException e) {
+			logger.info("The spectrum index couldn't be read: " + e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * Reads the header of each indexed spectrum. The ions are not decoded if
+	 * the total ion current is stored. Scans that are no proxies get the total
+	 * signal as TIC ion, see {@link #readSpectrum(XMLStreamReader, IVendorScan, boolean)}.
+	 *
+	 * @param file
+	 * @param offsets
+	 * @param scans
+	 * @throws IOException
+	 * @throws XMLStreamException
+	 * @throws DataFormatException
+	 */
+	public void readSpectrumHeaders(File file, long[] offsets, IVendorScan[] scans) throws IOException, XMLStreamException, DataFormatException {
+
+		try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r")) {
+			for(int i = 0; i < offsets.length; i++) {
+				readSpectrum(randomAccessFile, offsets[i], scans[i], false);
+			}
+		}
+	}
+
+	/**
+	 * The reader must be positioned at the start element of the spectrum.
+	 * If the ions shall not be read, proxies get the number of ions and the total signal,
+	 * all other scans get the total signal as TIC ion (overview).
+	 *
+	 * @param reader
+	 * @param scan
+	 * @param readIons
+	 * @throws XMLStreamException
+	 * @throws DataFormatException
+	 */
+	public void readSpectrum(XMLStreamReader reader, IVendorScan scan, boolean readIons) throws XMLStreamException, DataFormatException {
+
+		int defaultArrayLength = getInteger(reader.getAttributeValue(null, "defaultArrayLength"));
+		double retentionTime = 0.0d;
+		boolean isSecond = false;
+		short msLevel = 1;
+		float totalIonCurrent = -1.0f;
+		double[] mzs = null;
+		double[] intensities = null;
+		BinaryDataArray binaryDataArray = null;
+		//
+		exitloop:
+		while(reader.hasNext()) {
+			switch(reader.next()) {
+				case XMLStreamConstants.START_ELEMENT:
+					String name = reader.getLocalName();
+					if(NODE_CV_PARAM.equals(name)) {
+						String accession = reader.getAttributeValue(null, "accession");
+						if(binaryDataArray != null) {
+							binaryDataArray.setParameter(accession);
+						} else if(MS_LEVEL.equals(accession)) {
+							msLevel = (short)getInteger(reader.getAttributeValue(null, "value"));
+						} else if(SCAN_START_TIME.equals(accession)) {
+							retentionTime = getDouble(reader.getAttributeValue(null, "value"));
+							isSecond = isSecond(reader);
+						} else if(TOTAL_ION_CURRENT.equals(accession)) {
+							totalIonCurrent = (float)getDouble(reader.getAttributeValue(null, "value"));
+						}
+					} else if(NODE_BINARY_DATA_ARRAY_LIST.equals(name)) {
+						if(!readIons && totalIonCurrent >= 0.0f) {
+							break exitloop;
+						}
+					} else if(NODE_BINARY_DATA_ARRAY.equals(name)) {
+						binaryDataArray = new BinaryDataArray();
+					} else if(NODE_BINARY.equals(name) && binaryDataArray != null) {
+						if(binaryDataArray.isMzArray() && readIons) {
+							mzs = readBinary(reader, binaryDataArray);
+						} else if(binaryDataArray.isIntensityArray()) {
+							intensities = readBinary(reader, binaryDataArray);
+						}
+					}
+					break;
+				case XMLStreamConstants.END_ELEMENT:
+					String endName = reader.getLocalName();
+					if(NODE_BINARY_DATA_ARRAY.equals(endName)) {
+						binaryDataArray = null;
+					} else if(NODE_SPECTRUM.equals(endName)) {
+						break exitloop;
+					}
+					break;
+				default:
+					break;
+			}
+		}
+		//
+		scan.setRetentionTime((int)(isSecond ? retentionTime * 1000.0d : retentionTime * AbstractChromatogram.MINUTE_CORRELATION_FACTOR));
+		scan.setMassSpectrometer(msLevel);
+		if(readIons) {
+			addIons(scan, mzs, intensities);
+		} else if(scan instanceof IVendorMassSpectrumProxy) {
+			IVendorMassSpectrumProxy proxy = (IVendorMassSpectrumProxy)scan;
+			proxy.setNumberOfIons(defaultArrayLength);
+			proxy.setTotalSignal(totalIonCurrent >= 0.0f ? totalIonCurrent : getTotalSignal(intensities));
+		} else {
+			addTotalSignal(scan, totalIonCurrent >= 0.0f ? totalIonCurrent : getTotalSignal(intensities));
+		}
+	}
+
+	/**
+	 * Reads the selected reaction monitoring trace. Null is returned, if the
+	 * chromatogram is not a SRM trace, e.g. the TIC.
+	 * The reader must be positioned at the start element of the chromatogram.
+	 *
+	 * @param reader
+	 * @return {@link ChromatogramSupport}
+	 * @throws XMLStreamException
+	 * @throws DataFormatException
+	 */
+	public ChromatogramSupport readChromatogram(XMLStreamReader reader) throws XMLStreamException, DataFormatException {
+
+		boolean isSRM = false;
+		boolean isPrecursor = false;
+		boolean isProduct = false;
+		boolean isSecond = false;
+		double parentIon = 0.0d;
+		double daughterIon = 0.0d;
+		double collisionEnergy = 0.0d;
+		double[] retentionTimes = null;
+		double[] intensities = null;
+		BinaryDataArray binaryDataArray = null;
+		//
+		exitloop:
+		while(reader.hasNext()) {
+			switch(reader.next()) {
+				case XMLStreamConstants.START_ELEMENT:
+					String name = reader.getLocalName();
+					if(NODE_CV_PARAM.equals(name)) {
+						String accession = reader.getAttributeValue(null, "accession");
+						if(binaryDataArray != null) {
+							binaryDataArray.setParameter(accession);
+							if(TIME_ARRAY.equals(accession)) {
+								isSecond = isSecond(reader);
+							}
+						} else if(SRM_CHROMATOGRAM.equals(accession)) {
+							isSRM = true;
+						} else if(ISOLATION_WINDOW_TARGET.equals(accession)) {
+							if(isPrecursor) {
+								parentIon = getDouble(reader.getAttributeValue(null, "value"));
+							} else if(isProduct) {
+								daughterIon = getDouble(reader.getAttributeValue(null, "value"));
+							}
+						} else if(COLLISION_ENERGY.equals(accession)) {
+							collisionEnergy = getDouble(reader.getAttributeValue(null, "value"));
+						}
+					} else if(NODE_PRECURSOR.equals(name)) {
+						isPrecursor = true;
+					} else if(NODE_PRODUCT.equals(name)) {
+						isProduct = true;
+					} else if(NODE_BINARY_DATA_ARRAY_LIST.equals(name)) {
+						if(!isSRM) {
+							break exitloop;
+						}
+					} else if(NODE_BINARY_DATA_ARRAY.equals(name)) {
+						binaryDataArray = new BinaryDataArray();
+					} else if(NODE_BINARY.equals(name) && binaryDataArray != null) {
+						if(binaryDataArray.isTimeArray()) {
+							retentionTimes = readBinary(reader, binaryDataArray);
+						} else if(binaryDataArray.isIntensityArray()) {
+							intensities = readBinary(reader, binaryDataArray);
+						}
+					}
+					break;
+				case XMLStreamConstants.END_ELEMENT:
+					String endName = reader.getLocalName();
+					if(NODE_PRECURSOR.equals(endName)) {
+						isPrecursor = false;
+					} else if(NODE_PRODUCT.equals(endName)) {
+						isProduct = false;
+					} else if(NODE_BINARY_DATA_ARRAY.equals(endName)) {
+						binaryDataArray = null;
+					} else if(NODE_CHROMATOGRAM.equals(endName)) {
+						break exitloop;
+					}
+					break;
+				default:
+					break;
+			}
+		}
+		//
+		if(!isSRM || retentionTimes == null || intensities == null) {
+			return null;
+		}
+		//
+		if(isSecond) {
+			for(int i = 0; i < retentionTimes.length; i++) {
+				retentionTimes[i] /= 60.0d;
+			}
+		}
+		ChromatogramSupport chromatogramSupport = new ChromatogramSupport(retentionTimes, intensities);
+		chromatogramSupport.setParentIon(parentIon);
+		chromatogramSupport.setDaughterIon(daughterIon);
+		chromatogramSupport.setCollisionEnergy(collisionEnergy);
+		return chromatogramSupport;
+	}
+
+	/**
+	 * Creates a stream reader without DTD support and coalescing.
+	 *
+	 * @param inputStream
+	 * @return {@link XMLStreamReader}
+	 * @throws XMLStreamException
+	 */
+	public XMLStreamReader createReader(InputStream inputStream) throws XMLStreamException {
+
+		return inputFactory.createXMLStreamReader(inputStream);
+	}
+
+	/**
+	 * Releases the native resources of the decoder.
+	 */
+	public void dispose() {
+
+		binaryDataDecoder.dispose();
+	}
+
+	void readSpectrum(RandomAccessFile randomAccessFile, long offset, IVendorScan scan, boolean readIons) throws IOException, XMLStreamException, DataFormatException {
+
+		XMLStreamReader reader = createReader(randomAccessFile, offset);
+		try {
+			if(reader.nextTag() != XMLStreamConstants.START_ELEMENT || !NODE_SPECTRUM.equals(reader.getLocalName())) {
+				throw new XMLStreamException("There is no spectrum at offset: " + offset);
+			}
+			readSpectrum(reader, scan, readIons);
+		} finally {
+			reader.close();
+		}
+	}
+
+	private XMLStreamReader createReader(RandomAccessFile randomAccessFile, long offset) throws IOException, XMLStreamException {
+
+		randomAccessFile.seek(offset);
+		InputStream inputStream = new BufferedInputStream(Channels.newInputStream(randomAccessFile.getChannel()));
+		return inputFactory.createXMLStreamReader(inputStream, StandardCharsets.UTF_8.name());
+	}
+
+	private double[] readBinary(XMLStreamReader reader, BinaryDataArray binaryDataArray) throws XMLStreamException, DataFormatException {
+
+		binaryDataDecoder.reset();
+		while(reader.hasNext()) {
+			int event = reader.next();
+			if(event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA) {
+				binaryDataDecoder.decode(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+			} else if(event == XMLStreamConstants.END_ELEMENT) {
+				break;
+			}
+		}
+		return binaryDataDecoder.getValues(binaryDataArray.is64Bit(), binaryDataArray.isInteger(), binaryDataArray.isZlib(), binaryDataArray.getNumpress());
+	}
+
+	private void addIons(IVendorScan scan, double[] mzs, double[] intensities) {
+
+		if(mzs == null || intensities == null) {
+			return;
+		}
+		//
+		int size = Math.min(mzs.length, intensities.length);
+		for(int i = 0; i < size; i++) {
+			float intensity = (float)intensities[i];
+			try {
+				if(intensity >= VendorIon.MIN_ABUNDANCE && intensity <= VendorIon.MAX_ABUNDANCE) {
+					scan.addIon(new VendorIon(AbstractIon.getIon(mzs[i], ION_PRECISION), intensity));
+				}
+			} catch(AbundanceLimitExceededException e) {
+				logger.warn(e);
+			} catch(IonLimitExceededException e) {
+				logger.warn(e);
+			}
+		}
+	}
+
+	private void addTotalSignal(IVendorScan scan, float totalSignal) {
+
+		try {
+			if(totalSignal >= VendorIon.MIN_ABUNDANCE && totalSignal <= VendorIon.MAX_ABUNDANCE) {
+				scan.addIon(new VendorIon(AbstractIon.TIC_ION, totalSignal));
+			}
+		} catch(AbundanceLimitExceededException e) {
+			logger.warn(e);
+		} catch(IonLimitExceededException e) {
+			logger.warn(e);
+		}
+	}
+
+	private float getTotalSignal(double[] intensities) {
+
+		double totalSignal = 0.0d;
+		if(intensities != null) {
+			for(double intensity : intensities) {
+				totalSignal += intensity;
+			}
+		}
+		return (float)totalSignal;
+	}
+
+	private boolean isSecond(XMLStreamReader reader) {
+
+		String unitAccession = reader.getAttributeValue(null, "unitAccession");
+		String unitName = reader.getAttributeValue(null, "unitName");
+		return UNIT_SECOND.equals(unitAccession) || "second".equals(unitName);
+	}
+
+	private int getInteger(String value) {
+
+		try {
+			return value != null ? Integer.parseInt(value.trim()) : 0;
+		} catch(NumberFormatException e) {
+			return 0;
+		}
+	}
+
+	private double getDouble(String value) {
+
+		try {
+			return value != null ? Double.parseDouble(value.trim()) : 0.0d;
+		} catch(NumberFormatException e) {
+			return 0.0d;
+		}
+	}
+
+	private static XMLInputFactory createInputFactory() {
+
+		XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+		inputFactory.setProperty(XMLInputFactory.IS_COALESCING, false);
+		inputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+		inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		return inputFactory;
+	}
+
+	/**
+	 * Collects the cvParams of a binaryDataArray.
+	 */
+	private static final class BinaryDataArray {
+
+		private String arrayType = "";
+		private boolean is64Bit = false;
+		private boolean isInteger = false;
+		private boolean isZlib = false;
+		private int numpress = BinaryDataDecoder.NUMPRESS_NONE;
+
+		private void setParameter(String accession) {
+
+			if(accession == null) {
+				return;
+			}
+			//
+			switch(accession) {
+				case MZ_ARRAY:
+				case INTENSITY_ARRAY:
+				case TIME_ARRAY:
+					arrayType = accession;
+					break;
+				case FLOAT_32_BIT:
+					is64Bit = false;
+					isInteger = false;
+					break;
+				case FLOAT_64_BIT:
+					is64Bit = true;
+					isInteger = false;
+					break;
+				case INTEGER_32_BIT:
+					is64Bit = false;
+					isInteger = true;
+					break;
+				case INTEGER_64_BIT:
+					is64Bit = true;
+					isInteger = true;
+					break;
+				case ZLIB:
+					isZlib = true;
+					break;
+				case NUMPRESS_LINEAR:
+					numpress = BinaryDataDecoder.NUMPRESS_LINEAR;
+					break;
+				case NUMPRESS_PIC:
+					numpress = BinaryDataDecoder.NUMPRESS_PIC;
+					break;
+				case NUMPRESS_SLOF:
+					numpress = BinaryDataDecoder.NUMPRESS_SLOF;
+					break;
+				case NUMPRESS_LINEAR_ZLIB:
+					numpress = BinaryDataDecoder.NUMPRESS_LINEAR;
+					isZlib = true;
+					break;
+				case NUMPRESS_PIC_ZLIB:
+					numpress = BinaryDataDecoder.NUMPRESS_PIC;
+					isZlib = true;
+					break;
+				case NUMPRESS_SLOF_ZLIB:
+					numpress = BinaryDataDecoder.NUMPRESS_SLOF;
+					isZlib = true;
+					break;
+				default:
+					break;
+			}
+		}
+
+		private boolean isMzArray() {
+
+			return MZ_ARRAY.equals(arrayType);
+		}
+
+		private boolean isIntensityArray() {
+
+			return INTENSITY_ARRAY.equals(arrayType);
+		}
+
+		private boolean isTimeArray() {
+
+			return TIME_ARRAY.equals(arrayType);
+		}
+
+		private boolean is64Bit() {
+
+			return is64Bit;
+		}
+
+		private boolean isInteger() {
+
+			return isInteger;
+		}
+
+		private boolean isZlib() {
+
+			return isZlib;
+		}
+
+		private int getNumpress() {
+
+			return numpress;
+		}
+	}
+}
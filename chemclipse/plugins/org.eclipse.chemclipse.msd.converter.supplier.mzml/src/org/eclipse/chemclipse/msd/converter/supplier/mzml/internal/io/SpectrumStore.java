@@ -0,0 +1,97 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Lablicate GmbH.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Dr. Philip Wenig - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.chemclipse.msd.converter.supplier.mzml.internal.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.util.zip.DataFormatException;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.eclipse.chemclipse.logging.core.Logger;
+import org.eclipse.chemclipse.msd.converter.supplier.mzml.converter.model.IVendorScan;
+
+/**
+ * All spectrum proxies of an indexedmzML file share one store, hence the file
+ * is opened once and not for each spectrum. The file is closed after the last
+ * spectrum has been loaded or if the store is closed explicitly. It is opened
+ * again on demand.
+ */
+public class SpectrumStore implements Serializable {
+
+	/**
+	 * Renew the serialVersionUID any time you have changed some fields or
+	 * methods.
+	 */
+	private static final long serialVersionUID = -1822395167335457711L;
+	private static final Logger logger = Logger.getLogger(SpectrumStore.class);
+	//
+	private final File file;
+	private final int numberOfSpectra;
+	private transient int loadedSpectra;
+	private transient RandomAccessFile randomAccessFile;
+	private transient SpectrumReader spectrumReader;
+
+	public SpectrumStore(File file, int numberOfSpectra) {
+		this.file = file;
+		this.numberOfSpectra = numberOfSpectra;
+	}
+
+	public File getFile() {
+
+		return file;
+	}
+
+	/**
+	 * Reads the spectrum at the given offset including the ions.
+	 *
+	 * @param offset
+	 * @param scan
+	 * @throws IOException
+	 * @throws XMLStreamException
+	 * @throws DataFormatException
+	 */
+	public synchronized void readSpectrum(long offset, IVendorScan scan) throws IOException, XMLStreamException, DataFormatException {
+
+		if(randomAccessFile == null) {
+			randomAccessFile = new RandomAccessFile(file, "r");
+			spectrumReader = new SpectrumReader();
+		}
+		//
+		try {
+			spectrumReader.readSpectrum(randomAccessFile, offset, scan, true);
+		} finally {
+			if(++loadedSpectra >= numberOfSpectra) {
+				close();
+			}
+		}
+	}
+
+	/**
+	 * Closes the file.
+	 */
+	public synchronized void close() {
+
+		if(randomAccessFile != null) {
+			try {
+				randomAccessFile.close();
+			} catch(IOException e) {
+				logger.warn(e);
+			}
+			spectrumReader.dispose();
+			randomAccessFile = null;
+			spectrumReader = null;
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2015, 2018 Lablicate GmbH.
+ * Copyright (c) 2015, 2020 Lablicate GmbH.
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -12,11 +12,28 @@
 package org.eclipse.chemclipse.msd.converter.supplier.mzxml.internal.io;
 
 import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.SequenceInputStream;
+import java.math.BigDecimal;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.DataFormatException;
 
 import javax.xml.datatype.DatatypeConfigurationException;
 import javax.xml.datatype.DatatypeFactory;
@@ -24,7 +41,9 @@ import javax.xml.datatype.Duration;
 import javax.xml.stream.EventFilter;
 import javax.xml.stream.XMLEventReader;
 import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import javax.xml.stream.events.Attribute;
 import javax.xml.stream.events.XMLEvent;
 
@@ -32,6 +51,7 @@ import org.eclipse.chemclipse.converter.exceptions.FileIsEmptyException;
 import org.eclipse.chemclipse.converter.exceptions.FileIsNotReadableException;
 import org.eclipse.chemclipse.logging.core.Logger;
 import org.eclipse.chemclipse.model.core.IChromatogramOverview;
+import org.eclipse.chemclipse.model.core.IScan;
 import org.eclipse.chemclipse.model.exceptions.AbundanceLimitExceededException;
 import org.eclipse.chemclipse.msd.converter.io.AbstractChromatogramMSDReader;
 import org.eclipse.chemclipse.msd.converter.io.IChromatogramMSDReader;
@@ -41,12 +61,91 @@ import org.eclipse.chemclipse.msd.converter.supplier.mzxml.model.VendorChromatog
 import org.eclipse.chemclipse.msd.converter.supplier.mzxml.model.VendorIon;
 import org.eclipse.chemclipse.msd.converter.supplier.mzxml.model.VendorScan;
 import org.eclipse.chemclipse.msd.model.core.AbstractIon;
+import org.eclipse.chemclipse.msd.model.core.IChromatogramMSD;
 import org.eclipse.chemclipse.msd.model.exceptions.IonLimitExceededException;
 import org.eclipse.core.runtime.IProgressMonitor;
 
 public abstract class AbstractReaderVersion extends AbstractChromatogramMSDReader implements IChromatogramMSDReader {
 
 	private static final Logger logger = Logger.getLogger(AbstractReaderVersion.class);
+	//
+	private static final String NODE_SCAN = "scan";
+	private static final String NODE_PEAKS = "peaks";
+	private static final String NODE_INDEX = "index";
+	private static final String NODE_OFFSET = "offset";
+	private static final Pattern INDEX_OFFSET = Pattern.compile("<indexOffset>\\s*(\\d+)\\s*</indexOffset>");
+	private static final int INDEX_OFFSET_TAIL = 4096;
+	private static final long MIN_BYTES_PARALLEL = 64L * 1024L * 1024L;
+	private static final int MAX_THREADS = 8;
+	private static final double MEGABYTE = 1024.0d * 1024.0d;
+	private static final int FRAGMENT_DEPTH = 4;
+	private static final String FRAGMENT_START = "<mzXMLFragment><scan><scan><scan><scan>";
+	private static final int FRAGMENT_BUFFER = 65536;
+	/*
+	 * As before, only the mzXML 3.2 reader evaluates the MS level and cycle numbers.
+	 */
+	private final boolean useMsLevel;
+
+	public AbstractReaderVersion(boolean useMsLevel) {
+		this.useMsLevel = useMsLevel;
+	}
+
+	/**
+	 * The scans are parsed via a StAX stream reader and added one after another.
+	 * If the file contains a scan index (indexOffset), scan ranges are decoded in parallel.
+	 */
+	@Override
+	public IChromatogramMSD read(File file, IProgressMonitor monitor) throws FileNotFoundException, FileIsNotReadableException, FileIsEmptyException, IOException {
+
+		int threads = (file.length() >= MIN_BYTES_PARALLEL) ? Math.min(MAX_THREADS, Runtime.getRuntime().availableProcessors()) : 1;
+		return read(file, threads);
+	}
+
+	/**
+	 * Reads the scans by the given number of threads, if the file contains a scan index.
+	 * 
+	 * @param file
+	 * @param threads
+	 * @return {@link IVendorChromatogram}
+	 * @throws IOException
+	 */
+	IVendorChromatogram read(File file, int threads) throws IOException {
+
+		long start = System.currentTimeMillis();
+		IVendorChromatogram chromatogram = new VendorChromatogram();
+		try {
+			boolean scansRead = false;
+			long[] offsets = (threads > 1) ? readScanIndex(file) : null;
+			if(offsets != null) {
+				try {
+					readScansParallel(file, offsets, threads, chromatogram);
+					scansRead = true;
+				} catch(IOException | XMLStreamException | DataFormatException e) {
+					logger.warn("The scan index couldn't be used: " + e.getMessage());
+				}
+			}
+			//
+			if(!scansRead) {
+				chromatogram = new VendorChromatogram();
+				readScans(file, chromatogram);
+			}
+			//
+			if(useMsLevel) {
+				setCycleNumbers(chromatogram);
+			}
+		} catch(XMLStreamException e) {
+			logger.warn(e);
+		} catch(DataFormatException e) {
+			logger.warn(e);
+		}
+		//
+		chromatogram.setConverterId("");
+		chromatogram.setFile(file);
+		//
+		long duration = Math.max(1, System.currentTimeMillis() - start);
+		logger.debug(String.format("mzXML %s: %d scans read in %d ms (%.1f MB/s)", file.getName(), chromatogram.getNumberOfScans(), duration, (file.length() / MEGABYTE) / (duration / 1000.0d)));
+		return chromatogram;
+	}
 
 	@Override
 	public IChromatogramOverview readOverview(File file, IProgressMonitor monitor) throws FileNotFoundException, FileIsNotReadableException, FileIsEmptyException, IOException {
@@ -105,4 +204,341 @@ public abstract class AbstractReaderVersion extends AbstractChromatogramMSDReade
 		//
 		return chromatogram;
 	}
+
+	private void readScans(File file, IVendorChromatogram chromatogram) throws IOException, XMLStreamException, DataFormatException {
+
+		ScanDecoder scanDecoder = new ScanDecoder();
+		try (InputStream inputStream = new BufferedInputStream(new FileInputStream(file))) {
+			XMLStreamReader reader = createInputFactory().createXMLStreamReader(inputStream);
+			try {
+				IVendorScan massSpectrum = null;
+				IVendorScan runScan = null;
+				int depth = 0;
+				exitloop:
+				while(reader.hasNext()) {
+					switch(reader.next()) {
+						case XMLStreamConstants.START_ELEMENT:
+							String name = reader.getLocalName();
+							if(NODE_SCAN.equals(name)) {
+								/*
+								 * Nested scans (e.g. MS/MS) are not added, only the scans of the run.
+								 */
+								depth++;
+								massSpectrum = (depth == 1) ? readScan(reader) : null;
+								if(massSpectrum != null) {
+									runScan = massSpectrum;
+								}
+							} else if(NODE_PEAKS.equals(name) && massSpectrum != null) {
+								readPeaks(reader, scanDecoder, massSpectrum);
+							} else if(NODE_INDEX.equals(name)) {
+								break exitloop;
+							}
+							break;
+						case XMLStreamConstants.END_ELEMENT:
+							if(NODE_SCAN.equals(reader.getLocalName())) {
+								/*
+								 * The scan is added as soon as it has been parsed completely.
+								 */
+								if(--depth == 0 && runScan != null) {
+									chromatogram.addScan(runScan);
+									runScan = null;
+								}
+								massSpectrum = null;
+							}
+							break;
+						default:
+							break;
+					}
+				}
+			} finally {
+				reader.close();
+			}
+		} finally {
+			scanDecoder.dispose();
+		}
+	}
+
+	private void readScansParallel(File file, long[] offsets, int threads, IVendorChromatogram chromatogram) throws IOException, XMLStreamException, DataFormatException {
+
+		int chunkSize = (offsets.length + threads - 1) / threads;
+		IVendorScan[] scans = new IVendorScan[offsets.length];
+		int[] nestedScans = new int[offsets.length];
+		ExecutorService executorService = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<Void>> futures = new ArrayList<>();
+			for(int i = 0; i < offsets.length; i += chunkSize) {
+				int from = i;
+				int to = Math.min(offsets.length, i + chunkSize);
+				futures.add(executorService.submit(() -> {
+					readScanRange(file, offsets, from, to, scans, nestedScans);
+					return null;
+				}));
+			}
+			//
+			for(Future<Void> future : futures) {
+				future.get();
+			}
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException(e);
+		} catch(ExecutionException e) {
+			Throwable cause = e.getCause();
+			if(cause instanceof XMLStreamException) {
+				throw (XMLStreamException)cause;
+			} else if(cause instanceof DataFormatException) {
+				throw (DataFormatException)cause;
+			}
+			throw new IOException(cause);
+		} finally {
+			executorService.shutdownNow();
+		}
+		/*
+		 * The index lists nested scans too. They are skipped like in the sequential mode.
+		 */
+		for(int i = 0; i < scans.length; i += 1 + nestedScans[i]) {
+			chromatogram.addScan(scans[i]);
+		}
+	}
+
+	/**
+	 * The scans of the range are parsed by one stream reader, starting at the offset of the first scan.
+	 * The fragment is wrapped by synthetic scan elements. Hence, the document stays well-formed if the
+	 * range starts with a nested scan whose parent is closed afterwards. Such scans are skipped, as they
+	 * are counted as nested scans of the parent by the previous range.
+	 * The number of nested scans is stored to skip them afterwards.
+	 */
+	private void readScanRange(File file, long[] offsets, int from, int to, IVendorScan[] scans, int[] nestedScans) throws IOException, XMLStreamException, DataFormatException {
+
+		ScanDecoder scanDecoder = new ScanDecoder();
+		try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r")) {
+			randomAccessFile.seek(offsets[from]);
+			InputStream fragmentStart = new ByteArrayInputStream(FRAGMENT_START.getBytes(StandardCharsets.UTF_8));
+			InputStream inputStream = new BufferedInputStream(new SequenceInputStream(fragmentStart, Channels.newInputStream(randomAccessFile.getChannel())), FRAGMENT_BUFFER);
+			XMLStreamReader reader = createInputFactory().createXMLStreamReader(inputStream, StandardCharsets.UTF_8.name());
+			try {
+				/*
+				 * Skip the synthetic root and scan elements.
+				 */
+				for(int i = 0; i <= FRAGMENT_DEPTH; i++) {
+					reader.nextTag();
+				}
+				//
+				IVendorScan massSpectrum = null;
+				int index = from - 1;
+				int parent = -1;
+				int depth = 0;
+				exitloop:
+				while(reader.hasNext()) {
+					switch(reader.next()) {
+						case XMLStreamConstants.START_ELEMENT:
+							String name = reader.getLocalName();
+							if(NODE_SCAN.equals(name)) {
+								if(++index >= offsets.length) {
+									throw new XMLStreamException("The scan index doesn't match the scans.");
+								}
+								depth++;
+								if(depth == 1) {
+									massSpectrum = readScan(reader);
+									scans[index] = massSpectrum;
+									parent = index;
+								} else {
+									massSpectrum = null;
+									nestedScans[parent]++;
+								}
+							} else if(NODE_PEAKS.equals(name) && massSpectrum != null) {
+								readPeaks(reader, scanDecoder, massSpectrum);
+							}
+							break;
+						case XMLStreamConstants.END_ELEMENT:
+							if(NODE_SCAN.equals(reader.getLocalName())) {
+								/*
+								 * depth == 0: A synthetic scan element is closed.
+								 */
+								massSpectrum = null;
+								if(depth > 0) {
+									depth--;
+								}
+								if(depth == 0 && index >= to - 1) {
+									break exitloop;
+								}
+							}
+							break;
+						default:
+							break;
+					}
+				}
+			} finally {
+				reader.close();
+			}
+		} finally {
+			scanDecoder.dispose();
+		}
+	}
+
+	private IVendorScan readScan(XMLStreamReader reader) {
+
+		IVendorScan massSpectrum = new VendorScan();
+		String retentionTime = reader.getAttributeValue(null, "retentionTime");
+		if(retentionTime != null) {
+			massSpectrum.setRetentionTime(getRetentionTime(retentionTime));
+		}
+		//
+		if(useMsLevel) {
+			String msLevel = reader.getAttributeValue(null, "msLevel");
+			if(msLevel != null) {
+				massSpectrum.setMassSpectrometer(Short.parseShort(msLevel.trim()));
+			}
+		}
+		return massSpectrum;
+	}
+
+	private void readPeaks(XMLStreamReader reader, ScanDecoder scanDecoder, IVendorScan massSpectrum) throws XMLStreamException, DataFormatException {
+
+		String precision = reader.getAttributeValue(null, "precision");
+		String byteOrder = reader.getAttributeValue(null, "byteOrder");
+		String compressionType = reader.getAttributeValue(null, "compressionType");
+		//
+		scanDecoder.reset();
+		while(reader.hasNext()) {
+			int event = reader.next();
+			if(event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA) {
+				scanDecoder.decode(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+			} else if(event == XMLStreamConstants.END_ELEMENT) {
+				break;
+			}
+		}
+		//
+		boolean is64Bit = precision != null && precision.trim().equals("64");
+		boolean isBigEndian = byteOrder != null && byteOrder.equals("network");
+		boolean isZlib = compressionType != null && compressionType.toLowerCase().equals("zlib");
+		scanDecoder.addIons(massSpectrum, is64Bit ? 64 : 32, isBigEndian, isZlib);
+	}
+
+	/**
+	 * Same behaviour as the former DOM/JAXB based readers:
+	 * If the run contains MS/MS scans, the cycle number starts with 1.
+	 */
+	private void setCycleNumbers(IVendorChromatogram chromatogram) {
+
+		List<IScan> scans = chromatogram.getScans();
+		boolean isTandemMeasurement = false;
+		for(IScan scan : scans) {
+			if(((IVendorScan)scan).getMassSpectrometer() > 1) {
+				isTandemMeasurement = true;
+				break;
+			}
+		}
+		//
+		int cycleNumber = isTandemMeasurement ? 1 : 0;
+		for(IScan scan : scans) {
+			if(((IVendorScan)scan).getMassSpectrometer() < 2) {
+				cycleNumber++;
+			}
+			if(cycleNumber >= 1) {
+				scan.setCycleNumber(cycleNumber);
+			}
+		}
+	}
+
+	/**
+	 * Reads the offsets of the scan index. Null is returned if no index is available.
+	 */
+	private long[] readScanIndex(File file) {
+
+		try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r")) {
+			long length = randomAccessFile.length();
+			int tail = (int)Math.min(length, INDEX_OFFSET_TAIL);
+			byte[] buffer = new byte[tail];
+			randomAccessFile.seek(length - tail);
+			randomAccessFile.readFully(buffer);
+			Matcher matcher = INDEX_OFFSET.matcher(new String(buffer, StandardCharsets.US_ASCII));
+			if(!matcher.find()) {
+				return null;
+			}
+			//
+			long indexOffset = Long.parseLong(matcher.group(1));
+			if(indexOffset <= 0 || indexOffset >= length) {
+				return null;
+			}
+			//
+			randomAccessFile.seek(indexOffset);
+			InputStream inputStream = new BufferedInputStream(Channels.newInputStream(randomAccessFile.getChannel()));
+			XMLStreamReader reader = createInputFactory().createXMLStreamReader(inputStream, StandardCharsets.UTF_8.name());
+			long[] offsets = new long[1024];
+			int size = 0;
+			try {
+				if(reader.nextTag() != XMLStreamConstants.START_ELEMENT || !NODE_INDEX.equals(reader.getLocalName()) || !NODE_SCAN.equals(reader.getAttributeValue(null, "name"))) {
+					return null;
+				}
+				//
+				while(reader.hasNext()) {
+					int event = reader.next();
+					if(event == XMLStreamConstants.START_ELEMENT && NODE_OFFSET.equals(reader.getLocalName())) {
+						if(size == offsets.length) {
+							offsets = Arrays.copyOf(offsets, size * 2);
+						}
+						offsets[size++] = Long.parseLong(reader.getElementText().trim());
+					} else if(event == XMLStreamConstants.END_ELEMENT && NODE_INDEX.equals(reader.getLocalName())) {
+						break;
+					}
+				}
+			} finally {
+				reader.close();
+			}
+			/*
+			 * The scans shall be added in the order of the document.
+			 */
+			offsets = Arrays.copyOf(offsets, size);
+			Arrays.sort(offsets);
+			return size > 0 ? offsets : null;
+		} catch(IOException | XMLStreamException | NumberFormatException e) {
+			logger.info("The scan index couldn't be read: " + e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * Parses the xs:duration, e.g. PT123.456S, and returns the milliseconds.
+	 */
+	private int getRetentionTime(String value) {
+
+		String retentionTime = value.trim();
+		if(retentionTime.startsWith("PT") && retentionTime.endsWith("S")) {
+			try {
+				BigDecimal milliseconds = BigDecimal.ZERO;
+				String part = retentionTime.substring(2, retentionTime.length() - 1);
+				int hours = part.indexOf('H');
+				if(hours >= 0) {
+					milliseconds = milliseconds.add(new BigDecimal(part.substring(0, hours)).multiply(BigDecimal.valueOf(3600000)));
+					part = part.substring(hours + 1);
+				}
+				int minutes = part.indexOf('M');
+				if(minutes >= 0) {
+					milliseconds = milliseconds.add(new BigDecimal(part.substring(0, minutes)).multiply(BigDecimal.valueOf(60000)));
+					part = part.substring(minutes + 1);
+				}
+				milliseconds = milliseconds.add(new BigDecimal(part).movePointRight(3));
+				return milliseconds.intValue();
+			} catch(NumberFormatException e) {
+				// Fallback
+			}
+		}
+		//
+		try {
+			Duration duration = DatatypeFactory.newInstance().newDuration(retentionTime);
+			return duration.multiply(1000).getSeconds(); // milliseconds
+		} catch(DatatypeConfigurationException | IllegalArgumentException e) {
+			logger.warn(e);
+			return 0;
+		}
+	}
+
+	private XMLInputFactory createInputFactory() {
+
+		XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+		inputFactory.setProperty(XMLInputFactory.IS_COALESCING, false);
+		inputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+		inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		return inputFactory;
+	}
 }
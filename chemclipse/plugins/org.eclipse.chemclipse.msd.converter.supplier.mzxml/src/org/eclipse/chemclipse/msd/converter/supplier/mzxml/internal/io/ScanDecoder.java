@@ -0,0 +1,203 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Lablicate GmbH.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Dr. Philip Wenig - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.chemclipse.msd.converter.supplier.mzxml.internal.io;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import org.eclipse.chemclipse.logging.core.Logger;
+import org.eclipse.chemclipse.msd.converter.supplier.mzxml.model.IVendorScan;
+import org.eclipse.chemclipse.msd.converter.supplier.mzxml.model.VendorIon;
+import org.eclipse.chemclipse.msd.model.core.AbstractIon;
+
+/**
+ * Decodes the base64 (optionally zlib compressed) peaks of a scan.
+ * The buffers are reused from scan to scan, hence an instance must
+ * not be shared between threads.
+ */
+public class ScanDecoder {
+
+	private static final Logger logger = Logger.getLogger(ScanDecoder.class);
+	private static final int ION_PRECISION = 4;
+	private static final int[] BASE64 = new int[128];
+	static {
+		Arrays.fill(BASE64, -1);
+		String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+		for(int i = 0; i < alphabet.length(); i++) {
+			BASE64[alphabet.charAt(i)] = i;
+		}
+	}
+
+	//
+	private final Inflater inflater = new Inflater();
+	private byte[] decoded = new byte[8192];
+	private byte[] inflated = new byte[8192];
+	private double[] ions = new double[1024];
+	private float[] abundances = new float[1024];
+	private int decodedLength = 0;
+	private int quantum = 0;
+	private int quantumSize = 0;
+
+	/**
+	 * Prepares the decoder for the next peaks element.
+	 */
+	public void reset() {
+
+		decodedLength = 0;
+		quantum = 0;
+		quantumSize = 0;
+	}
+
+	/**
+	 * Decodes the given base64 characters. The characters may be delivered in
+	 * several chunks, e.g. by subsequent XMLStreamReader CHARACTERS events.
+	 *
+	 * @param characters
+	 * @param start
+	 * @param length
+	 */
+	public void decode(char[] characters, int start, int length) {
+
+		ensureDecodedCapacity(decodedLength + (length / 4 + 1) * 3);
+		int stop = start + length;
+		for(int i = start; i < stop; i++) {
+			char character = characters[i];
+			int value = character < 128 ? BASE64[character] : -1;
+			if(value >= 0) {
+				quantum = (quantum << 6) | value;
+				quantumSize++;
+				if(quantumSize == 4) {
+					decoded[decodedLength++] = (byte)(quantum >> 16);
+					decoded[decodedLength++] = (byte)(quantum >> 8);
+					decoded[decodedLength++] = (byte)quantum;
+					quantum = 0;
+					quantumSize = 0;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Adds the decoded m/z-intensity pairs to the given scan.
+	 *
+	 * @param massSpectrum
+	 * @param precision
+	 * @param bigEndian
+	 * @param zlib
+	 * @throws DataFormatException
+	 */
+	public void addIons(IVendorScan massSpectrum, int precision, boolean bigEndian, boolean zlib) throws DataFormatException {
+
+		flushQuantum();
+		byte[] bytes = decoded;
+		int length = decodedLength;
+		/*
+		 * Compression
+		 */
+		if(zlib) {
+			length = inflate();
+			bytes = inflated;
+		}
+		/*
+		 * Byte Order / Precision
+		 */
+		ByteBuffer byteBuffer = ByteBuffer.wrap(bytes, 0, length);
+		byteBuffer.order(bigEndian ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
+		int size = (precision == 64) ? 8 : 4;
+		int values = length / size;
+		if(ions.length < values / 2) {
+			ions = new double[values / 2];
+			abundances = new float[values / 2];
+		}
+		int count = 0;
+		for(int index = 0; index < values - 1; index += 2) {
+			/*
+			 * Get m/z and intensity (m/z-int)
+			 */
+			double mz;
+			float intensity;
+			if(size == 8) {
+				mz = byteBuffer.getDouble(index * size);
+				intensity = (float)byteBuffer.getDouble((index + 1) * size);
+			} else {
+				mz = byteBuffer.getFloat(index * size);
+				intensity = byteBuffer.getFloat((index + 1) * size);
+			}
+			/*
+			 * The limits of the vendor ion are checked here, as the
+			 * values are passed to the scan without creating ions.
+			 */
+			double ion = AbstractIon.getIon(mz, ION_PRECISION);
+			if(intensity >= VendorIon.MIN_ABUNDANCE && intensity <= VendorIon.MAX_ABUNDANCE) {
+				if(ion == AbstractIon.TIC_ION || (ion >= VendorIon.MIN_ION && ion <= VendorIon.MAX_ION)) {
+					ions[count] = ion;
+					abundances[count] = intensity;
+					count++;
+				} else {
+					logger.warn("The value ion: " + ion + " is out of limit " + VendorIon.MIN_ION + " - " + VendorIon.MAX_ION);
+				}
+			}
+		}
+		massSpectrum.addIons(ions, abundances, count);
+	}
+
+	/**
+	 * Releases the native resources of the inflater.
+	 */
+	public void dispose() {
+
+		inflater.end();
+	}
+
+	private void flushQuantum() {
+
+		/*
+		 * Handle the padding, e.g. "xx==" or "xxx=".
+		 */
+		if(quantumSize == 2) {
+			decoded[decodedLength++] = (byte)(quantum >> 4);
+		} else if(quantumSize == 3) {
+			decoded[decodedLength++] = (byte)(quantum >> 10);
+			decoded[decodedLength++] = (byte)(quantum >> 2);
+		}
+		quantum = 0;
+		quantumSize = 0;
+	}
+
+	private int inflate() throws DataFormatException {
+
+		inflater.reset();
+		inflater.setInput(decoded, 0, decodedLength);
+		int length = 0;
+		while(!inflater.finished()) {
+			if(length == inflated.length) {
+				inflated = Arrays.copyOf(inflated, inflated.length * 2);
+			}
+			int count = inflater.inflate(inflated, length, inflated.length - length);
+			if(count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+				break;
+			}
+			length += count;
+		}
+		return length;
+	}
+
+	private void ensureDecodedCapacity(int capacity) {
+
+		if(capacity > decoded.length) {
+			decoded = Arrays.copyOf(decoded, Math.max(capacity, decoded.length * 2));
+		}
+	}
+}
@@ -24,6 +24,7 @@ import org.eclipse.chemclipse.msd.converter.io.AbstractChromatogramMSDReader;
 import org.eclipse.chemclipse.msd.converter.io.IChromatogramMSDReader;
 import org.eclipse.chemclipse.msd.converter.supplier.mzxml.internal.io.ReaderVersion20;
 import org.eclipse.chemclipse.msd.converter.supplier.mzxml.internal.io.ReaderVersion21;
+import org.eclipse.chemclipse.msd.converter.supplier.mzxml.internal.io.ReaderVersion22;
 import org.eclipse.chemclipse.msd.converter.supplier.mzxml.internal.io.ReaderVersion30;
 import org.eclipse.chemclipse.msd.converter.supplier.mzxml.internal.io.ReaderVersion31;
 import org.eclipse.chemclipse.msd.converter.supplier.mzxml.internal.io.ReaderVersion32;
@@ -33,12 +34,6 @@ import org.eclipse.core.runtime.IProgressMonitor;
 
 public class ChromatogramReader extends AbstractChromatogramMSDReader implements IChromatogramMSDReader {
 
-	private static final String CONTEXT_PATH_V_200 = "org.eclipse.chemclipse.msd.converter.supplier.mzxml.internal.v20.model";
-	private static final String CONTEXT_PATH_V_210 = "org.eclipse.chemclipse.msd.converter.supplier.mzxml.internal.v21.model";
-	private static final String CONTEXT_PATH_V_220 = "org.eclipse.chemclipse.msd.converter.supplier.mzxml.internal.v22.model";
-	private static final String CONTEXT_PATH_V_300 = "org.eclipse.chemclipse.msd.converter.supplier.mzxml.internal.v30.model";
-	private static final String CONTEXT_PATH_V_310 = "org.eclipse.chemclipse.msd.converter.supplier.mzxml.internal.v31.model";
-	private static final String CONTEXT_PATH_V_320 = "org.eclipse.chemclipse.msd.converter.supplier.mzxml.internal.v32.model";
 	private static final String MZXML_V_200 = "mzXML_2.0";
 	private static final String MZXML_V_210 = "mzXML_2.1";
 	private static final String MZXML_V_220 = "mzXML_2.2";
@@ -57,17 +52,17 @@ public class ChromatogramReader extends AbstractChromatogramMSDReader implements
 		//
 		final String header = new String(charBuffer);
 		if(header.contains(MZXML_V_200)) {
-			chromatogramReader = new ReaderVersion20(CONTEXT_PATH_V_200);
+			chromatogramReader = new ReaderVersion20();
 		} else if(header.contains(MZXML_V_210)) {
-			chromatogramReader = new ReaderVersion21(CONTEXT_PATH_V_210);
+			chromatogramReader = new ReaderVersion21();
 		} else if(header.contains(MZXML_V_220)) {
-			chromatogramReader = new ReaderVersion21(CONTEXT_PATH_V_220);
+			chromatogramReader = new ReaderVersion22();
 		} else if(header.contains(MZXML_V_300)) {
-			chromatogramReader = new ReaderVersion30(CONTEXT_PATH_V_300);
+			chromatogramReader = new ReaderVersion30();
 		} else if(header.contains(MZXML_V_310)) {
-			chromatogramReader = new ReaderVersion31(CONTEXT_PATH_V_310);
+			chromatogramReader = new ReaderVersion31();
 		} else if(header.contains(MZXML_V_320)) {
-			chromatogramReader = new ReaderVersion32(CONTEXT_PATH_V_320);
+			chromatogramReader = new ReaderVersion32();
 		} else {
 			throw new UnknownVersionException();
 		}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2019 Lablicate GmbH.
+ * Copyright (c) 2008, 2020 Lablicate GmbH.
  * 
  * All rights reserved.
  * This program and the accompanying materials are made available under the
@@ -26,6 +26,7 @@ import org.eclipse.chemclipse.model.results.ChromatogramSegmentation;
 import org.eclipse.chemclipse.model.results.NoiseSegmentMeasurementResult;
 import org.eclipse.chemclipse.model.selection.IChromatogramSelection;
 import org.eclipse.chemclipse.model.updates.IChromatogramUpdateListener;
+import org.eclipse.chemclipse.model.versioning.ScanRevisionStore;
 import org.eclipse.chemclipse.msd.model.core.selection.ChromatogramSelectionMSD;
 import org.eclipse.chemclipse.msd.model.core.support.IMarkedIons;
 import org.eclipse.chemclipse.msd.model.exceptions.IonLimitExceededException;
@@ -286,6 +287,19 @@ public abstract class AbstractChromatogramMSD extends AbstractChromatogram<IChro
 		return ionTransitionSettings;
 	}
 
+	@Override
+	protected long getScanFingerprint(IScan scan) {
+
+		long fingerprint = super.getScanFingerprint(scan);
+		if(scan instanceof IScanMSD) {
+			for(IIon ion : ((IScanMSD)scan).getIons()) {
+				fingerprint = ScanRevisionStore.fingerprint(fingerprint, Double.doubleToLongBits(ion.getIon()));
+				fingerprint = ScanRevisionStore.fingerprint(fingerprint, Float.floatToIntBits(ion.getAbundance()));
+			}
+		}
+		return fingerprint;
+	}
+
 	private boolean isZeroImmutableIon(IIon ion) {
 
 		if(immutableZeroIon.equals(ion)) {
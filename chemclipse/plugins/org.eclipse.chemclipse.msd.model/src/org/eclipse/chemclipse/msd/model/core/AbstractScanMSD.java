@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2019 Lablicate GmbH.
+ * Copyright (c) 2008, 2020 Lablicate GmbH.
  *
  * All rights reserved.
  * This program and the accompanying materials are made available under the
@@ -13,11 +13,14 @@
  *******************************************************************************/
 package org.eclipse.chemclipse.msd.model.core;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
@@ -27,6 +30,7 @@ import org.eclipse.chemclipse.model.core.AbstractScan;
 import org.eclipse.chemclipse.model.exceptions.AbundanceLimitExceededException;
 import org.eclipse.chemclipse.msd.model.core.comparator.IonCombinedComparator;
 import org.eclipse.chemclipse.msd.model.core.comparator.IonComparatorMode;
+import org.eclipse.chemclipse.msd.model.core.comparator.IonValueComparator;
 import org.eclipse.chemclipse.msd.model.core.support.IMarkedIons;
 import org.eclipse.chemclipse.msd.model.core.support.IMarkedIons.IonMarkMode;
 import org.eclipse.chemclipse.msd.model.core.support.MarkedIons;
@@ -68,10 +72,17 @@ public abstract class AbstractScanMSD extends AbstractScan implements IScanMSD {
 	//
 	private static final float NORMALIZATION_BASE = 100.0f;
 	private static final int LIMIT_SIM_MEASUREMENT = 10; // 10 m/z values
+	private static final Comparator<IIon> ION_VALUE_COMPARATOR = new IonValueComparator();
 	//
 	private boolean isNormalized = false;
 	private float normalizationBase = 0.0f;
 	private List<IIon> ionsList;
+	/*
+	 * The ions sorted by m/z, used to search the ions binary. The ions list
+	 * keeps the insertion order. A ColumnarIonList is sorted itself, hence
+	 * both fields refer to the same list in this case.
+	 */
+	private transient List<IIon> sortedIons;
 	private ImmutableZeroIon immutableZeroIon;
 	private IScanMSD optimizedMassSpectrum;
 
@@ -83,7 +94,7 @@ public abstract class AbstractScanMSD extends AbstractScan implements IScanMSD {
 	public AbstractScanMSD(final Collection<? extends IIon> ions) {
 		super();
 		init();
-		this.ionsList = new ArrayList<>(ions);
+		addAllIons(ions);
 	}
 
 	/**
@@ -96,7 +107,7 @@ public abstract class AbstractScanMSD extends AbstractScan implements IScanMSD {
 	public AbstractScanMSD(IScanMSD templateScan) {
 		super(templateScan);
 		init();
-		this.ionsList = new ArrayList<>(templateScan.getIons());
+		addAllIons(templateScan.getIons());
 		this.isNormalized = templateScan.isNormalized();
 		this.normalizationBase = templateScan.getNormalizationBase();
 		this.optimizedMassSpectrum = templateScan.getOptimizedMassSpectrum();
@@ -126,16 +137,61 @@ public abstract class AbstractScanMSD extends AbstractScan implements IScanMSD {
 	@Override
 	public AbstractScanMSD addIons(List<IIon> ions, boolean addIntensities) {
 
+		if(ionsList instanceof ColumnarIonList) {
+			for(IIon ion : ions) {
+				if(ion == null) {
+					continue;
+				}
+				addIon(addIntensities, ion);
+			}
+			return this;
+		}
+		/*
+		 * Sort the ions once and merge them with the stored ions in one pass.
+		 * The intensities are merged like in addIon(addIntensities, ion).
+		 */
+		List<IIon> ionsToMerge = new ArrayList<>(ions.size());
 		for(IIon ion : ions) {
-			if(ion == null) {
-				continue;
+			if(ion != null) {
+				ionsToMerge.add(ion);
 			}
-			if(addIntensities) {
-				addIon(true, ion);
-			} else {
-				addIon(false, ion);
+		}
+		Collections.sort(ionsToMerge, ION_VALUE_COMPARATOR);
+		//
+		List<IIon> mergedIons = new ArrayList<>(sortedIons.size() + ionsToMerge.size());
+		Set<IIon> addedIons = Collections.newSetFromMap(new IdentityHashMap<>());
+		int index = 0;
+		for(IIon ion : ionsToMerge) {
+			while(index < sortedIons.size() && sortedIons.get(index).getIon() <= ion.getIon()) {
+				mergedIons.add(sortedIons.get(index++));
+			}
+			IIon actualIon = getMatchingIon(mergedIons, ion);
+			if(actualIon == null) {
+				mergedIons.add(ion);
+				addedIons.add(ion);
+			} else if(addIntensities) {
+				addIntensities(actualIon, ion);
+			} else if(ion.getAbundance() >= actualIon.getAbundance()) {
+				addHigherIntensity(actualIon, ion);
 			}
 		}
+		while(index < sortedIons.size()) {
+			mergedIons.add(sortedIons.get(index++));
+		}
+		//
+		if(!addedIons.isEmpty()) {
+			sortedIons.clear();
+			sortedIons.addAll(mergedIons);
+			/*
+			 * The new ions are appended in the given order.
+			 */
+			for(IIon ion : ions) {
+				if(ion != null && addedIons.remove(ion)) {
+					ionsList.add(ion);
+				}
+			}
+			setDirty(true);
+		}
 		return this;
 	}
 
@@ -149,48 +205,62 @@ public abstract class AbstractScanMSD extends AbstractScan implements IScanMSD {
 			logger.warn("The ion must be not null.");
 			return this;
 		}
-		//
-		boolean addNew = true;
-		for(IIon actualIon : ionsList) {
-			if(checkIon(ion, actualIon)) {
-				/*
-				 * Check whether the intensity should be added or only the higher intensity
-				 * should be taken.<br/> Replace the abundance only, if the abundance is higher
-				 * than the older one otherwise do nothing
-				 */
-				if(addIntensity) {
-					addIntensities(actualIon, ion);
-					addNew = false;
-					break;
-				} else {
-					if(ion.getAbundance() >= actualIon.getAbundance()) {
-						addHigherIntensity(actualIon, ion);
-						addNew = false;
-						break;
-					} else {
-						addNew = false;
-						break;
-					}
-				}
-			}
-		}
 		/*
-		 * Add a new ion.
+		 * The ions are sorted by m/z, hence the ion is searched binary.
 		 */
-		if(addNew) {
-			this.ionsList.add(ion);
+		int index = getIndex(ion);
+		if(index >= 0) {
+			IIon actualIon = sortedIons.get(index);
+			/*
+			 * Check whether the intensity should be added or only the higher intensity
+			 * should be taken.<br/> Replace the abundance only, if the abundance is higher
+			 * than the older one otherwise do nothing
+			 */
+			if(addIntensity) {
+				addIntensities(actualIon, ion);
+			} else if(ion.getAbundance() >= actualIon.getAbundance()) {
+				addHigherIntensity(actualIon, ion);
+			}
+		} else {
+			/*
+			 * Add a new ion.
+			 */
+			insertIon(ion);
 			setDirty(true);
 		}
 		return this;
 	}
 
+	@Override
+	public AbstractScanMSD addIons(double[] ions, float[] abundances, int size) {
+
+		if(ionsList instanceof ColumnarIonList) {
+			((ColumnarIonList)ionsList).addAll(ions, abundances, size);
+			setDirty(true);
+		} else {
+			/*
+			 * Merge the ions in one pass, see addIons(List<IIon>, boolean).
+			 */
+			List<IIon> ionList = new ArrayList<>(size);
+			for(int i = 0; i < size; i++) {
+				try {
+					ionList.add(new Ion(ions[i], abundances[i]));
+				} catch(AbundanceLimitExceededException | IonLimitExceededException e) {
+					logger.warn(e);
+				}
+			}
+			addIons(ionList, false);
+		}
+		return this;
+	}
+
 	@Override
 	public AbstractScanMSD addIon(IIon ion, boolean checked) {
 
 		if(checked) {
 			addIon(ion);
 		} else {
-			ionsList.add(ion);
+			insertIon(ion);
 			setDirty(true);
 		}
 		return this;
@@ -205,14 +275,17 @@ public abstract class AbstractScanMSD extends AbstractScan implements IScanMSD {
 	@Override
 	public AbstractScanMSD removeIon(IIon ion) {
 
-		ionsList.remove(ion);
+		if(deleteIon(ion)) {
+			setDirty(true);
+		}
 		return this;
 	}
 
 	@Override
 	public AbstractScanMSD removeAllIons() {
 
-		ionsList.clear();
+		clearIonLists();
+		setDirty(true);
 		return this;
 	}
 
@@ -301,7 +374,8 @@ public abstract class AbstractScanMSD extends AbstractScan implements IScanMSD {
 
 	public void clearIons() {
 
-		this.ionsList.clear();
+		clearIonLists();
+		setDirty(true);
 	}
 
 	@Override
@@ -342,6 +416,10 @@ public abstract class AbstractScanMSD extends AbstractScan implements IScanMSD {
 	@Override
 	public float getTotalSignal() {
 
+		if(ionsList instanceof ColumnarIonList) {
+			return ((ColumnarIonList)ionsList).getTotalSignal();
+		}
+		//
 		IIon ion;
 		float totalSignal = 0;
 		Iterator<IIon> iterator = ionsList.iterator();
@@ -371,12 +449,20 @@ public abstract class AbstractScanMSD extends AbstractScan implements IScanMSD {
 		ExtractedIonSignal extractedIonSignal;
 		if(hasIons()) {
 			extractedIonSignal = new ExtractedIonSignal(startIon, stopIon);
-			for(IIon ion : getIons()) {
-				/*
-				 * The ion.getIon() will be tested in the IExtractedIonSignal instance if it is
-				 * valid (that means between startIon and stopIon).
-				 */
-				extractedIonSignal.setAbundance(ion);
+			/*
+			 * Only the ions within the nominal range are visited.
+			 */
+			int start = getLowerBound(extractedIonSignal.getStartIon() - 0.5d);
+			int stop = getLowerBound(extractedIonSignal.getStopIon() + 0.5d);
+			if(ionsList instanceof ColumnarIonList) {
+				ColumnarIonList columnarIonList = (ColumnarIonList)ionsList;
+				for(int i = start; i < stop; i++) {
+					extractedIonSignal.addAbundance(columnarIonList.getIon(i), columnarIonList.getAbundance(i));
+				}
+			} else {
+				for(int i = start; i < stop; i++) {
+					extractedIonSignal.setAbundance(sortedIons.get(i));
+				}
 			}
 			return extractedIonSignal;
 		} else {
@@ -408,6 +494,9 @@ public abstract class AbstractScanMSD extends AbstractScan implements IScanMSD {
 	public IIon getHighestAbundance() {
 
 		if(hasIons()) {
+			if(ionsList instanceof ColumnarIonList) {
+				return ionsList.get(((ColumnarIonList)ionsList).getHighestAbundanceIndex());
+			}
 			Comparator<IIon> comparator = new IonCombinedComparator(IonComparatorMode.ABUNDANCE_FIRST);
 			return Collections.max(ionsList, comparator);
 		} else {
@@ -419,8 +508,7 @@ public abstract class AbstractScanMSD extends AbstractScan implements IScanMSD {
 	public IIon getHighestIon() {
 
 		if(hasIons()) {
-			Comparator<IIon> comparator = new IonCombinedComparator(IonComparatorMode.MZ_FIRST);
-			return Collections.max(ionsList, comparator);
+			return getHighestIonByValue();
 		} else {
 			return immutableZeroIon;
 		}
@@ -430,6 +518,9 @@ public abstract class AbstractScanMSD extends AbstractScan implements IScanMSD {
 	public IIon getLowestAbundance() {
 
 		if(hasIons()) {
+			if(ionsList instanceof ColumnarIonList) {
+				return ionsList.get(((ColumnarIonList)ionsList).getLowestAbundanceIndex());
+			}
 			Comparator<IIon> comparator = new IonCombinedComparator(IonComparatorMode.ABUNDANCE_FIRST);
 			return Collections.min(ionsList, comparator);
 		} else {
@@ -441,8 +532,7 @@ public abstract class AbstractScanMSD extends AbstractScan implements IScanMSD {
 	public IIon getLowestIon() {
 
 		if(hasIons()) {
-			Comparator<IIon> comparator = new IonCombinedComparator(IonComparatorMode.MZ_FIRST);
-			return Collections.min(ionsList, comparator);
+			return getLowestIonByValue();
 		} else {
 			return immutableZeroIon;
 		}
@@ -451,13 +541,8 @@ public abstract class AbstractScanMSD extends AbstractScan implements IScanMSD {
 	@Override
 	public IIonBounds getIonBounds() {
 
-		IIon lowest = null;
-		IIon highest = null;
 		if(hasIons()) {
-			Comparator<IIon> comparator = new IonCombinedComparator(IonComparatorMode.MZ_FIRST);
-			lowest = Collections.min(ionsList, comparator);
-			highest = Collections.max(ionsList, comparator);
-			return new IonBounds(lowest, highest);
+			return new IonBounds(getLowestIonByValue(), getHighestIonByValue());
 		} else {
 			return null;
 		}
@@ -473,11 +558,14 @@ public abstract class AbstractScanMSD extends AbstractScan implements IScanMSD {
 	public IIon getIon(int ion) throws AbundanceLimitExceededException, IonLimitExceededException {
 
 		if(hasIons()) {
-			IExtractedIonSignal extractedIonSignal = new ExtractedIonSignal(ion, ion);
-			for(IIon actualIon : ionsList) {
-				extractedIonSignal.setAbundance(actualIon);
+			/*
+			 * Sum the abundances of all ions that are rounded to the nominal ion.
+			 */
+			float abundance = 0.0f;
+			int stop = getLowerBound(ion + 0.5d);
+			for(int i = getLowerBound(ion - 0.5d); i < stop; i++) {
+				abundance += sortedIons.get(i).getAbundance();
 			}
-			float abundance = extractedIonSignal.getAbundance(ion);
 			if(abundance > 0) {
 				IIon defaultIon = new Ion(ion, abundance);
 				return defaultIon;
@@ -489,12 +577,13 @@ public abstract class AbstractScanMSD extends AbstractScan implements IScanMSD {
 		}
 	}
 
-	// TODO JUnit und optimieren
 	@Override
 	public IIon getIon(double ion) throws AbundanceLimitExceededException, IonLimitExceededException {
 
 		if(hasIons()) {
-			for(IIon actualIon : ionsList) {
+			int index = getLowerBound(ion);
+			if(index < sortedIons.size()) {
+				IIon actualIon = sortedIons.get(index);
 				if(actualIon.getIon() == ion) {
 					return actualIon;
 				}
@@ -510,9 +599,19 @@ public abstract class AbstractScanMSD extends AbstractScan implements IScanMSD {
 	public IIon getIon(double ion, int precision) throws AbundanceLimitExceededException, IonLimitExceededException {
 
 		if(hasIons()) {
-			for(IIon actualIon : ionsList) {
+			/*
+			 * The precision is at least 1 decimal place, hence all ions that
+			 * could match are within +/- 1 m/z.
+			 */
+			double roundedIon = AbstractIon.getIon(ion, precision);
+			int size = sortedIons.size();
+			for(int i = getLowerBound(ion - 1.0d); i < size; i++) {
+				IIon actualIon = sortedIons.get(i);
+				if(actualIon.getIon() > ion + 1.0d) {
+					break;
+				}
 				double accurateIon = AbstractIon.getIon(actualIon.getIon(), precision);
-				if(accurateIon == AbstractIon.getIon(ion, precision)) {
+				if(accurateIon == roundedIon) {
 					return new Ion(accurateIon, actualIon.getAbundance());
 				}
 			}
@@ -548,6 +647,7 @@ public abstract class AbstractScanMSD extends AbstractScan implements IScanMSD {
 				logger.warn(e);
 			}
 		}
+		setDirty(true);
 	}
 
 	@Override
@@ -578,6 +678,7 @@ public abstract class AbstractScanMSD extends AbstractScan implements IScanMSD {
 				logger.warn(e);
 			}
 		}
+		setDirty(true);
 	}
 
 	@Override
@@ -704,6 +805,7 @@ public abstract class AbstractScanMSD extends AbstractScan implements IScanMSD {
 				logger.warn(e);
 			}
 		}
+		setDirty(true);
 		return this;
 	}
 
@@ -715,7 +817,23 @@ public abstract class AbstractScanMSD extends AbstractScan implements IScanMSD {
 
 	protected void setIons(Collection<? extends IIon> ions) {
 
-		this.ionsList = new ArrayList<>(ions);
+		createNewIonList();
+		addAllIons(ions);
+	}
+
+	/**
+	 * Creates the list that stores the ions. By default, the ion objects are kept in
+	 * an ArrayList.<br/>
+	 * Scans that store many ions, e.g. high resolution scans read by a converter, may
+	 * return a {@link ColumnarIonList} which keeps the m/z values and abundances in
+	 * primitive arrays sorted by m/z. The returned list must be empty. Other lists keep
+	 * the insertion order. Please note that this method is called by the constructor.
+	 *
+	 * @return List
+	 */
+	protected List<IIon> createIonList() {
+
+		return new ArrayList<IIon>(200);
 	}
 
 	@Override
@@ -856,6 +974,16 @@ public abstract class AbstractScanMSD extends AbstractScan implements IScanMSD {
 		return massSpectrum;
 	}
 
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+
+		in.defaultReadObject();
+		/*
+		 * The m/z index is not stored.
+		 */
+		initSortedIons();
+		sortIons();
+	}
+
 	/**
 	 * Adds both intensities from firstIon to secondIon.
 	 * 
@@ -898,7 +1026,199 @@ public abstract class AbstractScanMSD extends AbstractScan implements IScanMSD {
 	 */
 	private void createNewIonList() {
 
-		ionsList = new ArrayList<IIon>(200);
+		ionsList = createIonList();
+		initSortedIons();
+	}
+
+	private void initSortedIons() {
+
+		if(ionsList instanceof ColumnarIonList) {
+			sortedIons = ionsList;
+		} else {
+			sortedIons = new ArrayList<>(ionsList);
+		}
+	}
+
+	private void sortIons() {
+
+		if(sortedIons != ionsList) {
+			/*
+			 * The sort is stable, ions with the same m/z value keep their order.
+			 */
+			Collections.sort(sortedIons, ION_VALUE_COMPARATOR);
+		}
+	}
+
+	private void addAllIons(Collection<? extends IIon> ions) {
+
+		ionsList.addAll(ions);
+		if(sortedIons != ionsList) {
+			sortedIons.addAll(ions);
+			sortIons();
+		}
+	}
+
+	private void clearIonLists() {
+
+		ionsList.clear();
+		sortedIons.clear();
+	}
+
+	/**
+	 * Appends the ion and inserts it into the m/z index behind the ions
+	 * with a lower or the same m/z value.
+	 */
+	private void insertIon(IIon ion) {
+
+		ionsList.add(ion);
+		if(sortedIons != ionsList) {
+			sortedIons.add(getUpperBound(ion.getIon()), ion);
+		}
+	}
+
+	/**
+	 * Removes the first ion that equals the given ion.
+	 */
+	private boolean deleteIon(IIon ion) {
+
+		int index = ionsList.indexOf(ion);
+		if(index < 0) {
+			return false;
+		}
+		IIon removedIon = ionsList.remove(index);
+		if(sortedIons != ionsList) {
+			int size = sortedIons.size();
+			for(int i = getLowerBound(removedIon.getIon()); i < size; i++) {
+				if(sortedIons.get(i) == removedIon) {
+					sortedIons.remove(i);
+					break;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the index of the first stored ion that matches the given ion or -1.
+	 */
+	private int getIndex(IIon ion) {
+
+		if(ionsList instanceof ColumnarIonList) {
+			return ((ColumnarIonList)ionsList).indexOf(ion.getIon(), ion.getIonTransition());
+		}
+		//
+		int size = sortedIons.size();
+		for(int index = getLowerBound(ion.getIon()); index < size; index++) {
+			IIon actualIon = sortedIons.get(index);
+			if(actualIon.getIon() != ion.getIon()) {
+				break;
+			}
+			if(checkIon(ion, actualIon)) {
+				return index;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the first ion of the sorted list tail that matches the given ion or null.
+	 */
+	private IIon getMatchingIon(List<IIon> ions, IIon ion) {
+
+		IIon matchingIon = null;
+		for(int index = ions.size() - 1; index >= 0; index--) {
+			IIon actualIon = ions.get(index);
+			if(actualIon.getIon() != ion.getIon()) {
+				break;
+			}
+			if(checkIon(ion, actualIon)) {
+				matchingIon = actualIon;
+			}
+		}
+		return matchingIon;
+	}
+
+	/**
+	 * Returns the index of the first ion with a m/z value greater or equal than the given value.
+	 */
+	private int getLowerBound(double ion) {
+
+		if(ionsList instanceof ColumnarIonList) {
+			return ((ColumnarIonList)ionsList).getLowerBound(ion);
+		}
+		//
+		int low = 0;
+		int high = sortedIons.size();
+		while(low < high) {
+			int middle = (low + high) >>> 1;
+			if(sortedIons.get(middle).getIon() < ion) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Returns the index of the first ion with a m/z value greater than the given value.
+	 */
+	private int getUpperBound(double ion) {
+
+		if(ionsList instanceof ColumnarIonList) {
+			return ((ColumnarIonList)ionsList).getUpperBound(ion);
+		}
+		//
+		int low = 0;
+		int high = sortedIons.size();
+		while(low < high) {
+			int middle = (low + high) >>> 1;
+			if(sortedIons.get(middle).getIon() <= ion) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Returns the ion with the lowest m/z value. Ions with the same
+	 * m/z value are resolved by the abundance (MZ_FIRST).
+	 */
+	private IIon getLowestIonByValue() {
+
+		Comparator<IIon> comparator = new IonCombinedComparator(IonComparatorMode.MZ_FIRST);
+		IIon lowest = sortedIons.get(0);
+		int size = sortedIons.size();
+		for(int index = 1; index < size; index++) {
+			IIon actualIon = sortedIons.get(index);
+			if(actualIon.getIon() != lowest.getIon()) {
+				break;
+			}
+			if(comparator.compare(actualIon, lowest) < 0) {
+				lowest = actualIon;
+			}
+		}
+		return lowest;
+	}
+
+	/**
+	 * Returns the ion with the highest m/z value. Ions with the same
+	 * m/z value are resolved by the abundance (MZ_FIRST).
+	 */
+	private IIon getHighestIonByValue() {
+
+		Comparator<IIon> comparator = new IonCombinedComparator(IonComparatorMode.MZ_FIRST);
+		int size = sortedIons.size();
+		IIon highest = null;
+		for(int index = getLowerBound(sortedIons.get(size - 1).getIon()); index < size; index++) {
+			IIon actualIon = sortedIons.get(index);
+			if(highest == null || comparator.compare(actualIon, highest) > 0) {
+				highest = actualIon;
+			}
+		}
+		return highest;
 	}
 
 	/**
@@ -934,7 +1254,9 @@ public abstract class AbstractScanMSD extends AbstractScan implements IScanMSD {
 		 * Remove all retrieved items.
 		 */
 		for(IIon ion : ionsToRemove) {
-			ionsList.remove(ion);
+			if(deleteIon(ion)) {
+				setDirty(true);
+			}
 		}
 	}
 
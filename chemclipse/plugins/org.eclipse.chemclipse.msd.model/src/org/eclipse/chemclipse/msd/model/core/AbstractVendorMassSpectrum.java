@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2018 Lablicate GmbH.
+ * Copyright (c) 2008, 2020 Lablicate GmbH.
  * 
  * All rights reserved.
  * This program and the accompanying materials are made available under the
@@ -55,6 +55,13 @@ public abstract class AbstractVendorMassSpectrum extends AbstractRegularMassSpec
 		return this;
 	}
 
+	@Override
+	public AbstractVendorMassSpectrum addIons(double[] ions, float[] abundances, int size) {
+
+		super.addIons(ions, abundances, Math.max(0, Math.min(size, getMaxPossibleIons() - getNumberOfIons())));
+		return this;
+	}
+
 	@Override
 	public void setRetentionTime(int retentionTime) {
 
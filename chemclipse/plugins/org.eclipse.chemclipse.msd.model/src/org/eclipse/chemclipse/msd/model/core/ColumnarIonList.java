@@ -0,0 +1,622 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Lablicate GmbH.
+ *
+ * All rights reserved.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Dr. Philip Wenig - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.chemclipse.msd.model.core;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+import org.eclipse.chemclipse.model.exceptions.AbundanceLimitExceededException;
+import org.eclipse.chemclipse.msd.model.exceptions.IonLimitExceededException;
+import org.eclipse.chemclipse.msd.model.implementation.Ion;
+import org.eclipse.core.runtime.Platform;
+
+/**
+ * Stores the ions of a scan column wise in primitive arrays, sorted by m/z.<br/>
+ * The m/z values and abundances are kept in a double[] and a float[] array, the ion
+ * transitions are only stored once an ion with a transition has been added. Hence, no
+ * ion objects are kept in memory.<br/>
+ * The ions returned by get(index) are views on the stored values. Setting the abundance
+ * writes through, setting the m/z value moves the ion to its sorted position. A view of
+ * an ion that has been removed keeps its last values.
+ */
+public class ColumnarIonList extends AbstractList<IIon> implements RandomAccess, Serializable {
+
+	/**
+	 * Renew the serialVersionUID any time you have changed some fields or
+	 * methods.
+	 */
+	private static final long serialVersionUID = -2197423656214728841L;
+	private static final int DEFAULT_CAPACITY = 16;
+	//
+	private double[] ions;
+	private float[] abundances;
+	private IIonTransition[] ionTransitions;
+	private int size;
+
+	public ColumnarIonList() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public ColumnarIonList(int capacity) {
+		capacity = Math.max(0, capacity);
+		ions = new double[capacity];
+		abundances = new float[capacity];
+	}
+
+	@Override
+	public int size() {
+
+		return size;
+	}
+
+	@Override
+	public IIon get(int index) {
+
+		checkIndex(index);
+		return new ColumnarIon(index);
+	}
+
+	/**
+	 * Returns the m/z value at the given index.
+	 *
+	 * @param index
+	 * @return double
+	 */
+	public double getIon(int index) {
+
+		checkIndex(index);
+		return ions[index];
+	}
+
+	/**
+	 * Returns the abundance at the given index.
+	 *
+	 * @param index
+	 * @return float
+	 */
+	public float getAbundance(int index) {
+
+		checkIndex(index);
+		return abundances[index];
+	}
+
+	/**
+	 * Returns the ion transition at the given index or null.
+	 *
+	 * @param index
+	 * @return {@link IIonTransition}
+	 */
+	public IIonTransition getIonTransition(int index) {
+
+		checkIndex(index);
+		return ionTransitions == null ? null : ionTransitions[index];
+	}
+
+	/**
+	 * Sets the abundance at the given index.
+	 *
+	 * @param index
+	 * @param abundance
+	 * @throws AbundanceLimitExceededException
+	 */
+	public void setAbundance(int index, float abundance) throws AbundanceLimitExceededException {
+
+		checkIndex(index);
+		if(abundance < 0) {
+			throw new AbundanceLimitExceededException("The abundance value can't be negative. It is actual: " + abundance);
+		}
+		abundances[index] = abundance;
+	}
+
+	@Override
+	public boolean add(IIon ion) {
+
+		add(ion.getIon(), ion.getAbundance(), ion.getIonTransition());
+		return true;
+	}
+
+	/**
+	 * Adds the ion at its sorted position and returns the index.
+	 * An ion with the same m/z value is added behind the existing ones.
+	 *
+	 * @param ion
+	 * @param abundance
+	 * @param ionTransition
+	 * @return int
+	 */
+	public int add(double ion, float abundance, IIonTransition ionTransition) {
+
+		int index = (size == 0 || ions[size - 1] <= ion) ? size : getUpperBound(ion);
+		insert(index, ion, abundance, ionTransition);
+		return index;
+	}
+
+	/**
+	 * Adds the given m/z values and abundances, e.g. read by a converter.<br/>
+	 * Like IScanMSD.addIon(false, ion), only the higher abundance is kept if an
+	 * ion with the same m/z value (and without transition) is stored already.
+	 * Negative values are skipped.
+	 *
+	 * @param ions
+	 * @param abundances
+	 * @param length
+	 */
+	public void addAll(double[] ions, float[] abundances, int length) {
+
+		if(size == 0 && isStrictlyAscending(ions, abundances, length)) {
+			/*
+			 * The values delivered by converters are normally sorted.
+			 */
+			ensureCapacity(length);
+			System.arraycopy(ions, 0, this.ions, 0, length);
+			System.arraycopy(abundances, 0, this.abundances, 0, length);
+			size = length;
+			modCount++;
+		} else {
+			ensureCapacity(size + length);
+			for(int i = 0; i < length; i++) {
+				if(ions[i] >= 0 && abundances[i] >= 0) {
+					int index = indexOf(ions[i], null);
+					if(index < 0) {
+						add(ions[i], abundances[i], null);
+					} else if(abundances[i] >= this.abundances[index]) {
+						this.abundances[index] = abundances[i];
+					}
+				}
+			}
+		}
+	}
+
+	@Override
+	public IIon remove(int index) {
+
+		ColumnarIon ion = new ColumnarIon(index);
+		ion.detach();
+		removeAt(index);
+		return ion;
+	}
+
+	@Override
+	public boolean remove(Object object) {
+
+		int index = indexOf(object);
+		if(index >= 0) {
+			removeAt(index);
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	public IIon set(int index, IIon ion) {
+
+		IIon previous = remove(index);
+		add(ion);
+		return previous;
+	}
+
+	@Override
+	public void clear() {
+
+		if(size > 0) {
+			size = 0;
+			ionTransitions = null;
+			modCount++;
+		}
+	}
+
+	@Override
+	public boolean contains(Object object) {
+
+		return indexOf(object) >= 0;
+	}
+
+	/**
+	 * Returns the index of an ion with the same m/z value, abundance and transition or -1.
+	 */
+	@Override
+	public int indexOf(Object object) {
+
+		if(object instanceof ColumnarIon && ((ColumnarIon)object).getList() == this) {
+			return ((ColumnarIon)object).locate();
+		} else if(object instanceof IIon) {
+			IIon ion = (IIon)object;
+			for(int index = getLowerBound(ion.getIon()); index < size && ions[index] == ion.getIon(); index++) {
+				if(abundances[index] == ion.getAbundance() && getTransition(index) == ion.getIonTransition()) {
+					return index;
+				}
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the index of the ion with the given m/z value and transition or -1.
+	 *
+	 * @param ion
+	 * @param ionTransition
+	 * @return int
+	 */
+	public int indexOf(double ion, IIonTransition ionTransition) {
+
+		for(int index = getLowerBound(ion); index < size && ions[index] == ion; index++) {
+			IIonTransition transition = getTransition(index);
+			if(ionTransition == null ? transition == null : ionTransition.equals(transition)) {
+				return index;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the index of the first ion with a m/z value greater or equal than the given value.
+	 * If there is no such ion, size() is returned.
+	 *
+	 * @param ion
+	 * @return int
+	 */
+	public int getLowerBound(double ion) {
+
+		int low = 0;
+		int high = size;
+		while(low < high) {
+			int middle = (low + high) >>> 1;
+			if(ions[middle] < ion) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Returns the index of the first ion with a m/z value greater than the given value.
+	 * If there is no such ion, size() is returned.
+	 *
+	 * @param ion
+	 * @return int
+	 */
+	public int getUpperBound(double ion) {
+
+		int low = 0;
+		int high = size;
+		while(low < high) {
+			int middle = (low + high) >>> 1;
+			if(ions[middle] <= ion) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	public float getTotalSignal() {
+
+		float totalSignal = 0;
+		for(int i = 0; i < size; i++) {
+			totalSignal += abundances[i];
+		}
+		return totalSignal;
+	}
+
+	/**
+	 * Returns the index of the highest abundance or -1 if no ion is stored.
+	 * Equal abundances are resolved by the higher m/z value.
+	 *
+	 * @return int
+	 */
+	public int getHighestAbundanceIndex() {
+
+		int index = -1;
+		for(int i = 0; i < size; i++) {
+			if(index < 0 || abundances[i] >= abundances[index]) {
+				index = i;
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * Returns the index of the lowest abundance or -1 if no ion is stored.
+	 * Equal abundances are resolved by the lower m/z value.
+	 *
+	 * @return int
+	 */
+	public int getLowestAbundanceIndex() {
+
+		int index = -1;
+		for(int i = 0; i < size; i++) {
+			if(index < 0 || abundances[i] < abundances[index]) {
+				index = i;
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * Reduces the capacity of the arrays to the number of stored ions.
+	 */
+	public void trimToSize() {
+
+		if(ions.length > size) {
+			ions = Arrays.copyOf(ions, size);
+			abundances = Arrays.copyOf(abundances, size);
+			if(ionTransitions != null) {
+				ionTransitions = Arrays.copyOf(ionTransitions, size);
+			}
+		}
+	}
+
+	private void writeObject(ObjectOutputStream out) throws IOException {
+
+		trimToSize();
+		out.defaultWriteObject();
+	}
+
+	private boolean isStrictlyAscending(double[] ions, float[] abundances, int length) {
+
+		for(int i = 0; i < length; i++) {
+			if(ions[i] < 0 || abundances[i] < 0 || (i > 0 && ions[i] <= ions[i - 1])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private IIonTransition getTransition(int index) {
+
+		return ionTransitions == null ? null : ionTransitions[index];
+	}
+
+	private void insert(int index, double ion, float abundance, IIonTransition ionTransition) {
+
+		ensureCapacity(size + 1);
+		int move = size - index;
+		if(move > 0) {
+			System.arraycopy(ions, index, ions, index + 1, move);
+			System.arraycopy(abundances, index, abundances, index + 1, move);
+			if(ionTransitions != null) {
+				System.arraycopy(ionTransitions, index, ionTransitions, index + 1, move);
+			}
+		}
+		ions[index] = ion;
+		abundances[index] = abundance;
+		if(ionTransitions == null && ionTransition != null) {
+			ionTransitions = new IIonTransition[ions.length];
+		}
+		if(ionTransitions != null) {
+			ionTransitions[index] = ionTransition;
+		}
+		size++;
+		modCount++;
+	}
+
+	private void removeAt(int index) {
+
+		checkIndex(index);
+		int move = size - index - 1;
+		if(move > 0) {
+			System.arraycopy(ions, index + 1, ions, index, move);
+			System.arraycopy(abundances, index + 1, abundances, index, move);
+			if(ionTransitions != null) {
+				System.arraycopy(ionTransitions, index + 1, ionTransitions, index, move);
+			}
+		}
+		size--;
+		if(ionTransitions != null) {
+			ionTransitions[size] = null;
+		}
+		modCount++;
+	}
+
+	private void ensureCapacity(int capacity) {
+
+		if(capacity > ions.length) {
+			int length = Math.max(capacity, ions.length + (ions.length >> 1) + 1);
+			ions = Arrays.copyOf(ions, length);
+			abundances = Arrays.copyOf(abundances, length);
+			if(ionTransitions != null) {
+				ionTransitions = Arrays.copyOf(ionTransitions, length);
+			}
+		}
+	}
+
+	private void checkIndex(int index) {
+
+		if(index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+	}
+
+	/**
+	 * The view of an ion stored in the list.
+	 */
+	private class ColumnarIon implements IIon {
+
+		private static final long serialVersionUID = -7802232460862370377L;
+		//
+		private int index;
+		private int expectedModCount;
+		private boolean attached = true;
+		private double ion;
+		private float abundance;
+		private IIonTransition ionTransition;
+
+		public ColumnarIon(int index) {
+			this.index = index;
+			this.expectedModCount = modCount;
+			this.ion = ions[index];
+			this.abundance = abundances[index];
+			this.ionTransition = getTransition(index);
+		}
+
+		@Override
+		public double getIon() {
+
+			int position = locate();
+			if(position >= 0) {
+				ion = ions[position];
+			}
+			return ion;
+		}
+
+		@Override
+		public ColumnarIon setIon(double ion) throws IonLimitExceededException {
+
+			if(ion < 0) {
+				throw new IonLimitExceededException("The ion value can't be negative. It is actual: " + ion);
+			}
+			int position = locate();
+			if(position >= 0) {
+				/*
+				 * Move the ion to its sorted position.
+				 */
+				float actualAbundance = abundances[position];
+				removeAt(position);
+				index = add(ion, actualAbundance, ionTransition);
+				expectedModCount = modCount;
+			}
+			this.ion = ion;
+			return this;
+		}
+
+		@Override
+		public float getAbundance() {
+
+			int position = locate();
+			if(position >= 0) {
+				abundance = abundances[position];
+			}
+			return abundance;
+		}
+
+		@Override
+		public ColumnarIon setAbundance(float abundance) throws AbundanceLimitExceededException {
+
+			if(abundance < 0) {
+				throw new AbundanceLimitExceededException("The abundance value can't be negative. It is actual: " + abundance);
+			}
+			int position = locate();
+			if(position >= 0) {
+				abundances[position] = abundance;
+			}
+			this.abundance = abundance;
+			return this;
+		}
+
+		@Override
+		public IIonTransition getIonTransition() {
+
+			return ionTransition;
+		}
+
+		@Override
+		public int compareTo(IIon other) {
+
+			return (int)(getIon() - other.getIon());
+		}
+
+		@Override
+		@SuppressWarnings({"rawtypes", "unchecked"})
+		public Object getAdapter(Class adapter) {
+
+			return Platform.getAdapterManager().getAdapter(this, adapter);
+		}
+
+		@Override
+		public boolean equals(Object otherObject) {
+
+			if(this == otherObject) {
+				return true;
+			}
+			if(otherObject == null) {
+				return false;
+			}
+			if(getClass() != otherObject.getClass()) {
+				return false;
+			}
+			ColumnarIon other = (ColumnarIon)otherObject;
+			return getIon() == other.getIon() && getAbundance() == other.getAbundance() && ionTransition == other.getIonTransition();
+		}
+
+		@Override
+		public int hashCode() {
+
+			int ionTransitionHashCode = 0;
+			if(ionTransition != null) {
+				ionTransitionHashCode = ionTransition.hashCode();
+			}
+			return 7 * Double.valueOf(getIon()).hashCode() + 11 * Float.valueOf(getAbundance()).hashCode() + ionTransitionHashCode;
+		}
+
+		@Override
+		public String toString() {
+
+			StringBuilder builder = new StringBuilder();
+			builder.append(getClass().getName());
+			builder.append("[");
+			builder.append("ion=" + getIon());
+			builder.append(",");
+			builder.append("abundance=" + getAbundance());
+			builder.append(",");
+			builder.append("ionTransition=" + ionTransition);
+			builder.append("]");
+			return builder.toString();
+		}
+
+		private ColumnarIonList getList() {
+
+			return ColumnarIonList.this;
+		}
+
+		private void detach() {
+
+			attached = false;
+		}
+
+		/**
+		 * Returns the actual index of the ion or -1 if it has been removed.
+		 */
+		private int locate() {
+
+			if(attached && expectedModCount != modCount) {
+				index = indexOf(ion, ionTransition);
+				expectedModCount = modCount;
+				attached = index >= 0;
+			}
+			return attached ? index : -1;
+		}
+
+		/**
+		 * The view is stored as a detached ion.
+		 */
+		private Object writeReplace() throws ObjectStreamException {
+
+			try {
+				if(ionTransition != null) {
+					return new Ion(getIon(), getAbundance(), ionTransition);
+				}
+				return new Ion(getIon(), getAbundance());
+			} catch(Exception e) {
+				throw new InvalidObjectException(e.getMessage());
+			}
+		}
+	}
+}
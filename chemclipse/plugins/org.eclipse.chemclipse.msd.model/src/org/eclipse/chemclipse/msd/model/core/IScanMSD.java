@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2019 Lablicate GmbH.
+ * Copyright (c) 2008, 2020 Lablicate GmbH.
  * 
  * All rights reserved.
  * This program and the accompanying materials are made available under the
@@ -172,6 +172,20 @@ public interface IScanMSD extends IScan, IMassSpectrumCloneable, IMassSpectrumNo
 	 */
 	IScanMSD addIon(IIon ion, boolean checked);
 
+	/**
+	 * Adds the given m/z values and abundances, e.g. decoded by a converter.<br/>
+	 * If an ion with the same m/z value is stored already, the higher abundance
+	 * is kept, see addIon(false, ion).<br/>
+	 * Scans that store their ions in primitive arrays take the values without
+	 * creating ion objects.
+	 *
+	 * @param ions
+	 * @param abundances
+	 * @param size
+	 * @return {@code this}
+	 */
+	IScanMSD addIons(double[] ions, float[] abundances, int size);
+
 	/**
 	 * Adds a ion to the mass spectrum.<br/>
 	 * Use this method in all standard cases.
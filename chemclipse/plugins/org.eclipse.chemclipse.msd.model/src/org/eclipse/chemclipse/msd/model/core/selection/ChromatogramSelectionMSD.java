@@ -281,6 +281,9 @@ public class ChromatogramSelectionMSD extends AbstractChromatogramSelection<IChr
 	@Override
 	public void fireUpdateChange(boolean forceReload) {
 
+		if(deferUpdate(forceReload)) {
+			return;
+		}
 		try {
 			ChromatogramSelectionMSDUpdateNotifier.fireUpdateChange(this, forceReload);
 		} catch(Exception e) {
@@ -591,8 +591,8 @@ public class PeakBuilderMSD {
 		 * Build a new peakIntensityValues object and add the normalized total
 		 * ion signals.
 		 */
-		IPeakIntensityValues peakIntensityValues = new PeakIntensityValues();
 		List<ITotalScanSignal> signals = peakIntensityTotalIonSignals.getTotalScanSignals();
+		IPeakIntensityValues peakIntensityValues = new PeakIntensityValues(IPeakIntensityValues.MAX_INTENSITY, signals.size());
 		for(ITotalScanSignal signal : signals) {
 			peakIntensityValues.addIntensityValue(signal.getRetentionTime(), signal.getTotalSignal());
 		}
@@ -8,50 +8,79 @@
  * 
  * Contributors:
  * Lorenz Gerber - initial API and implementation
+ * Dr. Philip Wenig - sparse, binned storage for high resolution data
  *******************************************************************************/
 package org.eclipse.chemclipse.msd.model.matrix;
 
-import java.util.DoubleSummaryStatistics;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.function.UnaryOperator;
+import java.util.stream.IntStream;
 
-import org.eclipse.chemclipse.msd.model.core.AbstractIon;
+import org.eclipse.chemclipse.model.core.IScan;
+import org.eclipse.chemclipse.model.exceptions.AbundanceLimitExceededException;
 import org.eclipse.chemclipse.msd.model.core.IIon;
 import org.eclipse.chemclipse.msd.model.core.IIonBounds;
 import org.eclipse.chemclipse.msd.model.core.IScanMSD;
+import org.eclipse.chemclipse.msd.model.core.comparator.IonValueComparator;
 import org.eclipse.chemclipse.msd.model.core.selection.IChromatogramSelectionMSD;
+import org.eclipse.chemclipse.msd.model.exceptions.IonLimitExceededException;
 import org.eclipse.chemclipse.msd.model.implementation.Ion;
 
+/**
+ * The signals of the selected scans, binned by m/z.<br/>
+ * Only bins that contain a signal are stored. Each bin (column) stores the indices
+ * of the scans with a signal and the summed abundances (float).
+ * Different columns can be modified concurrently.
+ */
 public class ExtractedMatrix {
 
+	/**
+	 * Unit resolution, the ions are binned by their nominal m/z.
+	 */
+	public static final double NOMINAL_BIN_WIDTH = 1.0d;
+	public static final double HIGH_RESOLUTION_BIN_WIDTH = 0.001d;
+	//
 	private IChromatogramSelectionMSD selection;
 	private List<IScanMSD> scans;
-	private int startIon;
-	private int stopIon;
+	private double binWidth;
+	/*
+	 * Column -> bin (ascending), scan indices (ascending) and abundances.
+	 */
+	private int[] bins;
+	private int[][] columnScans;
+	private float[][] columnValues;
 	private double[][] signal;
 
+	/**
+	 * The bin width is selected by the resolution of the data.
+	 *
+	 * @param chromatogramSelection
+	 */
 	public ExtractedMatrix(IChromatogramSelectionMSD chromatogramSelection) {
 
+		this(chromatogramSelection, 0.0d);
+	}
+
+	/**
+	 * If the bin width is <= 0, NOMINAL_BIN_WIDTH is used for unit resolution data
+	 * and HIGH_RESOLUTION_BIN_WIDTH for high resolution data.
+	 *
+	 * @param chromatogramSelection
+	 * @param binWidth
+	 */
+	public ExtractedMatrix(IChromatogramSelectionMSD chromatogramSelection, double binWidth) {
+
 		this.selection = chromatogramSelection;
 		this.scans = extractScans();
-		if(checkHighRes(10)) {
-			throw new IllegalArgumentException("HighRes MSD is currently not suported");
+		if(binWidth > 0.0d) {
+			this.binWidth = binWidth;
 		} else {
-			int[] minMaxMz = getMinMaxMz();
-			this.startIon = minMaxMz[0];
-			this.stopIon = minMaxMz[1];
-			int numberOfScans = selection.getStopScan() - selection.getStartScan() + 1;
-			int numberOfIons = this.stopIon - this.startIon + 1;
-			signal = new double[numberOfScans][numberOfIons];
-			List<IIon> currentIons;
-			for(int scanIndex = 0; scanIndex < numberOfScans; scanIndex++) {
-				currentIons = scans.get(scanIndex).getIons();
-				for(IIon ion : currentIons) {
-					signal[scanIndex][((int)Math.round(ion.getIon() - this.startIon))] = ion.getAbundance();
-				}
-			}
+			this.binWidth = checkHighRes(10) ? HIGH_RESOLUTION_BIN_WIDTH : NOMINAL_BIN_WIDTH;
 		}
+		extractSignal();
 	}
 
 	private Boolean checkHighRes(int limit) {
@@ -72,64 +101,363 @@ public class ExtractedMatrix {
 
 	private List<IScanMSD> extractScans() {
 
-		List<IScanMSD> scans;
-		int startScan;
-		int stopScan;
-		startScan = selection.getStartScan();
-		stopScan = selection.getStopScan();
-		scans = selection.getChromatogram() //
-				.getScans() //
-				.stream() //
-				.filter(s -> s instanceof IScanMSD) //
-				.map(IScanMSD.class::cast) //
-				.filter(s -> s.getScanNumber() >= startScan) //
-				.filter(s -> s.getScanNumber() <= stopScan) //
-				.collect(Collectors.toList()); //
+		List<IScanMSD> scans = new ArrayList<>();
+		int startScan = selection.getStartScan();
+		int stopScan = selection.getStopScan();
+		for(int scanNumber = startScan; scanNumber <= stopScan; scanNumber++) {
+			IScan scan = selection.getChromatogram().getScan(scanNumber);
+			if(scan instanceof IScanMSD) {
+				scans.add((IScanMSD)scan);
+			}
+		}
 		return (scans);
 	}
 
-	private int[] getMinMaxMz() {
+	private void extractSignal() {
+
+		/*
+		 * The ions are sorted by m/z, hence the bins of a scan are ascending.
+		 */
+		int numberOfScans = scans.size();
+		int[][] rowBins = new int[numberOfScans][];
+		float[][] rowValues = new float[numberOfScans][];
+		int entries = 0;
+		for(int scanIndex = 0; scanIndex < numberOfScans; scanIndex++) {
+			List<IIon> ions = getSortedIons(scans.get(scanIndex));
+			int[] scanBins = new int[ions.size()];
+			float[] scanValues = new float[ions.size()];
+			int size = 0;
+			for(IIon ion : ions) {
+				int bin = getBin(ion.getIon());
+				if(size > 0 && scanBins[size - 1] == bin) {
+					scanValues[size - 1] += ion.getAbundance();
+				} else {
+					scanBins[size] = bin;
+					scanValues[size] = ion.getAbundance();
+					size++;
+				}
+			}
+			rowBins[scanIndex] = Arrays.copyOf(scanBins, size);
+			rowValues[scanIndex] = Arrays.copyOf(scanValues, size);
+			entries += size;
+		}
+		/*
+		 * Distinct bins
+		 */
+		int[] allBins = new int[entries];
+		int offset = 0;
+		for(int[] scanBins : rowBins) {
+			System.arraycopy(scanBins, 0, allBins, offset, scanBins.length);
+			offset += scanBins.length;
+		}
+		Arrays.sort(allBins);
+		int numberOfBins = 0;
+		for(int i = 0; i < allBins.length; i++) {
+			if(i == 0 || allBins[i] != allBins[i - 1]) {
+				allBins[numberOfBins++] = allBins[i];
+			}
+		}
+		bins = Arrays.copyOf(allBins, numberOfBins);
+		/*
+		 * Rows -> columns
+		 */
+		int[] counts = new int[numberOfBins];
+		int[][] rowColumns = new int[numberOfScans][];
+		for(int scanIndex = 0; scanIndex < numberOfScans; scanIndex++) {
+			int[] scanBins = rowBins[scanIndex];
+			int[] columns = new int[scanBins.length];
+			for(int i = 0; i < scanBins.length; i++) {
+				columns[i] = Arrays.binarySearch(bins, scanBins[i]);
+				counts[columns[i]]++;
+			}
+			rowColumns[scanIndex] = columns;
+		}
+		columnScans = new int[numberOfBins][];
+		columnValues = new float[numberOfBins][];
+		for(int column = 0; column < numberOfBins; column++) {
+			columnScans[column] = new int[counts[column]];
+			columnValues[column] = new float[counts[column]];
+		}
+		Arrays.fill(counts, 0);
+		for(int scanIndex = 0; scanIndex < numberOfScans; scanIndex++) {
+			int[] columns = rowColumns[scanIndex];
+			for(int i = 0; i < columns.length; i++) {
+				int column = columns[i];
+				int index = counts[column]++;
+				columnScans[column][index] = scanIndex;
+				columnValues[column][index] = rowValues[scanIndex][i];
+			}
+		}
+	}
+
+	/**
+	 * Returns a copy of the ions sorted by m/z.
+	 */
+	private List<IIon> getSortedIons(IScanMSD scan) {
+
+		List<IIon> ions = new ArrayList<>(scan.getIons());
+		for(int i = 1; i < ions.size(); i++) {
+			if(ions.get(i).getIon() < ions.get(i - 1).getIon()) {
+				Collections.sort(ions, new IonValueComparator());
+				break;
+			}
+		}
+		return ions;
+	}
+
+	private int getBin(double ion) {
+
+		return (int)Math.round(ion / binWidth);
+	}
+
+	public double getBinWidth() {
+
+		return binWidth;
+	}
+
+	public int getNumberOfScans() {
+
+		return scans.size();
+	}
+
+	/**
+	 * Returns the number of bins that contain a signal.
+	 *
+	 * @return int
+	 */
+	public int getNumberOfColumns() {
+
+		return bins.length;
+	}
+
+	/**
+	 * Returns the m/z of the bin center.
+	 *
+	 * @param column
+	 * @return double
+	 */
+	public double getIon(int column) {
 
-		int[] minMaxMz = new int[2];
-		Stream<Double> s = scans.stream() //
-				.flatMap(scan -> scan.getIons().stream()) //
-				.map(x -> (Double)x.getIon());
-		DoubleSummaryStatistics d = s.collect(Collectors.summarizingDouble(value -> value));
-		minMaxMz[0] = AbstractIon.getIon(d.getMin());
-		minMaxMz[1] = AbstractIon.getIon(d.getMax());
-		return (minMaxMz);
+		return bins[column] * binWidth;
+	}
+
+	/**
+	 * Returns the abundances of the column for all scans.
+	 *
+	 * @param column
+	 * @return float[]
+	 */
+	public float[] getColumn(int column) {
+
+		float[] values = new float[scans.size()];
+		int[] scanIndices = columnScans[column];
+		float[] abundances = columnValues[column];
+		for(int i = 0; i < scanIndices.length; i++) {
+			values[scanIndices[i]] = abundances[i];
+		}
+		return values;
+	}
+
+	/**
+	 * Sets the abundances of the column for all scans.
+	 * Values <= 0 are not stored. Different columns may be set concurrently.
+	 *
+	 * @param column
+	 * @param values
+	 */
+	public void setColumn(int column, float[] values) {
+
+		int size = 0;
+		for(float value : values) {
+			if(value > 0.0f) {
+				size++;
+			}
+		}
+		int[] scanIndices = new int[size];
+		float[] abundances = new float[size];
+		for(int scanIndex = 0, i = 0; scanIndex < values.length; scanIndex++) {
+			if(values[scanIndex] > 0.0f) {
+				scanIndices[i] = scanIndex;
+				abundances[i++] = values[scanIndex];
+			}
+		}
+		columnScans[column] = scanIndices;
+		columnValues[column] = abundances;
+	}
+
+	/**
+	 * Applies the filter to each column in parallel.
+	 * The filter gets the abundances of all scans and returns the filtered values.
+	 *
+	 * @param columnFilter
+	 */
+	public void filterColumns(UnaryOperator<double[]> columnFilter) {
+
+		IntStream.range(0, bins.length).parallel().forEach(column -> {
+			float[] values = getColumn(column);
+			double[] signals = new double[values.length];
+			for(int i = 0; i < values.length; i++) {
+				signals[i] = values[i];
+			}
+			signals = columnFilter.apply(signals);
+			for(int i = 0; i < values.length; i++) {
+				values[i] = (float)signals[i];
+			}
+			setColumn(column, values);
+		});
 	}
 
 	/**
 	 * Returns the scans/ions array
-	 * Scans along rows, ions along columns
-	 * 
+	 * Scans along rows, ions (bins) along columns
+	 * The array is a dense copy. Modifications are written back by updateSignal().
+	 * Use the column methods to process high resolution data.
+	 *
 	 * @return data array scans x ions.
 	 */
 	public double[][] getMatrix() {
 
+		if(signal == null) {
+			signal = new double[scans.size()][bins.length];
+			for(int column = 0; column < bins.length; column++) {
+				int[] scanIndices = columnScans[column];
+				float[] abundances = columnValues[column];
+				for(int i = 0; i < scanIndices.length; i++) {
+					signal[scanIndices[i]][column] = abundances[i];
+				}
+			}
+		}
 		return this.signal;
 	}
 
+	/**
+	 * Writes the signals back to the scans.
+	 * The abundances of the existing ions are updated in place. If a bin contains
+	 * several ions, they are scaled proportionally. Ions in empty bins are removed and
+	 * new signals are added as ions at the bin center.
+	 */
 	public void updateSignal() {
 
-		IScanMSD currentScan;
-		IIon currentIon;
-		int startScan = selection.getStartScan();
-		int stopScan = selection.getStopScan();
+		if(signal != null) {
+			for(int column = 0; column < bins.length; column++) {
+				float[] values = new float[signal.length];
+				for(int scanIndex = 0; scanIndex < signal.length; scanIndex++) {
+					values[scanIndex] = (float)signal[scanIndex][column];
+				}
+				setColumn(column, values);
+			}
+		}
+		/*
+		 * Columns -> rows
+		 */
+		int numberOfScans = scans.size();
+		int[] counts = new int[numberOfScans];
+		for(int[] scanIndices : columnScans) {
+			for(int scanIndex : scanIndices) {
+				counts[scanIndex]++;
+			}
+		}
+		int[][] rowColumns = new int[numberOfScans][];
+		float[][] rowValues = new float[numberOfScans][];
+		for(int scanIndex = 0; scanIndex < numberOfScans; scanIndex++) {
+			rowColumns[scanIndex] = new int[counts[scanIndex]];
+			rowValues[scanIndex] = new float[counts[scanIndex]];
+		}
+		Arrays.fill(counts, 0);
+		for(int column = 0; column < bins.length; column++) {
+			int[] scanIndices = columnScans[column];
+			float[] abundances = columnValues[column];
+			for(int i = 0; i < scanIndices.length; i++) {
+				int scanIndex = scanIndices[i];
+				int index = counts[scanIndex]++;
+				rowColumns[scanIndex][index] = column;
+				rowValues[scanIndex][index] = abundances[i];
+			}
+		}
+		//
 		try {
-			for(int i = startScan; i <= stopScan; i++) {
-				currentScan = (IScanMSD)selection.getChromatogram().getScan(i);
-				currentScan.removeAllIons();
-				for(int j = startIon; j <= stopIon; j++) {
-					if(signal[i - startScan][j - startIon] != 0.0) {
-						currentIon = new Ion(j, (float)signal[i - startScan][j - startIon]);
-						currentScan.addIon(currentIon);
+			for(int scanIndex = 0; scanIndex < numberOfScans; scanIndex++) {
+				updateScan(scans.get(scanIndex), rowColumns[scanIndex], rowValues[scanIndex]);
+			}
+		} catch(AbundanceLimitExceededException | IonLimitExceededException e) {
+			throw new RuntimeException("Updating the Signal failed:", e);
+		}
+	}
+
+	private void updateScan(IScanMSD scan, int[] columns, float[] values) throws AbundanceLimitExceededException, IonLimitExceededException {
+
+		List<IIon> ions = getSortedIons(scan);
+		List<IIon> removeIons = new ArrayList<>();
+		List<IIon> addIons = new ArrayList<>();
+		boolean modified = false;
+		int index = 0;
+		int start = 0;
+		while(start < ions.size()) {
+			/*
+			 * Ions of the same bin.
+			 */
+			int bin = getBin(ions.get(start).getIon());
+			int stop = start;
+			double abundance = 0.0d;
+			while(stop < ions.size() && getBin(ions.get(stop).getIon()) == bin) {
+				abundance += ions.get(stop).getAbundance();
+				stop++;
+			}
+			while(index < columns.length && bins[columns[index]] < bin) {
+				addIon(addIons, columns[index], values[index]);
+				index++;
+			}
+			float value = 0.0f;
+			if(index < columns.length && bins[columns[index]] == bin) {
+				value = values[index++];
+			}
+			/*
+			 * Update in place.
+			 */
+			if(value <= 0.0f) {
+				removeIons.addAll(ions.subList(start, stop));
+			} else if(stop - start == 1) {
+				if(ions.get(start).getAbundance() != value) {
+					ions.get(start).setAbundance(value);
+					modified = true;
+				}
+			} else if(abundance != value) {
+				for(int i = start; i < stop; i++) {
+					IIon ion = ions.get(i);
+					if(abundance > 0.0d) {
+						ion.setAbundance((float)(ion.getAbundance() * value / abundance));
+					} else {
+						ion.setAbundance(value / (stop - start));
 					}
 				}
+				modified = true;
 			}
-		} catch(Exception e) {
-			throw new RuntimeException("Updating the Signal failed:", e);
+			start = stop;
+		}
+		while(index < columns.length) {
+			addIon(addIons, columns[index], values[index]);
+			index++;
+		}
+		//
+		for(IIon ion : removeIons) {
+			scan.removeIon(ion);
+		}
+		for(IIon ion : addIons) {
+			scan.addIon(ion);
+		}
+		if(modified) {
+			scan.setDirty(true);
+		}
+	}
+
+	private void addIon(List<IIon> addIons, int column, float value) throws AbundanceLimitExceededException, IonLimitExceededException {
+
+		/*
+		 * Smoothed or denoised values could be zero or negative.
+		 * Such signals are skipped, like the ions that are updated in place.
+		 */
+		if(value > 0.0f) {
+			addIons.add(new Ion(getIon(column), value));
 		}
 	}
 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2019 Lablicate GmbH.
+ * Copyright (c) 2008, 2020 Lablicate GmbH.
  * 
  * All rights reserved.
  * This program and the accompanying materials are made available under the
@@ -115,6 +115,21 @@ public class ExtractedIonSignal implements IExtractedIonSignal {
 		}
 	}
 
+	/**
+	 * Adds the abundance without creating an ion object.
+	 * The ion is rounded to its nominal value.
+	 *
+	 * @param ion
+	 * @param abundance
+	 */
+	public void addAbundance(double ion, float abundance) {
+
+		int ionActual = AbstractIon.getIon(ion);
+		if(isValidIon(ionActual)) {
+			abundanceValues[ionActual - startIon] += abundance;
+		}
+	}
+
 	@Override
 	public void setAbundance(int ion, float abundance) {
 
@@ -138,9 +138,16 @@ public class Calculations {
 		if(values.length == 0) {
 			return 0.0d;
 		} else {
-			double[] val = Arrays.copyOf(values, values.length);
-			Arrays.sort(val);
-			return val[val.length - 1];
+			/*
+			 * Double.compare orders the values like sorting does.
+			 */
+			double maxValue = values[0];
+			for(int i = 1; i < values.length; i++) {
+				if(Double.compare(values[i], maxValue) > 0) {
+					maxValue = values[i];
+				}
+			}
+			return maxValue;
 		}
 	}
 
@@ -156,9 +163,13 @@ public class Calculations {
 		if(values.length == 0) {
 			return 0.0f;
 		} else {
-			float[] val = Arrays.copyOf(values, values.length);
-			Arrays.sort(val);
-			return val[0];
+			float minValue = values[0];
+			for(int i = 1; i < values.length; i++) {
+				if(Float.compare(values[i], minValue) < 0) {
+					minValue = values[i];
+				}
+			}
+			return minValue;
 		}
 	}
 
@@ -174,9 +185,13 @@ public class Calculations {
 		if(values.length == 0) {
 			return 0.0f;
 		} else {
-			float[] val = Arrays.copyOf(values, values.length);
-			Arrays.sort(val);
-			return val[val.length - 1];
+			float maxValue = values[0];
+			for(int i = 1; i < values.length; i++) {
+				if(Float.compare(values[i], maxValue) > 0) {
+					maxValue = values[i];
+				}
+			}
+			return maxValue;
 		}
 	}
 
@@ -270,12 +285,14 @@ public class Calculations {
 		double median = 0.0d;
 		if(values != null) {
 			double[] data = new double[values.size()];
-			for(int i = 0; i < values.size(); i++) {
-				if(values.get(i) != null) {
-					data[i] = values.get(i);
+			int i = 0;
+			for(Double value : values) {
+				if(value != null) {
+					data[i] = value;
 				}
+				i++;
 			}
-			median = getMedian(data);
+			median = getMedianInPlace(data, data.length);
 		}
 		return median;
 	}
@@ -289,29 +306,11 @@ public class Calculations {
 	 */
 	public static double getMedian(double[] values) {
 
-		double mean = 0.0d;
-		/*
-		 * Check if the size is lower than 2.
-		 */
 		int size = getSize(values);
 		if(size < 3) {
 			return 0.0f;
 		}
-		/*
-		 * Take a look if the size of the array is odd or not.<br/> It is very
-		 * important, that the list is sorted.
-		 */
-		double[] val = Arrays.copyOf(values, values.length);
-		Arrays.sort(val);
-		if(isOdd(size)) {
-			int n1 = size / 2;
-			mean = val[n1];
-		} else {
-			int n1 = (size - 1) / 2;
-			int n2 = size / 2;
-			mean = 0.5d * (val[n1] + val[n2]);
-		}
-		return mean;
+		return getMedianInPlace(Arrays.copyOf(values, size), size);
 	}
 
 	/**
@@ -324,29 +323,18 @@ public class Calculations {
 	 */
 	public static float getMedian(float[] values) {
 
-		float mean = 0.0f;
-		/*
-		 * Check if the size is lower than 2.
-		 */
 		int size = getSize(values);
 		if(size < 3) {
 			return 0.0f;
 		}
-		/*
-		 * Take a look if the size of the array is odd or not.<br/> It is very
-		 * important, that the list is sorted.
-		 */
-		float[] val = Arrays.copyOf(values, values.length);
-		Arrays.sort(val);
+		double[] val = toDouble(values);
+		int n2 = size / 2;
+		float upper = (float)select(val, 0, size - 1, n2);
 		if(isOdd(size)) {
-			int n1 = size / 2;
-			mean = val[n1];
-		} else {
-			int n1 = (size - 1) / 2;
-			int n2 = size / 2;
-			mean = 0.5f * (val[n1] + val[n2]);
+			return upper;
 		}
-		return mean;
+		float lower = (float)getMax(val, 0, n2);
+		return 0.5f * (lower + upper);
 	}
 
 	/**
@@ -359,29 +347,21 @@ public class Calculations {
 	 */
 	public static int getMedian(int[] values) {
 
-		int mean = 0;
-		/*
-		 * Check if the size is lower than 2.
-		 */
 		int size = getSize(values);
 		if(size < 3) {
 			return 0;
 		}
-		/*
-		 * Take a look if the size of the array is odd or not.<br/> It is very
-		 * important, that the list is sorted.
-		 */
-		int[] val = Arrays.copyOf(values, values.length);
-		Arrays.sort(val);
+		double[] val = new double[size];
+		for(int i = 0; i < size; i++) {
+			val[i] = values[i];
+		}
+		int n2 = size / 2;
+		int upper = (int)select(val, 0, size - 1, n2);
 		if(isOdd(size)) {
-			int n1 = size / 2;
-			mean = val[n1];
-		} else {
-			int n1 = (size - 1) / 2;
-			int n2 = size / 2;
-			mean = (int)(0.5f * (val[n1] + val[n2]));
+			return upper;
 		}
-		return mean;
+		int lower = (int)getMax(val, 0, n2);
+		return (int)(0.5f * (lower + upper));
 	}
 
 	/**
@@ -400,21 +380,21 @@ public class Calculations {
 		if(size < 3) {
 			return 0.0f;
 		}
-		double[] deviationFromMean = new double[values.length];
+		double[] deviationFromMean = new double[size];
 		double mean = getMean(values);
-		for(int i = 0; i < values.length; i++) {
-			deviationFromMean[i] = Math.sqrt(Math.pow((values[i] - mean), 2));
+		for(int i = 0; i < size; i++) {
+			deviationFromMean[i] = Math.abs(values[i] - mean);
 		}
-		return getMedian(deviationFromMean);
+		return getMedianInPlace(deviationFromMean, size);
 	}
 
 	public static double getMedianDeviationFromMedian(float[] values) {
 
-		double[] doubles = new double[values.length];
-		for(int i = 0; i < doubles.length; i++) {
-			doubles[i] = values[i];
+		int size = getSize(values);
+		if(size < 3) {
+			return 0.0f;
 		}
-		return getMedianDeviationFromMedian(doubles);
+		return getMedianDeviationFromMedianInPlace(toDouble(values), size);
 	}
 
 	/**
@@ -436,12 +416,131 @@ public class Calculations {
 		if(size < 3) {
 			return 0.0f;
 		}
-		double[] deviationFromMedian = new double[values.length];
-		double median = getMedian(values);
-		for(int i = 0; i < values.length; i++) {
-			deviationFromMedian[i] = Math.sqrt(Math.pow((values[i] - median), 2));
+		return getMedianDeviationFromMedianInPlace(Arrays.copyOf(values, size), size);
+	}
+
+	/**
+	 * Returns the median of the first length values of the array.<br/>
+	 * It must contain at least 3 elements.<br/>
+	 * The median is determined by selection in O(n) instead of sorting a copy,
+	 * hence the order of the values is changed.
+	 * 
+	 * @param values
+	 * @param length
+	 * @return double
+	 */
+	public static double getMedianInPlace(double[] values, int length) {
+
+		if(values == null || length < 3) {
+			return 0.0d;
+		}
+		/*
+		 * After the selection, all values left of the upper middle are lower or equal.
+		 */
+		int n2 = length / 2;
+		double upper = select(values, 0, length - 1, n2);
+		if(isOdd(length)) {
+			return upper;
+		}
+		double lower = getMax(values, 0, n2);
+		return 0.5d * (lower + upper);
+	}
+
+	/**
+	 * Calculates the median from the |value[i] - median| values
+	 * of the first length values of the array.<br/>
+	 * The values are overwritten by their deviations.
+	 * 
+	 * @param values
+	 * @param length
+	 * @return double
+	 */
+	public static double getMedianDeviationFromMedianInPlace(double[] values, int length) {
+
+		if(values == null || length < 3) {
+			return 0.0d;
+		}
+		double median = getMedianInPlace(values, length);
+		for(int i = 0; i < length; i++) {
+			values[i] = Math.abs(values[i] - median);
+		}
+		return getMedianInPlace(values, length);
+	}
+
+	/**
+	 * Returns the percentile (0 - 100) of the given value array.<br/>
+	 * Values between two ranks are interpolated linearly, hence the 50th percentile is the median.<br/>
+	 * The values will not be changed in order.
+	 * 
+	 * @param values
+	 * @param percentile
+	 * @return double
+	 */
+	public static double getPercentile(double[] values, double percentile) {
+
+		int size = getSize(values);
+		return getPercentileInPlace(Arrays.copyOf(values, size), size, percentile);
+	}
+
+	/**
+	 * Returns the percentile (0 - 100) of the first length values of the array.<br/>
+	 * The percentile is determined by selection, hence the order of the values is changed.
+	 * 
+	 * @param values
+	 * @param length
+	 * @param percentile
+	 * @return double
+	 */
+	public static double getPercentileInPlace(double[] values, int length, double percentile) {
+
+		if(percentile < 0.0d || percentile > 100.0d) {
+			throw new IllegalArgumentException("The percentile must be between 0 and 100: " + percentile);
+		}
+		//
+		if(values == null || length < 1) {
+			return 0.0d;
 		}
-		return getMedian(deviationFromMedian);
+		double position = (length - 1) * percentile / 100.0d;
+		int index = (int)position;
+		double fraction = position - index;
+		double lower = select(values, 0, length - 1, index);
+		if(fraction == 0.0d) {
+			return lower;
+		}
+		/*
+		 * All values right of the index are greater or equal.
+		 */
+		double upper = getMin(values, index + 1, length);
+		return (1.0d - fraction) * lower + fraction * upper;
+	}
+
+	/**
+	 * Returns the median of each value within the moving window.<br/>
+	 * The window is centered on the value and truncated at the borders.
+	 * The values must not contain NaN and will not be changed in order.
+	 * 
+	 * @param values
+	 * @param window
+	 * @return double[]
+	 */
+	public static double[] getRollingMedian(double[] values, int window) {
+
+		return calculateRollingMedian(values, window, false);
+	}
+
+	/**
+	 * Returns the median absolute deviation from the median (MAD)
+	 * of each value within the moving window.<br/>
+	 * The window is centered on the value and truncated at the borders.
+	 * The values must not contain NaN and will not be changed in order.
+	 * 
+	 * @param values
+	 * @param window
+	 * @return double[]
+	 */
+	public static double[] getRollingMedianDeviation(double[] values, int window) {
+
+		return calculateRollingMedian(values, window, true);
 	}
 
 	/**
@@ -830,6 +929,174 @@ public class Calculations {
 		return values.length;
 	}
 
+	/**
+	 * The window is kept sorted. Moving the window removes the oldest
+	 * and inserts the newest value by binary search.
+	 */
+	private static double[] calculateRollingMedian(double[] values, int window, boolean deviation) {
+
+		if(window < 1) {
+			throw new IllegalArgumentException("The window must be at least 1: " + window);
+		}
+		//
+		int length = getSize(values);
+		double[] result = new double[length];
+		double[] sorted = new double[Math.min(window, length)];
+		int size = 0;
+		int before = (window - 1) / 2;
+		int after = window / 2;
+		int next = 0;
+		for(int i = 0; i < length; i++) {
+			int remove = i - before - 1;
+			if(remove >= 0) {
+				int index = Arrays.binarySearch(sorted, 0, size, values[remove]);
+				System.arraycopy(sorted, index + 1, sorted, index, size - index - 1);
+				size--;
+			}
+			int stop = Math.min(length - 1, i + after);
+			while(next <= stop) {
+				int index = Arrays.binarySearch(sorted, 0, size, values[next]);
+				if(index < 0) {
+					index = -index - 1;
+				}
+				System.arraycopy(sorted, index, sorted, index + 1, size - index);
+				sorted[index] = values[next++];
+				size++;
+			}
+			double median = getSortedMedian(sorted, size);
+			result[i] = deviation ? getSortedMedianDeviation(sorted, size, median) : median;
+		}
+		return result;
+	}
+
+	private static double getSortedMedian(double[] sorted, int size) {
+
+		int n2 = size / 2;
+		if(isOdd(size)) {
+			return sorted[n2];
+		}
+		return 0.5d * (sorted[n2 - 1] + sorted[n2]);
+	}
+
+	/**
+	 * The deviations of a sorted array from its median are sorted by merging
+	 * the values left and right of the median, hence no copy is required.
+	 */
+	private static double getSortedMedianDeviation(double[] sorted, int size, double median) {
+
+		int right = 0;
+		while(right < size && sorted[right] < median) {
+			right++;
+		}
+		int left = right - 1;
+		int n2 = size / 2;
+		double lower = 0.0d;
+		double upper = 0.0d;
+		for(int k = 0; k <= n2; k++) {
+			double deviation;
+			if(right >= size || (left >= 0 && median - sorted[left] <= sorted[right] - median)) {
+				deviation = median - sorted[left--];
+			} else {
+				deviation = sorted[right++] - median;
+			}
+			lower = upper;
+			upper = deviation;
+		}
+		return isOdd(size) ? upper : 0.5d * (lower + upper);
+	}
+
+	private static double[] toDouble(float[] values) {
+
+		double[] doubles = new double[values.length];
+		for(int i = 0; i < doubles.length; i++) {
+			doubles[i] = values[i];
+		}
+		return doubles;
+	}
+
+	private static double getMax(double[] values, int from, int to) {
+
+		double max = values[from];
+		for(int i = from + 1; i < to; i++) {
+			if(values[i] > max) {
+				max = values[i];
+			}
+		}
+		return max;
+	}
+
+	private static double getMin(double[] values, int from, int to) {
+
+		double min = values[from];
+		for(int i = from + 1; i < to; i++) {
+			if(values[i] < min) {
+				min = values[i];
+			}
+		}
+		return min;
+	}
+
+	/**
+	 * Returns the k-th smallest value between left and right (inclusive).<br/>
+	 * Quickselect with a median of three pivot. If the partitioning degenerates,
+	 * the remaining range is sorted, which limits the worst case to O(n log n).
+	 */
+	private static double select(double[] values, int left, int right, int k) {
+
+		int depth = 2 * (32 - Integer.numberOfLeadingZeros(right - left + 1));
+		while(right > left) {
+			if(right - left < 16 || depth-- == 0) {
+				Arrays.sort(values, left, right + 1);
+				return values[k];
+			}
+			/*
+			 * Median of three, the pivot is moved to the middle.
+			 */
+			int middle = (left + right) >>> 1;
+			if(values[middle] < values[left]) {
+				swap(values, left, middle);
+			}
+			if(values[right] < values[left]) {
+				swap(values, left, right);
+			}
+			if(values[right] < values[middle]) {
+				swap(values, middle, right);
+			}
+			double pivot = values[middle];
+			int i = left;
+			int j = right;
+			while(i <= j) {
+				while(values[i] < pivot) {
+					i++;
+				}
+				while(values[j] > pivot) {
+					j--;
+				}
+				if(i <= j) {
+					swap(values, i++, j--);
+				}
+			}
+			/*
+			 * [left, j] <= pivot, [i, right] >= pivot and the values in between equal the pivot.
+			 */
+			if(k <= j) {
+				right = j;
+			} else if(k >= i) {
+				left = i;
+			} else {
+				return values[k];
+			}
+		}
+		return values[k];
+	}
+
+	private static void swap(double[] values, int i, int j) {
+
+		double value = values[i];
+		values[i] = values[j];
+		values[j] = value;
+	}
+
 	/**
 	 * Checks whether the values are odd or even.
 	 * 
@@ -0,0 +1,153 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Lablicate GmbH.
+ *
+ * All rights reserved.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Dr. Philip Wenig - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.chemclipse.numeric.statistics;
+
+/**
+ * Calculates the mean, variance, min and max of a value stream in one pass,
+ * without storing the values (Welford's algorithm).<br/>
+ * The mean is sum / count, hence it is identical to Calculations.getMean(...).
+ * The variance is the sample variance (n - 1), like Calculations.getVariance(...).
+ */
+public class RunningStatistics {
+
+	private long count;
+	private double sum;
+	private double mean;
+	private double m2;
+	private double min;
+	private double max;
+
+	public void add(double value) {
+
+		if(count == 0) {
+			min = value;
+			max = value;
+		} else {
+			if(value < min) {
+				min = value;
+			}
+			if(value > max) {
+				max = value;
+			}
+		}
+		//
+		count++;
+		sum += value;
+		double delta = value - mean;
+		mean += delta / count;
+		m2 += delta * (value - mean);
+	}
+
+	public void add(double[] values) {
+
+		if(values != null) {
+			for(double value : values) {
+				add(value);
+			}
+		}
+	}
+
+	/**
+	 * Merges the statistics of the given instance, e.g. calculated in a parallel stream.
+	 *
+	 * @param statistics
+	 */
+	public void add(RunningStatistics statistics) {
+
+		if(statistics == null || statistics.count == 0) {
+			return;
+		}
+		//
+		if(count == 0) {
+			count = statistics.count;
+			sum = statistics.sum;
+			mean = statistics.mean;
+			m2 = statistics.m2;
+			min = statistics.min;
+			max = statistics.max;
+		} else {
+			long total = count + statistics.count;
+			double delta = statistics.mean - mean;
+			mean += delta * statistics.count / total;
+			m2 += statistics.m2 + delta * delta * count * statistics.count / total;
+			sum += statistics.sum;
+			min = Math.min(min, statistics.min);
+			max = Math.max(max, statistics.max);
+			count = total;
+		}
+	}
+
+	public long getCount() {
+
+		return count;
+	}
+
+	public double getSum() {
+
+		return sum;
+	}
+
+	/**
+	 * Returns 0, if no value has been added.
+	 *
+	 * @return double
+	 */
+	public double getMean() {
+
+		return (count == 0) ? 0.0d : sum / count;
+	}
+
+	/**
+	 * Returns the sample variance or 0, if less than 2 values have been added.
+	 *
+	 * @return double
+	 */
+	public double getVariance() {
+
+		return (count < 2) ? 0.0d : m2 / (count - 1);
+	}
+
+	public double getStandardDeviation() {
+
+		return Math.sqrt(getVariance());
+	}
+
+	/**
+	 * Returns 0, if no value has been added.
+	 *
+	 * @return double
+	 */
+	public double getMin() {
+
+		return min;
+	}
+
+	/**
+	 * Returns 0, if no value has been added.
+	 *
+	 * @return double
+	 */
+	public double getMax() {
+
+		return max;
+	}
+
+	public void reset() {
+
+		count = 0;
+		sum = 0.0d;
+		mean = 0.0d;
+		m2 = 0.0d;
+		min = 0.0d;
+		max = 0.0d;
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2018 Lablicate GmbH.
+ * Copyright (c) 2008, 2020 Lablicate GmbH.
  * 
  * All rights reserved.
  * This program and the accompanying materials are made available under the
@@ -56,6 +56,7 @@ public class ApplicationSupportCLI {
 	// Attributes
 	private static final String OPTION_ATTRIBUTE_NAME = "option";
 	private static final String OPTION_ATTRIBUTE_HAS_ARGUMENTS = "hasArguments";
+	private static final String OPTION_ATTRIBUTE_HAS_MULTIPLE_ARGUMENTS = "hasMultipleArguments";
 	private static final String OPTION_ATTRIBUTE_DESCRIPTION = "description";
 	private static final String EXECUTABLE_EXTENSION_NAME = "processor";
 
@@ -245,7 +246,14 @@ public class ApplicationSupportCLI {
 			String opt = element.getAttribute(OPTION_ATTRIBUTE_NAME);
 			boolean hasArguments = Boolean.valueOf(element.getAttribute(OPTION_ATTRIBUTE_HAS_ARGUMENTS));
 			String description = element.getAttribute(OPTION_ATTRIBUTE_DESCRIPTION);
+			boolean hasMultipleArguments = Boolean.valueOf(element.getAttribute(OPTION_ATTRIBUTE_HAS_MULTIPLE_ARGUMENTS));
 			option = new Option(opt, hasArguments, description);
+			if(hasArguments && hasMultipleArguments) {
+				/*
+				 * The first argument is mandatory, further arguments are optional.
+				 */
+				option.setArgs(Option.UNLIMITED_VALUES);
+			}
 			options.addOption(option);
 		}
 	}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2013, 2019 Lablicate GmbH.
+ * Copyright (c) 2013, 2020 Lablicate GmbH.
  * 
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -29,6 +29,7 @@ import org.eclipse.chemclipse.model.core.IScan;
 import org.eclipse.chemclipse.model.results.ChromatogramSegmentation;
 import org.eclipse.chemclipse.model.results.NoiseSegmentMeasurementResult;
 import org.eclipse.chemclipse.model.selection.IChromatogramSelection;
+import org.eclipse.chemclipse.model.versioning.ScanRevisionStore;
 import org.eclipse.chemclipse.wsd.model.core.selection.ChromatogramSelectionWSD;
 
 public abstract class AbstractChromatogramWSD extends AbstractChromatogram<IChromatogramPeakWSD> implements IChromatogramWSD {
@@ -140,6 +141,19 @@ public abstract class AbstractChromatogramWSD extends AbstractChromatogram<IChro
 		return baselineModels.containsValue(wavelength);
 	}
 
+	@Override
+	protected long getScanFingerprint(IScan scan) {
+
+		long fingerprint = super.getScanFingerprint(scan);
+		if(scan instanceof IScanWSD) {
+			for(IScanSignalWSD scanSignal : ((IScanWSD)scan).getScanSignals()) {
+				fingerprint = ScanRevisionStore.fingerprint(fingerprint, Double.doubleToLongBits(scanSignal.getWavelength()));
+				fingerprint = ScanRevisionStore.fingerprint(fingerprint, Float.floatToIntBits(scanSignal.getAbundance()));
+			}
+		}
+		return fingerprint;
+	}
+
 	@Override
 	public <ResultType extends IMeasurementResult<?>> ResultType getMeasurementResult(Class<ResultType> type) {
 
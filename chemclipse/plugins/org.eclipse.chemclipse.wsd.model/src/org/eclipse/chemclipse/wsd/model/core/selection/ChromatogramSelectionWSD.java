@@ -111,7 +111,7 @@ public class ChromatogramSelectionWSD extends AbstractChromatogramSelection<IChr
 		 * Fire an update.
 		 */
 		if(fireUpdate) {
-			ChromatogramSelectionWSDUpdateNotifier.fireUpdateChange(this, false);
+			fireUpdateChange(false);
 		}
 	}
 
@@ -149,7 +149,7 @@ public class ChromatogramSelectionWSD extends AbstractChromatogramSelection<IChr
 			 * Fire update change if necessary.
 			 */
 			if(update) {
-				ChromatogramSelectionWSDUpdateNotifier.fireUpdateChange(this, false);
+				fireUpdateChange(false);
 			}
 		}
 	}
@@ -177,6 +177,9 @@ public class ChromatogramSelectionWSD extends AbstractChromatogramSelection<IChr
 	@Override
 	public void fireUpdateChange(boolean forceReload) {
 
+		if(deferUpdate(forceReload)) {
+			return;
+		}
 		ChromatogramSelectionWSDUpdateNotifier.fireUpdateChange(this, forceReload);
 	}
 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2018 Lablicate GmbH.
+ * Copyright (c) 2018, 2020 Lablicate GmbH.
  * 
  * All rights reserved.
  * This program and the accompanying materials are made available under the
@@ -228,8 +228,8 @@ public class PeakBuilderWSD {
 		 * Build a new peakIntensityValues object and add the normalized total
 		 * ion signals.
 		 */
-		IPeakIntensityValues peakIntensityValues = new PeakIntensityValues();
 		List<ITotalScanSignal> signals = peakIntensityTotalIonSignals.getTotalScanSignals();
+		IPeakIntensityValues peakIntensityValues = new PeakIntensityValues(IPeakIntensityValues.MAX_INTENSITY, signals.size());
 		for(ITotalScanSignal signal : signals) {
 			peakIntensityValues.addIntensityValue(signal.getRetentionTime(), signal.getTotalSignal());
 		}
@@ -367,7 +367,7 @@ public class ChromatogramReader_1301 extends AbstractChromatogramReader implemen
 		peakMaximum.setCycleNumber(cycleNumber);
 		//
 		int numberOfRetentionTimes = dataInputStream.readInt(); // Number Retention Times
-		IPeakIntensityValues intensityValues = new PeakIntensityValues(Float.MAX_VALUE);
+		IPeakIntensityValues intensityValues = new PeakIntensityValues(Float.MAX_VALUE, numberOfRetentionTimes);
 		for(int i = 1; i <= numberOfRetentionTimes; i++) {
 			int retentionTimePeak = dataInputStream.readInt(); // Retention Time
 			float relativeIntensity = dataInputStream.readFloat(); // Intensity
@@ -0,0 +1,800 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Lablicate GmbH.
+ * 
+ * All rights reserved.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ * Christoph Läubrich - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.chemclipse.msd.converter.supplier.chemclipse.internal.io;
+
+import static org.eclipse.chemclipse.converter.io.IFileHelper.writeString;
+import static org.eclipse.chemclipse.converter.io.IFileHelper.writeStringCollection;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.eclipse.chemclipse.converter.exceptions.FileIsNotWriteableException;
+import org.eclipse.chemclipse.converter.io.AbstractChromatogramWriter;
+import org.eclipse.chemclipse.csd.converter.supplier.chemclipse.io.ChromatogramWriterCSD;
+import org.eclipse.chemclipse.csd.model.core.IChromatogramCSD;
+import org.eclipse.chemclipse.model.baseline.IBaselineModel;
+import org.eclipse.chemclipse.model.columns.IRetentionIndexEntry;
+import org.eclipse.chemclipse.model.columns.ISeparationColumn;
+import org.eclipse.chemclipse.model.columns.ISeparationColumnIndices;
+import org.eclipse.chemclipse.model.core.IChromatogram;
+import org.eclipse.chemclipse.model.core.IIntegrationEntry;
+import org.eclipse.chemclipse.model.core.IMethod;
+import org.eclipse.chemclipse.model.core.ISignal;
+import org.eclipse.chemclipse.model.core.RetentionIndexType;
+import org.eclipse.chemclipse.model.identifier.IComparisonResult;
+import org.eclipse.chemclipse.model.identifier.IIdentificationTarget;
+import org.eclipse.chemclipse.model.identifier.ILibraryInformation;
+import org.eclipse.chemclipse.model.quantitation.IInternalStandard;
+import org.eclipse.chemclipse.model.quantitation.IQuantitationEntry;
+import org.eclipse.chemclipse.model.targets.ITarget;
+import org.eclipse.chemclipse.msd.converter.supplier.chemclipse.io.ChromatogramWriterMSD;
+import org.eclipse.chemclipse.msd.converter.supplier.chemclipse.io.IChromatogramMSDZipWriter;
+import org.eclipse.chemclipse.msd.model.core.IChromatogramMSD;
+import org.eclipse.chemclipse.msd.model.core.IChromatogramPeakMSD;
+import org.eclipse.chemclipse.msd.model.core.IIon;
+import org.eclipse.chemclipse.msd.model.core.IIonTransition;
+import org.eclipse.chemclipse.msd.model.core.IPeakMSD;
+import org.eclipse.chemclipse.msd.model.core.IPeakMassSpectrum;
+import org.eclipse.chemclipse.msd.model.core.IPeakModelMSD;
+import org.eclipse.chemclipse.msd.model.core.IRegularMassSpectrum;
+import org.eclipse.chemclipse.msd.model.core.IScanMSD;
+import org.eclipse.chemclipse.msd.model.core.IVendorMassSpectrum;
+import org.eclipse.chemclipse.support.history.IEditHistory;
+import org.eclipse.chemclipse.support.history.IEditInformation;
+import org.eclipse.chemclipse.wsd.converter.supplier.chemclipse.io.ChromatogramWriterWSD;
+import org.eclipse.chemclipse.wsd.model.core.IChromatogramWSD;
+import org.eclipse.chemclipse.xxd.converter.supplier.chemclipse.internal.support.IFormat;
+import org.eclipse.chemclipse.xxd.converter.supplier.chemclipse.preferences.PreferenceSupplier;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.SubMonitor;
+
+/**
+ * Methods are copied to ensure that file formats are kept readable even if they contain errors.
+ * This is suitable but I know, it's not the best way to achieve long term support for older formats.
+ */
+public class ChromatogramWriter_1302 extends AbstractChromatogramWriter implements IChromatogramMSDZipWriter {
+
+	@Override
+	public void writeChromatogram(File file, IChromatogramMSD chromatogram, IProgressMonitor monitor) throws FileNotFoundException, FileIsNotWriteableException, IOException {
+
+		/*
+		 * ZIP
+		 */
+		FileOutputStream fileOutputStream = new FileOutputStream(file);
+		ZipOutputStream zipOutputStream = new ZipOutputStream(new BufferedOutputStream(fileOutputStream));
+		zipOutputStream.setLevel(PreferenceSupplier.getChromatogramCompressionLevel());
+		zipOutputStream.setMethod(IFormat.CHROMATOGRAM_COMPRESSION_TYPE);
+		/*
+		 * Write the data.
+		 */
+		writeChromatogram(zipOutputStream, "", chromatogram, monitor);
+		/*
+		 * Flush and close the output stream.
+		 */
+		zipOutputStream.flush();
+		zipOutputStream.close();
+	}
+
+	@Override
+	public void writeChromatogram(ZipOutputStream zipOutputStream, String directoryPrefix, IChromatogramMSD chromatogram, IProgressMonitor monitor) throws IOException {
+
+		writeVersion(zipOutputStream, directoryPrefix, monitor);
+		writeOverviewFolder(zipOutputStream, directoryPrefix, chromatogram, monitor);
+		writeChromatogramFolder(zipOutputStream, directoryPrefix, chromatogram, monitor);
+		/*
+		 * Referenced Chromatograms
+		 */
+		List<IChromatogram<?>> referencedChromatograms = chromatogram.getReferencedChromatograms();
+		writeChromatogramReferenceInfo(zipOutputStream, directoryPrefix, referencedChromatograms, monitor);
+		writeReferencedChromatograms(zipOutputStream, directoryPrefix, referencedChromatograms, monitor);
+	}
+
+	private void writeVersion(ZipOutputStream zipOutputStream, String directoryPrefix, IProgressMonitor monitor) throws IOException {
+
+		ZipEntry zipEntry;
+		DataOutputStream dataOutputStream;
+		/*
+		 * Version
+		 */
+		zipEntry = new ZipEntry(directoryPrefix + IFormat.FILE_VERSION);
+		zipOutputStream.putNextEntry(zipEntry);
+		dataOutputStream = new DataOutputStream(zipOutputStream);
+		String version = IFormat.CHROMATOGRAM_VERSION_1302;
+		dataOutputStream.writeInt(version.length()); // Length Version
+		dataOutputStream.writeChars(version); // Version
+		//
+		dataOutputStream.flush();
+		zipOutputStream.closeEntry();
+	}
+
+	private void writeOverviewFolder(ZipOutputStream zipOutputStream, String directoryPrefix, IChromatogramMSD chromatogram, IProgressMonitor monitor) throws IOException {
+
+		ZipEntry zipEntry;
+		DataOutputStream dataOutputStream;
+		/*
+		 * Create the overview folder
+		 */
+		zipEntry = new ZipEntry(directoryPrefix + IFormat.DIR_OVERVIEW_MSD);
+		zipOutputStream.putNextEntry(zipEntry);
+		zipOutputStream.closeEntry();
+		/*
+		 * TIC
+		 */
+		zipEntry = new ZipEntry(directoryPrefix + IFormat.FILE_TIC_MSD);
+		zipOutputStream.putNextEntry(zipEntry);
+		dataOutputStream = new DataOutputStream(zipOutputStream);
+		int scans = chromatogram.getNumberOfScans();
+		dataOutputStream.writeInt(scans); // Number of Scans
+		// Retention Times - Total Signals
+		for(int scan = 1; scan <= scans; scan++) {
+			dataOutputStream.writeInt(chromatogram.getScan(scan).getRetentionTime()); // Retention Time
+			dataOutputStream.writeFloat(chromatogram.getScan(scan).getTotalSignal()); // Total Signal
+		}
+		//
+		dataOutputStream.flush();
+		zipOutputStream.closeEntry();
+	}
+
+	private void writeChromatogramFolder(ZipOutputStream zipOutputStream, String directoryPrefix, IChromatogramMSD chromatogram, IProgressMonitor monitor) throws IOException {
+
+		SubMonitor subMonitor = SubMonitor.convert(monitor, "Write Chromatogram", 100);
+		try {
+			/*
+			 * Create the chromatogram folder
+			 */
+			ZipEntry zipEntry = new ZipEntry(directoryPrefix + IFormat.DIR_CHROMATOGRAM_MSD);
+			zipOutputStream.putNextEntry(zipEntry);
+			zipOutputStream.closeEntry();
+			/*
+			 * WRITE THE FILES
+			 */
+			writeChromatogramMethod(zipOutputStream, directoryPrefix, chromatogram);
+			subMonitor.worked(20);
+			writeChromatogramScans(zipOutputStream, directoryPrefix, chromatogram, subMonitor);
+			writeChromatogramBaseline(zipOutputStream, directoryPrefix, chromatogram);
+			subMonitor.worked(20);
+			writeChromatogramPeaks(zipOutputStream, directoryPrefix, chromatogram);
+			writeChromatogramArea(zipOutputStream, directoryPrefix, chromatogram);
+			subMonitor.worked(20);
+			writeChromatogramIdentification(zipOutputStream, directoryPrefix, chromatogram);
+			writeChromatogramHistory(zipOutputStream, directoryPrefix, chromatogram);
+			subMonitor.worked(20);
+			writeChromatogramMiscellaneous(zipOutputStream, directoryPrefix, chromatogram);
+			writeSeparationColumn(zipOutputStream, directoryPrefix, chromatogram);
+			subMonitor.worked(20);
+		} finally {
+			SubMonitor.done(subMonitor);
+		}
+	}
+
+	private void writeChromatogramMethod(ZipOutputStream zipOutputStream, String directoryPrefix, IChromatogramMSD chromatogram) throws IOException {
+
+		ZipEntry zipEntry;
+		DataOutputStream dataOutputStream;
+		/*
+		 * Edit-History
+		 */
+		zipEntry = new ZipEntry(directoryPrefix + IFormat.FILE_SYSTEM_SETTINGS_MSD);
+		zipOutputStream.putNextEntry(zipEntry);
+		dataOutputStream = new DataOutputStream(zipOutputStream);
+		IMethod method = chromatogram.getMethod();
+		//
+		writeString(dataOutputStream, method.getInstrumentName());
+		writeString(dataOutputStream, method.getIonSource());
+		dataOutputStream.writeDouble(method.getSamplingRate());
+		dataOutputStream.writeInt(method.getSolventDelay());
+		dataOutputStream.writeDouble(method.getSourceHeater());
+		writeString(dataOutputStream, method.getStopMode());
+		dataOutputStream.writeInt(method.getStopTime());
+		dataOutputStream.writeInt(method.getTimeFilterPeakWidth());
+		//
+		dataOutputStream.flush();
+		zipOutputStream.closeEntry();
+	}
+
+	private void writeChromatogramScans(ZipOutputStream zipOutputStream, String directoryPrefix, IChromatogramMSD chromatogram, IProgressMonitor monitor) throws IOException {
+
+		ZipEntry zipEntry;
+		DataOutputStream dataOutputStream;
+		int scans = chromatogram.getNumberOfScans();
+		long[] offsets = new long[scans];
+		/*
+		 * The scans are stored uncompressed to enable random access via the scan proxies.
+		 * A STORED entry requires the size and CRC in advance, hence the scan block
+		 * is written once to a temporary file, which collects the offsets, the size
+		 * and the checksum. Afterwards, the file is copied to the archive.
+		 */
+		File scanBlockFile = File.createTempFile("ScanBlock", ".tmp");
+		try {
+			ScanBlockOutputStream scanBlockOutputStream = new ScanBlockOutputStream(new BufferedOutputStream(new FileOutputStream(scanBlockFile)));
+			try {
+				dataOutputStream = new DataOutputStream(scanBlockOutputStream);
+				writeScanBlock(dataOutputStream, chromatogram, offsets, scanBlockOutputStream, monitor);
+				dataOutputStream.flush();
+			} finally {
+				scanBlockOutputStream.close();
+			}
+			//
+			zipEntry = new ZipEntry(directoryPrefix + IFormat.FILE_SCANS_MSD);
+			zipEntry.setMethod(ZipEntry.STORED);
+			zipEntry.setSize(scanBlockOutputStream.getSize());
+			zipEntry.setCompressedSize(scanBlockOutputStream.getSize());
+			zipEntry.setCrc(scanBlockOutputStream.getCrc());
+			zipOutputStream.putNextEntry(zipEntry);
+			Files.copy(scanBlockFile.toPath(), zipOutputStream);
+			zipOutputStream.closeEntry();
+		} finally {
+			Files.deleteIfExists(scanBlockFile.toPath());
+		}
+		/*
+		 * Scan Proxies
+		 */
+		writeChromatogramScanProxies(zipOutputStream, directoryPrefix, chromatogram, offsets);
+	}
+
+	private void writeScanBlock(DataOutputStream dataOutputStream, IChromatogramMSD chromatogram, long[] offsets, ScanBlockOutputStream scanBlockOutputStream, IProgressMonitor monitor) throws IOException {
+
+		int scans = chromatogram.getNumberOfScans();
+		dataOutputStream.writeInt(scans); // Number of Scans
+		//
+		SubMonitor subMonitor = SubMonitor.convert(monitor, "Write Scans", scans);
+		try {
+			for(int scan = 1; scan <= scans; scan++) {
+				offsets[scan - 1] = scanBlockOutputStream.getSize();
+				/*
+				 * Write the mass spectrum.
+				 * There could be an additionally optimized mass spectrum.
+				 * This is available, when the user has identified the
+				 * mass spectrum manually.
+				 */
+				IVendorMassSpectrum massSpectrum = chromatogram.getSupplierScan(scan);
+				writeMassSpectrum(dataOutputStream, massSpectrum);
+				IScanMSD optimizedMassSpectrum = massSpectrum.getOptimizedMassSpectrum();
+				if(optimizedMassSpectrum == null) {
+					dataOutputStream.writeBoolean(false);
+				} else {
+					dataOutputStream.writeBoolean(true);
+					writeNormalMassSpectrum(dataOutputStream, optimizedMassSpectrum);
+				}
+				//
+				subMonitor.worked(1);
+			}
+		} finally {
+			SubMonitor.done(subMonitor);
+		}
+	}
+
+	private void writeChromatogramScanProxies(ZipOutputStream zipOutputStream, String directoryPrefix, IChromatogramMSD chromatogram, long[] offsets) throws IOException {
+
+		ZipEntry zipEntry;
+		DataOutputStream dataOutputStream;
+		/*
+		 * Scan Proxies
+		 */
+		zipEntry = new ZipEntry(directoryPrefix + IFormat.FILE_SCANPROXIES_MSD);
+		zipOutputStream.putNextEntry(zipEntry);
+		dataOutputStream = new DataOutputStream(zipOutputStream);
+		//
+		int scans = chromatogram.getNumberOfScans();
+		dataOutputStream.writeInt(scans); // Number of Scans
+		//
+		for(int scan = 1; scan <= scans; scan++) {
+			IVendorMassSpectrum massSpectrum = chromatogram.getSupplierScan(scan);
+			dataOutputStream.writeLong(offsets[scan - 1]); // Offset
+			dataOutputStream.writeInt(massSpectrum.getRetentionTime()); // Retention Time
+			dataOutputStream.writeInt(massSpectrum.getNumberOfIons()); // Number of Ions
+			dataOutputStream.writeFloat(massSpectrum.getTotalSignal()); // Total Signal
+			dataOutputStream.writeFloat(massSpectrum.getRetentionIndex()); // Retention Index
+			dataOutputStream.writeInt(massSpectrum.getTimeSegmentId()); // Time Segment Id
+			dataOutputStream.writeInt(massSpectrum.getCycleNumber()); // Cycle Number
+		}
+		//
+		dataOutputStream.flush();
+		zipOutputStream.closeEntry();
+	}
+
+	private void writeChromatogramBaseline(ZipOutputStream zipOutputStream, String directoryPrefix, IChromatogramMSD chromatogram) throws IOException {
+
+		ZipEntry zipEntry;
+		DataOutputStream dataOutputStream;
+		/*
+		 * Baseline
+		 */
+		zipEntry = new ZipEntry(directoryPrefix + IFormat.FILE_BASELINE_MSD);
+		zipOutputStream.putNextEntry(zipEntry);
+		dataOutputStream = new DataOutputStream(zipOutputStream);
+		int scans = chromatogram.getNumberOfScans();
+		dataOutputStream.writeInt(scans); // Number of Scans
+		//
+		IBaselineModel baselineModel = chromatogram.getBaselineModel();
+		// Scans
+		for(int scan = 1; scan <= scans; scan++) {
+			int retentionTime = chromatogram.getSupplierScan(scan).getRetentionTime();
+			float backgroundAbundance = baselineModel.getBackground(retentionTime);
+			dataOutputStream.writeInt(retentionTime); // Retention Time
+			dataOutputStream.writeFloat(backgroundAbundance); // Background Abundance
+		}
+		//
+		dataOutputStream.flush();
+		zipOutputStream.closeEntry();
+	}
+
+	private void writeChromatogramPeaks(ZipOutputStream zipOutputStream, String directoryPrefix, IChromatogramMSD chromatogram) throws IOException {
+
+		ZipEntry zipEntry;
+		DataOutputStream dataOutputStream;
+		/*
+		 * Peaks
+		 */
+		zipEntry = new ZipEntry(directoryPrefix + IFormat.FILE_PEAKS_MSD);
+		zipOutputStream.putNextEntry(zipEntry);
+		dataOutputStream = new DataOutputStream(zipOutputStream);
+		List<IChromatogramPeakMSD> peaks = chromatogram.getPeaks();
+		dataOutputStream.writeInt(peaks.size()); // Number of Peaks
+		for(IChromatogramPeakMSD peak : peaks) {
+			writePeak(dataOutputStream, peak);
+		}
+		//
+		dataOutputStream.flush();
+		zipOutputStream.closeEntry();
+	}
+
+	private void writeChromatogramArea(ZipOutputStream zipOutputStream, String directoryPrefix, IChromatogramMSD chromatogram) throws IOException {
+
+		ZipEntry zipEntry;
+		DataOutputStream dataOutputStream;
+		/*
+		 * Area
+		 */
+		zipEntry = new ZipEntry(directoryPrefix + IFormat.FILE_AREA_MSD);
+		zipOutputStream.putNextEntry(zipEntry);
+		dataOutputStream = new DataOutputStream(zipOutputStream);
+		//
+		List<IIntegrationEntry> chromatogramIntegrationEntries = chromatogram.getChromatogramIntegrationEntries();
+		writeString(dataOutputStream, chromatogram.getIntegratorDescription()); // Chromatogram Integrator Description
+		writeIntegrationEntries(dataOutputStream, chromatogramIntegrationEntries);
+		//
+		List<IIntegrationEntry> backgroundIntegrationEntries = chromatogram.getBackgroundIntegrationEntries();
+		writeString(dataOutputStream, chromatogram.getIntegratorDescription()); // Background Integrator Description
+		writeIntegrationEntries(dataOutputStream, backgroundIntegrationEntries);
+		//
+		dataOutputStream.flush();
+		zipOutputStream.closeEntry();
+	}
+
+	private void writeChromatogramIdentification(ZipOutputStream zipOutputStream, String directoryPrefix, IChromatogramMSD chromatogram) throws IOException {
+
+		ZipEntry zipEntry;
+		DataOutputStream dataOutputStream;
+		/*
+		 * Identification
+		 */
+		zipEntry = new ZipEntry(directoryPrefix + IFormat.FILE_IDENTIFICATION_MSD);
+		zipOutputStream.putNextEntry(zipEntry);
+		dataOutputStream = new DataOutputStream(zipOutputStream);
+		//
+		Set<IIdentificationTarget> chromatogramTargets = chromatogram.getTargets();
+		dataOutputStream.writeInt(chromatogramTargets.size()); // Number of Targets
+		for(IIdentificationTarget chromatogramTarget : chromatogramTargets) {
+			if(chromatogramTarget instanceof IIdentificationTarget) {
+				IIdentificationTarget identificationEntry = chromatogramTarget;
+				writeIdentificationEntry(dataOutputStream, identificationEntry);
+			}
+		}
+		//
+		dataOutputStream.flush();
+		zipOutputStream.closeEntry();
+	}
+
+	private void writeChromatogramHistory(ZipOutputStream zipOutputStream, String directoryPrefix, IChromatogramMSD chromatogram) throws IOException {
+
+		ZipEntry zipEntry;
+		DataOutputStream dataOutputStream;
+		/*
+		 * Edit-History
+		 */
+		zipEntry = new ZipEntry(directoryPrefix + IFormat.FILE_HISTORY_MSD);
+		zipOutputStream.putNextEntry(zipEntry);
+		dataOutputStream = new DataOutputStream(zipOutputStream);
+		IEditHistory editHistory = chromatogram.getEditHistory();
+		dataOutputStream.writeInt(editHistory.size()); // Number of entries
+		// Date, Description
+		for(IEditInformation editInformation : editHistory) {
+			dataOutputStream.writeLong(editInformation.getDate().getTime()); // Date
+			writeString(dataOutputStream, editInformation.getDescription()); // Description
+		}
+		//
+		dataOutputStream.flush();
+		zipOutputStream.closeEntry();
+	}
+
+	private void writeChromatogramMiscellaneous(ZipOutputStream zipOutputStream, String directoryPrefix, IChromatogramMSD chromatogram) throws IOException {
+
+		ZipEntry zipEntry;
+		DataOutputStream dataOutputStream;
+		/*
+		 * Miscellaneous
+		 */
+		zipEntry = new ZipEntry(directoryPrefix + IFormat.FILE_MISC_MSD);
+		zipOutputStream.putNextEntry(zipEntry);
+		dataOutputStream = new DataOutputStream(zipOutputStream);
+		//
+		Map<String, String> headerData = chromatogram.getHeaderDataMap();
+		dataOutputStream.writeInt(headerData.size());
+		for(Map.Entry<String, String> data : headerData.entrySet()) {
+			writeString(dataOutputStream, data.getKey());
+			writeString(dataOutputStream, data.getValue());
+		}
+		//
+		dataOutputStream.flush();
+		zipOutputStream.closeEntry();
+	}
+
+	private void writeMassSpectrum(DataOutputStream dataOutputStream, IRegularMassSpectrum massSpectrum) throws IOException {
+
+		dataOutputStream.writeShort(massSpectrum.getMassSpectrometer()); // Mass Spectrometer
+		dataOutputStream.writeShort(massSpectrum.getMassSpectrumType()); // Mass Spectrum Type
+		dataOutputStream.writeDouble(massSpectrum.getPrecursorIon()); // Precursor Ion (0 if MS1 or none has been selected)
+		writeNormalMassSpectrum(dataOutputStream, massSpectrum);
+	}
+
+	private void writeNormalMassSpectrum(DataOutputStream dataOutputStream, IScanMSD massSpectrum) throws IOException {
+
+		dataOutputStream.writeInt(massSpectrum.getRetentionTime()); // Retention Time
+		dataOutputStream.writeInt(massSpectrum.getRelativeRetentionTime());
+		dataOutputStream.writeInt(massSpectrum.getRetentionTimeColumn1());
+		dataOutputStream.writeInt(massSpectrum.getRetentionTimeColumn2());
+		dataOutputStream.writeFloat(massSpectrum.getRetentionIndex()); // Retention Index
+		dataOutputStream.writeBoolean(massSpectrum.hasAdditionalRetentionIndices());
+		if(massSpectrum.hasAdditionalRetentionIndices()) {
+			Map<RetentionIndexType, Float> retentionIndicesTyped = massSpectrum.getRetentionIndicesTyped();
+			dataOutputStream.writeInt(retentionIndicesTyped.size());
+			for(Map.Entry<RetentionIndexType, Float> retentionIndexTyped : retentionIndicesTyped.entrySet()) {
+				writeString(dataOutputStream, retentionIndexTyped.getKey().toString());
+				dataOutputStream.writeFloat(retentionIndexTyped.getValue());
+			}
+		}
+		dataOutputStream.writeInt(massSpectrum.getTimeSegmentId()); // Time Segment Id
+		dataOutputStream.writeInt(massSpectrum.getCycleNumber()); // Cycle Number
+		//
+		List<IIon> ions = massSpectrum.getIons();
+		writeMassSpectrumIons(dataOutputStream, ions); // Ions
+		/*
+		 * Identification Results
+		 */
+		dataOutputStream.writeInt(massSpectrum.getTargets().size()); // Number Mass Spectrum Targets
+		for(ITarget target : massSpectrum.getTargets()) {
+			if(target instanceof IIdentificationTarget) {
+				IIdentificationTarget identificationEntry = (IIdentificationTarget)target;
+				writeIdentificationEntry(dataOutputStream, identificationEntry);
+			}
+		}
+	}
+
+	private void writeMassSpectrumIons(DataOutputStream dataOutputStream, List<IIon> ions) throws IOException {
+
+		dataOutputStream.writeInt(ions.size()); // Number of ions
+		for(IIon ion : ions) {
+			dataOutputStream.writeDouble(ion.getIon()); // m/z
+			dataOutputStream.writeFloat(ion.getAbundance()); // Abundance
+			/*
+			 * Ion Transition
+			 */
+			IIonTransition ionTransition = ion.getIonTransition();
+			if(ionTransition == null) {
+				dataOutputStream.writeInt(0); // No ion transition available
+			} else {
+				/*
+				 * parent m/z start, ...
+				 */
+				dataOutputStream.writeInt(1); // Ion transition available
+				writeString(dataOutputStream, ionTransition.getCompoundName()); // compound name
+				dataOutputStream.writeDouble(ionTransition.getQ1StartIon()); // parent m/z start
+				dataOutputStream.writeDouble(ionTransition.getQ1StopIon()); // parent m/z stop
+				dataOutputStream.writeDouble(ionTransition.getQ3StartIon()); // daughter m/z start
+				dataOutputStream.writeDouble(ionTransition.getQ3StopIon()); // daughter m/z stop
+				dataOutputStream.writeDouble(ionTransition.getCollisionEnergy()); // collision energy
+				dataOutputStream.writeDouble(ionTransition.getQ1Resolution()); // q1 resolution
+				dataOutputStream.writeDouble(ionTransition.getQ3Resolution()); // q3 resolution
+				dataOutputStream.writeInt(ionTransition.getTransitionGroup()); // transition group
+				dataOutputStream.writeInt(ionTransition.getDwell()); // dwell
+			}
+		}
+	}
+
+	private void writePeak(DataOutputStream dataOutputStream, IPeakMSD peak) throws IOException {
+
+		IPeakModelMSD peakModel = peak.getPeakModel();
+		//
+		writeString(dataOutputStream, peak.getDetectorDescription()); // Detector Description
+		writeString(dataOutputStream, peak.getQuantifierDescription());
+		dataOutputStream.writeBoolean(peak.isActiveForAnalysis());
+		writeString(dataOutputStream, peak.getIntegratorDescription()); // Integrator Description
+		writeString(dataOutputStream, peak.getModelDescription()); // Model Description
+		writeString(dataOutputStream, peak.getPeakType().toString()); // Peak Type
+		dataOutputStream.writeInt(peak.getSuggestedNumberOfComponents()); // Suggest Number Of Components
+		writeString(dataOutputStream, peak.getName());
+		writeStringCollection(dataOutputStream, peak.getClassifier());
+		//
+		dataOutputStream.writeFloat(peakModel.getBackgroundAbundance(peakModel.getStartRetentionTime())); // Start Background Abundance
+		dataOutputStream.writeFloat(peakModel.getBackgroundAbundance(peakModel.getStopRetentionTime())); // Stop Background Abundance
+		//
+		IPeakMassSpectrum massSpectrum = peakModel.getPeakMassSpectrum();
+		writeMassSpectrum(dataOutputStream, massSpectrum); // Mass Spectrum
+		//
+		List<Integer> retentionTimes = peakModel.getRetentionTimes();
+		dataOutputStream.writeInt(retentionTimes.size()); // Number Retention Times
+		for(int retentionTime : retentionTimes) {
+			dataOutputStream.writeInt(retentionTime); // Retention Time
+			dataOutputStream.writeFloat(peakModel.getPeakAbundance(retentionTime)); // Intensity
+		}
+		//
+		List<IIntegrationEntry> integrationEntries = peak.getIntegrationEntries();
+		writeIntegrationEntries(dataOutputStream, integrationEntries);
+		/*
+		 * Identification Results
+		 */
+		Set<IIdentificationTarget> peakTargets = peak.getTargets();
+		dataOutputStream.writeInt(peakTargets.size()); // Number Peak Targets
+		for(IIdentificationTarget peakTarget : peakTargets) {
+			if(peakTarget instanceof IIdentificationTarget) {
+				IIdentificationTarget identificationEntry = peakTarget;
+				writeIdentificationEntry(dataOutputStream, identificationEntry);
+			}
+		}
+		/*
+		 * Quantitation Results
+		 */
+		List<IQuantitationEntry> quantitationEntries = peak.getQuantitationEntries();
+		dataOutputStream.writeInt(quantitationEntries.size()); // Number Quantitation Entries
+		for(IQuantitationEntry quantitationEntry : quantitationEntries) {
+			writeString(dataOutputStream, quantitationEntry.getName()); // Name
+			writeString(dataOutputStream, quantitationEntry.getChemicalClass()); // Chemical Class
+			dataOutputStream.writeDouble(quantitationEntry.getConcentration()); // Concentration
+			writeString(dataOutputStream, quantitationEntry.getConcentrationUnit()); // Concentration Unit
+			dataOutputStream.writeDouble(quantitationEntry.getArea()); // Area
+			writeString(dataOutputStream, quantitationEntry.getCalibrationMethod()); // Calibration Method
+			dataOutputStream.writeBoolean(quantitationEntry.getUsedCrossZero()); // Used Cross Zero
+			writeString(dataOutputStream, quantitationEntry.getDescription()); // Description
+			/*
+			 * Legacy support
+			 */
+			if(quantitationEntry.getSignal() != ISignal.TOTAL_INTENSITY) {
+				dataOutputStream.writeBoolean(true);
+				dataOutputStream.writeDouble(quantitationEntry.getSignal());
+			} else {
+				dataOutputStream.writeBoolean(false);
+			}
+		}
+		/*
+		 * Optimized Mass Spectrum
+		 */
+		IScanMSD optimizedMassSpectrum = massSpectrum.getOptimizedMassSpectrum();
+		if(optimizedMassSpectrum == null) {
+			dataOutputStream.writeBoolean(false);
+		} else {
+			dataOutputStream.writeBoolean(true);
+			writeNormalMassSpectrum(dataOutputStream, optimizedMassSpectrum);
+		}
+		/*
+		 * Internal Standards
+		 */
+		writeIntenalStandards(dataOutputStream, peak.getInternalStandards());
+	}
+
+	private void writeIntegrationEntries(DataOutputStream dataOutputStream, List<? extends IIntegrationEntry> integrationEntries) throws IOException {
+
+		dataOutputStream.writeInt(integrationEntries.size()); // Number Integration Entries
+		for(IIntegrationEntry integrationEntry : integrationEntries) {
+			dataOutputStream.writeDouble(integrationEntry.getSignal()); // m/z
+			dataOutputStream.writeDouble(integrationEntry.getIntegratedArea()); // Integrated Area
+		}
+	}
+
+	private void writeIntenalStandards(DataOutputStream dataOutputStream, List<IInternalStandard> internalStandards) throws IOException {
+
+		dataOutputStream.writeInt(internalStandards.size()); // size
+		for(IInternalStandard internalStandard : internalStandards) {
+			writeString(dataOutputStream, internalStandard.getName());
+			dataOutputStream.writeDouble(internalStandard.getConcentration());
+			writeString(dataOutputStream, internalStandard.getConcentrationUnit());
+			dataOutputStream.writeDouble(internalStandard.getResponseFactor());
+			writeString(dataOutputStream, internalStandard.getChemicalClass());
+		}
+	}
+
+	private void writeIdentificationEntry(DataOutputStream dataOutputStream, IIdentificationTarget identificationEntry) throws IOException {
+
+		ILibraryInformation libraryInformation = identificationEntry.getLibraryInformation();
+		IComparisonResult comparisonResult = identificationEntry.getComparisonResult();
+		//
+		writeString(dataOutputStream, identificationEntry.getIdentifier()); // Identifier
+		dataOutputStream.writeBoolean(identificationEntry.isManuallyVerified());
+		//
+		dataOutputStream.writeInt(libraryInformation.getRetentionTime());
+		dataOutputStream.writeFloat(libraryInformation.getRetentionIndex());
+		writeString(dataOutputStream, libraryInformation.getCasNumber()); // CAS-Number
+		writeString(dataOutputStream, libraryInformation.getComments()); // Comments
+		writeString(dataOutputStream, libraryInformation.getReferenceIdentifier());
+		writeString(dataOutputStream, libraryInformation.getMiscellaneous()); // Miscellaneous
+		writeString(dataOutputStream, libraryInformation.getDatabase());
+		writeString(dataOutputStream, libraryInformation.getContributor());
+		writeString(dataOutputStream, libraryInformation.getName()); // Name
+		Set<String> synonyms = libraryInformation.getSynonyms(); // Synonyms
+		int numberOfSynonyms = synonyms.size();
+		dataOutputStream.writeInt(numberOfSynonyms);
+		for(String synonym : synonyms) {
+			writeString(dataOutputStream, synonym);
+		}
+		writeString(dataOutputStream, libraryInformation.getFormula()); // Formula
+		writeString(dataOutputStream, libraryInformation.getSmiles()); // SMILES
+		writeString(dataOutputStream, libraryInformation.getInChI()); // InChI
+		dataOutputStream.writeDouble(libraryInformation.getMolWeight()); // Mol Weight
+		dataOutputStream.writeFloat(comparisonResult.getMatchFactor()); // Match Factor
+		dataOutputStream.writeFloat(comparisonResult.getMatchFactorDirect()); // Match Factor Direct
+		dataOutputStream.writeFloat(comparisonResult.getReverseMatchFactor()); // Reverse Match Factor
+		dataOutputStream.writeFloat(comparisonResult.getReverseMatchFactorDirect()); // Reverse Match Factor Direct
+		dataOutputStream.writeFloat(comparisonResult.getProbability()); // Probability
+		dataOutputStream.writeBoolean(comparisonResult.isMatch()); // Is Match
+	}
+
+	private void writeSeparationColumn(ZipOutputStream zipOutputStream, String directoryPrefix, IChromatogramMSD chromatogram) throws IOException {
+
+		ZipEntry zipEntry;
+		DataOutputStream dataOutputStream;
+		//
+		zipEntry = new ZipEntry(directoryPrefix + IFormat.FILE_SEPARATION_COLUMN_MSD);
+		zipOutputStream.putNextEntry(zipEntry);
+		dataOutputStream = new DataOutputStream(zipOutputStream);
+		//
+		ISeparationColumnIndices separationColumnIndices = chromatogram.getSeparationColumnIndices();
+		dataOutputStream.writeInt(separationColumnIndices.size());
+		for(Map.Entry<Integer, IRetentionIndexEntry> entry : separationColumnIndices.entrySet()) {
+			IRetentionIndexEntry retentionIndexEntry = entry.getValue();
+			writeString(dataOutputStream, retentionIndexEntry.getName());
+			dataOutputStream.writeInt(retentionIndexEntry.getRetentionTime());
+			dataOutputStream.writeFloat(retentionIndexEntry.getRetentionIndex());
+		}
+		//
+		ISeparationColumn separationColumn = separationColumnIndices.getSeparationColumn();
+		writeString(dataOutputStream, separationColumn.getName());
+		writeString(dataOutputStream, separationColumn.getLength());
+		writeString(dataOutputStream, separationColumn.getDiameter());
+		writeString(dataOutputStream, separationColumn.getPhase());
+		//
+		dataOutputStream.flush();
+		zipOutputStream.closeEntry();
+	}
+
+	private void writeChromatogramReferenceInfo(ZipOutputStream zipOutputStream, String directoryPrefix, List<IChromatogram<?>> referencedChromatograms, IProgressMonitor monitor) throws IOException {
+
+		ZipEntry zipEntryType = new ZipEntry(directoryPrefix + IFormat.FILE_REFERENCE_INFO);
+		zipOutputStream.putNextEntry(zipEntryType);
+		DataOutputStream dataOutputStream = new DataOutputStream(zipOutputStream);
+		dataOutputStream.writeInt(referencedChromatograms.size());
+		zipOutputStream.closeEntry();
+	}
+
+	@SuppressWarnings("rawtypes")
+	private void writeReferencedChromatograms(ZipOutputStream zipOutputStream, String directoryPrefix, List<IChromatogram<?>> referencedChromatograms, IProgressMonitor monitor) throws IOException {
+
+		SubMonitor subMonitor = SubMonitor.convert(monitor, "Write Chromatogram", referencedChromatograms.size() * 20);
+		try {
+			ChromatogramWriterMSD chromatogramWriterMSD = new ChromatogramWriterMSD();
+			ChromatogramWriterCSD chromatogramWriterCSD = new ChromatogramWriterCSD();
+			ChromatogramWriterWSD chromatogramWriterWSD = new ChromatogramWriterWSD();
+			//
+			int i = 0;
+			for(IChromatogram referencedChromatogram : referencedChromatograms) {
+				/*
+				 * Create the measurement folder.
+				 */
+				String prefix = directoryPrefix + IFormat.DIR_CHROMATOGRAM_REFERENCE + IFormat.CHROMATOGRAM_REFERENCE_SEPARATOR + i++ + IFormat.DIR_SEPARATOR;
+				ZipEntry zipEntryType = new ZipEntry(prefix + IFormat.FILE_CHROMATOGRAM_TYPE);
+				zipOutputStream.putNextEntry(zipEntryType);
+				DataOutputStream dataOutputStream = new DataOutputStream(zipOutputStream);
+				//
+				if(referencedChromatogram instanceof IChromatogramMSD) {
+					/*
+					 * MSD
+					 */
+					writeString(dataOutputStream, IFormat.DATA_TYPE_MSD);
+					dataOutputStream.flush();
+					//
+					prefix += IFormat.DIR_CHROMATOGRAM_REFERENCE + IFormat.DIR_SEPARATOR;
+					ZipEntry zipEntryChromtogram = new ZipEntry(prefix);
+					zipOutputStream.putNextEntry(zipEntryChromtogram);
+					chromatogramWriterMSD.writeChromatogram(zipOutputStream, prefix, (IChromatogramMSD)referencedChromatogram, monitor);
+				} else if(referencedChromatogram instanceof IChromatogramCSD) {
+					/*
+					 * CSD
+					 */
+					writeString(dataOutputStream, IFormat.DATA_TYPE_CSD);
+					dataOutputStream.flush();
+					//
+					prefix += IFormat.DIR_CHROMATOGRAM_REFERENCE + IFormat.DIR_SEPARATOR;
+					ZipEntry zipEntryChromtogram = new ZipEntry(prefix);
+					zipOutputStream.putNextEntry(zipEntryChromtogram);
+					chromatogramWriterCSD.writeChromatogram(zipOutputStream, prefix, (IChromatogramCSD)referencedChromatogram, monitor);
+				} else if(referencedChromatogram instanceof IChromatogramWSD) {
+					/*
+					 * WSD
+					 */
+					writeString(dataOutputStream, IFormat.DATA_TYPE_WSD);
+					dataOutputStream.flush();
+					//
+					prefix += IFormat.DIR_CHROMATOGRAM_REFERENCE + IFormat.DIR_SEPARATOR;
+					ZipEntry zipEntryChromtogram = new ZipEntry(prefix);
+					zipOutputStream.putNextEntry(zipEntryChromtogram);
+					chromatogramWriterWSD.writeChromatogram(zipOutputStream, prefix, (IChromatogramWSD)referencedChromatogram, monitor);
+				}
+				//
+				subMonitor.worked(20);
+				zipOutputStream.closeEntry();
+			}
+		} finally {
+			SubMonitor.done(subMonitor);
+		}
+	}
+
+	/**
+	 * Counts the written bytes and calculates the CRC of the scan block.
+	 */
+	private static final class ScanBlockOutputStream extends FilterOutputStream {
+
+		private final CRC32 crc = new CRC32();
+		private long size = 0;
+
+		public ScanBlockOutputStream(OutputStream outputStream) {
+			super(outputStream);
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+
+			out.write(b);
+			crc.update(b);
+			size++;
+		}
+
+		@Override
+		public void write(byte[] bytes, int offset, int length) throws IOException {
+
+			out.write(bytes, offset, length);
+			crc.update(bytes, offset, length);
+			size += length;
+		}
+
+		public long getSize() {
+
+			return size;
+		}
+
+		public long getCrc() {
+
+			return crc.getValue();
+		}
+	}
+}
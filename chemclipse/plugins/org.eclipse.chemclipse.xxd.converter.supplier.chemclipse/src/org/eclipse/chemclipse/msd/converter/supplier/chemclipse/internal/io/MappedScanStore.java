@@ -0,0 +1,157 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Lablicate GmbH.
+ *
+ * All rights reserved.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Dr. Philip Wenig - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.chemclipse.msd.converter.supplier.chemclipse.internal.io;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.eclipse.chemclipse.converter.io.ArchiveEntry;
+import org.eclipse.chemclipse.converter.io.ArchiveEntry.ByteBufferInputStream;
+
+/**
+ * The scans of the *.ocb format >= 1.3.0.2 are stored uncompressed (ZipEntry.STORED).
+ * Hence, the scan block can be mapped directly and each scan proxy is resolved
+ * by its offset without inflating the preceding data.
+ * All proxies of a chromatogram share one store. The file channel is only opened
+ * to map the scan block and is closed afterwards. The mapped windows are released
+ * as soon as all scans have been loaded or the chromatogram has been unloaded.
+ * They are not unmapped forcibly, as scans could still be read from a released window.
+ * The garbage collector unmaps them after the last reader has finished.
+ */
+public class MappedScanStore implements Serializable {
+
+	/**
+	 * Renew the serialVersionUID any time you have changed some fields or
+	 * methods.
+	 */
+	private static final long serialVersionUID = -2843075169532810384L;
+	//
+	private static final long WINDOW_STEP = 1L << 30; // 1 GB
+	//
+	private final File file;
+	private final String entryName;
+	private final long size;
+	private final int numberOfScans;
+	private int maxScanLength;
+	//
+	private transient MappedByteBuffer[] windows;
+	private transient int loadedScans;
+
+	public MappedScanStore(File file, String entryName, long size, int numberOfScans) {
+		this.file = file;
+		this.entryName = entryName;
+		this.size = size;
+		this.numberOfScans = numberOfScans;
+	}
+
+	public File getFile() {
+
+		return file;
+	}
+
+	/**
+	 * Reads a scan from the mapped scan block.
+	 */
+	public interface IScanReader {
+
+		void read(DataInputStream dataInputStream) throws IOException;
+	}
+
+	/**
+	 * The maximum scan length is used to let the mapped windows overlap.
+	 * This ensures that each scan is accessible from exactly one window.
+	 * It must be set before the first scan is read.
+	 *
+	 * @param maxScanLength
+	 */
+	public void setMaxScanLength(int maxScanLength) {
+
+		this.maxScanLength = maxScanLength;
+	}
+
+	/**
+	 * Reads the scan at the given offset of the scan block.
+	 * After all scans have been read, the windows are released.
+	 *
+	 * @param offset
+	 * @param scanReader
+	 * @throws IOException
+	 */
+	public void readScan(long offset, IScanReader scanReader) throws IOException {
+
+		if(offset < 0 || offset >= size) {
+			throw new IOException("The scan offset " + offset + " is out of range: " + entryName);
+		}
+		//
+		ByteBuffer buffer;
+		synchronized(this) {
+			MappedByteBuffer[] mappedWindows = getWindows();
+			int window = (int)(offset / WINDOW_STEP);
+			buffer = mappedWindows[window].duplicate();
+			buffer.position((int)(offset - window * WINDOW_STEP));
+		}
+		//
+		try {
+			scanReader.read(new DataInputStream(new ByteBufferInputStream(buffer)));
+		} finally {
+			synchronized(this) {
+				loadedScans++;
+				if(loadedScans >= numberOfScans) {
+					close();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Releases the mapped windows. They are mapped again on demand.
+	 */
+	public synchronized void close() {
+
+		windows = null;
+	}
+
+	private MappedByteBuffer[] getWindows() throws IOException {
+
+		if(windows == null) {
+			if(WINDOW_STEP + maxScanLength > Integer.MAX_VALUE) {
+				throw new IOException("The scan size exceeds the supported window size: " + maxScanLength);
+			}
+			//
+			RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+			try {
+				FileChannel fileChannel = randomAccessFile.getChannel();
+				long dataOffset = ArchiveEntry.getDataOffset(fileChannel, entryName);
+				int numberOfWindows = (int)((size + WINDOW_STEP - 1) / WINDOW_STEP);
+				MappedByteBuffer[] mappedWindows = new MappedByteBuffer[Math.max(1, numberOfWindows)];
+				for(int i = 0; i < mappedWindows.length; i++) {
+					long start = i * WINDOW_STEP;
+					long length = Math.min(size - start, WINDOW_STEP + maxScanLength);
+					mappedWindows[i] = fileChannel.map(FileChannel.MapMode.READ_ONLY, dataOffset + start, length);
+				}
+				windows = mappedWindows;
+			} finally {
+				/*
+				 * The mapped buffers stay valid after the channel has been closed.
+				 */
+				randomAccessFile.close();
+			}
+		}
+		return windows;
+	}
+}
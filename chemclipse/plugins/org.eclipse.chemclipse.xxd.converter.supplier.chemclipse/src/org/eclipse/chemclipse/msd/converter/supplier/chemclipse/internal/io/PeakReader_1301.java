@@ -143,7 +143,7 @@ public class PeakReader_1301 extends AbstractZipReader implements IPeakReader {
 		IPeakMassSpectrum peakMaximum = readPeakMassSpectrum(dataInputStream, ionTransitionSettings);
 		//
 		int numberOfRetentionTimes = dataInputStream.readInt(); // Number Retention Times
-		IPeakIntensityValues intensityValues = new PeakIntensityValues(Float.MAX_VALUE);
+		IPeakIntensityValues intensityValues = new PeakIntensityValues(Float.MAX_VALUE, numberOfRetentionTimes);
 		for(int i = 1; i <= numberOfRetentionTimes; i++) {
 			int retentionTime = dataInputStream.readInt(); // Retention Time
 			float relativeIntensity = dataInputStream.readFloat(); // Intensity
@@ -89,6 +89,11 @@ public class PeakReaderMSD implements IPeakReader {
 			peakReader = new PeakReader_1300();
 		} else if(version.equals(IFormat.CHROMATOGRAM_VERSION_1301)) {
 			peakReader = new PeakReader_1301();
+		} else if(version.equals(IFormat.CHROMATOGRAM_VERSION_1302)) {
+			/*
+			 * The peaks are stored the same way as in 1.3.0.1.
+			 */
+			peakReader = new PeakReader_1301();
 		}
 		//
 		if(peakReader != null) {
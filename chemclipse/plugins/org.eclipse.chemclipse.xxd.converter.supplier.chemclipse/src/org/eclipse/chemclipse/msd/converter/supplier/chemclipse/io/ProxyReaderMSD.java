@@ -14,6 +14,7 @@ package org.eclipse.chemclipse.msd.converter.supplier.chemclipse.io;
 import java.io.File;
 import java.io.IOException;
 
+import org.eclipse.chemclipse.msd.converter.supplier.chemclipse.internal.io.MappedScanStore;
 import org.eclipse.chemclipse.msd.converter.supplier.chemclipse.internal.io.ReaderProxy_1003;
 import org.eclipse.chemclipse.msd.converter.supplier.chemclipse.internal.io.ReaderProxy_1004;
 import org.eclipse.chemclipse.msd.converter.supplier.chemclipse.internal.io.ReaderProxy_1005;
@@ -22,6 +23,7 @@ import org.eclipse.chemclipse.msd.converter.supplier.chemclipse.internal.io.Read
 import org.eclipse.chemclipse.msd.converter.supplier.chemclipse.internal.io.ReaderProxy_1100;
 import org.eclipse.chemclipse.msd.converter.supplier.chemclipse.internal.io.ReaderProxy_1300;
 import org.eclipse.chemclipse.msd.converter.supplier.chemclipse.internal.io.ReaderProxy_1301;
+import org.eclipse.chemclipse.msd.converter.supplier.chemclipse.internal.io.ReaderProxy_1302;
 import org.eclipse.chemclipse.msd.converter.supplier.chemclipse.model.chromatogram.IVendorScanProxy;
 import org.eclipse.chemclipse.msd.model.core.IIonTransitionSettings;
 import org.eclipse.chemclipse.xxd.converter.supplier.chemclipse.internal.support.IFormat;
@@ -48,10 +50,27 @@ public class ProxyReaderMSD {
 			scanReaderProxy = new ReaderProxy_1300();
 		} else if(version.equals(IFormat.CHROMATOGRAM_VERSION_1301)) {
 			scanReaderProxy = new ReaderProxy_1301();
+		} else if(version.equals(IFormat.CHROMATOGRAM_VERSION_1302)) {
+			scanReaderProxy = new ReaderProxy_1302();
 		}
 		//
 		if(scanReaderProxy != null) {
 			scanReaderProxy.readMassSpectrum(file, offset, massSpectrum, ionTransitionSettings);
 		}
 	}
+
+	/**
+	 * Reads the mass spectrum from the shared mapped scan block (version >= 1.3.0.2).
+	 * 
+	 * @param scanStore
+	 * @param offset
+	 * @param massSpectrum
+	 * @param ionTransitionSettings
+	 * @throws IOException
+	 */
+	public void readMassSpectrum(MappedScanStore scanStore, long offset, IVendorScanProxy massSpectrum, IIonTransitionSettings ionTransitionSettings) throws IOException {
+
+		ReaderProxy_1302 scanReaderProxy = new ReaderProxy_1302();
+		scanReaderProxy.readMassSpectrum(scanStore, offset, massSpectrum, ionTransitionSettings);
+	}
 }
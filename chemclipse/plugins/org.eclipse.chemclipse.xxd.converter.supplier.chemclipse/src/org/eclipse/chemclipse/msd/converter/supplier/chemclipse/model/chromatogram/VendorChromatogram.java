@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2018 Lablicate GmbH.
+ * Copyright (c) 2008, 2020 Lablicate GmbH.
  * 
  * All rights reserved.
  * This program and the accompanying materials are made available under the
@@ -11,6 +11,7 @@
  *******************************************************************************/
 package org.eclipse.chemclipse.msd.converter.supplier.chemclipse.model.chromatogram;
 
+import org.eclipse.chemclipse.model.core.IScan;
 import org.eclipse.chemclipse.msd.model.core.AbstractChromatogramMSD;
 
 public class VendorChromatogram extends AbstractChromatogramMSD implements IVendorChromatogram {
@@ -26,4 +27,18 @@ public class VendorChromatogram extends AbstractChromatogramMSD implements IVend
 
 		return extractNameFromFile("Chromatogram");
 	}
+
+	@Override
+	public void setUnloaded() {
+
+		super.setUnloaded();
+		/*
+		 * Release the mapped scan block (*.ocb >= 1.3.0.2).
+		 */
+		for(IScan scan : getScans()) {
+			if(scan instanceof VendorScanProxy) {
+				((VendorScanProxy)scan).closeScanStore();
+			}
+		}
+	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2018 Lablicate GmbH.
+ * Copyright (c) 2008, 2020 Lablicate GmbH.
  * 
  * All rights reserved.
  * This program and the accompanying materials are made available under the
@@ -11,9 +11,12 @@
  *******************************************************************************/
 package org.eclipse.chemclipse.msd.converter.supplier.chemclipse.model.chromatogram;
 
+import java.util.List;
+
 import org.eclipse.chemclipse.logging.core.Logger;
 import org.eclipse.chemclipse.model.exceptions.AbundanceLimitExceededException;
 import org.eclipse.chemclipse.msd.model.core.AbstractVendorMassSpectrum;
+import org.eclipse.chemclipse.msd.model.core.ColumnarIonList;
 import org.eclipse.chemclipse.msd.model.core.IIon;
 import org.eclipse.chemclipse.msd.model.exceptions.IonLimitExceededException;
 
@@ -26,6 +29,15 @@ public class VendorScan extends AbstractVendorMassSpectrum implements IVendorSca
 	private static final long serialVersionUID = -2003018665770498972L;
 	private static final Logger logger = Logger.getLogger(VendorScan.class);
 
+	/**
+	 * The ions are stored in primitive arrays, sorted by m/z.
+	 */
+	@Override
+	protected List<IIon> createIonList() {
+
+		return new ColumnarIonList();
+	}
+
 	@Override
 	public int getMaxPossibleIons() {
 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2015, 2018 Lablicate GmbH.
+ * Copyright (c) 2015, 2020 Lablicate GmbH.
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -16,6 +16,7 @@ import java.io.IOException;
 
 import org.eclipse.chemclipse.logging.core.Logger;
 import org.eclipse.chemclipse.model.exceptions.AbundanceLimitExceededException;
+import org.eclipse.chemclipse.msd.converter.supplier.chemclipse.internal.io.MappedScanStore;
 import org.eclipse.chemclipse.msd.converter.supplier.chemclipse.io.ProxyReaderMSD;
 import org.eclipse.chemclipse.msd.model.core.AbstractVendorMassSpectrumProxy;
 import org.eclipse.chemclipse.msd.model.core.IIon;
@@ -29,13 +30,14 @@ public class VendorScanProxy extends AbstractVendorMassSpectrumProxy implements
 	 * Renew the serialVersionUID any time you have changed some fields or
 	 * methods.
 	 */
-	private static final long serialVersionUID = 8949336542952337617L;
+	private static final long serialVersionUID = -6351806839163440541L;
 	private static final Logger logger = Logger.getLogger(VendorScanProxy.class);
 	//
 	private File file;
-	private int offset;
+	private long offset;
 	private String version;
 	private IIonTransitionSettings ionTransitionSettings;
+	private MappedScanStore scanStore;
 
 	public VendorScanProxy(File file, int offset, String version, IIonTransitionSettings ionTransitionSettings) {
 		this.file = file;
@@ -44,6 +46,34 @@ public class VendorScanProxy extends AbstractVendorMassSpectrumProxy implements
 		this.ionTransitionSettings = ionTransitionSettings;
 	}
 
+	/**
+	 * The scan is resolved via the shared mapped scan block.
+	 * 
+	 * @param scanStore
+	 * @param offset
+	 * @param version
+	 * @param ionTransitionSettings
+	 */
+	public VendorScanProxy(MappedScanStore scanStore, long offset, String version, IIonTransitionSettings ionTransitionSettings) {
+		this.file = scanStore.getFile();
+		this.offset = offset;
+		this.version = version;
+		this.ionTransitionSettings = ionTransitionSettings;
+		this.scanStore = scanStore;
+	}
+
+	/**
+	 * Releases the mapped scan block, if the scan has not been loaded yet.
+	 * The scan block is mapped again on demand.
+	 */
+	public void closeScanStore() {
+
+		MappedScanStore scanStore = this.scanStore;
+		if(scanStore != null) {
+			scanStore.close();
+		}
+	}
+
 	@Override
 	public int getMaxPossibleIons() {
 
@@ -67,7 +97,12 @@ public class VendorScanProxy extends AbstractVendorMassSpectrumProxy implements
 
 		try {
 			ProxyReaderMSD scanProxyReaderMSD = new ProxyReaderMSD();
-			scanProxyReaderMSD.readMassSpectrum(file, offset, version, this, ionTransitionSettings, new NullProgressMonitor());
+			if(scanStore != null) {
+				scanProxyReaderMSD.readMassSpectrum(scanStore, offset, this, ionTransitionSettings);
+				scanStore = null;
+			} else {
+				scanProxyReaderMSD.readMassSpectrum(file, (int)offset, version, this, ionTransitionSettings, new NullProgressMonitor());
+			}
 		} catch(IOException e) {
 			logger.warn(e);
 		}
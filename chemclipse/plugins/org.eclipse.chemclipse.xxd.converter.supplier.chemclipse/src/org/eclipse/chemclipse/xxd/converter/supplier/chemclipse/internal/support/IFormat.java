@@ -45,7 +45,8 @@ public interface IFormat {
 	String CHROMATOGRAM_VERSION_1100 = "1.1.0.0"; // Version 1.1.0, Release 1 (Diels)
 	String CHROMATOGRAM_VERSION_1300 = "1.3.0.0"; // Version 1.3.0, Release 1 (Dalton)
 	String CHROMATOGRAM_VERSION_1301 = "1.3.0.1"; // Version 1.3.0, Release 2
-	String CHROMATOGRAM_VERSION_LATEST = CHROMATOGRAM_VERSION_1301;
+	String CHROMATOGRAM_VERSION_1302 = "1.3.0.2"; // Version 1.3.0, Release 3 (MSD scans stored uncompressed, long offsets)
+	String CHROMATOGRAM_VERSION_LATEST = CHROMATOGRAM_VERSION_1302;
 	/*
 	 * Method (*.ocm)
 	 */
@@ -146,7 +146,7 @@ public class PreferenceSupplier implements IPreferenceSupplier {
 	public static String[][] getChromatogramVersions() {
 
 		// TODO optimize the version handling!
-		int versions = 7;
+		int versions = 8;
 		String[][] elements = new String[versions][2];
 		//
 		elements[0][0] = IFormat.CHROMATOGRAM_VERSION_0701 + " (Nernst)";
@@ -170,6 +170,9 @@ public class PreferenceSupplier implements IPreferenceSupplier {
 		elements[6][0] = IFormat.CHROMATOGRAM_VERSION_1301 + " (Dalton v2)";
 		elements[6][1] = IFormat.CHROMATOGRAM_VERSION_1301;
 		//
+		elements[7][0] = IFormat.CHROMATOGRAM_VERSION_1302 + " (Dalton v3)";
+		elements[7][1] = IFormat.CHROMATOGRAM_VERSION_1302;
+		//
 		return elements;
 	}
 
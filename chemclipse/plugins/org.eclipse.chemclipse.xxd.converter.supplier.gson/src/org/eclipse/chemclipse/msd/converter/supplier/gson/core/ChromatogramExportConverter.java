@@ -26,20 +26,36 @@ import org.eclipse.core.runtime.IProgressMonitor;
 
 public class ChromatogramExportConverter extends AbstractChromatogramExportConverter implements IChromatogramExportConverter {
 
+	public static final String FILE_EXTENSION = ".json";
+	//
 	private static final Logger logger = Logger.getLogger(ChromatogramExportConverter.class);
 	private static final String DESCRIPTION = "JSON Export Converter";
+	//
+	private final String extension;
+	private final boolean compress;
+
+	public ChromatogramExportConverter() {
+
+		this("json", false);
+	}
+
+	protected ChromatogramExportConverter(String extension, boolean compress) {
+
+		this.extension = extension;
+		this.compress = compress;
+	}
 
 	@Override
 	public IProcessingInfo<File> convert(File file, IChromatogram<? extends IPeak> chromatogram, IProgressMonitor monitor) {
 
-		file = SpecificationValidator.validateSpecification(file, "json");
+		file = SpecificationValidator.validateSpecification(file, extension);
 		IProcessingInfo<File> processingInfo = super.validate(file);
 		/*
 		 * Don't process if errors have occurred.
 		 */
 		if(!processingInfo.hasErrorMessages() && chromatogram instanceof IChromatogramMSD) {
 			IChromatogramMSD chromatogramMSD = (IChromatogramMSD)chromatogram;
-			ChromatogramWriter writer = new ChromatogramWriter();
+			ChromatogramWriter writer = new ChromatogramWriter(compress);
 			monitor.subTask("Export JSON chromatogram");
 			try {
 				writer.writeChromatogram(file, chromatogramMSD, monitor);
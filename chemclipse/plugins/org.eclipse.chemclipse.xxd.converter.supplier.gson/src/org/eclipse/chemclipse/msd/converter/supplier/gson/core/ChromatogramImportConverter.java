@@ -14,29 +14,87 @@ package org.eclipse.chemclipse.msd.converter.supplier.gson.core;
 import java.io.File;
 
 import org.eclipse.chemclipse.converter.chromatogram.AbstractChromatogramImportConverter;
-import org.eclipse.chemclipse.converter.chromatogram.IChromatogramImportConverter;
+import org.eclipse.chemclipse.converter.chromatogram.IChromatogramArchiveImportConverter;
+import org.eclipse.chemclipse.converter.io.ArchiveEntry;
+import org.eclipse.chemclipse.logging.core.Logger;
+import org.eclipse.chemclipse.model.core.IChromatogramOverview;
+import org.eclipse.chemclipse.msd.converter.io.IChromatogramMSDReader;
+import org.eclipse.chemclipse.msd.converter.supplier.gson.io.ChromatogramReader;
+import org.eclipse.chemclipse.msd.model.core.IChromatogramMSD;
 import org.eclipse.chemclipse.processing.core.IProcessingInfo;
 import org.eclipse.chemclipse.processing.core.ProcessingInfo;
 import org.eclipse.core.runtime.IProgressMonitor;
 
-public class ChromatogramImportConverter extends AbstractChromatogramImportConverter implements IChromatogramImportConverter {
+public class ChromatogramImportConverter extends AbstractChromatogramImportConverter<IChromatogramMSD> implements IChromatogramArchiveImportConverter<IChromatogramMSD> {
 
+	private static final Logger logger = Logger.getLogger(ChromatogramImportConverter.class);
 	private static final String DESCRIPTION = "GSON Import Converter";
-	private static final String EXPORT_ERROR = "The GSON converter is not able to import chromatograms.";
 
 	@Override
-	public IProcessingInfo<?> convert(File file, IProgressMonitor monitor) {
+	public IProcessingInfo<IChromatogramMSD> convert(File file, IProgressMonitor monitor) {
 
-		IProcessingInfo<?> processingInfo = new ProcessingInfo<>();
-		processingInfo.addErrorMessage(DESCRIPTION, EXPORT_ERROR);
+		IProcessingInfo<IChromatogramMSD> processingInfo = super.validate(file);
+		if(!processingInfo.hasErrorMessages()) {
+			IChromatogramMSDReader reader = new ChromatogramReader();
+			monitor.subTask("Import JSON chromatogram");
+			try {
+				IChromatogramMSD chromatogram = reader.read(file, monitor);
+				processingInfo.setProcessingResult(chromatogram);
+			} catch(Exception e) {
+				logger.warn(e);
+				processingInfo.addErrorMessage(DESCRIPTION, "Something has definitely gone wrong with the file: " + file.getAbsolutePath());
+			}
+		}
 		return processingInfo;
 	}
 
 	@Override
-	public IProcessingInfo<?> convertOverview(File file, IProgressMonitor monitor) {
+	public IProcessingInfo<IChromatogramOverview> convertOverview(File file, IProgressMonitor monitor) {
 
-		IProcessingInfo<?> processingInfo = new ProcessingInfo<>();
-		processingInfo.addErrorMessage(DESCRIPTION, EXPORT_ERROR);
+		IProcessingInfo<IChromatogramOverview> processingInfo = super.validate(file);
+		if(!processingInfo.hasErrorMessages()) {
+			IChromatogramMSDReader reader = new ChromatogramReader();
+			monitor.subTask("Import JSON chromatogram overview");
+			try {
+				IChromatogramOverview chromatogramOverview = reader.readOverview(file, monitor);
+				processingInfo.setProcessingResult(chromatogramOverview);
+			} catch(Exception e) {
+				logger.warn(e);
+				processingInfo.addErrorMessage(DESCRIPTION, "Something has definitely gone wrong with the file: " + file.getAbsolutePath());
+			}
+		}
+		return processingInfo;
+	}
+
+	@Override
+	public IProcessingInfo<IChromatogramMSD> convert(ArchiveEntry archiveEntry, IProgressMonitor monitor) {
+
+		IProcessingInfo<IChromatogramMSD> processingInfo = new ProcessingInfo<>();
+		ChromatogramReader reader = new ChromatogramReader();
+		monitor.subTask("Import JSON chromatogram");
+		try {
+			IChromatogramMSD chromatogram = reader.read(archiveEntry, monitor);
+			processingInfo.setProcessingResult(chromatogram);
+		} catch(Exception e) {
+			logger.warn(e);
+			processingInfo.addErrorMessage(DESCRIPTION, "Something has definitely gone wrong with the archive entry: " + archiveEntry.getName());
+		}
+		return processingInfo;
+	}
+
+	@Override
+	public IProcessingInfo<IChromatogramOverview> convertOverview(ArchiveEntry archiveEntry, IProgressMonitor monitor) {
+
+		IProcessingInfo<IChromatogramOverview> processingInfo = new ProcessingInfo<>();
+		ChromatogramReader reader = new ChromatogramReader();
+		monitor.subTask("Import JSON chromatogram overview");
+		try {
+			IChromatogramOverview chromatogramOverview = reader.readOverview(archiveEntry, monitor);
+			processingInfo.setProcessingResult(chromatogramOverview);
+		} catch(Exception e) {
+			logger.warn(e);
+			processingInfo.addErrorMessage(DESCRIPTION, "Something has definitely gone wrong with the archive entry: " + archiveEntry.getName());
+		}
 		return processingInfo;
 	}
 }
@@ -0,0 +1,25 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Lablicate GmbH.
+ * 
+ * All rights reserved.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ * Dr. Philip Wenig - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.chemclipse.msd.converter.supplier.gson.core;
+
+/**
+ * Exports the JSON chromatogram gzip compressed.
+ */
+public class CompressedChromatogramExportConverter extends ChromatogramExportConverter {
+
+	public static final String FILE_EXTENSION = ".json.gz";
+
+	public CompressedChromatogramExportConverter() {
+
+		super("json.gz", true);
+	}
+}
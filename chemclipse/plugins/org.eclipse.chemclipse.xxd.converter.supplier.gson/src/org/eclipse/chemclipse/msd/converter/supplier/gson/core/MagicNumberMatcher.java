@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016, 2018 Lablicate GmbH.
+ * Copyright (c) 2016, 2020 Lablicate GmbH.
  *
  * All rights reserved.
  * 
@@ -12,12 +12,17 @@ import java.io.File;
 
 import org.eclipse.chemclipse.converter.core.AbstractMagicNumberMatcher;
 import org.eclipse.chemclipse.converter.core.IMagicNumberMatcher;
+import org.eclipse.chemclipse.msd.converter.supplier.gson.io.ChromatogramReader_1000;
 
 public class MagicNumberMatcher extends AbstractMagicNumberMatcher implements IMagicNumberMatcher {
 
 	@Override
 	public boolean checkFileFormat(File file) {
 
-		return false;
+		boolean isValidFormat = checkFileExtension(file, ChromatogramExportConverter.FILE_EXTENSION) || checkFileExtension(file, CompressedChromatogramExportConverter.FILE_EXTENSION);
+		if(isValidFormat) {
+			isValidFormat = (file.exists() && ChromatogramReader_1000.isValidFileFormat(file));
+		}
+		return isValidFormat;
 	}
 }
@@ -11,13 +11,14 @@
  *******************************************************************************/
 package org.eclipse.chemclipse.msd.converter.supplier.gson.io;
 
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 
+import org.eclipse.chemclipse.logging.core.Logger;
 import org.eclipse.chemclipse.model.core.IPeakModel;
 import org.eclipse.chemclipse.model.core.IScan;
 import org.eclipse.chemclipse.model.identifier.IComparisonResult;
@@ -28,226 +29,346 @@ import org.eclipse.chemclipse.msd.model.core.IChromatogramPeakMSD;
 import org.eclipse.chemclipse.msd.model.core.IIon;
 import org.eclipse.chemclipse.msd.model.core.IScanMSD;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.SubMonitor;
 
-import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
 
 public class ChromatogramGson_1000 {
 
+	private static final Logger logger = Logger.getLogger(ChromatogramGson_1000.class);
+	//
 	public static final String MGC = "BSPW";
 	public static final String VERSION = "1.0.0.0";
 	//
-	private static final String SHARE_MGC = "SHARE_MGC";
-	private static final String SHARE_VERSION = "VERSION";
-	private static final String SHARE_GUID = "GUID";
+	static final String SHARE_MGC = "SHARE_MGC";
+	static final String SHARE_VERSION = "VERSION";
+	static final String SHARE_GUID = "GUID";
 	//
-	private static final String NAME = "NAME";
+	static final String NAME = "NAME";
 	//
-	private static final String CHROMATOGRAM = "CHROMATOGRAM";
-	private static final String DATA_NAME = "DATA_NAME";
-	private static final String TYPE = "TYPE";
-	private static final String DATE = "DATE";
-	private static final String OPERATOR = "OPERATOR";
-	private static final String BARCODE = "BARCODE";
+	static final String CHROMATOGRAM = "CHROMATOGRAM";
+	static final String DATA_NAME = "DATA_NAME";
+	static final String TYPE = "TYPE";
+	static final String DATE = "DATE";
+	static final String OPERATOR = "OPERATOR";
+	static final String BARCODE = "BARCODE";
 	//
-	private static final String RTS = "RTS"; // Retention Times (milliseconds)
-	private static final String RT = "RT"; // Retention Time [ms]
-	private static final String RI = "RI"; // Retention Index
-	private static final String TIC = "TIC";
+	static final String RTS = "RTS"; // Retention Times (milliseconds)
+	static final String RT = "RT"; // Retention Time [ms]
+	static final String RI = "RI"; // Retention Index
+	static final String TIC = "TIC";
 	//
-	private static final String MS = "MS";
-	private static final String IONS = "IONS"; // m/z
-	private static final String INTENSITIES = "INTENSITIES";
+	static final String MS = "MS";
+	static final String IONS = "IONS"; // m/z
+	static final String INTENSITIES = "INTENSITIES";
 	//
-	private static final String START_RT = "START_RT"; // Start Retention Time
-	private static final String STOP_RT = "STOP_RT"; // Stop Retention Time
-	private static final String LEADING = "LEADING";
-	private static final String TAILING = "TAILING";
-	private static final String AREA = "AREA";
-	private static final String SN = "SN"; // Signal to Noise Ratio
-	private static final String HEIGHT = "HEIGHT";
-	private static final String GRADIENT_ANGLE = "GRADIENT_ANGLE";
-	private static final String START_BASELINE = "START_BASELINE";
-	private static final String STOP_BASELINE = "STOP_BASELINE";
+	static final String START_RT = "START_RT"; // Start Retention Time
+	static final String STOP_RT = "STOP_RT"; // Stop Retention Time
+	static final String LEADING = "LEADING";
+	static final String TAILING = "TAILING";
+	static final String AREA = "AREA";
+	static final String SN = "SN"; // Signal to Noise Ratio
+	static final String HEIGHT = "HEIGHT";
+	static final String GRADIENT_ANGLE = "GRADIENT_ANGLE";
+	static final String START_BASELINE = "START_BASELINE";
+	static final String STOP_BASELINE = "STOP_BASELINE";
 	//
-	private static final String TARGETS = "TARGETS";
-	private static final String CAS = "CAS";
-	private static final String MF = "MF"; // Match Factor
-	private static final String RMF = "RMF"; // Reverse Match Factor
-	private static final String MFD = "MFD"; // Match Factor Direct
-	private static final String RMFD = "RMFD"; // Reverse Match Factor Direct
-	private static final String PROB = "PROB"; // Probability
-	private static final String FORMULA = "FORMULA";
-	private static final String SMILES = "SMILES";
-	private static final String INCHI = "INCHI";
-	private static final String MW = "MW"; // Mol weight
-	private static final String MISC = "MISC";
-	private static final String CONTR = "CONTR";
-	private static final String DB = "DB";
-	private static final String IDENTIFIER = "IDENTIFIER";
-	private static final String ADVISE = "ADVISE";
+	static final String TARGETS = "TARGETS";
+	static final String CAS = "CAS";
+	static final String MF = "MF"; // Match Factor
+	static final String RMF = "RMF"; // Reverse Match Factor
+	static final String MFD = "MFD"; // Match Factor Direct
+	static final String RMFD = "RMFD"; // Reverse Match Factor Direct
+	static final String PROB = "PROB"; // Probability
+	static final String FORMULA = "FORMULA";
+	static final String SMILES = "SMILES";
+	static final String INCHI = "INCHI";
+	static final String MW = "MW"; // Mol weight
+	static final String MISC = "MISC";
+	static final String CONTR = "CONTR";
+	static final String DB = "DB";
+	static final String IDENTIFIER = "IDENTIFIER";
+	static final String ADVISE = "ADVISE";
 	//
-	private static final String SECTION_OVERVIEW = "SECTION_OVERVIEW";
-	private static final String SECTION_IDENTIFIED_SCANS = "SECTION_IDENTIFIED_SCANS";
-	private static final String SECTION_IDENTIFIED_PEAKS = "SECTION_IDENTIFIED_PEAKS";
+	static final String SECTION_OVERVIEW = "SECTION_OVERVIEW";
+	static final String SECTION_SCANS = "SECTION_SCANS";
+	static final String SECTION_IDENTIFIED_SCANS = "SECTION_IDENTIFIED_SCANS";
+	static final String SECTION_IDENTIFIED_PEAKS = "SECTION_IDENTIFIED_PEAKS";
+
 
+	/**
+	 * Returns the complete document as a string.
+	 * Use {@link #writeJSON(Writer, IChromatogramMSD, IProgressMonitor)} to export large chromatograms.
+	 *
+	 * @param chromatogram
+	 * @param monitor
+	 * @return String
+	 */
 	public String getJSON(IChromatogramMSD chromatogram, IProgressMonitor monitor) {
 
+		StringWriter stringWriter = new StringWriter();
+		try {
+			writeJSON(stringWriter, chromatogram, monitor);
+		} catch(IOException e) {
+			logger.warn(e);
+		}
+		return stringWriter.toString();
+	}
+
+	/**
+	 * Writes the chromatogram scan by scan. Only the current scan is held
+	 * additionally in memory, hence the size of the chromatogram doesn't matter.
+	 * The writer is flushed but not closed.
+	 *
+	 * @param writer
+	 * @param chromatogram
+	 * @param monitor
+	 * @throws IOException
+	 */
+	public void writeJSON(Writer writer, IChromatogramMSD chromatogram, IProgressMonitor monitor) throws IOException {
+
+		JsonWriter jsonWriter = new JsonWriter(writer);
 		/*
-		 * File Header
+		 * Same output as the former new Gson().toJson(map).
 		 */
-		Map<String, Object> jsonMap = new HashMap<String, Object>();
-		jsonMap.put(SHARE_MGC, MGC);
-		jsonMap.put(SHARE_VERSION, VERSION);
-		jsonMap.put(SHARE_GUID, UUID.randomUUID().toString());
+		jsonWriter.setHtmlSafe(true);
+		jsonWriter.setSerializeNulls(false);
+		SubMonitor subMonitor = SubMonitor.convert(monitor, chromatogram.getNumberOfScans() + chromatogram.getNumberOfPeaks());
 		/*
-		 * Chromatogram
+		 * File Header
 		 */
-		Map<String, Object> chromatogramMap = getChromatogramMap(chromatogram);
-		jsonMap.put(CHROMATOGRAM, chromatogramMap);
-		addSectionChromatogramOverview(chromatogram, chromatogramMap);
-		addSectionIdentifiedScans(chromatogram, chromatogramMap);
-		addSectionIdentifiedPeaks(chromatogram, chromatogramMap);
+		jsonWriter.beginObject();
+		jsonWriter.name(SHARE_MGC);
+		jsonWriter.value(MGC);
+		jsonWriter.name(SHARE_VERSION);
+		jsonWriter.value(VERSION);
+		jsonWriter.name(SHARE_GUID);
+		jsonWriter.value(UUID.randomUUID().toString());
 		/*
-		 * Create JSON file.
+		 * Chromatogram
 		 */
-		Gson gson = new Gson();
-		return gson.toJson(jsonMap);
+		jsonWriter.name(CHROMATOGRAM);
+		jsonWriter.beginObject();
+		writeChromatogramHeader(jsonWriter, chromatogram);
+		writeSectionChromatogramOverview(jsonWriter, chromatogram);
+		writeSectionScans(jsonWriter, chromatogram, subMonitor);
+		writeSectionIdentifiedScans(jsonWriter, chromatogram);
+		writeSectionIdentifiedPeaks(jsonWriter, chromatogram, subMonitor);
+		jsonWriter.endObject();
+		jsonWriter.endObject();
+		jsonWriter.flush();
 	}
 
-	private Map<String, Object> getChromatogramMap(IChromatogramMSD chromatogram) {
+	private void writeChromatogramHeader(JsonWriter writer, IChromatogramMSD chromatogram) throws IOException {
 
-		Map<String, Object> chromatogramMap = new HashMap<String, Object>();
-		chromatogramMap.put(NAME, chromatogram.getName());
-		chromatogramMap.put(DATA_NAME, chromatogram.getDataName());
-		chromatogramMap.put(OPERATOR, chromatogram.getOperator());
-		chromatogramMap.put(BARCODE, chromatogram.getBarcode());
-		chromatogramMap.put(TYPE, "");
-		chromatogramMap.put(DATE, chromatogram.getDate().toString());
-		return chromatogramMap;
+		writer.name(NAME);
+		writer.value(chromatogram.getName());
+		writer.name(DATA_NAME);
+		writer.value(chromatogram.getDataName());
+		writer.name(OPERATOR);
+		writer.value(chromatogram.getOperator());
+		writer.name(BARCODE);
+		writer.value(chromatogram.getBarcode());
+		writer.name(TYPE);
+		writer.value("");
+		writer.name(DATE);
+		writer.value(chromatogram.getDate().toString());
 	}
 
-	private void addSectionChromatogramOverview(IChromatogramMSD chromatogram, Map<String, Object> chromatogramMap) {
+	private void writeSectionChromatogramOverview(JsonWriter writer, IChromatogramMSD chromatogram) throws IOException {
 
-		Map<String, Object> sectionOverview = new HashMap<String, Object>();
-		List<Integer> retentionTimes = new ArrayList<Integer>();
-		List<Float> retentionIndices = new ArrayList<Float>();
-		List<Float> totalIntensities = new ArrayList<Float>();
+		writer.name(SECTION_OVERVIEW);
+		writer.beginObject();
+		writer.name(RT);
+		writer.beginArray();
+		for(IScan scan : chromatogram.getScans()) {
+			writer.value(scan.getRetentionTime());
+		}
+		writer.endArray();
+		writer.name(RI);
+		writer.beginArray();
 		for(IScan scan : chromatogram.getScans()) {
-			retentionTimes.add(scan.getRetentionTime());
-			retentionIndices.add(scan.getRetentionIndex());
-			totalIntensities.add(scan.getTotalSignal());
+			writeValue(writer, scan.getRetentionIndex());
 		}
-		sectionOverview.put(RT, retentionTimes);
-		sectionOverview.put(RI, retentionIndices);
-		sectionOverview.put(TIC, totalIntensities);
-		chromatogramMap.put(SECTION_OVERVIEW, sectionOverview);
+		writer.endArray();
+		writer.name(TIC);
+		writer.beginArray();
+		for(IScan scan : chromatogram.getScans()) {
+			writeValue(writer, scan.getTotalSignal());
+		}
+		writer.endArray();
+		writer.endObject();
 	}
 
-	private void addSectionIdentifiedScans(IChromatogramMSD chromatogram, Map<String, Object> chromatogramMap) {
+	private void writeSectionScans(JsonWriter writer, IChromatogramMSD chromatogram, SubMonitor subMonitor) throws IOException {
 
-		List<Map<String, Object>> identifiedScans = new ArrayList<Map<String, Object>>();
+		writer.name(SECTION_SCANS);
+		writer.beginArray();
+		for(IScan scan : chromatogram.getScans()) {
+			if(scan instanceof IScanMSD) {
+				writer.beginObject();
+				writeScan(writer, (IScanMSD)scan);
+				writer.endObject();
+			}
+			subMonitor.worked(1);
+		}
+		writer.endArray();
+	}
+
+	private void writeSectionIdentifiedScans(JsonWriter writer, IChromatogramMSD chromatogram) throws IOException {
+
+		writer.name(SECTION_IDENTIFIED_SCANS);
+		writer.beginArray();
 		for(IScan scan : chromatogram.getScans()) {
 			if(scan instanceof IScanMSD) {
 				IScanMSD scanMSD = (IScanMSD)scan;
 				if(scanMSD.getTargets().size() > 0) {
-					Map<String, Object> scanMap = getScanMap(scanMSD);
-					scanMap.put(TARGETS, getTargetList(scanMSD.getTargets()));
-					identifiedScans.add(scanMap);
+					writer.beginObject();
+					writeScan(writer, scanMSD);
+					writer.name(TARGETS);
+					writeTargets(writer, scanMSD.getTargets());
+					writer.endObject();
 				}
 			}
 		}
-		chromatogramMap.put(SECTION_IDENTIFIED_SCANS, identifiedScans);
+		writer.endArray();
 	}
 
-	private void addSectionIdentifiedPeaks(IChromatogramMSD chromatogram, Map<String, Object> chromatogramMap) {
+	private void writeSectionIdentifiedPeaks(JsonWriter writer, IChromatogramMSD chromatogram, SubMonitor subMonitor) throws IOException {
 
-		List<Map<String, Object>> peakList = new ArrayList<Map<String, Object>>();
+		writer.name(SECTION_IDENTIFIED_PEAKS);
+		writer.beginArray();
 		for(IChromatogramPeakMSD peak : chromatogram.getPeaks()) {
-			Map<String, Object> peakMap = getPeakMap(peak);
-			peakMap.put(MS, getScanMap(peak.getExtractedMassSpectrum()));
-			peakMap.put(TARGETS, getTargetList(peak.getTargets()));
-			peakList.add(peakMap);
+			writer.beginObject();
+			writePeak(writer, peak);
+			writer.name(MS);
+			writer.beginObject();
+			writeScan(writer, peak.getExtractedMassSpectrum());
+			writer.endObject();
+			writer.name(TARGETS);
+			writeTargets(writer, peak.getTargets());
+			writer.endObject();
+			subMonitor.worked(1);
 		}
-		chromatogramMap.put(SECTION_IDENTIFIED_PEAKS, peakList);
+		writer.endArray();
 	}
 
-	private Map<String, Object> getScanMap(IScanMSD scanMSD) {
+	private void writeScan(JsonWriter writer, IScanMSD scanMSD) throws IOException {
 
-		Map<String, Object> scanMap = new HashMap<String, Object>();
-		scanMap.put(RT, scanMSD.getRetentionTime());
-		scanMap.put(RI, scanMSD.getRetentionIndex());
-		scanMap.put(TIC, scanMSD.getTotalSignal());
-		//
-		List<Double> ions = new ArrayList<Double>();
-		List<Float> intensities = new ArrayList<Float>();
+		writer.name(RT);
+		writer.value(scanMSD.getRetentionTime());
+		writer.name(RI);
+		writeValue(writer, scanMSD.getRetentionIndex());
+		writer.name(TIC);
+		writeValue(writer, scanMSD.getTotalSignal());
 		//
-		for(IIon ion : scanMSD.getIons()) {
-			ions.add(ion.getIon());
-			intensities.add(ion.getAbundance());
+		List<IIon> ions = scanMSD.getIons();
+		writer.name(IONS);
+		writer.beginArray();
+		for(IIon ion : ions) {
+			writer.value(ion.getIon());
 		}
-		//
-		scanMap.put(IONS, ions);
-		scanMap.put(INTENSITIES, intensities);
-		//
-		return scanMap;
+		writer.endArray();
+		writer.name(INTENSITIES);
+		writer.beginArray();
+		for(IIon ion : ions) {
+			writeValue(writer, ion.getAbundance());
+		}
+		writer.endArray();
 	}
 
-	private Map<String, Object> getPeakMap(IChromatogramPeakMSD peak) {
+	private void writePeak(JsonWriter writer, IChromatogramPeakMSD peak) throws IOException {
 
-		Map<String, Object> peakMap = new HashMap<String, Object>();
 		IPeakModel peakModel = peak.getPeakModel();
 		//
 		int startRetentionTime = peakModel.getStartRetentionTime();
 		int stopRetentionTime = peakModel.getStopRetentionTime();
 		//
-		peakMap.put(START_RT, startRetentionTime);
-		peakMap.put(STOP_RT, stopRetentionTime);
-		peakMap.put(LEADING, peakModel.getLeading());
-		peakMap.put(TAILING, peakModel.getTailing());
-		peakMap.put(AREA, peak.getIntegratedArea());
-		peakMap.put(SN, peak.getSignalToNoiseRatio());
-		peakMap.put(HEIGHT, peakModel.getPeakMaximum().getTotalSignal());
-		peakMap.put(GRADIENT_ANGLE, peakModel.getGradientAngle());
-		peakMap.put(START_BASELINE, peakModel.getBackgroundAbundance(startRetentionTime));
-		peakMap.put(STOP_BASELINE, peakModel.getBackgroundAbundance(stopRetentionTime));
+		writer.name(START_RT);
+		writer.value(startRetentionTime);
+		writer.name(STOP_RT);
+		writer.value(stopRetentionTime);
+		writer.name(LEADING);
+		writeValue(writer, peakModel.getLeading());
+		writer.name(TAILING);
+		writeValue(writer, peakModel.getTailing());
+		writer.name(AREA);
+		writer.value(peak.getIntegratedArea());
+		writer.name(SN);
+		writeValue(writer, peak.getSignalToNoiseRatio());
+		writer.name(HEIGHT);
+		writeValue(writer, peakModel.getPeakMaximum().getTotalSignal());
+		writer.name(GRADIENT_ANGLE);
+		writer.value(peakModel.getGradientAngle());
+		writer.name(START_BASELINE);
+		writeValue(writer, peakModel.getBackgroundAbundance(startRetentionTime));
+		writer.name(STOP_BASELINE);
+		writeValue(writer, peakModel.getBackgroundAbundance(stopRetentionTime));
 		//
 		List<Integer> retentionTimes = peakModel.getRetentionTimes();
-		List<Float> intensities = new ArrayList<Float>();
-		//
-		for(Integer retentionTime : retentionTimes) {
-			intensities.add(peakModel.getPeakAbundance(retentionTime));
+		writer.name(RTS);
+		writer.beginArray();
+		for(int retentionTime : retentionTimes) {
+			writer.value(retentionTime);
 		}
-		peakMap.put(RTS, retentionTimes);
-		peakMap.put(INTENSITIES, intensities);
-		//
-		return peakMap;
+		writer.endArray();
+		writer.name(INTENSITIES);
+		writer.beginArray();
+		for(int retentionTime : retentionTimes) {
+			writeValue(writer, peakModel.getPeakAbundance(retentionTime));
+		}
+		writer.endArray();
 	}
 
-	private List<Map<String, Object>> getTargetList(Set<IIdentificationTarget> identificationTargets) {
+	private void writeTargets(JsonWriter writer, Set<IIdentificationTarget> identificationTargets) throws IOException {
 
-		List<Map<String, Object>> targetList = new ArrayList<Map<String, Object>>();
+		writer.beginArray();
 		for(IIdentificationTarget identificationTarget : identificationTargets) {
-			Map<String, Object> targetMap = new HashMap<String, Object>();
 			IComparisonResult comparisonResult = identificationTarget.getComparisonResult();
 			ILibraryInformation libraryInformation = identificationTarget.getLibraryInformation();
-			targetMap.put(NAME, libraryInformation.getName());
-			targetMap.put(CAS, libraryInformation.getCasNumber());
-			targetMap.put(MF, comparisonResult.getMatchFactor());
-			targetMap.put(MFD, comparisonResult.getMatchFactorDirect());
-			targetMap.put(RMF, comparisonResult.getReverseMatchFactor());
-			targetMap.put(RMFD, comparisonResult.getReverseMatchFactorDirect());
-			targetMap.put(PROB, comparisonResult.getProbability());
-			targetMap.put(FORMULA, libraryInformation.getFormula());
-			targetMap.put(SMILES, libraryInformation.getSmiles());
-			targetMap.put(INCHI, libraryInformation.getInChI());
-			targetMap.put(MW, libraryInformation.getMolWeight());
-			targetMap.put(MISC, libraryInformation.getMiscellaneous());
-			targetMap.put(CONTR, libraryInformation.getContributor());
-			targetMap.put(DB, libraryInformation.getDatabase());
-			targetMap.put(IDENTIFIER, libraryInformation.getReferenceIdentifier());
-			targetMap.put(ADVISE, comparisonResult.getAdvise());
-			targetList.add(targetMap);
+			writer.beginObject();
+			writer.name(NAME);
+			writer.value(libraryInformation.getName());
+			writer.name(CAS);
+			writer.value(libraryInformation.getCasNumber());
+			writer.name(MF);
+			writeValue(writer, comparisonResult.getMatchFactor());
+			writer.name(MFD);
+			writeValue(writer, comparisonResult.getMatchFactorDirect());
+			writer.name(RMF);
+			writeValue(writer, comparisonResult.getReverseMatchFactor());
+			writer.name(RMFD);
+			writeValue(writer, comparisonResult.getReverseMatchFactorDirect());
+			writer.name(PROB);
+			writeValue(writer, comparisonResult.getProbability());
+			writer.name(FORMULA);
+			writer.value(libraryInformation.getFormula());
+			writer.name(SMILES);
+			writer.value(libraryInformation.getSmiles());
+			writer.name(INCHI);
+			writer.value(libraryInformation.getInChI());
+			writer.name(MW);
+			writer.value(libraryInformation.getMolWeight());
+			writer.name(MISC);
+			writer.value(libraryInformation.getMiscellaneous());
+			writer.name(CONTR);
+			writer.value(libraryInformation.getContributor());
+			writer.name(DB);
+			writer.value(libraryInformation.getDatabase());
+			writer.name(IDENTIFIER);
+			writer.value(libraryInformation.getReferenceIdentifier());
+			writer.name(ADVISE);
+			writer.value(comparisonResult.getAdvise());
+			writer.endObject();
 		}
-		return targetList;
+		writer.endArray();
+	}
+
+	/**
+	 * Floats are written like Gson does, e.g. 0.1 instead of 0.10000000149011612.
+	 */
+	private static void writeValue(JsonWriter writer, float value) throws IOException {
+
+		writer.value(Float.valueOf(value));
 	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016, 2018 Lablicate GmbH.
+ * Copyright (c) 2016, 2020 Lablicate GmbH.
  * 
  * All rights reserved.
  * This program and the accompanying materials are made available under the
@@ -17,6 +17,7 @@ import java.io.IOException;
 
 import org.eclipse.chemclipse.converter.exceptions.FileIsEmptyException;
 import org.eclipse.chemclipse.converter.exceptions.FileIsNotReadableException;
+import org.eclipse.chemclipse.converter.io.ArchiveEntry;
 import org.eclipse.chemclipse.model.core.IChromatogramOverview;
 import org.eclipse.chemclipse.msd.converter.io.AbstractChromatogramMSDReader;
 import org.eclipse.chemclipse.msd.model.core.IChromatogramMSD;
@@ -27,12 +28,26 @@ public class ChromatogramReader extends AbstractChromatogramMSDReader {
 	@Override
 	public IChromatogramMSD read(File file, IProgressMonitor monitor) throws FileNotFoundException, FileIsNotReadableException, FileIsEmptyException, IOException {
 
-		return null;
+		ChromatogramReader_1000 reader = new ChromatogramReader_1000();
+		return reader.read(file, monitor);
 	}
 
 	@Override
 	public IChromatogramOverview readOverview(File file, IProgressMonitor monitor) throws FileNotFoundException, FileIsNotReadableException, FileIsEmptyException, IOException {
 
-		return null;
+		ChromatogramReader_1000 reader = new ChromatogramReader_1000();
+		return reader.readOverview(file, monitor);
+	}
+
+	public IChromatogramMSD read(ArchiveEntry archiveEntry, IProgressMonitor monitor) throws IOException {
+
+		ChromatogramReader_1000 reader = new ChromatogramReader_1000();
+		return reader.read(archiveEntry, monitor);
+	}
+
+	public IChromatogramOverview readOverview(ArchiveEntry archiveEntry, IProgressMonitor monitor) throws IOException {
+
+		ChromatogramReader_1000 reader = new ChromatogramReader_1000();
+		return reader.readOverview(archiveEntry, monitor);
 	}
 }
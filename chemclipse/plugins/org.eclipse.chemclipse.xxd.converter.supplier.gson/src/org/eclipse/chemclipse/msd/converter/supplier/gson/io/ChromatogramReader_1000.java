@@ -0,0 +1,548 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Lablicate GmbH.
+ * 
+ * All rights reserved.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ * Dr. Philip Wenig - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.chemclipse.msd.converter.supplier.gson.io;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import org.eclipse.chemclipse.converter.exceptions.FileIsEmptyException;
+import org.eclipse.chemclipse.converter.exceptions.FileIsNotReadableException;
+import org.eclipse.chemclipse.converter.io.ArchiveEntry;
+import org.eclipse.chemclipse.logging.core.Logger;
+import org.eclipse.chemclipse.model.core.IChromatogramOverview;
+import org.eclipse.chemclipse.model.core.IPeakIntensityValues;
+import org.eclipse.chemclipse.model.core.IScan;
+import org.eclipse.chemclipse.model.exceptions.PeakException;
+import org.eclipse.chemclipse.model.identifier.ComparisonResult;
+import org.eclipse.chemclipse.model.identifier.IIdentificationTarget;
+import org.eclipse.chemclipse.model.identifier.ILibraryInformation;
+import org.eclipse.chemclipse.model.identifier.LibraryInformation;
+import org.eclipse.chemclipse.model.implementation.IdentificationTarget;
+import org.eclipse.chemclipse.model.implementation.IntegrationEntry;
+import org.eclipse.chemclipse.model.implementation.PeakIntensityValues;
+import org.eclipse.chemclipse.msd.converter.io.AbstractChromatogramMSDReader;
+import org.eclipse.chemclipse.msd.model.core.IChromatogramMSD;
+import org.eclipse.chemclipse.msd.model.core.IChromatogramPeakMSD;
+import org.eclipse.chemclipse.msd.model.core.IIon;
+import org.eclipse.chemclipse.msd.model.core.IPeakMassSpectrum;
+import org.eclipse.chemclipse.msd.model.core.IPeakModelMSD;
+import org.eclipse.chemclipse.msd.model.core.IScanMSD;
+import org.eclipse.chemclipse.msd.model.implementation.ChromatogramMSD;
+import org.eclipse.chemclipse.msd.model.implementation.ChromatogramPeakMSD;
+import org.eclipse.chemclipse.msd.model.implementation.PeakMassSpectrum;
+import org.eclipse.chemclipse.msd.model.implementation.PeakModelMSD;
+import org.eclipse.chemclipse.msd.model.implementation.VendorMassSpectrum;
+import org.eclipse.core.runtime.IProgressMonitor;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * Reads the documents written by {@link ChromatogramGson_1000} with a streaming parser.
+ * The scans are added to the chromatogram while the file is parsed, no document tree is created.
+ * Plain and gzip compressed files are supported, also as entries of an archive.<br/>
+ * Files without the scans section contain the total signal only, which is imported as TIC.<br/>
+ * The document contains the total integrated area of a peak only, hence it is restored as
+ * a single TIC integration entry. The integrator and its settings are not stored.
+ */
+public class ChromatogramReader_1000 extends AbstractChromatogramMSDReader {
+
+	private static final Logger logger = Logger.getLogger(ChromatogramReader_1000.class);
+	//
+	private static final int BUFFER_SIZE = 65536;
+	private static final String DATE_FORMAT = "EEE MMM dd HH:mm:ss zzz yyyy"; // Date.toString()
+	private static final String INTEGRATOR_DESCRIPTION = "JSON Import";
+
+	@Override
+	public IChromatogramMSD read(File file, IProgressMonitor monitor) throws FileNotFoundException, FileIsNotReadableException, FileIsEmptyException, IOException {
+
+		return readChromatogram(new FileInputStream(file), file, false);
+	}
+
+	@Override
+	public IChromatogramOverview readOverview(File file, IProgressMonitor monitor) throws FileNotFoundException, FileIsNotReadableException, FileIsEmptyException, IOException {
+
+		return readChromatogram(new FileInputStream(file), file, true);
+	}
+
+	/**
+	 * Reads the chromatogram directly from the archive.
+	 * The archive is set as the file of the chromatogram.
+	 * 
+	 * @param archiveEntry
+	 * @param monitor
+	 * @return {@link IChromatogramMSD}
+	 * @throws IOException
+	 */
+	public IChromatogramMSD read(ArchiveEntry archiveEntry, IProgressMonitor monitor) throws IOException {
+
+		return readChromatogram(archiveEntry.getInputStream(), archiveEntry.getArchive(), false);
+	}
+
+	public IChromatogramOverview readOverview(ArchiveEntry archiveEntry, IProgressMonitor monitor) throws IOException {
+
+		return readChromatogram(archiveEntry.getInputStream(), archiveEntry.getArchive(), true);
+	}
+
+	/**
+	 * Checks the magic number, which is the first entry of the document.
+	 * 
+	 * @param file
+	 * @return boolean
+	 */
+	public static boolean isValidFileFormat(File file) {
+
+		try (JsonReader reader = new JsonReader(getReader(new FileInputStream(file)))) {
+			reader.beginObject();
+			if(reader.hasNext() && ChromatogramGson_1000.SHARE_MGC.equals(reader.nextName()) && reader.peek() == JsonToken.STRING) {
+				return ChromatogramGson_1000.MGC.equals(reader.nextString());
+			}
+		} catch(IOException | RuntimeException e) {
+			// no valid document
+		}
+		return false;
+	}
+
+	private static Reader getReader(InputStream stream) throws IOException {
+
+		InputStream inputStream = stream.markSupported() ? stream : new BufferedInputStream(stream, BUFFER_SIZE);
+		try {
+			/*
+			 * Detect gzip compressed files by the header 0x1f8b.
+			 */
+			inputStream.mark(2);
+			int magic = inputStream.read() | (inputStream.read() << 8);
+			inputStream.reset();
+			if(magic == GZIPInputStream.GZIP_MAGIC) {
+				inputStream = new GZIPInputStream(inputStream, BUFFER_SIZE);
+			}
+		} catch(IOException e) {
+			inputStream.close();
+			throw e;
+		}
+		return new InputStreamReader(inputStream, StandardCharsets.UTF_8);
+	}
+
+	private IChromatogramMSD readChromatogram(InputStream inputStream, File file, boolean overview) throws IOException {
+
+		IChromatogramMSD chromatogram = new ChromatogramMSD();
+		try (JsonReader reader = new JsonReader(getReader(inputStream))) {
+			reader.beginObject();
+			while(reader.hasNext()) {
+				String name = reader.nextName();
+				if(ChromatogramGson_1000.SHARE_MGC.equals(name)) {
+					if(!ChromatogramGson_1000.MGC.equals(reader.nextString())) {
+						throw new FileIsNotReadableException("The file is not a JSON chromatogram: " + file);
+					}
+				} else if(ChromatogramGson_1000.CHROMATOGRAM.equals(name)) {
+					readChromatogram(reader, chromatogram, overview);
+				} else {
+					reader.skipValue();
+				}
+			}
+			reader.endObject();
+		} catch(JsonParseException | IllegalStateException | NumberFormatException e) {
+			logger.warn(e);
+			throw new FileIsNotReadableException("The file is not a valid JSON chromatogram: " + file);
+		}
+		/*
+		 * If the chromatogram shall be exportable, set the id otherwise it is null or "".
+		 */
+		if(!overview) {
+			chromatogram.setConverterId("");
+			chromatogram.setFile(file);
+		}
+		if(chromatogram.getNumberOfScans() > 0) {
+			chromatogram.setScanDelay(chromatogram.getScan(1).getRetentionTime());
+		}
+		return chromatogram;
+	}
+
+	private void readChromatogram(JsonReader reader, IChromatogramMSD chromatogram, boolean overview) throws IOException {
+
+		OverviewData overviewData = null;
+		Map<Integer, List<IIdentificationTarget>> identifiedScans = new HashMap<>();
+		List<PeakData> identifiedPeaks = new ArrayList<>();
+		//
+		reader.beginObject();
+		while(reader.hasNext()) {
+			String name = reader.nextName();
+			if(reader.peek() == JsonToken.NULL) {
+				reader.nextNull();
+			} else if(ChromatogramGson_1000.DATA_NAME.equals(name)) {
+				chromatogram.setDataName(reader.nextString());
+			} else if(ChromatogramGson_1000.OPERATOR.equals(name)) {
+				chromatogram.setOperator(reader.nextString());
+			} else if(ChromatogramGson_1000.BARCODE.equals(name)) {
+				chromatogram.setBarcode(reader.nextString());
+			} else if(ChromatogramGson_1000.DATE.equals(name)) {
+				readDate(reader.nextString(), chromatogram);
+			} else if(ChromatogramGson_1000.SECTION_OVERVIEW.equals(name)) {
+				overviewData = readOverview(reader);
+			} else if(ChromatogramGson_1000.SECTION_SCANS.equals(name) && !overview) {
+				readScans(reader, chromatogram);
+			} else if(ChromatogramGson_1000.SECTION_IDENTIFIED_SCANS.equals(name) && !overview) {
+				readIdentifiedScans(reader, identifiedScans);
+			} else if(ChromatogramGson_1000.SECTION_IDENTIFIED_PEAKS.equals(name) && !overview) {
+				readIdentifiedPeaks(reader, identifiedPeaks);
+			} else {
+				reader.skipValue();
+			}
+		}
+		reader.endObject();
+		/*
+		 * Older files and the overview contain the total signal only.
+		 */
+		if(chromatogram.getNumberOfScans() == 0 && overviewData != null) {
+			addOverviewScans(overviewData, chromatogram);
+		}
+		//
+		if(!identifiedScans.isEmpty()) {
+			for(IScan scan : chromatogram.getScans()) {
+				List<IIdentificationTarget> targets = identifiedScans.get(scan.getRetentionTime());
+				if(targets != null) {
+					scan.getTargets().addAll(targets);
+				}
+			}
+		}
+		//
+		for(PeakData peakData : identifiedPeaks) {
+			try {
+				IChromatogramPeakMSD peak = new ChromatogramPeakMSD(peakData.peakModel, chromatogram);
+				peak.getTargets().addAll(peakData.targets);
+				if(peakData.integratedArea > 0.0d) {
+					peak.setIntegratedArea(Collections.singletonList(new IntegrationEntry(peakData.integratedArea)), INTEGRATOR_DESCRIPTION);
+				}
+				chromatogram.addPeak(peak);
+			} catch(IllegalArgumentException | PeakException e) {
+				logger.warn(e);
+			}
+		}
+	}
+
+	private void readDate(String value, IChromatogramMSD chromatogram) {
+
+		try {
+			chromatogram.setDate(new SimpleDateFormat(DATE_FORMAT, Locale.US).parse(value));
+		} catch(ParseException e) {
+			logger.warn(e);
+		}
+	}
+
+	private OverviewData readOverview(JsonReader reader) throws IOException {
+
+		OverviewData overviewData = new OverviewData();
+		reader.beginObject();
+		while(reader.hasNext()) {
+			String name = reader.nextName();
+			if(ChromatogramGson_1000.RT.equals(name)) {
+				overviewData.retentionTimes = readIntArray(reader);
+			} else if(ChromatogramGson_1000.RI.equals(name)) {
+				overviewData.retentionIndices = readFloatArray(reader);
+			} else if(ChromatogramGson_1000.TIC.equals(name)) {
+				overviewData.totalSignals = readFloatArray(reader);
+			} else {
+				reader.skipValue();
+			}
+		}
+		reader.endObject();
+		return overviewData;
+	}
+
+	private void addOverviewScans(OverviewData overviewData, IChromatogramMSD chromatogram) {
+
+		int[] retentionTimes = overviewData.retentionTimes;
+		float[] retentionIndices = overviewData.retentionIndices;
+		float[] totalSignals = overviewData.totalSignals;
+		if(retentionTimes == null || totalSignals == null) {
+			return;
+		}
+		//
+		double[] ions = new double[]{IIon.TIC_ION};
+		for(int i = 0; i < retentionTimes.length && i < totalSignals.length; i++) {
+			VendorMassSpectrum scan = new VendorMassSpectrum();
+			scan.setRetentionTime(retentionTimes[i]);
+			if(retentionIndices != null && i < retentionIndices.length) {
+				scan.setRetentionIndex(retentionIndices[i]);
+			}
+			scan.addIons(ions, new float[]{totalSignals[i]}, 1);
+			chromatogram.addScan(scan);
+		}
+	}
+
+	private void readScans(JsonReader reader, IChromatogramMSD chromatogram) throws IOException {
+
+		IonBuffer ionBuffer = new IonBuffer();
+		reader.beginArray();
+		while(reader.hasNext()) {
+			VendorMassSpectrum scan = new VendorMassSpectrum();
+			readScan(reader, scan, ionBuffer, null);
+			chromatogram.addScan(scan);
+		}
+		reader.endArray();
+	}
+
+	private void readIdentifiedScans(JsonReader reader, Map<Integer, List<IIdentificationTarget>> identifiedScans) throws IOException {
+
+		IonBuffer ionBuffer = new IonBuffer();
+		reader.beginArray();
+		while(reader.hasNext()) {
+			List<IIdentificationTarget> targets = new ArrayList<>();
+			IScanMSD scan = new VendorMassSpectrum();
+			readScan(reader, scan, ionBuffer, targets);
+			identifiedScans.put(scan.getRetentionTime(), targets);
+		}
+		reader.endArray();
+	}
+
+	private void readScan(JsonReader reader, IScanMSD scan, IonBuffer ionBuffer, List<IIdentificationTarget> targets) throws IOException {
+
+		int numberOfIons = 0;
+		int numberOfAbundances = 0;
+		reader.beginObject();
+		while(reader.hasNext()) {
+			String name = reader.nextName();
+			if(ChromatogramGson_1000.RT.equals(name)) {
+				scan.setRetentionTime(reader.nextInt());
+			} else if(ChromatogramGson_1000.RI.equals(name)) {
+				scan.setRetentionIndex((float)reader.nextDouble());
+			} else if(ChromatogramGson_1000.IONS.equals(name)) {
+				reader.beginArray();
+				while(reader.hasNext()) {
+					ionBuffer.ensureIonCapacity(numberOfIons + 1);
+					ionBuffer.ions[numberOfIons++] = reader.nextDouble();
+				}
+				reader.endArray();
+			} else if(ChromatogramGson_1000.INTENSITIES.equals(name)) {
+				reader.beginArray();
+				while(reader.hasNext()) {
+					ionBuffer.ensureIonCapacity(numberOfAbundances + 1);
+					ionBuffer.abundances[numberOfAbundances++] = (float)reader.nextDouble();
+				}
+				reader.endArray();
+			} else if(ChromatogramGson_1000.TARGETS.equals(name) && targets != null) {
+				readTargets(reader, targets);
+			} else {
+				reader.skipValue();
+			}
+		}
+		reader.endObject();
+		scan.addIons(ionBuffer.ions, ionBuffer.abundances, Math.min(numberOfIons, numberOfAbundances));
+	}
+
+	private void readIdentifiedPeaks(JsonReader reader, List<PeakData> identifiedPeaks) throws IOException {
+
+		IonBuffer ionBuffer = new IonBuffer();
+		reader.beginArray();
+		while(reader.hasNext()) {
+			PeakData peakData = readPeak(reader, ionBuffer);
+			if(peakData != null) {
+				identifiedPeaks.add(peakData);
+			}
+		}
+		reader.endArray();
+	}
+
+	private PeakData readPeak(JsonReader reader, IonBuffer ionBuffer) throws IOException {
+
+		int[] retentionTimes = null;
+		float[] intensities = null;
+		float startBaseline = 0.0f;
+		float stopBaseline = 0.0f;
+		double integratedArea = 0.0d;
+		IPeakMassSpectrum peakMaximum = null;
+		List<IIdentificationTarget> targets = new ArrayList<>();
+		//
+		reader.beginObject();
+		while(reader.hasNext()) {
+			String name = reader.nextName();
+			if(ChromatogramGson_1000.RTS.equals(name)) {
+				retentionTimes = readIntArray(reader);
+			} else if(ChromatogramGson_1000.INTENSITIES.equals(name)) {
+				intensities = readFloatArray(reader);
+			} else if(ChromatogramGson_1000.START_BASELINE.equals(name)) {
+				startBaseline = (float)reader.nextDouble();
+			} else if(ChromatogramGson_1000.STOP_BASELINE.equals(name)) {
+				stopBaseline = (float)reader.nextDouble();
+			} else if(ChromatogramGson_1000.AREA.equals(name)) {
+				integratedArea = reader.nextDouble();
+			} else if(ChromatogramGson_1000.MS.equals(name)) {
+				peakMaximum = new PeakMassSpectrum();
+				readScan(reader, peakMaximum, ionBuffer, null);
+			} else if(ChromatogramGson_1000.TARGETS.equals(name)) {
+				readTargets(reader, targets);
+			} else {
+				reader.skipValue();
+			}
+		}
+		reader.endObject();
+		//
+		if(retentionTimes == null || intensities == null || peakMaximum == null) {
+			return null;
+		}
+		IPeakIntensityValues peakIntensityValues = new PeakIntensityValues(Float.MAX_VALUE);
+		for(int i = 0; i < retentionTimes.length && i < intensities.length; i++) {
+			peakIntensityValues.addIntensityValue(retentionTimes[i], intensities[i]);
+		}
+		peakIntensityValues.normalize();
+		try {
+			IPeakModelMSD peakModel = new PeakModelMSD(peakMaximum, peakIntensityValues, startBaseline, stopBaseline);
+			return new PeakData(peakModel, targets, integratedArea);
+		} catch(IllegalArgumentException | PeakException e) {
+			logger.warn(e);
+			return null;
+		}
+	}
+
+	private void readTargets(JsonReader reader, List<IIdentificationTarget> targets) throws IOException {
+
+		reader.beginArray();
+		while(reader.hasNext()) {
+			ILibraryInformation libraryInformation = new LibraryInformation();
+			float matchFactor = 0.0f;
+			float matchFactorDirect = 0.0f;
+			float reverseMatchFactor = 0.0f;
+			float reverseMatchFactorDirect = 0.0f;
+			float probability = 0.0f;
+			reader.beginObject();
+			while(reader.hasNext()) {
+				String name = reader.nextName();
+				if(reader.peek() == JsonToken.NULL) {
+					reader.nextNull();
+				} else if(ChromatogramGson_1000.NAME.equals(name)) {
+					libraryInformation.setName(reader.nextString());
+				} else if(ChromatogramGson_1000.CAS.equals(name)) {
+					libraryInformation.setCasNumber(reader.nextString());
+				} else if(ChromatogramGson_1000.MF.equals(name)) {
+					matchFactor = (float)reader.nextDouble();
+				} else if(ChromatogramGson_1000.MFD.equals(name)) {
+					matchFactorDirect = (float)reader.nextDouble();
+				} else if(ChromatogramGson_1000.RMF.equals(name)) {
+					reverseMatchFactor = (float)reader.nextDouble();
+				} else if(ChromatogramGson_1000.RMFD.equals(name)) {
+					reverseMatchFactorDirect = (float)reader.nextDouble();
+				} else if(ChromatogramGson_1000.PROB.equals(name)) {
+					probability = (float)reader.nextDouble();
+				} else if(ChromatogramGson_1000.FORMULA.equals(name)) {
+					libraryInformation.setFormula(reader.nextString());
+				} else if(ChromatogramGson_1000.SMILES.equals(name)) {
+					libraryInformation.setSmiles(reader.nextString());
+				} else if(ChromatogramGson_1000.INCHI.equals(name)) {
+					libraryInformation.setInChI(reader.nextString());
+				} else if(ChromatogramGson_1000.MW.equals(name)) {
+					libraryInformation.setMolWeight(reader.nextDouble());
+				} else if(ChromatogramGson_1000.MISC.equals(name)) {
+					libraryInformation.setMiscellaneous(reader.nextString());
+				} else if(ChromatogramGson_1000.CONTR.equals(name)) {
+					libraryInformation.setContributor(reader.nextString());
+				} else if(ChromatogramGson_1000.DB.equals(name)) {
+					libraryInformation.setDatabase(reader.nextString());
+				} else if(ChromatogramGson_1000.IDENTIFIER.equals(name)) {
+					libraryInformation.setReferenceIdentifier(reader.nextString());
+				} else {
+					reader.skipValue();
+				}
+			}
+			reader.endObject();
+			ComparisonResult comparisonResult = new ComparisonResult(matchFactor, reverseMatchFactor, matchFactorDirect, reverseMatchFactorDirect, probability);
+			targets.add(new IdentificationTarget(libraryInformation, comparisonResult));
+		}
+		reader.endArray();
+	}
+
+	private int[] readIntArray(JsonReader reader) throws IOException {
+
+		int[] values = new int[1024];
+		int size = 0;
+		reader.beginArray();
+		while(reader.hasNext()) {
+			if(size == values.length) {
+				values = Arrays.copyOf(values, size * 2);
+			}
+			values[size++] = reader.nextInt();
+		}
+		reader.endArray();
+		return Arrays.copyOf(values, size);
+	}
+
+	private float[] readFloatArray(JsonReader reader) throws IOException {
+
+		float[] values = new float[1024];
+		int size = 0;
+		reader.beginArray();
+		while(reader.hasNext()) {
+			if(size == values.length) {
+				values = Arrays.copyOf(values, size * 2);
+			}
+			values[size++] = (float)reader.nextDouble();
+		}
+		reader.endArray();
+		return Arrays.copyOf(values, size);
+	}
+
+	private static final class OverviewData {
+
+		private int[] retentionTimes;
+		private float[] retentionIndices;
+		private float[] totalSignals;
+	}
+
+	/**
+	 * Primitive buffers, which are reused for each scan.
+	 */
+	private static final class IonBuffer {
+
+		private double[] ions = new double[256];
+		private float[] abundances = new float[256];
+
+		private void ensureIonCapacity(int capacity) {
+
+			if(capacity > ions.length) {
+				int size = Math.max(capacity, ions.length * 2);
+				ions = Arrays.copyOf(ions, size);
+				abundances = Arrays.copyOf(abundances, size);
+			}
+		}
+	}
+
+	private static final class PeakData {
+
+		private final IPeakModelMSD peakModel;
+		private final List<IIdentificationTarget> targets;
+		private final double integratedArea;
+
+		private PeakData(IPeakModelMSD peakModel, List<IIdentificationTarget> targets, double integratedArea) {
+
+			this.peakModel = peakModel;
+			this.targets = targets;
+			this.integratedArea = integratedArea;
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016, 2018 Lablicate GmbH.
+ * Copyright (c) 2016, 2020 Lablicate GmbH.
  * 
  * All rights reserved.
  * This program and the accompanying materials are made available under the
@@ -22,10 +22,22 @@ import org.eclipse.core.runtime.IProgressMonitor;
 
 public class ChromatogramWriter extends AbstractChromatogramMSDWriter {
 
+	private final boolean compress;
+
+	public ChromatogramWriter() {
+
+		this(false);
+	}
+
+	public ChromatogramWriter(boolean compress) {
+
+		this.compress = compress;
+	}
+
 	@Override
 	public void writeChromatogram(File file, IChromatogramMSD chromatogram, IProgressMonitor monitor) throws FileNotFoundException, FileIsNotWriteableException, IOException {
 
-		ChromatogramWriter_1000 writer = new ChromatogramWriter_1000();
+		ChromatogramWriter_1000 writer = new ChromatogramWriter_1000(compress);
 		writer.writeChromatogram(file, chromatogram, monitor);
 	}
 }
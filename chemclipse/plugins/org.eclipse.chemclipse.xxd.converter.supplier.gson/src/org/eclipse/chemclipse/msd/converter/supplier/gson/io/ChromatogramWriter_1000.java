@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016, 2018 Lablicate GmbH.
+ * Copyright (c) 2016, 2020 Lablicate GmbH.
  * 
  * All rights reserved.
  * This program and the accompanying materials are made available under the
@@ -11,10 +11,17 @@
  *******************************************************************************/
 package org.eclipse.chemclipse.msd.converter.supplier.gson.io;
 
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
 
 import org.eclipse.chemclipse.converter.exceptions.FileIsNotWriteableException;
 import org.eclipse.chemclipse.msd.converter.io.AbstractChromatogramMSDWriter;
@@ -23,13 +30,40 @@ import org.eclipse.core.runtime.IProgressMonitor;
 
 public class ChromatogramWriter_1000 extends AbstractChromatogramMSDWriter {
 
+	private static final int BUFFER_SIZE = 65536;
+	//
+	private final boolean compress;
+
+	public ChromatogramWriter_1000() {
+
+		this(false);
+	}
+
+	/**
+	 * If compress is true, the JSON document is written gzip compressed.
+	 * 
+	 * @param compress
+	 */
+	public ChromatogramWriter_1000(boolean compress) {
+
+		this.compress = compress;
+	}
+
 	@Override
 	public void writeChromatogram(File file, IChromatogramMSD chromatogram, IProgressMonitor monitor) throws FileNotFoundException, FileIsNotWriteableException, IOException {
 
 		ChromatogramGson_1000 chromatogramGson = new ChromatogramGson_1000();
-		FileWriter fileWriter = new FileWriter(file);
-		fileWriter.write(chromatogramGson.getJSON(chromatogram, monitor));
-		fileWriter.flush();
-		fileWriter.close();
+		try (Writer writer = new BufferedWriter(new OutputStreamWriter(getOutputStream(file), StandardCharsets.UTF_8), BUFFER_SIZE)) {
+			chromatogramGson.writeJSON(writer, chromatogram, monitor);
+		}
+	}
+
+	private OutputStream getOutputStream(File file) throws IOException {
+
+		OutputStream outputStream = new FileOutputStream(file);
+		if(compress) {
+			return new GZIPOutputStream(outputStream, BUFFER_SIZE);
+		}
+		return new BufferedOutputStream(outputStream, BUFFER_SIZE);
 	}
 }
@@ -0,0 +1,123 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Lablicate GmbH.
+ *
+ * All rights reserved.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Dr. Philip Wenig - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.chemclipse.xxd.converter.supplier.zip.internal.converter;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Enumeration;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.eclipse.chemclipse.logging.core.Logger;
+
+/**
+ * Archives are extracted only if a converter requires a file.
+ * Each archive gets its own directory in the import storage path, which is reused
+ * as long as the size and modification date of the archive are unchanged.
+ * The storage path is cleaned when the bundle is stopped.
+ */
+public class ExtractionCache {
+
+	private static final Logger logger = Logger.getLogger(ExtractionCache.class);
+	//
+	private static final int BUFFER_SIZE = 65536;
+	private static final String STAMP_FILE = ".extracted";
+
+	/**
+	 * Returns the directory that contains the extracted archive.
+	 * The archive is extracted if no valid extraction is available.
+	 *
+	 * @param file
+	 * @param zipFile
+	 * @return File
+	 * @throws IOException
+	 */
+	public static synchronized File getDirectory(File file, ZipFile zipFile) throws IOException {
+
+		File directory = new File(PathHelper.getStoragePathImport(), file.getName() + "_" + Integer.toHexString(file.getAbsolutePath().hashCode()));
+		File stampFile = new File(directory, STAMP_FILE);
+		String stamp = getStamp(file);
+		if(!stamp.equals(readStamp(stampFile))) {
+			if(directory.exists()) {
+				PathHelper.deleteFiles(directory);
+			}
+			extract(zipFile, directory);
+			/*
+			 * The stamp is written last, hence an interrupted extraction is not reused.
+			 */
+			try (Writer writer = Files.newBufferedWriter(stampFile.toPath(), StandardCharsets.UTF_8)) {
+				writer.write(stamp);
+			}
+		}
+		return directory;
+	}
+
+	private static String getStamp(File file) {
+
+		return file.getAbsolutePath() + "\t" + file.length() + "\t" + file.lastModified();
+	}
+
+	private static String readStamp(File stampFile) {
+
+		if(stampFile.isFile()) {
+			try (BufferedReader reader = Files.newBufferedReader(stampFile.toPath(), StandardCharsets.UTF_8)) {
+				return reader.readLine();
+			} catch(IOException e) {
+				logger.warn(e);
+			}
+		}
+		return null;
+	}
+
+	private static void extract(ZipFile zipFile, File directory) throws IOException {
+
+		if(!directory.exists() && !directory.mkdirs()) {
+			throw new IOException("The directory could not be created: " + directory.getAbsolutePath());
+		}
+		//
+		String directoryPath = directory.getCanonicalPath() + File.separator;
+		byte[] buffer = new byte[BUFFER_SIZE];
+		Enumeration<? extends ZipEntry> zipEntries = zipFile.entries();
+		while(zipEntries.hasMoreElements()) {
+			ZipEntry zipEntry = zipEntries.nextElement();
+			File file = new File(directory, zipEntry.getName());
+			/*
+			 * Entries must not be written outside of the directory, e.g. "../file".
+			 */
+			if(!file.getCanonicalPath().startsWith(directoryPath)) {
+				throw new IOException("The entry is outside of the target directory: " + zipEntry.getName());
+			}
+			//
+			if(zipEntry.isDirectory()) {
+				file.mkdirs();
+			} else {
+				File parent = file.getParentFile();
+				if(!parent.exists()) {
+					parent.mkdirs();
+				}
+				try (InputStream inputStream = zipFile.getInputStream(zipEntry); OutputStream outputStream = new FileOutputStream(file)) {
+					int count;
+					while((count = inputStream.read(buffer)) != -1) {
+						outputStream.write(buffer, 0, count);
+					}
+				}
+			}
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012, 2018 Lablicate GmbH.
+ * Copyright (c) 2012, 2020 Lablicate GmbH.
  * 
  * All rights reserved.
  * This program and the accompanying materials are made available under the
@@ -86,7 +86,7 @@ public class PathHelper {
 	 * 
 	 * @param directory
 	 */
-	private static void deleteFiles(File directory) {
+	static void deleteFiles(File directory) {
 
 		/*
 		 * Delete all files in all directories.
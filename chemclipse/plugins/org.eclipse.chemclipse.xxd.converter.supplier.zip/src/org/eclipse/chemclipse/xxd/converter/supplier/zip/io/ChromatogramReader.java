@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012, 2019 Lablicate GmbH.
+ * Copyright (c) 2012, 2020 Lablicate GmbH.
  *
  * All rights reserved.
  * This program and the accompanying materials are made available under the
@@ -12,22 +12,20 @@
  *******************************************************************************/
 package org.eclipse.chemclipse.xxd.converter.supplier.zip.io;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Enumeration;
 import java.util.List;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
+import java.util.zip.ZipFile;
 
 import org.eclipse.chemclipse.converter.chromatogram.IChromatogramConverterSupport;
 import org.eclipse.chemclipse.converter.exceptions.FileIsEmptyException;
 import org.eclipse.chemclipse.converter.exceptions.FileIsNotReadableException;
 import org.eclipse.chemclipse.converter.exceptions.NoConverterAvailableException;
+import org.eclipse.chemclipse.converter.io.ArchiveEntry;
 import org.eclipse.chemclipse.logging.core.Logger;
 import org.eclipse.chemclipse.model.core.IChromatogramOverview;
 import org.eclipse.chemclipse.msd.converter.chromatogram.ChromatogramConverterMSD;
@@ -35,13 +33,17 @@ import org.eclipse.chemclipse.msd.converter.io.AbstractChromatogramMSDReader;
 import org.eclipse.chemclipse.msd.model.core.IChromatogramMSD;
 import org.eclipse.chemclipse.processing.converter.ISupplier;
 import org.eclipse.chemclipse.processing.core.IProcessingInfo;
+import org.eclipse.chemclipse.xxd.converter.supplier.zip.internal.converter.ExtractionCache;
 import org.eclipse.chemclipse.xxd.converter.supplier.zip.internal.converter.IConstants;
-import org.eclipse.chemclipse.xxd.converter.supplier.zip.internal.converter.PathHelper;
 import org.eclipse.core.runtime.IProgressMonitor;
 
+/**
+ * The chromatogram is read directly from the archive, if the converter of the
+ * contained file supports archive entries. Otherwise, the archive is extracted
+ * once and the extraction is reused until the archive is modified.
+ */
 public class ChromatogramReader extends AbstractChromatogramMSDReader {
 
-	private final int BUFFER = 2048;
 	private static final Logger logger = Logger.getLogger(ChromatogramReader.class);
 	private List<String> chromatogramFileExtensions;
 	private String defaultFileExtension = "";
@@ -53,7 +55,10 @@ public class ChromatogramReader extends AbstractChromatogramMSDReader {
 		chromatogramFileExtensions = new ArrayList<>();
 		IChromatogramConverterSupport support = ChromatogramConverterMSD.getInstance().getChromatogramConverterSupport();
 		for(ISupplier supplier : support.getSupplier()) {
-			chromatogramFileExtensions.add(supplier.getFileExtension());
+			String fileExtension = supplier.getFileExtension();
+			if(fileExtension != null && !fileExtension.isEmpty()) {
+				chromatogramFileExtensions.add(fileExtension);
+			}
 		}
 		/*
 		 * Default extension.
@@ -69,124 +74,95 @@ public class ChromatogramReader extends AbstractChromatogramMSDReader {
 	@Override
 	public IChromatogramMSD read(File file, IProgressMonitor monitor) throws FileNotFoundException, FileIsNotReadableException, FileIsEmptyException, IOException {
 
-		File fileChromatogram = extractChromatogramFile(file, monitor);
-		IProcessingInfo<IChromatogramMSD> processingInfo = ChromatogramConverterMSD.getInstance().convert(fileChromatogram, monitor);
-		return processingInfo.getProcessingResult();
+		try (ZipFile zipFile = new ZipFile(file)) {
+			ZipEntry zipEntry = getChromatogramEntry(zipFile);
+			if(zipEntry != null && !zipEntry.isDirectory()) {
+				IProcessingInfo<?> processingInfo = ChromatogramConverterMSD.getInstance().getChromatogram(new ArchiveEntry(file, zipFile, zipEntry), false, monitor);
+				Object object = processingInfo.getProcessingResult();
+				if(object instanceof IChromatogramMSD) {
+					return (IChromatogramMSD)object;
+				}
+			}
+			/*
+			 * The converter requires a file.
+			 */
+			File fileChromatogram = getChromatogramFile(file, zipFile, zipEntry);
+			IProcessingInfo<IChromatogramMSD> processingInfo = ChromatogramConverterMSD.getInstance().convert(fileChromatogram, monitor);
+			return processingInfo.getProcessingResult();
+		}
 	}
 
 	@Override
 	public IChromatogramOverview readOverview(File file, IProgressMonitor monitor) throws FileNotFoundException, FileIsNotReadableException, FileIsEmptyException, IOException {
 
-		File fileChromatogram = extractChromatogramFile(file, monitor);
-		IProcessingInfo<IChromatogramOverview> processingInfo = ChromatogramConverterMSD.getInstance().convertOverview(fileChromatogram, monitor);
-		return processingInfo.getProcessingResult();
-	}
-
-	private File extractChromatogramFile(File file, IProgressMonitor monitor) throws IOException {
-
-		/*
-		 * Extract the ZIP file.
-		 */
-		File destinationDirectory = PathHelper.getStoragePathImport();
-		File extractedFile = extractFileToLocalDirectory(file, destinationDirectory, monitor);
-		File fileChromatogram;
-		/*
-		 * If no regular chromatogram file could be found.
-		 */
-		if(extractedFile == null) {
-			String fileName = getFileName(file);
-			fileChromatogram = new File(destinationDirectory + File.separator + fileName);
-		} else {
-			fileChromatogram = extractedFile;
-		}
-		return fileChromatogram;
-	}
-
-	private String getFileName(File file) {
-
-		/*
-		 * Removes the ".zip" extension.
-		 */
-		String fileName;
-		if(file.getName().endsWith(".zip")) {
-			fileName = file.getName().substring(0, file.getName().length() - 4);
-		} else {
-			fileName = file.getName() + defaultFileExtension;
+		try (ZipFile zipFile = new ZipFile(file)) {
+			ZipEntry zipEntry = getChromatogramEntry(zipFile);
+			if(zipEntry != null && !zipEntry.isDirectory()) {
+				IProcessingInfo<?> processingInfo = ChromatogramConverterMSD.getInstance().getChromatogram(new ArchiveEntry(file, zipFile, zipEntry), true, monitor);
+				Object object = processingInfo.getProcessingResult();
+				if(object instanceof IChromatogramOverview) {
+					return (IChromatogramOverview)object;
+				}
+			}
+			/*
+			 * The converter requires a file.
+			 */
+			File fileChromatogram = getChromatogramFile(file, zipFile, zipEntry);
+			IProcessingInfo<IChromatogramOverview> processingInfo = ChromatogramConverterMSD.getInstance().convertOverview(fileChromatogram, monitor);
+			return processingInfo.getProcessingResult();
 		}
-		return fileName;
 	}
 
 	/**
-	 * This method returns null if no directory have been found.
+	 * The first directory will be taken as the chromatogram directory. Agilent chromatograms are stored for example in a directory called "*.D".
+	 * Otherwise, the first file with an importable file extension is the chromatogram.
+	 * Cause chromatograms will be stored with additional information normally, like method files ...
+	 * This method returns null if no chromatogram entry has been found.
 	 *
-	 * @param file
-	 * @param destinationDirectory
-	 * @param monitor
-	 * @return File
-	 * @throws IOException
+	 * @param zipFile
+	 * @return {@link ZipEntry}
 	 */
-	private File extractFileToLocalDirectory(File file, File destinationDirectory, IProgressMonitor monitor) throws IOException {
+	private ZipEntry getChromatogramEntry(ZipFile zipFile) {
 
-		File chromatogram = null;
-		FileInputStream fileInputStream = new FileInputStream(file);
-		ZipInputStream zipInputStream = new ZipInputStream(new BufferedInputStream(fileInputStream));
-		ZipEntry zipEntry;
-		while((zipEntry = zipInputStream.getNextEntry()) != null) {
+		Enumeration<? extends ZipEntry> zipEntries = zipFile.entries();
+		while(zipEntries.hasMoreElements()) {
+			ZipEntry zipEntry = zipEntries.nextElement();
 			if(zipEntry.isDirectory()) {
-				/*
-				 * The first directory will be taken as the chromatogram directory. Agilent chromatograms are stored for example in a directory called "*.D".
-				 */
-				if(chromatogram == null) {
-					chromatogram = createDir(destinationDirectory, zipEntry);
-				} else {
-					createDir(destinationDirectory, zipEntry);
-				}
+				return zipEntry;
 			} else {
-				/*
-				 * If the chromatogram is still null, there seems to be a file which contains the chromatogram.
-				 * But each file will be checked against the file extensions that are importable.
-				 * Cause chromatograms will be stored with additional information normally, like method files ...
-				 */
-				if(chromatogram == null) {
-					File chromatogramFile = extractFile(destinationDirectory, zipEntry, zipInputStream);
-					for(String chromatogramFileExtension : chromatogramFileExtensions) {
-						if(chromatogramFile.getAbsolutePath().endsWith(chromatogramFileExtension)) {
-							chromatogram = chromatogramFile;
-						}
+				for(String chromatogramFileExtension : chromatogramFileExtensions) {
+					if(zipEntry.getName().endsWith(chromatogramFileExtension)) {
+						return zipEntry;
 					}
-				} else {
-					extractFile(destinationDirectory, zipEntry, zipInputStream);
 				}
 			}
 		}
-		return chromatogram;
+		return null;
 	}
 
-	private File createDir(File destinationDirectory, ZipEntry zipEntry) {
-
-		File file = new File(getFileName(destinationDirectory, zipEntry));
-		file.mkdir();
-		return file;
-	}
+	private File getChromatogramFile(File file, ZipFile zipFile, ZipEntry zipEntry) throws IOException {
 
-	private String getFileName(File destinationDirectory, ZipEntry zipEntry) {
-
-		return destinationDirectory.getAbsolutePath() + File.separator + zipEntry.getName();
+		File destinationDirectory = ExtractionCache.getDirectory(file, zipFile);
+		if(zipEntry == null) {
+			/*
+			 * If no regular chromatogram file could be found.
+			 */
+			return new File(destinationDirectory, getFileName(file));
+		}
+		return new File(destinationDirectory, zipEntry.getName());
 	}
 
-	private File extractFile(File destinationDirectory, ZipEntry zipEntry, ZipInputStream zipInputStream) throws IOException {
+	private String getFileName(File file) {
 
-		int count;
-		byte[] data = new byte[BUFFER];
-		File file = new File(getFileName(destinationDirectory, zipEntry));
-		FileOutputStream fileOutputStream = new FileOutputStream(file);
-		BufferedOutputStream bufferedOutputStream = new BufferedOutputStream(fileOutputStream, BUFFER);
-		while((count = zipInputStream.read(data, 0, BUFFER)) != -1) {
-			bufferedOutputStream.write(data, 0, count);
+		/*
+		 * Removes the ".zip" extension.
+		 */
+		String fileName;
+		if(file.getName().endsWith(".zip")) {
+			fileName = file.getName().substring(0, file.getName().length() - 4);
+		} else {
+			fileName = file.getName() + defaultFileExtension;
 		}
-		bufferedOutputStream.flush();
-		bufferedOutputStream.close();
-		//
-		return file;
+		return fileName;
 	}
 }
@@ -0,0 +1,79 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Lablicate GmbH.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Dr. Philip Wenig - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.chemclipse.chromatogram.msd.comparison.math;
+
+import org.eclipse.chemclipse.msd.model.core.IScanMSD;
+
+public class MassSpectrumVectorMatch_1_Test extends MassSpectrumSetTestCase {
+
+	private GeometricDistanceCalculator calculator;
+
+	@Override
+	protected void setUp() throws Exception {
+
+		super.setUp();
+		calculator = new GeometricDistanceCalculator();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+
+		super.tearDown();
+	}
+
+	public void test1() {
+
+		IScanMSD unknown = sinapylAclohol.getMassSpectrum();
+		IScanMSD reference = sinapylAcloholCis.getMassSpectrum();
+		MassSpectrumVectorMatch vectorMatch = createVectorMatch(unknown, reference);
+		assertEquals(calculator.calculate(unknown, reference, unknown.getExtractedIonSignal().getIonRange()), getGeometricDistance(vectorMatch.getSquaredDistance()));
+		assertEquals(calculator.calculate(reference, unknown, reference.getExtractedIonSignal().getIonRange()), getGeometricDistance(vectorMatch.getReverseSquaredDistance()));
+	}
+
+	public void test2() {
+
+		IScanMSD unknown = sinapylAclohol.getMassSpectrum();
+		IScanMSD reference = sinapylAcloholCis.getMassSpectrum();
+		MassSpectrumVectorMatch vectorMatch = createVectorMatch(unknown, reference);
+		assertEquals(calculator.calculate(unknown, reference), getGeometricDistance(vectorMatch.getSquaredDistanceDirect()));
+		assertEquals(calculator.calculate(reference, unknown), getGeometricDistance(vectorMatch.getReverseSquaredDistanceDirect()));
+	}
+
+	public void test3() {
+
+		IScanMSD unknown = sinapylAcloholCis.getMassSpectrum();
+		MassSpectrumVectorMatch vectorMatch = createVectorMatch(unknown, unknown);
+		assertEquals(1.0d, vectorMatch.getCosine(), 1.0E-12);
+		assertEquals(1.0d, vectorMatch.getReverseCosineDirect(), 1.0E-12);
+		assertEquals(1.0d, vectorMatch.getBinaryCosine(), 1.0E-12);
+		assertEquals(0.0d, vectorMatch.getSquaredDistance(), 1.0E-12);
+	}
+
+	public void test4() {
+
+		IScanMSD unknown = noMatchA1.getMassSpectrum();
+		IScanMSD reference = noMatchA2.getMassSpectrum();
+		MassSpectrumVectorMatch vectorMatch = createVectorMatch(unknown, reference);
+		assertEquals(calculator.calculate(unknown, reference), getGeometricDistance(vectorMatch.getSquaredDistanceDirect()));
+		assertEquals(calculator.calculate(reference, unknown), getGeometricDistance(vectorMatch.getReverseSquaredDistanceDirect()));
+	}
+
+	private MassSpectrumVectorMatch createVectorMatch(IScanMSD unknown, IScanMSD reference) {
+
+		return new MassSpectrumVectorMatch(new MassSpectrumVector(unknown.getExtractedIonSignal()), new MassSpectrumVector(reference.getExtractedIonSignal()));
+	}
+
+	private float getGeometricDistance(double squaredDistance) {
+
+		return Double.isNaN(squaredDistance) ? 0 : (float)Math.pow(squaredDistance + 1, -1);
+	}
+}
@@ -0,0 +1,128 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Lablicate GmbH.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Dr. Philip Wenig - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.chemclipse.chromatogram.msd.identifier.support;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.chemclipse.msd.model.core.IScanMSD;
+import org.eclipse.chemclipse.msd.model.implementation.Ion;
+import org.eclipse.chemclipse.msd.model.implementation.ScanMSD;
+
+import junit.framework.TestCase;
+
+public class DatabaseIndex_1_Test extends TestCase {
+
+	private List<IScanMSD> references;
+	private DatabaseIndex databaseIndex;
+
+	@Override
+	protected void setUp() throws Exception {
+
+		super.setUp();
+		references = new ArrayList<>();
+		references.add(createScan(new double[]{43.0d, 57.0d, 71.0d, 85.0d}, new float[]{1000.0f, 800.0f, 600.0f, 400.0f}));
+		references.add(createScan(new double[]{77.0d, 91.0d, 105.0d}, new float[]{500.0f, 1000.0f, 300.0f}));
+		references.add(createScan(new double[]{43.1d, 58.0d, 91.2d}, new float[]{1000.0f, 900.0f, 100.0f}));
+		/*
+		 * The reference contains m/z 57 only as 11th most abundant ion.
+		 */
+		double[] ions = new double[DatabaseIndex.NUMBER_OF_REFERENCE_IONS + 1];
+		float[] abundances = new float[ions.length];
+		for(int i = 0; i < DatabaseIndex.NUMBER_OF_REFERENCE_IONS; i++) {
+			ions[i] = 200.0d + i;
+			abundances[i] = 1000.0f - i;
+		}
+		ions[DatabaseIndex.NUMBER_OF_REFERENCE_IONS] = 57.0d;
+		abundances[DatabaseIndex.NUMBER_OF_REFERENCE_IONS] = 1.0f;
+		references.add(createScan(ions, abundances));
+		databaseIndex = new DatabaseIndex(references);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+
+		references = null;
+		databaseIndex = null;
+		super.tearDown();
+	}
+
+	public void testSize_1() {
+
+		assertEquals(4, databaseIndex.size());
+	}
+
+	public void testGetCandidates_1() throws Exception {
+
+		/*
+		 * At least one shared ion, the order of the references is retained.
+		 */
+		IScanMSD unknown = createScan(new double[]{43.0d, 91.0d}, new float[]{100.0f, 200.0f});
+		List<IScanMSD> candidates = databaseIndex.getCandidates(unknown, 0.0d);
+		assertEquals(3, candidates.size());
+		assertSame(references.get(0), candidates.get(0));
+		assertSame(references.get(1), candidates.get(1));
+		assertSame(references.get(2), candidates.get(2));
+	}
+
+	public void testGetCandidates_2() throws Exception {
+
+		/*
+		 * All base ions must be shared.
+		 */
+		IScanMSD unknown = createScan(new double[]{43.0d, 91.0d}, new float[]{100.0f, 200.0f});
+		List<IScanMSD> candidates = databaseIndex.getCandidates(unknown, 1.0d);
+		assertEquals(1, candidates.size());
+		assertSame(references.get(2), candidates.get(0));
+	}
+
+	public void testGetCandidates_3() throws Exception {
+
+		/*
+		 * Only the most abundant ions of the references are indexed.
+		 */
+		IScanMSD unknown = createScan(new double[]{57.0d}, new float[]{100.0f});
+		List<IScanMSD> candidates = databaseIndex.getCandidates(unknown, 0.0d);
+		assertEquals(1, candidates.size());
+		assertSame(references.get(0), candidates.get(0));
+	}
+
+	public void testGetCandidates_4() throws Exception {
+
+		/*
+		 * Only the most abundant ions of the unknown are looked up.
+		 */
+		double[] ions = new double[DatabaseIndex.NUMBER_OF_UNKNOWN_IONS + 1];
+		float[] abundances = new float[ions.length];
+		for(int i = 0; i < DatabaseIndex.NUMBER_OF_UNKNOWN_IONS; i++) {
+			ions[i] = 300.0d + i;
+			abundances[i] = 1000.0f;
+		}
+		ions[DatabaseIndex.NUMBER_OF_UNKNOWN_IONS] = 105.0d;
+		abundances[DatabaseIndex.NUMBER_OF_UNKNOWN_IONS] = 1.0f;
+		assertTrue(databaseIndex.getCandidates(createScan(ions, abundances), 0.0d).isEmpty());
+	}
+
+	public void testGetCandidates_5() throws Exception {
+
+		assertTrue(databaseIndex.getCandidates(new ScanMSD(), 0.0d).isEmpty());
+	}
+
+	private IScanMSD createScan(double[] ions, float[] abundances) throws Exception {
+
+		IScanMSD scan = new ScanMSD();
+		for(int i = 0; i < ions.length; i++) {
+			scan.addIon(new Ion(ions[i], abundances[i]));
+		}
+		return scan;
+	}
+}
@@ -0,0 +1,130 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Lablicate GmbH.
+ *
+ * All rights reserved.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Dr. Philip Wenig - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.chemclipse.chromatogram.msd.peak.detector.supplier.amdis.internal.deconvolution;
+
+import java.util.List;
+
+import org.eclipse.chemclipse.chromatogram.msd.peak.detector.supplier.amdis.settings.PeakDetectorDeconvolutionSettings;
+
+import junit.framework.TestCase;
+
+/**
+ * Two co-eluting components (apex 200 and 206) sharing m/z 57 and a
+ * separated component (apex 450). The water trace (m/z 18) is omitted.
+ */
+public class ComponentPerception_1_Test extends TestCase {
+
+	private static final int NUMBER_OF_SCANS = 600;
+	//
+	private double[] ions = new double[]{18.0d, 43.0d, 57.0d, 71.0d, 91.0d, 105.0d, 120.0d};
+	private float[][] columns;
+	private PeakDetectorDeconvolutionSettings settings;
+
+	@Override
+	protected void setUp() throws Exception {
+
+		super.setUp();
+		columns = new float[ions.length][NUMBER_OF_SCANS];
+		for(int scan = 0; scan < NUMBER_OF_SCANS; scan++) {
+			double a = gauss(scan, 200, 3);
+			double b = gauss(scan, 206, 3);
+			double c = gauss(scan, 450, 4);
+			float noise = (scan % 2 == 0) ? 12.0f : 8.0f;
+			columns[0][scan] = (float)(5000 * gauss(scan, 300, 3)) + noise;
+			columns[1][scan] = (float)(1000 * a + 200 * c) + noise;
+			columns[2][scan] = (float)(500 * a + 300 * b) + noise;
+			columns[3][scan] = (float)(250 * a) + noise;
+			columns[4][scan] = (float)(800 * b + 300 * c) + noise;
+			columns[5][scan] = (float)(400 * b) + noise;
+			columns[6][scan] = (float)(600 * c) + noise;
+		}
+		settings = new PeakDetectorDeconvolutionSettings();
+		settings.setMinNumberOfIons(2);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+
+		columns = null;
+		settings = null;
+		super.tearDown();
+	}
+
+	public void testProcess_1() {
+
+		List<Component> components = new ComponentPerception(settings).process(ions, columns, NUMBER_OF_SCANS);
+		assertEquals(3, components.size());
+		//
+		Component component = components.get(0);
+		assertEquals(200, component.getApexScan());
+		assertEquals(43.0d, component.getModelIon());
+		assertEquals(1000.0f, component.getIons().get(43.0d), 10.0f);
+		assertEquals(250.0f, component.getIons().get(71.0d), 10.0f);
+		assertFalse(component.getIons().containsKey(91.0d));
+		//
+		component = components.get(1);
+		assertEquals(206, component.getApexScan());
+		assertEquals(400.0f, component.getIons().get(105.0d), 10.0f);
+		assertFalse(component.getIons().containsKey(43.0d));
+		//
+		component = components.get(2);
+		assertEquals(450, component.getApexScan());
+		assertEquals(3, component.getIons().size());
+		assertEquals(600.0f, component.getIons().get(120.0d), 10.0f);
+	}
+
+	public void testProcess_2() {
+
+		settings.setMinNumberOfIons(3);
+		List<Component> components = new ComponentPerception(settings).process(ions, columns, NUMBER_OF_SCANS);
+		assertEquals(1, components.size());
+		assertEquals(450, components.get(0).getApexScan());
+	}
+
+	public void testProcess_3() {
+
+		settings.setOmittedIons("");
+		settings.setMinNumberOfIons(1);
+		List<Component> components = new ComponentPerception(settings).process(ions, columns, NUMBER_OF_SCANS);
+		assertEquals(4, components.size());
+		assertEquals(18.0d, components.get(2).getModelIon());
+	}
+
+	public void testProcess_4() {
+
+		Component component = new ComponentPerception(settings).process(ions, columns, NUMBER_OF_SCANS).get(0);
+		double[] shape = component.getShape();
+		assertEquals(1.0d, shape[component.getApexScan() - component.getStartScan()]);
+		assertEquals(component.getStopScan() - component.getStartScan() + 1, shape.length);
+	}
+
+	public void testProcess_5() {
+
+		/*
+		 * The low correlation assigns m/z 57 to both co-eluting components.
+		 * The model ions 43 and 91 are kept in the separated component.
+		 */
+		settings.setMinShapeCorrelation(0.3f);
+		List<Component> components = new ComponentPerception(settings).process(ions, columns, NUMBER_OF_SCANS);
+		assertEquals(3, components.size());
+		assertFalse(components.get(0).getIons().containsKey(57.0d));
+		assertFalse(components.get(1).getIons().containsKey(57.0d));
+		assertTrue(components.get(0).getIons().containsKey(43.0d));
+		assertTrue(components.get(2).getIons().containsKey(43.0d));
+		assertTrue(components.get(2).getIons().containsKey(91.0d));
+	}
+
+	private static double gauss(int scan, double center, double sigma) {
+
+		return Math.exp(-0.5d * (scan - center) * (scan - center) / (sigma * sigma));
+	}
+}
@@ -0,0 +1,74 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Lablicate GmbH.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Dr. Philip Wenig - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.chemclipse.chromatogram.msd.process.supplier.batchprocess.internal.support;
+
+import junit.framework.TestCase;
+
+public class MemoryAdmission_1_Test extends TestCase {
+
+	private MemoryAdmission memoryAdmission;
+
+	@Override
+	protected void setUp() throws Exception {
+
+		super.setUp();
+		memoryAdmission = new MemoryAdmission(100);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+
+		super.tearDown();
+	}
+
+	public void testAcquire_1() throws InterruptedException {
+
+		assertEquals(40, memoryAdmission.acquire(40));
+		assertEquals(60, memoryAdmission.acquire(60));
+	}
+
+	public void testAcquire_2() throws InterruptedException {
+
+		/*
+		 * Larger requests are limited to the budget.
+		 */
+		assertEquals(100, memoryAdmission.acquire(500));
+	}
+
+	public void testAcquire_3() throws InterruptedException {
+
+		assertEquals(0, memoryAdmission.acquire(-10));
+	}
+
+	public void testAcquire_4() throws InterruptedException {
+
+		long reserved = memoryAdmission.acquire(80);
+		Thread thread = new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+
+				try {
+					memoryAdmission.release(memoryAdmission.acquire(50));
+				} catch(InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		});
+		thread.start();
+		thread.join(200);
+		assertTrue(thread.isAlive());
+		memoryAdmission.release(reserved);
+		thread.join(5000);
+		assertFalse(thread.isAlive());
+	}
+}
@@ -0,0 +1,79 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Lablicate GmbH.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Dr. Philip Wenig - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.chemclipse.chromatogram.msd.quantitation.supplier.chemclipse.internal.core;
+
+import java.util.List;
+
+import org.eclipse.chemclipse.model.quantitation.IQuantitationCompound;
+import org.eclipse.chemclipse.model.quantitation.QuantitationDatabase;
+import org.eclipse.chemclipse.xxd.model.quantitation.QuantitationCompound;
+
+import junit.framework.TestCase;
+
+public class QuantitationCompoundIndex_1_Test extends TestCase {
+
+	private QuantitationDatabase quantitationDatabase;
+	private QuantitationCompoundIndex quantitationCompoundIndex;
+
+	@Override
+	protected void setUp() throws Exception {
+
+		super.setUp();
+		quantitationDatabase = new QuantitationDatabase();
+		quantitationDatabase.add(new QuantitationCompound("Styrene", "mg/ml", 5500));
+		quantitationDatabase.add(new QuantitationCompound("Toluene", "mg/ml", 4200));
+		quantitationDatabase.add(new QuantitationCompound("TOLUENE ", "mg/ml", 4300));
+		quantitationCompoundIndex = new QuantitationCompoundIndex(quantitationDatabase);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+
+		quantitationDatabase = null;
+		quantitationCompoundIndex = null;
+		super.tearDown();
+	}
+
+	public void test1() {
+
+		assertEquals(3, quantitationCompoundIndex.size());
+		assertEquals(3, quantitationCompoundIndex.getQuantitationCompounds().size());
+	}
+
+	public void test2() {
+
+		List<IQuantitationCompound> compounds = quantitationCompoundIndex.getQuantitationCompounds("styrene");
+		assertEquals(1, compounds.size());
+		assertEquals("Styrene", compounds.get(0).getName());
+	}
+
+	public void test3() {
+
+		assertEquals(2, quantitationCompoundIndex.getQuantitationCompounds(" toluene").size());
+	}
+
+	public void test4() {
+
+		assertEquals(0, quantitationCompoundIndex.getQuantitationCompounds("Benzene").size());
+		assertEquals(0, quantitationCompoundIndex.getQuantitationCompounds(null).size());
+	}
+
+	public void test5() {
+
+		/*
+		 * The index is a snapshot.
+		 */
+		quantitationDatabase.add(new QuantitationCompound("Benzene", "mg/ml", 3000));
+		assertEquals(0, quantitationCompoundIndex.getQuantitationCompounds("Benzene").size());
+		assertEquals(1, new QuantitationCompoundIndex(quantitationDatabase).getQuantitationCompounds("benzene").size());
+	}
+}
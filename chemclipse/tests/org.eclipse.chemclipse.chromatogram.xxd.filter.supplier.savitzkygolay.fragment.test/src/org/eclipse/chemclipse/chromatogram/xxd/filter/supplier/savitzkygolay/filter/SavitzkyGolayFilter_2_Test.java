@@ -0,0 +1,56 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Lablicate GmbH.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Dr. Philip Wenig - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.chemclipse.chromatogram.xxd.filter.supplier.savitzkygolay.filter;
+
+import org.eclipse.chemclipse.chromatogram.xxd.filter.supplier.savitzkygolay.processor.SavitzkyGolayFilter;
+
+import junit.framework.TestCase;
+
+public class SavitzkyGolayFilter_2_Test extends TestCase {
+
+	private double[] values = new double[]{10.0d, 12.0d, 15.0d, 30.0d, 80.0d, 120.0d, 90.0d, 40.0d, 20.0d, 14.0d, 11.0d, 10.0d};
+
+	public void testGetInstance_1() {
+
+		SavitzkyGolayFilter filter = SavitzkyGolayFilter.getInstance(2, 7, 0);
+		assertSame(filter, SavitzkyGolayFilter.getInstance(2, 7, 0));
+		assertEquals(2, filter.getOrder());
+		assertEquals(7, filter.getWidth());
+		assertEquals(0, filter.getDerivative());
+	}
+
+	public void testGetInstance_2() {
+
+		// The derivative is rectified to the order.
+		assertSame(SavitzkyGolayFilter.getInstance(3, 5, 3), SavitzkyGolayFilter.getInstance(3, 5, 5));
+		assertNotSame(SavitzkyGolayFilter.getInstance(3, 5, 0), SavitzkyGolayFilter.getInstance(3, 7, 0));
+	}
+
+	public void testApply_1() {
+
+		SavitzkyGolayFilter filter = SavitzkyGolayFilter.getInstance(2, 5, 0);
+		double[] smoothed = filter.apply(values);
+		for(int i = 0; i < values.length; i++) {
+			assertEquals(smoothed[i], filter.apply(values, i));
+		}
+	}
+
+	public void testApply_2() {
+
+		SavitzkyGolayFilter filter = SavitzkyGolayFilter.getInstance(3, 7, 1);
+		double[] smoothed = filter.apply(values);
+		assertEquals(values.length, smoothed.length);
+		for(int i = 0; i < values.length; i++) {
+			assertEquals(smoothed[i], filter.apply(values, i));
+		}
+	}
+}
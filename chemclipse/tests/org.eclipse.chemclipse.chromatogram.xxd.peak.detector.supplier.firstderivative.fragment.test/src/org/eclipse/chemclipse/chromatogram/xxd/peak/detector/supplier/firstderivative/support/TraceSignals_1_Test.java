@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Lablicate GmbH.
+ *
+ * All rights reserved.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Dr. Philip Wenig - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.chemclipse.chromatogram.xxd.peak.detector.supplier.firstderivative.support;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.chemclipse.msd.model.core.IChromatogramMSD;
+import org.eclipse.chemclipse.msd.model.core.IVendorMassSpectrum;
+import org.eclipse.chemclipse.msd.model.core.support.IMarkedIons;
+import org.eclipse.chemclipse.msd.model.core.support.IMarkedIons.IonMarkMode;
+import org.eclipse.chemclipse.msd.model.core.support.MarkedIons;
+import org.eclipse.chemclipse.msd.model.implementation.ChromatogramMSD;
+import org.eclipse.chemclipse.msd.model.implementation.ScanIon;
+import org.eclipse.chemclipse.msd.model.implementation.VendorMassSpectrum;
+
+import junit.framework.TestCase;
+
+public class TraceSignals_1_Test extends TestCase {
+
+	private IChromatogramMSD chromatogram;
+	private TraceSignals traceSignals;
+
+	@Override
+	protected void setUp() throws Exception {
+
+		super.setUp();
+		chromatogram = new ChromatogramMSD();
+		chromatogram.setScanDelay(5000);
+		chromatogram.setScanInterval(1000);
+		float[][] abundances = {{100.0f, 1000.0f}, {400.0f, 2000.0f}, {200.0f, 4000.0f}, {50.0f, 3000.0f}};
+		for(float[] abundance : abundances) {
+			IVendorMassSpectrum massSpectrum = new VendorMassSpectrum();
+			massSpectrum.addIon(new ScanIon(43.1d, abundance[0]));
+			massSpectrum.addIon(new ScanIon(57.0d, abundance[1]));
+			chromatogram.addScan(massSpectrum);
+		}
+		chromatogram.recalculateRetentionTimes();
+		//
+		List<IMarkedIons> traces = new ArrayList<>();
+		traces.add(new MarkedIons(new int[]{43}, IonMarkMode.EXCLUDE));
+		traces.add(new MarkedIons(new int[]{57}, IonMarkMode.EXCLUDE));
+		traces.add(new MarkedIons(new int[]{57}, IonMarkMode.INCLUDE));
+		traceSignals = new TraceSignals(chromatogram, 1, 4, traces);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+
+		chromatogram = null;
+		traceSignals = null;
+		super.tearDown();
+	}
+
+	public void testSize_1() {
+
+		assertEquals(3, traceSignals.size());
+		assertEquals(1, traceSignals.getStartScan());
+		assertEquals(4, traceSignals.getStopScan());
+	}
+
+	public void testGetSignal_1() {
+
+		assertEquals(400.0f, traceSignals.getSignal(0, 2));
+		assertEquals(4000.0f, traceSignals.getSignal(1, 3));
+		assertEquals(traceSignals.getSignal(0, 4), traceSignals.getSignal(2, 4));
+	}
+
+	public void testGetFirstDerivativeSlopes_1() {
+
+		IFirstDerivativeDetectorSlopes slopes = traceSignals.getFirstDerivativeSlopes(0, 1, 4, 100000.0f);
+		assertEquals(3, slopes.size());
+		assertEquals(1, slopes.getStartScan());
+		assertEquals(3, slopes.getStopScan());
+		assertTrue(slopes.getDetectorSlope(1).getSlope() > 0);
+		assertTrue(slopes.getDetectorSlope(2).getSlope() < 0);
+	}
+
+	public void testGetFirstDerivativeSlopes_2() {
+
+		IFirstDerivativeDetectorSlopes slopes = traceSignals.getFirstDerivativeSlopes(1, 2, 3, 100000.0f);
+		assertEquals(1, slopes.size());
+		assertEquals(2, slopes.getStartScan());
+		assertEquals(0, traceSignals.getFirstDerivativeSlopes(1, 3, 6, 100000.0f).size());
+	}
+}
@@ -0,0 +1,101 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Lablicate GmbH.
+ *
+ * All rights reserved.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Dr. Philip Wenig - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.chemclipse.chromatogram.xxd.peak.detector.supplier.thirdderivative.core;
+
+import java.util.List;
+
+import org.eclipse.chemclipse.chromatogram.peak.detector.model.Threshold;
+import org.eclipse.chemclipse.chromatogram.peak.detector.support.IRawPeak;
+import org.eclipse.chemclipse.chromatogram.xxd.peak.detector.supplier.thirdderivative.support.DerivativeBuffers;
+import org.eclipse.chemclipse.chromatogram.xxd.peak.detector.supplier.thirdderivative.support.DerivativeFilter;
+
+import junit.framework.TestCase;
+
+/**
+ * Detects the raw peaks of a single gaussian peak and of a peak with a shoulder,
+ * which doesn't form a valley.
+ */
+public class ThirdDerivativePeakDetector_1_Test extends TestCase {
+
+	private static final int START_SCAN = 1;
+	private static final int SCANS = 100;
+	private static final double SCAN_INTERVAL = 500.0d;
+	private static final float NORMALIZATION_BASE = 100000.0f;
+	//
+	private DerivativeBuffers buffers;
+	private DerivativeFilter filter;
+
+	@Override
+	protected void setUp() throws Exception {
+
+		super.setUp();
+		buffers = new DerivativeBuffers();
+		filter = DerivativeFilter.getInstance(5);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+
+		buffers = null;
+		filter = null;
+		super.tearDown();
+	}
+
+	public void testGetRawPeaks_1() {
+
+		float[] signals = buffers.getSignals(START_SCAN, SCANS);
+		for(int i = 0; i < SCANS; i++) {
+			signals[i] = getGaussian(i, 50.0d, 5.0d, 10000.0d);
+		}
+		assertTrue(buffers.calculate(filter, SCAN_INTERVAL, NORMALIZATION_BASE));
+		List<IRawPeak> rawPeaks = ThirdDerivativePeakDetector.getRawPeaks(buffers, Threshold.LOW);
+		assertEquals(1, rawPeaks.size());
+		IRawPeak rawPeak = rawPeaks.get(0);
+		assertEquals(START_SCAN + 50, rawPeak.getMaximumScan(), 1);
+		assertTrue(rawPeak.getStartScan() < rawPeak.getMaximumScan());
+		assertTrue(rawPeak.getMaximumScan() < rawPeak.getStopScan());
+	}
+
+	public void testGetRawPeaks_2() {
+
+		/*
+		 * The shoulder on the descending slope has no valley, but is split into a separate peak.
+		 */
+		float[] signals = buffers.getSignals(START_SCAN, SCANS);
+		for(int i = 0; i < SCANS; i++) {
+			signals[i] = getGaussian(i, 45.0d, 4.0d, 10000.0d) + getGaussian(i, 55.0d, 4.0d, 5000.0d);
+		}
+		assertTrue(buffers.calculate(filter, SCAN_INTERVAL, NORMALIZATION_BASE));
+		List<IRawPeak> rawPeaks = ThirdDerivativePeakDetector.getRawPeaks(buffers, Threshold.LOW);
+		assertEquals(2, rawPeaks.size());
+		IRawPeak rawPeak1 = rawPeaks.get(0);
+		IRawPeak rawPeak2 = rawPeaks.get(1);
+		assertEquals(START_SCAN + 45, rawPeak1.getMaximumScan(), 2);
+		assertEquals(START_SCAN + 55, rawPeak2.getMaximumScan(), 2);
+		assertEquals(rawPeak1.getStopScan(), rawPeak2.getStartScan());
+	}
+
+	public void testGetRawPeaks_3() {
+
+		/*
+		 * The buffers are too small to calculate the derivatives.
+		 */
+		buffers.getSignals(START_SCAN, 3);
+		assertFalse(buffers.calculate(filter, SCAN_INTERVAL, NORMALIZATION_BASE));
+	}
+
+	private float getGaussian(int scan, double center, double sigma, double height) {
+
+		double x = (scan - center) / sigma;
+		return (float)(height * Math.exp(-0.5d * x * x));
+	}
+}
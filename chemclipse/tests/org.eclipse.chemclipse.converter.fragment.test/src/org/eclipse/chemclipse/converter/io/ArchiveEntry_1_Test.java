@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Lablicate GmbH.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Dr. Philip Wenig - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.chemclipse.converter.io;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import junit.framework.TestCase;
+
+public class ArchiveEntry_1_Test extends TestCase {
+
+	private static final String STORED = "data/stored.bin";
+	private static final String DEFLATED = "deflated.bin";
+	//
+	private File file;
+	private byte[] data;
+
+	@Override
+	protected void setUp() throws Exception {
+
+		super.setUp();
+		data = new byte[100000];
+		for(int i = 0; i < data.length; i++) {
+			data[i] = (byte)(i % 251);
+		}
+		file = File.createTempFile("archive", ".zip");
+		try (ZipOutputStream zipOutputStream = new ZipOutputStream(new FileOutputStream(file))) {
+			ZipEntry deflated = new ZipEntry(DEFLATED);
+			zipOutputStream.putNextEntry(deflated);
+			zipOutputStream.write(data);
+			zipOutputStream.closeEntry();
+			//
+			CRC32 crc = new CRC32();
+			crc.update(data);
+			ZipEntry stored = new ZipEntry(STORED);
+			stored.setMethod(ZipEntry.STORED);
+			stored.setSize(data.length);
+			stored.setCompressedSize(data.length);
+			stored.setCrc(crc.getValue());
+			zipOutputStream.putNextEntry(stored);
+			zipOutputStream.write(data);
+			zipOutputStream.closeEntry();
+		}
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+
+		file.delete();
+		super.tearDown();
+	}
+
+	public void test1() throws IOException {
+
+		try (ZipFile zipFile = new ZipFile(file)) {
+			ArchiveEntry archiveEntry = new ArchiveEntry(file, zipFile, zipFile.getEntry(STORED));
+			assertTrue(archiveEntry.isStored());
+			assertEquals("stored.bin", archiveEntry.getFileName());
+			ByteBuffer buffer = archiveEntry.getByteBuffer();
+			assertTrue(buffer.isDirect());
+			assertEquals(data.length, buffer.remaining());
+			assertEquals(data[77777], buffer.get(77777));
+		}
+	}
+
+	public void test2() throws IOException {
+
+		try (ZipFile zipFile = new ZipFile(file)) {
+			ArchiveEntry archiveEntry = new ArchiveEntry(file, zipFile, zipFile.getEntry(DEFLATED));
+			assertFalse(archiveEntry.isStored());
+			ByteBuffer buffer = archiveEntry.getByteBuffer();
+			assertEquals(data.length, buffer.remaining());
+			assertEquals(data[77777], buffer.get(77777));
+		}
+	}
+
+	public void test3() throws IOException {
+
+		try (ZipFile zipFile = new ZipFile(file)) {
+			for(String name : new String[]{STORED, DEFLATED}) {
+				ArchiveEntry archiveEntry = new ArchiveEntry(file, zipFile, zipFile.getEntry(name));
+				try (InputStream inputStream = archiveEntry.getInputStream()) {
+					byte[] bytes = new byte[data.length];
+					int length = 0;
+					int count;
+					while(length < bytes.length && (count = inputStream.read(bytes, length, bytes.length - length)) != -1) {
+						length += count;
+					}
+					assertEquals(data.length, length);
+					assertEquals(-1, inputStream.read());
+					assertEquals(data[12345], bytes[12345]);
+				}
+			}
+		}
+	}
+
+	public void test4() throws IOException {
+
+		try (ZipFile zipFile = new ZipFile(file)) {
+			ArchiveEntry archiveEntry = new ArchiveEntry(file, zipFile, zipFile.getEntry(STORED));
+			ByteBuffer first = archiveEntry.getByteBuffer();
+			first.position(1000);
+			assertEquals(0, archiveEntry.getByteBuffer().position());
+		}
+	}
+}
@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Lablicate GmbH.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ * Dr. Philip Wenig - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.chemclipse.converter.io.support;
+
+import java.io.File;
+import java.io.FileOutputStream;
+
+import junit.framework.TestCase;
+
+public class ArrayReader_7_Test extends TestCase {
+
+	/*
+	 * Memory mapped file, slices and long positions
+	 */
+	private File file;
+	private IArrayReader arrayReader;
+
+	@Override
+	protected void setUp() throws Exception {
+
+		super.setUp();
+		byte[] data = new byte[1024];
+		for(int i = 0; i < data.length; i++) {
+			data[i] = (byte)i;
+		}
+		file = File.createTempFile("arrayreader", ".bin");
+		try (FileOutputStream outputStream = new FileOutputStream(file)) {
+			outputStream.write(data);
+		}
+		arrayReader = new ArrayReaderTestImplementation(file);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+
+		arrayReader.close();
+		arrayReader = null;
+		file.delete();
+		super.tearDown();
+	}
+
+	public void test1() {
+
+		assertEquals(1024, arrayReader.getLength());
+		assertEquals(1024L, arrayReader.getSize());
+	}
+
+	public void test2() {
+
+		arrayReader.seek(300L);
+		assertEquals(300L, arrayReader.getLongPosition());
+		assertEquals((byte)300, arrayReader.readByte());
+		assertEquals(301, arrayReader.getPosition());
+	}
+
+	public void test3() {
+
+		IArrayReader slice = arrayReader.slice(256, 16);
+		assertEquals(16L, slice.getSize());
+		assertEquals(0L, slice.getLongPosition());
+		assertEquals(0x03020100, slice.read4BIntegerLE());
+		/*
+		 * The position of the parent reader is not affected.
+		 */
+		assertEquals(0L, arrayReader.getLongPosition());
+	}
+
+	public void test4() {
+
+		IArrayReader slice = arrayReader.slice(1000, 24);
+		slice.seek(20L);
+		slice.readBytes(4);
+		try {
+			slice.readByte();
+			fail();
+		} catch(IndexOutOfBoundsException e) {
+			// expected
+		}
+	}
+
+	public void test5() {
+
+		try {
+			arrayReader.slice(1000, 25);
+			fail();
+		} catch(IndexOutOfBoundsException e) {
+			// expected
+		}
+	}
+
+	public void test6() {
+
+		IArrayReader slice = arrayReader.slice(10, 100).slice(5, 10);
+		assertEquals((byte)15, slice.readByte());
+	}
+
+	public void test7() {
+
+		arrayReader.seek(3L << 30);
+		assertEquals(3L << 30, arrayReader.getLongPosition());
+		try {
+			arrayReader.getPosition();
+			fail();
+		} catch(IllegalStateException e) {
+			// expected
+		}
+	}
+
+	public void test8() {
+
+		/*
+		 * The slices keep the mapping after the reader has been closed.
+		 */
+		IArrayReader slice = arrayReader.slice(500, 10);
+		arrayReader.close();
+		assertEquals(0L, arrayReader.getSize());
+		try {
+			arrayReader.readByte();
+			fail();
+		} catch(IndexOutOfBoundsException e) {
+			// expected
+		}
+		assertEquals((byte)500, slice.readByte());
+	}
+}
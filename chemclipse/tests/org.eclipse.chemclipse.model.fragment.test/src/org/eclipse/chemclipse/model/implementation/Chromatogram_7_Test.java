@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Lablicate GmbH.
+ *
+ * All rights reserved.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Dr. Philip Wenig - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.chemclipse.model.implementation;
+
+import junit.framework.TestCase;
+
+public class Chromatogram_7_Test extends TestCase {
+
+	private Chromatogram chromatogram;
+
+	@Override
+	protected void setUp() throws Exception {
+
+		super.setUp();
+		chromatogram = new Chromatogram();
+		for(int i = 0; i < 10; i++) {
+			Scan scan = new Scan(1000.0f);
+			scan.setRetentionTime(1000 + i * 500);
+			chromatogram.addScan(scan);
+		}
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+
+		chromatogram = null;
+		super.tearDown();
+	}
+
+	public void testGetScanNumber_1() {
+
+		assertEquals(0, chromatogram.getScanNumber(999));
+		assertEquals(1, chromatogram.getScanNumber(1000));
+		assertEquals(1, chromatogram.getScanNumber(1499));
+		assertEquals(2, chromatogram.getScanNumber(1500));
+		assertEquals(10, chromatogram.getScanNumber(5500));
+		assertEquals(0, chromatogram.getScanNumber(5501));
+	}
+
+	public void testGetScanNumber_2() {
+
+		/*
+		 * The retention time is modified at the scan directly.
+		 */
+		assertEquals(5, chromatogram.getScanNumber(3200));
+		chromatogram.getScan(5).setRetentionTime(3300);
+		assertEquals(4, chromatogram.getScanNumber(3200));
+	}
+
+	public void testGetScanNumber_3() {
+
+		Scan scan = new Scan(1000.0f);
+		scan.setRetentionTime(6000);
+		chromatogram.addScan(scan);
+		assertEquals(10, chromatogram.getScanNumber(5999));
+		chromatogram.removeScan(1);
+		assertEquals(0, chromatogram.getScanNumber(1000));
+		assertEquals(1, chromatogram.getScanNumber(1500));
+	}
+
+	public void testGetScanNumber_4() {
+
+		/*
+		 * All retention times are shifted at the scans directly.
+		 */
+		assertEquals(5, chromatogram.getScanNumber(3200));
+		for(int i = 1; i <= 10; i++) {
+			chromatogram.getScan(i).setRetentionTime(1500 + i * 500);
+		}
+		assertEquals(3, chromatogram.getScanNumber(3200));
+		assertEquals(9, chromatogram.getScanNumber(6499));
+	}
+
+	public void testGetScanNumbers_1() {
+
+		int[] scanNumbers = chromatogram.getScanNumbers(new int[]{500, 1000, 1700, 2000, 5500, 7000});
+		assertEquals(6, scanNumbers.length);
+		assertEquals(0, scanNumbers[0]);
+		assertEquals(1, scanNumbers[1]);
+		assertEquals(2, scanNumbers[2]);
+		assertEquals(3, scanNumbers[3]);
+		assertEquals(10, scanNumbers[4]);
+		assertEquals(0, scanNumbers[5]);
+	}
+}
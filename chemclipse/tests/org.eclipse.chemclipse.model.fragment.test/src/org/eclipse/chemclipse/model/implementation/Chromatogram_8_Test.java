@@ -0,0 +1,100 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Lablicate GmbH.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Dr. Philip Wenig - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.chemclipse.model.implementation;
+
+import org.eclipse.chemclipse.model.core.ChromatogramStatistics;
+import org.eclipse.chemclipse.model.core.IChromatogram;
+import org.eclipse.chemclipse.model.core.IScan;
+
+import junit.framework.TestCase;
+
+public class Chromatogram_8_Test extends TestCase {
+
+	private IChromatogram<?> chromatogram;
+
+	@Override
+	protected void setUp() throws Exception {
+
+		super.setUp();
+		chromatogram = new Chromatogram();
+		addScan(500, 2898.2f, 1);
+		addScan(1000, 7837.2f, 1);
+		addScan(1500, 128900.48f, 2);
+		addScan(2000, 289830.65f, 2);
+		addScan(2500, 3983.0f, 3);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+
+		chromatogram = null;
+		super.tearDown();
+	}
+
+	public void testGetStatistics_1() {
+
+		ChromatogramStatistics statistics = chromatogram.getStatistics();
+		assertEquals(5, statistics.getNumberOfScans());
+		assertEquals(2898.2f, statistics.getMinSignal());
+		assertEquals(289830.65f, statistics.getMaxSignal(false));
+		assertEquals(418731.13f, statistics.getMaxSignal(true));
+		assertEquals(418731.13f, statistics.getMaxSignal());
+		assertEquals(500, statistics.getStartRetentionTime());
+		assertEquals(2500, statistics.getStopRetentionTime());
+		assertEquals(500, statistics.getScanInterval());
+		assertTrue(statistics.containsScanCycles());
+	}
+
+	public void testGetStatistics_2() {
+
+		assertSame(chromatogram.getStatistics(), chromatogram.getStatistics());
+		assertEquals(chromatogram.getTotalSignal(), chromatogram.getStatistics().getTotalSignal());
+	}
+
+	public void testGetStatistics_3() {
+
+		ChromatogramStatistics statistics = chromatogram.getStatistics();
+		chromatogram.setDirty(true);
+		assertNotSame(statistics, chromatogram.getStatistics());
+	}
+
+	public void testGetStatistics_4() {
+
+		assertEquals(2898.2f, chromatogram.getMinSignal());
+		chromatogram.getScan(1).adjustTotalSignal(1000.0f);
+		assertEquals(1000.0f, chromatogram.getMinSignal());
+	}
+
+	public void testGetStatistics_5() {
+
+		assertEquals(5, chromatogram.getStatistics().getNumberOfScans());
+		addScan(3000, 500000.0f, 4);
+		assertEquals(6, chromatogram.getStatistics().getNumberOfScans());
+		assertEquals(500000.0f, chromatogram.getMaxSignal());
+		chromatogram.removeScan(6);
+		assertEquals(418731.13f, chromatogram.getMaxSignal());
+	}
+
+	public void testGetStatistics_6() {
+
+		chromatogram.getScan(5).setCycleNumber(2);
+		assertEquals(422714.13f, chromatogram.getMaxSignal(true), 0.01f);
+	}
+
+	private void addScan(int retentionTime, float intensity, int cycleNumber) {
+
+		IScan scan = new Scan(intensity);
+		scan.setRetentionTime(retentionTime);
+		scan.setCycleNumber(cycleNumber);
+		chromatogram.addScan(scan);
+	}
+}
@@ -0,0 +1,83 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Lablicate GmbH.
+ *
+ * All rights reserved.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Dr. Philip Wenig - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.chemclipse.model.support;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.chemclipse.model.core.IScan;
+import org.eclipse.chemclipse.model.implementation.Scan;
+
+import junit.framework.TestCase;
+
+public class RetentionTimeIndex_1_Test extends TestCase {
+
+	private RetentionTimeIndex retentionTimeIndex;
+
+	@Override
+	protected void setUp() throws Exception {
+
+		super.setUp();
+		List<IScan> scans = new ArrayList<>();
+		int[] retentionTimes = {1000, 1200, 1200, 1900, 2500, 2600, 8000};
+		for(int retentionTime : retentionTimes) {
+			Scan scan = new Scan(1000.0f);
+			scan.setRetentionTime(retentionTime);
+			scans.add(scan);
+		}
+		retentionTimeIndex = new RetentionTimeIndex();
+		retentionTimeIndex.build(scans);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+
+		retentionTimeIndex = null;
+		super.tearDown();
+	}
+
+	public void testGetPosition_1() {
+
+		assertTrue(retentionTimeIndex.isValid(7));
+		assertTrue(retentionTimeIndex.isAscending());
+		assertEquals(0, retentionTimeIndex.getPosition(999));
+		assertEquals(1, retentionTimeIndex.getPosition(1000));
+		assertEquals(3, retentionTimeIndex.getPosition(1200));
+		assertEquals(4, retentionTimeIndex.getPosition(2499));
+		assertEquals(6, retentionTimeIndex.getPosition(7999));
+		assertEquals(7, retentionTimeIndex.getPosition(8000));
+	}
+
+	public void testGetPositions_1() {
+
+		int[] positions = retentionTimeIndex.getPositions(new int[]{999, 1200, 2499, 8000});
+		assertEquals(0, positions[0]);
+		assertEquals(3, positions[1]);
+		assertEquals(4, positions[2]);
+		assertEquals(7, positions[3]);
+	}
+
+	public void testAdd_1() {
+
+		retentionTimeIndex.add(500);
+		assertTrue(retentionTimeIndex.isValid(8));
+		assertFalse(retentionTimeIndex.isAscending());
+		assertEquals(0, retentionTimeIndex.getPosition(999));
+		assertEquals(6, retentionTimeIndex.getPosition(2700));
+	}
+
+	public void testClear_1() {
+
+		retentionTimeIndex.clear();
+		assertFalse(retentionTimeIndex.isValid(7));
+	}
+}
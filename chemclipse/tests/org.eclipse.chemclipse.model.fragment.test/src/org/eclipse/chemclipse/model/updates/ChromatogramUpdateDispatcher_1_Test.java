@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Lablicate GmbH.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Dr. Philip Wenig - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.chemclipse.model.updates;
+
+import junit.framework.TestCase;
+
+public class ChromatogramUpdateDispatcher_1_Test extends TestCase {
+
+	private ChromatogramUpdateDispatcher dispatcher;
+	private int updates;
+	private boolean forceReload;
+
+	@Override
+	protected void setUp() throws Exception {
+
+		super.setUp();
+		dispatcher = new ChromatogramUpdateDispatcher();
+		dispatcher.setMode(ChromatogramUpdateDispatcher.Mode.SYNCHRONOUS);
+		dispatcher.addListener(new IChromatogramUpdateListener() {
+
+			@Override
+			public void update(boolean reload) {
+
+				updates++;
+				forceReload = reload;
+			}
+		});
+		updates = 0;
+		forceReload = false;
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+
+		dispatcher = null;
+		super.tearDown();
+	}
+
+	public void testFireUpdate_1() {
+
+		dispatcher.fireUpdate(false);
+		dispatcher.fireUpdate(true);
+		assertEquals(2, updates);
+		assertTrue(forceReload);
+	}
+
+	public void testFireUpdate_2() {
+
+		dispatcher.beginUpdate();
+		dispatcher.fireUpdate(false);
+		dispatcher.fireUpdate(true);
+		dispatcher.fireUpdate(false);
+		assertEquals(0, updates);
+		assertTrue(dispatcher.isBatchUpdate());
+		dispatcher.endUpdate();
+		assertEquals(1, updates);
+		assertTrue(forceReload);
+		assertFalse(dispatcher.isBatchUpdate());
+	}
+
+	public void testFireUpdate_3() {
+
+		dispatcher.beginUpdate();
+		dispatcher.beginUpdate();
+		dispatcher.fireUpdate(false);
+		dispatcher.endUpdate();
+		assertEquals(0, updates);
+		dispatcher.endUpdate();
+		assertEquals(1, updates);
+		assertFalse(forceReload);
+	}
+
+	public void testFireUpdate_4() {
+
+		dispatcher.beginUpdate();
+		dispatcher.endUpdate();
+		assertEquals(0, updates);
+	}
+
+	public void testFireUpdate_5() {
+
+		dispatcher.setMode(ChromatogramUpdateDispatcher.Mode.DISABLED);
+		dispatcher.fireUpdate(true);
+		dispatcher.beginUpdate();
+		dispatcher.fireUpdate(true);
+		dispatcher.endUpdate();
+		assertEquals(0, updates);
+	}
+
+	public void testFlush_1() {
+
+		dispatcher.beginUpdate();
+		dispatcher.fireUpdate(true);
+		dispatcher.flush();
+		assertEquals(1, updates);
+		dispatcher.endUpdate();
+		assertEquals(1, updates);
+	}
+}
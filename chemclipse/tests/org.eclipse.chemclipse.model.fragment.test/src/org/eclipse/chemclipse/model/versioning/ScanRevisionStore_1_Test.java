@@ -0,0 +1,115 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Lablicate GmbH.
+ *
+ * All rights reserved.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Dr. Philip Wenig - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.chemclipse.model.versioning;
+
+import java.util.List;
+
+import org.eclipse.chemclipse.model.core.IChromatogram;
+import org.eclipse.chemclipse.model.core.IScan;
+import org.eclipse.chemclipse.model.implementation.Chromatogram;
+import org.eclipse.chemclipse.model.implementation.Scan;
+
+import junit.framework.TestCase;
+
+public class ScanRevisionStore_1_Test extends TestCase {
+
+	private IChromatogram<?> chromatogram;
+	private IVersionManagement versionManagement;
+	private ScanRevisionStore scanRevisionStore;
+
+	@Override
+	protected void setUp() throws Exception {
+
+		super.setUp();
+		chromatogram = new Chromatogram();
+		for(int i = 1; i <= 10; i++) {
+			Scan scan = new Scan(100.0f);
+			scan.setRetentionTime(i * 1000);
+			chromatogram.addScan(scan);
+		}
+		versionManagement = new VersionManagement();
+		scanRevisionStore = new ScanRevisionStore(versionManagement, scan -> ScanRevisionStore.fingerprint(ScanRevisionStore.fingerprint(ScanRevisionStore.fingerprint(), scan.getRetentionTime()), Float.floatToIntBits(scan.getTotalSignal())));
+		scanRevisionStore.record(0, chromatogram.getScans());
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+
+		scanRevisionStore.clear();
+		super.tearDown();
+	}
+
+	public void testRecord_1() {
+
+		List<IScan> scans = chromatogram.getScans();
+		scans.get(2).adjustTotalSignal(500.0f);
+		scanRevisionStore.record(1, scans);
+		assertTrue(scanRevisionStore.isRecorded(1));
+		assertTrue(versionManagement.getScanRevision(1).length() < versionManagement.getScanRevision(0).length());
+	}
+
+	public void testRecord_2() {
+
+		scanRevisionStore.record(1, chromatogram.getScans());
+		scanRevisionStore.record(2, chromatogram.getScans());
+		assertTrue(scanRevisionStore.restore(0, chromatogram));
+		scanRevisionStore.record(1, chromatogram.getScans());
+		assertFalse(scanRevisionStore.isRecorded(2));
+		assertFalse(versionManagement.getScanRevision(2).exists());
+	}
+
+	public void testRestore_1() {
+
+		List<IScan> scans = chromatogram.getScans();
+		IScan scan = scans.get(0);
+		scans.get(2).adjustTotalSignal(500.0f);
+		scanRevisionStore.record(1, scans);
+		//
+		assertTrue(scanRevisionStore.restore(0, chromatogram));
+		assertEquals(100.0f, scans.get(2).getTotalSignal());
+		assertSame(scan, scans.get(0));
+		assertSame(chromatogram, scans.get(2).getParentChromatogram());
+		//
+		assertTrue(scanRevisionStore.restore(1, chromatogram));
+		assertEquals(500.0f, scans.get(2).getTotalSignal());
+	}
+
+	public void testRestore_2() {
+
+		Scan scan = new Scan(200.0f);
+		scan.setRetentionTime(11000);
+		chromatogram.addScan(scan);
+		scanRevisionStore.record(1, chromatogram.getScans());
+		//
+		assertTrue(scanRevisionStore.restore(0, chromatogram));
+		assertEquals(10, chromatogram.getNumberOfScans());
+		assertTrue(scanRevisionStore.restore(1, chromatogram));
+		assertEquals(11, chromatogram.getNumberOfScans());
+		List<IScan> scans = chromatogram.getScans();
+		assertEquals(200.0f, scans.get(10).getTotalSignal());
+	}
+
+	public void testRestore_3() {
+
+		assertFalse(scanRevisionStore.restore(1, chromatogram));
+	}
+
+	public void testClear_1() {
+
+		scanRevisionStore.record(1, chromatogram.getScans());
+		scanRevisionStore.clear();
+		assertFalse(scanRevisionStore.isRecorded(0));
+		assertFalse(scanRevisionStore.isRecorded(1));
+		assertFalse(versionManagement.getScanRevision(0).exists());
+		assertFalse(versionManagement.getScanRevision(1).exists());
+	}
+}
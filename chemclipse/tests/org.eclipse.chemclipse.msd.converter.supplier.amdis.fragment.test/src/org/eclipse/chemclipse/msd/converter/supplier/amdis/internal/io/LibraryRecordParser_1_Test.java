@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Lablicate GmbH.
+ *
+ * All rights reserved.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Dr. Philip Wenig - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.chemclipse.msd.converter.supplier.amdis.internal.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+public class LibraryRecordParser_1_Test extends TestCase {
+
+	private static final String MSP = "Name: Ethane\r\n" + //
+			"CAS#: 74-84-0\r\n" + //
+			"Num Peaks: 3\r\n" + //
+			"2 2.00020e-03; 12 4.0; 13 0;\r\n" + //
+			"\t\r\n" + //
+			"Name: Hydrogen\n" + //
+			"Num peaks: 2\n" + //
+			"   1   21;\n" + //
+			"   +2  999;\n" + //
+			"NAME: Methane (rt: 1.5 min)\n" + //
+			"Num Peaks: 1\n" + //
+			"16 100\n" + //
+			"\n" + //
+			"Name: No Ions\n" + //
+			"\n";
+	private static final String MSL = "NAME: Propylphenyl acetate\u0000te\r\n" + //
+			"NUM PEAKS: 3\r\n" + //
+			"(29.0 8) (30.0 1)\r\n" + //
+			"(31.0\r\n" + //
+			"3)\r\n";
+
+	@Override
+	protected void setUp() throws Exception {
+
+		super.setUp();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+
+		super.tearDown();
+	}
+
+	public void testTokenize_1() throws IOException {
+
+		List<LibraryRecord> records = parse(MSP, LibraryRecordParser.DELIMITERS_MSP, 1);
+		assertEquals(4, records.size());
+		assertEquals(0, records.get(3).getNumberOfIons());
+		assertEquals("", records.get(3).getHeader());
+	}
+
+	public void testParse_1() throws IOException {
+
+		LibraryRecord record = parse(MSP, LibraryRecordParser.DELIMITERS_MSP, 2).get(0);
+		assertEquals("Name: Ethane\nCAS#: 74-84-0\n", record.getHeader());
+		assertEquals(2, record.getNumberOfIons());
+		assertEquals(2.0d, record.getIons()[0]);
+		assertEquals(2.0002e-03f, record.getAbundances()[0]);
+		assertEquals(12.0d, record.getIons()[1]);
+		assertEquals(4.0f, record.getAbundances()[1]);
+	}
+
+	public void testParse_2() throws IOException {
+
+		List<LibraryRecord> records = parse(MSP, LibraryRecordParser.DELIMITERS_MSP, 3);
+		LibraryRecord record = records.get(1);
+		assertEquals("Name: Hydrogen\n", record.getHeader());
+		assertEquals(2, record.getNumberOfIons());
+		assertEquals(2.0d, record.getIons()[1]);
+		assertEquals(999.0f, record.getAbundances()[1]);
+		//
+		record = records.get(2);
+		assertEquals("NAME: Methane (rt: 1.5 min)\n", record.getHeader());
+		assertEquals(1, record.getNumberOfIons());
+	}
+
+	public void testParse_3() throws IOException {
+
+		List<LibraryRecord> records = parse(MSL, LibraryRecordParser.DELIMITERS_MSL, 10);
+		assertEquals(1, records.size());
+		LibraryRecord record = records.get(0);
+		assertEquals("NAME: Propylphenyl acetate\u0000te\n", record.getHeader());
+		assertEquals(3, record.getNumberOfIons());
+		assertEquals(31.0d, record.getIons()[2]);
+		assertEquals(3.0f, record.getAbundances()[2]);
+	}
+
+	private List<LibraryRecord> parse(String content, String delimiters, int batchSize) throws IOException {
+
+		LibraryRecordParser parser = new LibraryRecordParser(delimiters);
+		List<LibraryRecord> records = new ArrayList<>();
+		LibraryTokenizer tokenizer = new LibraryTokenizer(batchSize);
+		tokenizer.tokenize(new ByteArrayInputStream(content.getBytes()), batch -> {
+			for(int i = 0; i < batch.size(); i++) {
+				records.add(parser.parse(batch.getData(), batch.getStart(i), batch.getStop(i)));
+			}
+		});
+		return records;
+	}
+}
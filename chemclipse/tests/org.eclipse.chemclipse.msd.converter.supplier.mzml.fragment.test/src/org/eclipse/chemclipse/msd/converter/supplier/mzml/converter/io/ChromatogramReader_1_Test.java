@@ -0,0 +1,359 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Lablicate GmbH.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Dr. Philip Wenig - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.chemclipse.msd.converter.supplier.mzml.converter.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.zip.DeflaterOutputStream;
+
+import org.eclipse.chemclipse.model.core.IChromatogramOverview;
+import org.eclipse.chemclipse.msd.converter.supplier.mzml.converter.model.VendorScan;
+import org.eclipse.chemclipse.msd.converter.supplier.mzml.converter.model.VendorScanProxy;
+import org.eclipse.chemclipse.msd.model.core.IChromatogramMSD;
+import org.eclipse.chemclipse.msd.model.core.IIon;
+import org.eclipse.chemclipse.msd.model.core.IIonTransition;
+import org.eclipse.chemclipse.msd.model.core.IScanMSD;
+import org.eclipse.core.runtime.NullProgressMonitor;
+
+import junit.framework.TestCase;
+
+/**
+ * The indexed and not indexed files contain the same spectra. The SRM file contains
+ * only chromatograms, one per transition.
+ */
+public class ChromatogramReader_1_Test extends TestCase {
+
+	private static final int SCANS = 10;
+	private static final int IONS = 5;
+	private static final int TRANSITIONS = 2;
+	//
+	private File fileIndexed;
+	private File fileNotIndexed;
+	private File fileTransitions;
+
+	@Override
+	protected void setUp() throws Exception {
+
+		super.setUp();
+		fileIndexed = File.createTempFile("Chromatogram1", ".mzML");
+		fileNotIndexed = File.createTempFile("Chromatogram2", ".mzML");
+		fileTransitions = File.createTempFile("Chromatogram3", ".mzML");
+		writeSpectra(fileIndexed, true);
+		writeSpectra(fileNotIndexed, false);
+		writeTransitions(fileTransitions);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+
+		fileIndexed.delete();
+		fileNotIndexed.delete();
+		fileTransitions.delete();
+		fileIndexed = null;
+		fileNotIndexed = null;
+		fileTransitions = null;
+		super.tearDown();
+	}
+
+	public void testRead_1() throws Exception {
+
+		IChromatogramMSD chromatogram = new ChromatogramReader().read(fileIndexed, new NullProgressMonitor());
+		assertEquals(SCANS, chromatogram.getNumberOfScans());
+		for(int i = 1; i <= SCANS; i++) {
+			IScanMSD scan = chromatogram.getSupplierScan(i);
+			assertTrue(scan instanceof VendorScanProxy);
+			assertEquals(getRetentionTime(i - 1), scan.getRetentionTime());
+			assertEquals(IONS, scan.getNumberOfIons());
+			assertEquals(getTotalSignal(i - 1), scan.getTotalSignal());
+		}
+	}
+
+	public void testRead_2() throws Exception {
+
+		IChromatogramMSD chromatogram = new ChromatogramReader().read(fileIndexed, new NullProgressMonitor());
+		for(int i = 1; i <= SCANS; i++) {
+			assertIons(i - 1, chromatogram.getSupplierScan(i));
+		}
+	}
+
+	public void testRead_3() throws Exception {
+
+		/*
+		 * The spectra are read again after the file has been closed.
+		 */
+		IChromatogramMSD chromatogram = new ChromatogramReader().read(fileIndexed, new NullProgressMonitor());
+		assertIons(0, chromatogram.getSupplierScan(1));
+		chromatogram.setUnloaded();
+		assertIons(SCANS - 1, chromatogram.getSupplierScan(SCANS));
+	}
+
+	public void testRead_4() throws Exception {
+
+		IChromatogramMSD chromatogram = new ChromatogramReader().read(fileNotIndexed, new NullProgressMonitor());
+		assertEquals(SCANS, chromatogram.getNumberOfScans());
+		for(int i = 1; i <= SCANS; i++) {
+			IScanMSD scan = chromatogram.getSupplierScan(i);
+			assertTrue(scan instanceof VendorScan);
+			assertEquals(getRetentionTime(i - 1), scan.getRetentionTime());
+			assertIons(i - 1, scan);
+		}
+	}
+
+	public void testReadOverview_1() throws Exception {
+
+		assertOverview(new ChromatogramReader().readOverview(fileIndexed, new NullProgressMonitor()));
+	}
+
+	public void testReadOverview_2() throws Exception {
+
+		assertOverview(new ChromatogramReader().readOverview(fileNotIndexed, new NullProgressMonitor()));
+	}
+
+	public void testReadTransitions_1() throws Exception {
+
+		IChromatogramMSD chromatogram = new ChromatogramReader().read(fileTransitions, new NullProgressMonitor());
+		assertEquals(SCANS, chromatogram.getNumberOfScans());
+		for(int i = 1; i <= SCANS; i++) {
+			IScanMSD scan = chromatogram.getSupplierScan(i);
+			assertEquals(getRetentionTime(i - 1), scan.getRetentionTime());
+			assertEquals(TRANSITIONS, scan.getNumberOfIons());
+			for(IIon ion : scan.getIons()) {
+				IIonTransition ionTransition = ion.getIonTransition();
+				assertNotNull(ionTransition);
+				int transition = (int)(ionTransition.getQ1StartIon() - getParentIon(0));
+				assertEquals(getParentIon(transition), ionTransition.getQ1StartIon(), 0.0d);
+				assertEquals(getDaughterIon(transition), ionTransition.getQ3StartIon(), 0.0d);
+				assertEquals(getCollisionEnergy(transition), ionTransition.getCollisionEnergy(), 0.0d);
+				assertEquals(getDaughterIon(transition), ion.getIon());
+				assertEquals(getAbundance(i - 1, transition), ion.getAbundance());
+			}
+		}
+	}
+
+	private void assertIons(int index, IScanMSD scan) {
+
+		List<IIon> ions = scan.getIons();
+		assertEquals(IONS, ions.size());
+		for(int j = 0; j < IONS; j++) {
+			assertEquals(getIon(j), ions.get(j).getIon());
+			assertEquals(getAbundance(index, j), ions.get(j).getAbundance());
+		}
+	}
+
+	private void assertOverview(IChromatogramOverview chromatogramOverview) {
+
+		IChromatogramMSD chromatogram = (IChromatogramMSD)chromatogramOverview;
+		assertEquals(SCANS, chromatogram.getNumberOfScans());
+		for(int i = 1; i <= SCANS; i++) {
+			IScanMSD scan = chromatogram.getSupplierScan(i);
+			assertTrue(scan instanceof VendorScan);
+			assertEquals(getRetentionTime(i - 1), scan.getRetentionTime());
+			assertEquals(1, scan.getNumberOfIons());
+			assertEquals(IIon.TIC_ION, scan.getIons().get(0).getIon());
+			assertEquals(getTotalSignal(i - 1), scan.getTotalSignal());
+		}
+	}
+
+	private void writeSpectra(File file, boolean indexed) throws IOException {
+
+		StringBuilder builder = new StringBuilder();
+		List<Integer> offsets = new ArrayList<>();
+		builder.append("<?xml version=\"1.0\" encoding=\"utf-8\"?>\n");
+		if(indexed) {
+			builder.append("<indexedmzML xmlns=\"http://psi.hupo.org/ms/mzml\">\n");
+		}
+		builder.append(" <mzML xmlns=\"http://psi.hupo.org/ms/mzml\" version=\"1.1.0\">\n");
+		builder.append("  <run id=\"run\">\n");
+		builder.append("   <spectrumList count=\"" + SCANS + "\">\n");
+		for(int i = 0; i < SCANS; i++) {
+			offsets.add(builder.length() + 4);
+			builder.append("    <spectrum index=\"" + i + "\" id=\"scan=" + (i + 1) + "\" defaultArrayLength=\"" + IONS + "\">\n");
+			appendCvParam(builder, "MS:1000511", "ms level", "1");
+			appendCvParam(builder, "MS:1000285", "total ion current", Float.toString(getTotalSignal(i)));
+			builder.append("     <scanList count=\"1\"><scan>");
+			builder.append("<cvParam cvRef=\"MS\" accession=\"MS:1000016\" name=\"scan start time\" value=\"" + (getRetentionTime(i) / 1000.0d) + "\" unitCvRef=\"UO\" unitAccession=\"UO:0000010\" unitName=\"second\"/>");
+			builder.append("</scan></scanList>\n");
+			builder.append("     <binaryDataArrayList count=\"2\">\n");
+			double[] ions = new double[IONS];
+			double[] abundances = new double[IONS];
+			for(int j = 0; j < IONS; j++) {
+				ions[j] = getIon(j);
+				abundances[j] = getAbundance(i, j);
+			}
+			appendBinaryDataArray(builder, "MS:1000514", ions, true, i % 2 == 0);
+			appendBinaryDataArray(builder, "MS:1000515", abundances, false, i % 2 == 0);
+			builder.append("     </binaryDataArrayList>\n");
+			builder.append("    </spectrum>\n");
+		}
+		builder.append("   </spectrumList>\n");
+		builder.append("  </run>\n");
+		builder.append(" </mzML>\n");
+		if(indexed) {
+			int indexListOffset = builder.length();
+			builder.append(" <indexList count=\"1\">\n");
+			builder.append("  <index name=\"spectrum\">\n");
+			for(int i = 0; i < offsets.size(); i++) {
+				builder.append("   <offset idRef=\"scan=" + (i + 1) + "\">" + offsets.get(i) + "</offset>\n");
+			}
+			builder.append("  </index>\n");
+			builder.append(" </indexList>\n");
+			builder.append(" <indexListOffset>" + indexListOffset + "</indexListOffset>\n");
+			builder.append("</indexedmzML>\n");
+		}
+		write(file, builder);
+	}
+
+	private void writeTransitions(File file) throws IOException {
+
+		StringBuilder builder = new StringBuilder();
+		builder.append("<?xml version=\"1.0\" encoding=\"utf-8\"?>\n");
+		builder.append("<mzML xmlns=\"http://psi.hupo.org/ms/mzml\" version=\"1.1.0\">\n");
+		builder.append(" <run id=\"run\">\n");
+		builder.append("  <chromatogramList count=\"" + (TRANSITIONS + 1) + "\">\n");
+		double[] retentionTimes = new double[SCANS];
+		double[] totalSignals = new double[SCANS];
+		for(int i = 0; i < SCANS; i++) {
+			retentionTimes[i] = getRetentionTime(i) / 1000.0d;
+			totalSignals[i] = getTotalSignal(i);
+		}
+		/*
+		 * The TIC is not used.
+		 */
+		builder.append("   <chromatogram index=\"0\" id=\"TIC\" defaultArrayLength=\"" + SCANS + "\">\n");
+		appendCvParam(builder, "MS:1000235", "total ion current chromatogram", "");
+		appendChromatogramArrays(builder, retentionTimes, totalSignals);
+		builder.append("   </chromatogram>\n");
+		for(int transition = 0; transition < TRANSITIONS; transition++) {
+			double[] abundances = new double[SCANS];
+			for(int i = 0; i < SCANS; i++) {
+				abundances[i] = getAbundance(i, transition);
+			}
+			builder.append("   <chromatogram index=\"" + (transition + 1) + "\" id=\"SRM " + transition + "\" defaultArrayLength=\"" + SCANS + "\">\n");
+			appendCvParam(builder, "MS:1001473", "selected reaction monitoring chromatogram", "");
+			builder.append("    <precursor><isolationWindow>");
+			appendCvParam(builder, "MS:1000827", "isolation window target m/z", Double.toString(getParentIon(transition)));
+			builder.append("</isolationWindow><activation>");
+			appendCvParam(builder, "MS:1000045", "collision energy", Double.toString(getCollisionEnergy(transition)));
+			builder.append("</activation></precursor>\n");
+			builder.append("    <product><isolationWindow>");
+			appendCvParam(builder, "MS:1000827", "isolation window target m/z", Double.toString(getDaughterIon(transition)));
+			builder.append("</isolationWindow></product>\n");
+			appendChromatogramArrays(builder, retentionTimes, abundances);
+			builder.append("   </chromatogram>\n");
+		}
+		builder.append("  </chromatogramList>\n");
+		builder.append(" </run>\n");
+		builder.append("</mzML>\n");
+		write(file, builder);
+	}
+
+	private void appendChromatogramArrays(StringBuilder builder, double[] retentionTimes, double[] abundances) throws IOException {
+
+		builder.append("    <binaryDataArrayList count=\"2\">\n");
+		builder.append("     <binaryDataArray>");
+		appendCvParam(builder, "MS:1000523", "64-bit float", "");
+		builder.append("<cvParam cvRef=\"MS\" accession=\"MS:1000595\" name=\"time array\" value=\"\" unitCvRef=\"UO\" unitAccession=\"UO:0000010\" unitName=\"second\"/>");
+		builder.append("<binary>" + encode(retentionTimes, true, false) + "</binary></binaryDataArray>\n");
+		appendBinaryDataArray(builder, "MS:1000515", abundances, false, false);
+		builder.append("    </binaryDataArrayList>\n");
+	}
+
+	private void appendBinaryDataArray(StringBuilder builder, String arrayType, double[] values, boolean is64Bit, boolean zlib) throws IOException {
+
+		builder.append("     <binaryDataArray>");
+		appendCvParam(builder, is64Bit ? "MS:1000523" : "MS:1000521", is64Bit ? "64-bit float" : "32-bit float", "");
+		appendCvParam(builder, zlib ? "MS:1000574" : "MS:1000576", zlib ? "zlib compression" : "no compression", "");
+		appendCvParam(builder, arrayType, "", "");
+		builder.append("<binary>" + encode(values, is64Bit, zlib) + "</binary></binaryDataArray>\n");
+	}
+
+	private void appendCvParam(StringBuilder builder, String accession, String name, String value) {
+
+		builder.append("<cvParam cvRef=\"MS\" accession=\"" + accession + "\" name=\"" + name + "\" value=\"" + value + "\"/>");
+	}
+
+	private String encode(double[] values, boolean is64Bit, boolean zlib) throws IOException {
+
+		ByteBuffer byteBuffer = ByteBuffer.allocate(values.length * (is64Bit ? 8 : 4)).order(ByteOrder.LITTLE_ENDIAN);
+		for(double value : values) {
+			if(is64Bit) {
+				byteBuffer.putDouble(value);
+			} else {
+				byteBuffer.putFloat((float)value);
+			}
+		}
+		byte[] data = byteBuffer.array();
+		if(zlib) {
+			ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+			try (DeflaterOutputStream deflaterOutputStream = new DeflaterOutputStream(outputStream)) {
+				deflaterOutputStream.write(data);
+			}
+			data = outputStream.toByteArray();
+		}
+		return Base64.getEncoder().encodeToString(data);
+	}
+
+	private void write(File file, StringBuilder builder) throws IOException {
+
+		try (OutputStream outputStream = new FileOutputStream(file)) {
+			outputStream.write(builder.toString().getBytes(StandardCharsets.US_ASCII));
+		}
+	}
+
+	private int getRetentionTime(int scan) {
+
+		return 1500 + scan * 500;
+	}
+
+	private double getIon(int ion) {
+
+		return 50.0d + ion * 10.0d;
+	}
+
+	private float getAbundance(int scan, int ion) {
+
+		return 1000.0f + scan * 100.0f + ion * 10.0f;
+	}
+
+	private float getTotalSignal(int scan) {
+
+		float totalSignal = 0.0f;
+		for(int j = 0; j < IONS; j++) {
+			totalSignal += getAbundance(scan, j);
+		}
+		return totalSignal;
+	}
+
+	private double getParentIon(int transition) {
+
+		return 200.0d + transition;
+	}
+
+	private double getDaughterIon(int transition) {
+
+		return 100.0d + transition * 10.0d;
+	}
+
+	private double getCollisionEnergy(int transition) {
+
+		return 10.0d + transition * 5.0d;
+	}
+}
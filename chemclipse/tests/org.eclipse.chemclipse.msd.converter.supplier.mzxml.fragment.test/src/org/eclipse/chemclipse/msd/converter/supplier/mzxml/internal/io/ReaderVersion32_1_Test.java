@@ -0,0 +1,212 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Lablicate GmbH.
+ *
+ * All rights reserved.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Dr. Philip Wenig - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.chemclipse.msd.converter.supplier.mzxml.internal.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.zip.DeflaterOutputStream;
+
+import org.eclipse.chemclipse.msd.converter.supplier.mzxml.model.IVendorChromatogram;
+import org.eclipse.chemclipse.msd.converter.supplier.mzxml.model.IVendorScan;
+import org.eclipse.chemclipse.msd.model.core.IIon;
+
+import junit.framework.TestCase;
+
+/**
+ * The file contains 12 scans of the run. Each third scan contains two nested MS/MS scans,
+ * which are listed in the scan index too, but not added to the chromatogram.
+ */
+public class ReaderVersion32_1_Test extends TestCase {
+
+	private static final int SCANS = 12;
+	private static final int IONS = 5;
+	//
+	private File fileIndexed;
+	private File fileNotIndexed;
+
+	@Override
+	protected void setUp() throws Exception {
+
+		super.setUp();
+		fileIndexed = File.createTempFile("Chromatogram1", ".mzXML");
+		fileNotIndexed = File.createTempFile("Chromatogram2", ".mzXML");
+		writeFile(fileIndexed, true);
+		writeFile(fileNotIndexed, false);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+
+		fileIndexed.delete();
+		fileNotIndexed.delete();
+		fileIndexed = null;
+		fileNotIndexed = null;
+		super.tearDown();
+	}
+
+	public void testRead_1() throws Exception {
+
+		IVendorChromatogram chromatogram = new ReaderVersion32().read(fileIndexed, 1);
+		assertEquals(SCANS, chromatogram.getNumberOfScans());
+		for(int i = 1; i <= SCANS; i++) {
+			IVendorScan scan = (IVendorScan)chromatogram.getScan(i);
+			assertEquals(getRetentionTime(i - 1), scan.getRetentionTime());
+			assertEquals(1, scan.getMassSpectrometer());
+			assertEquals(i, scan.getCycleNumber());
+			assertEquals(IONS, scan.getNumberOfIons());
+			List<IIon> ions = scan.getIons();
+			for(int j = 0; j < IONS; j++) {
+				assertEquals(getIon(j), ions.get(j).getIon());
+				assertEquals(getAbundance(i - 1, j), ions.get(j).getAbundance());
+			}
+		}
+	}
+
+	public void testRead_2() throws Exception {
+
+		/*
+		 * The range of 3 threads starts with a nested scan.
+		 */
+		assertEquals(new ReaderVersion32().read(fileIndexed, 1), new ReaderVersion32().read(fileIndexed, 3));
+	}
+
+	public void testRead_3() throws Exception {
+
+		assertEquals(new ReaderVersion32().read(fileIndexed, 1), new ReaderVersion32().read(fileIndexed, 5));
+	}
+
+	public void testRead_4() throws Exception {
+
+		assertEquals(new ReaderVersion32().read(fileIndexed, 1), new ReaderVersion32().read(fileIndexed, SCANS * 3));
+	}
+
+	public void testRead_5() throws Exception {
+
+		/*
+		 * Without scan index, the file is read sequentially.
+		 */
+		assertEquals(new ReaderVersion32().read(fileIndexed, 1), new ReaderVersion32().read(fileNotIndexed, 3));
+	}
+
+	public void testRead_6() throws Exception {
+
+		/*
+		 * MS level and cycle numbers are not evaluated by the reader mzXML 3.1
+		 */
+		IVendorChromatogram chromatogram = new ReaderVersion31().read(fileIndexed, 3);
+		assertEquals(SCANS, chromatogram.getNumberOfScans());
+		assertEquals(1, chromatogram.getScan(SCANS).getCycleNumber());
+	}
+
+	private void assertEquals(IVendorChromatogram expected, IVendorChromatogram actual) {
+
+		assertEquals(expected.getNumberOfScans(), actual.getNumberOfScans());
+		for(int i = 1; i <= expected.getNumberOfScans(); i++) {
+			IVendorScan expectedScan = (IVendorScan)expected.getScan(i);
+			IVendorScan actualScan = (IVendorScan)actual.getScan(i);
+			assertEquals(expectedScan.getRetentionTime(), actualScan.getRetentionTime());
+			assertEquals(expectedScan.getMassSpectrometer(), actualScan.getMassSpectrometer());
+			assertEquals(expectedScan.getCycleNumber(), actualScan.getCycleNumber());
+			assertEquals(expectedScan.getNumberOfIons(), actualScan.getNumberOfIons());
+			assertEquals(expectedScan.getTotalSignal(), actualScan.getTotalSignal());
+		}
+	}
+
+	private void writeFile(File file, boolean indexed) throws IOException {
+
+		StringBuilder builder = new StringBuilder();
+		List<Integer> offsets = new ArrayList<>();
+		builder.append("<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?>\n");
+		builder.append("<mzXML xmlns=\"http://sashimi.sourceforge.net/schema_revision/mzXML_3.2\">\n");
+		builder.append(" <msRun scanCount=\"" + (SCANS + SCANS / 3 * 2) + "\">\n");
+		int number = 1;
+		for(int i = 0; i < SCANS; i++) {
+			offsets.add(builder.length() + 2);
+			appendScanStart(builder, "  ", number++, 1, getRetentionTime(i));
+			appendPeaks(builder, i, i % 2 == 0);
+			if(i % 3 == 0) {
+				for(int j = 0; j < 2; j++) {
+					offsets.add(builder.length() + 3);
+					appendScanStart(builder, "   ", number++, 2, getRetentionTime(i) + j + 1);
+					appendPeaks(builder, i + j, false);
+					builder.append("   </scan>\n");
+				}
+			}
+			builder.append("  </scan>\n");
+		}
+		builder.append(" </msRun>\n");
+		if(indexed) {
+			int indexOffset = builder.length() + 1;
+			builder.append(" <index name=\"scan\">\n");
+			for(int i = 0; i < offsets.size(); i++) {
+				builder.append("  <offset id=\"" + (i + 1) + "\">" + offsets.get(i) + "</offset>\n");
+			}
+			builder.append(" </index>\n");
+			builder.append(" <indexOffset>" + indexOffset + "</indexOffset>\n");
+		}
+		builder.append("</mzXML>\n");
+		//
+		try (OutputStream outputStream = new FileOutputStream(file)) {
+			outputStream.write(builder.toString().getBytes(StandardCharsets.US_ASCII));
+		}
+	}
+
+	private void appendScanStart(StringBuilder builder, String indent, int number, int msLevel, int retentionTime) {
+
+		builder.append(indent + "<scan num=\"" + number + "\" msLevel=\"" + msLevel + "\" peaksCount=\"" + IONS + "\" retentionTime=\"PT" + (retentionTime / 1000.0d) + "S\">\n");
+	}
+
+	private void appendPeaks(StringBuilder builder, int scan, boolean zlib) throws IOException {
+
+		ByteBuffer byteBuffer = ByteBuffer.allocate(IONS * 8);
+		for(int j = 0; j < IONS; j++) {
+			byteBuffer.putFloat((float)getIon(j));
+			byteBuffer.putFloat(getAbundance(scan, j));
+		}
+		byte[] data = byteBuffer.array();
+		String compressionType = "none";
+		if(zlib) {
+			ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+			try (DeflaterOutputStream deflaterOutputStream = new DeflaterOutputStream(outputStream)) {
+				deflaterOutputStream.write(data);
+			}
+			data = outputStream.toByteArray();
+			compressionType = "zlib";
+		}
+		builder.append("    <peaks precision=\"32\" byteOrder=\"network\" contentType=\"m/z-int\" compressionType=\"" + compressionType + "\">");
+		builder.append(Base64.getEncoder().encodeToString(data));
+		builder.append("</peaks>\n");
+	}
+
+	private int getRetentionTime(int scan) {
+
+		return 1500 + scan * 500;
+	}
+
+	private double getIon(int ion) {
+
+		return 50.0d + ion * 10.0d;
+	}
+
+	private float getAbundance(int scan, int ion) {
+
+		return 1000.0f + scan * 100.0f + ion * 10.0f;
+	}
+}
@@ -0,0 +1,97 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Lablicate GmbH.
+ *
+ * All rights reserved.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Dr. Philip Wenig - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.chemclipse.msd.model.core;
+
+import org.eclipse.chemclipse.msd.model.implementation.Ion;
+
+import junit.framework.TestCase;
+
+public class ColumnarIonList_1_Test extends TestCase {
+
+	private ColumnarIonList ionList;
+
+	@Override
+	protected void setUp() throws Exception {
+
+		super.setUp();
+		ionList = new ColumnarIonList();
+		ionList.add(new Ion(50.0d, 1000.0f));
+		ionList.add(new Ion(20.0d, 500.0f));
+		ionList.add(new Ion(80.0d, 100.0f));
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+
+		ionList = null;
+		super.tearDown();
+	}
+
+	public void testSize_1() {
+
+		assertEquals(3, ionList.size());
+	}
+
+	public void testGetIon_1() {
+
+		assertEquals(20.0d, ionList.getIon(0));
+		assertEquals(50.0d, ionList.getIon(1));
+		assertEquals(80.0d, ionList.getIon(2));
+	}
+
+	public void testGetTotalSignal_1() {
+
+		assertEquals(1600.0f, ionList.getTotalSignal());
+	}
+
+	public void testSetAbundance_1() throws Exception {
+
+		IIon ion = ionList.get(1);
+		ion.setAbundance(200.0f);
+		assertEquals(200.0f, ionList.getAbundance(1));
+	}
+
+	public void testSetIon_1() throws Exception {
+
+		IIon ion = ionList.get(0);
+		ion.setIon(90.0d);
+		assertEquals(90.0d, ionList.getIon(2));
+		assertEquals(500.0f, ionList.getAbundance(2));
+		assertEquals(90.0d, ion.getIon());
+	}
+
+	public void testRemove_1() throws Exception {
+
+		IIon ion = ionList.get(2);
+		assertTrue(ionList.remove(ionList.get(0)));
+		assertEquals(2, ionList.size());
+		assertEquals(80.0d, ion.getIon());
+		assertTrue(ionList.remove(new Ion(80.0d, 100.0f)));
+		assertEquals(1, ionList.size());
+		assertEquals(100.0f, ion.getAbundance());
+	}
+
+	public void testAddAll_1() {
+
+		ionList.addAll(new double[]{20.0d, 30.0d}, new float[]{800.0f, 10.0f}, 2);
+		assertEquals(4, ionList.size());
+		assertEquals(800.0f, ionList.getAbundance(0));
+		assertEquals(30.0d, ionList.getIon(1));
+	}
+
+	public void testIndexOf_1() {
+
+		assertEquals(1, ionList.indexOf(50.0d, null));
+		assertEquals(-1, ionList.indexOf(51.0d, null));
+		assertEquals(2, ionList.getLowerBound(51.0d));
+	}
+}
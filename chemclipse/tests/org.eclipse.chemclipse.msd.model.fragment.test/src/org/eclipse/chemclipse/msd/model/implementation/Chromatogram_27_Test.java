@@ -0,0 +1,97 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Lablicate GmbH.
+ *
+ * All rights reserved.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Dr. Philip Wenig - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.chemclipse.msd.model.implementation;
+
+import org.eclipse.chemclipse.model.core.ChromatogramStatistics;
+import org.eclipse.chemclipse.msd.model.core.IChromatogramMSD;
+import org.eclipse.chemclipse.msd.model.core.IIon;
+import org.eclipse.chemclipse.msd.model.core.IScanMSD;
+
+import junit.framework.TestCase;
+
+/**
+ * The statistics of the chromatogram are recalculated if a scan is marked dirty after an in place modification.
+ */
+public class Chromatogram_27_Test extends TestCase {
+
+	private IChromatogramMSD chromatogram;
+	private IScanMSD scan;
+
+	@Override
+	protected void setUp() throws Exception {
+
+		super.setUp();
+		chromatogram = new ChromatogramMSD();
+		scan = new ScanMSD();
+		scan.setRetentionTime(1500);
+		scan.addIon(new Ion(50.0d, 100.0f));
+		chromatogram.addScan(scan);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+
+		chromatogram = null;
+		scan = null;
+		super.tearDown();
+	}
+
+	public void testGetStatistics_1() {
+
+		assertEquals(100.0f, chromatogram.getTotalSignal());
+		assertEquals(100.0f, chromatogram.getMaxSignal());
+	}
+
+	public void testGetStatistics_2() throws Exception {
+
+		assertEquals(100.0f, chromatogram.getTotalSignal());
+		IIon ion = scan.getIons().get(0);
+		ion.setAbundance(40.0f);
+		scan.setDirty(true);
+		assertEquals(40.0f, chromatogram.getTotalSignal());
+		assertEquals(40.0f, chromatogram.getMaxSignal());
+		assertEquals(40.0f, chromatogram.getMinSignal());
+	}
+
+	public void testGetStatistics_3() throws Exception {
+
+		/*
+		 * Creating a new ion is no modification of the chromatogram.
+		 */
+		ChromatogramStatistics statistics = chromatogram.getStatistics();
+		new Ion(50.0d, 200.0f).setAbundance(300.0f);
+		assertSame(statistics, chromatogram.getStatistics());
+	}
+
+	public void testGetStatistics_4() throws Exception {
+
+		/*
+		 * The modification of another chromatogram doesn't invalidate the statistics.
+		 */
+		ChromatogramStatistics statistics = chromatogram.getStatistics();
+		IChromatogramMSD other = new ChromatogramMSD();
+		IScanMSD otherScan = new ScanMSD();
+		otherScan.setRetentionTime(1500);
+		otherScan.addIon(new Ion(50.0d, 100.0f));
+		other.addScan(otherScan);
+		otherScan.getIons().get(0).setAbundance(40.0f);
+		otherScan.setDirty(true);
+		assertSame(statistics, chromatogram.getStatistics());
+		assertEquals(40.0f, other.getTotalSignal());
+	}
+
+	public void testGetStatistics_5() throws Exception {
+
+		scan.adjustIons(0.5f);
+		assertEquals(150.0f, chromatogram.getTotalSignal());
+	}
+}
@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Lablicate GmbH.
+ * 
+ * All rights reserved.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ * Dr. Philip Wenig - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.chemclipse.msd.model.implementation;
+
+import java.util.Arrays;
+
+import org.eclipse.chemclipse.model.core.IPeakIntensityValues;
+import org.eclipse.chemclipse.model.exceptions.PeakException;
+import org.eclipse.chemclipse.model.implementation.PeakIntensityValues;
+import org.eclipse.chemclipse.numeric.equations.LinearEquation;
+
+import junit.framework.TestCase;
+
+/**
+ * Test the peak intensity values.<br/>
+ * Values added in arbitrary order must be sorted by retention time.
+ */
+public class PeakIntensityValues_8_Test extends TestCase {
+
+	private PeakIntensityValues intensityValues;
+
+	@Override
+	protected void setUp() throws Exception {
+
+		super.setUp();
+		intensityValues = new PeakIntensityValues(IPeakIntensityValues.MAX_INTENSITY, 2);
+		intensityValues.addIntensityValue(3000, 100.0f);
+		intensityValues.addIntensityValue(1000, 10.0f);
+		intensityValues.addIntensityValue(5000, 20.0f);
+		intensityValues.addIntensityValue(2000, 40.0f);
+		intensityValues.addIntensityValue(4000, 60.0f);
+		intensityValues.addIntensityValue(2000, 50.0f);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+
+		intensityValues = null;
+		super.tearDown();
+	}
+
+	public void testSize_1() {
+
+		assertEquals(5, intensityValues.size());
+		assertEquals(Arrays.asList(1000, 2000, 3000, 4000, 5000), intensityValues.getRetentionTimes());
+	}
+
+	public void testGetIntensityValue_1() {
+
+		assertEquals(50.0f, intensityValues.getIntensityValue(2000).getValue());
+		assertEquals(2000, (int)intensityValues.getIntensityValue(2999).getKey());
+		assertNull(intensityValues.getIntensityValue(5001));
+	}
+
+	public void testGetHighestIntensityValue_1() {
+
+		assertEquals(3000, (int)intensityValues.getHighestIntensityValue().getKey());
+		intensityValues.addIntensityValue(2500, 100.0f);
+		assertEquals(2500, (int)intensityValues.getHighestIntensityValue().getKey());
+	}
+
+	public void testInflectionPointEquation_1() throws PeakException {
+
+		LinearEquation equation = intensityValues.calculateIncreasingInflectionPointEquation(1000.0f);
+		assertEquals(0.5d, equation.getA(), 0.0d);
+		assertSame(equation, intensityValues.calculateIncreasingInflectionPointEquation(1000.0f));
+		/*
+		 * The cached equation is renewed after a modification.
+		 */
+		intensityValues.addIntensityValue(2900, 100.0f);
+		assertNotSame(equation, intensityValues.calculateIncreasingInflectionPointEquation(1000.0f));
+	}
+
+	public void testReplaceRetentionTimes_1() {
+
+		intensityValues.replaceRetentionTimes(Arrays.asList(600, 500, 400, 300, 200));
+		assertEquals(200, intensityValues.getStartRetentionTime());
+		assertEquals(600, intensityValues.getStopRetentionTime());
+		assertEquals(10.0f, intensityValues.getIntensityValue(600).getValue());
+	}
+}
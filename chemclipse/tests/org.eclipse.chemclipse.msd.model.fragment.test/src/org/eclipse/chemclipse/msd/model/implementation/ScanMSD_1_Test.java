@@ -0,0 +1,111 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Lablicate GmbH.
+ *
+ * All rights reserved.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Dr. Philip Wenig - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.chemclipse.msd.model.implementation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.chemclipse.msd.model.core.IIon;
+import org.eclipse.chemclipse.msd.model.core.IScanMSD;
+
+import junit.framework.TestCase;
+
+public class ScanMSD_1_Test extends TestCase {
+
+	private IScanMSD massSpectrum;
+
+	@Override
+	protected void setUp() throws Exception {
+
+		super.setUp();
+		massSpectrum = new ScanMSD();
+		massSpectrum.addIon(new Ion(55.0d, 200.0f));
+		massSpectrum.addIon(new Ion(18.0d, 1000.0f));
+		massSpectrum.addIon(new Ion(43.2d, 500.0f));
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+
+		massSpectrum = null;
+		super.tearDown();
+	}
+
+	public void testGetIons_1() {
+
+		List<IIon> ions = massSpectrum.getIons();
+		/*
+		 * The ions are returned in the order they have been added.
+		 */
+		assertEquals(3, ions.size());
+		assertEquals(55.0d, ions.get(0).getIon());
+		assertEquals(18.0d, ions.get(1).getIon());
+		assertEquals(43.2d, ions.get(2).getIon());
+	}
+
+	public void testAddIon_1() throws Exception {
+
+		massSpectrum.addIon(true, new Ion(43.2d, 100.0f));
+		assertEquals(3, massSpectrum.getNumberOfIons());
+		assertEquals(600.0f, massSpectrum.getIon(43.2d).getAbundance());
+	}
+
+	public void testAddIon_2() throws Exception {
+
+		massSpectrum.addIon(false, new Ion(43.2d, 100.0f));
+		assertEquals(500.0f, massSpectrum.getIon(43.2d).getAbundance());
+		massSpectrum.addIon(false, new Ion(43.2d, 700.0f));
+		assertEquals(700.0f, massSpectrum.getIon(43.2d).getAbundance());
+	}
+
+	public void testAddIons_1() throws Exception {
+
+		List<IIon> ions = new ArrayList<>();
+		ions.add(new Ion(60.0d, 10.0f));
+		ions.add(new Ion(18.0d, 10.0f));
+		ions.add(new Ion(20.0d, 10.0f));
+		ions.add(new Ion(60.0d, 5.0f));
+		massSpectrum.addIons(ions, true);
+		assertEquals(5, massSpectrum.getNumberOfIons());
+		assertEquals(1010.0f, massSpectrum.getIon(18.0d).getAbundance());
+		assertEquals(15.0f, massSpectrum.getIon(60.0d).getAbundance());
+		assertEquals(60.0d, massSpectrum.getIons().get(3).getIon());
+		assertEquals(20.0d, massSpectrum.getIons().get(4).getIon());
+	}
+
+	public void testAddIons_2() throws Exception {
+
+		/*
+		 * The higher abundance is kept.
+		 */
+		massSpectrum.addIons(new double[]{60.0d, 18.0d, 55.0d, 60.0d}, new float[]{10.0f, 10.0f, 300.0f, 5.0f}, 4);
+		assertEquals(4, massSpectrum.getNumberOfIons());
+		assertEquals(1000.0f, massSpectrum.getIon(18.0d).getAbundance());
+		assertEquals(300.0f, massSpectrum.getIon(55.0d).getAbundance());
+		assertEquals(10.0f, massSpectrum.getIon(60.0d).getAbundance());
+		assertEquals(60.0d, massSpectrum.getIons().get(3).getIon());
+	}
+
+	public void testGetIon_1() throws Exception {
+
+		assertEquals(500.0f, massSpectrum.getIon(43).getAbundance());
+		assertNull(massSpectrum.getIon(44));
+		assertEquals(43.2d, massSpectrum.getIon(43.18d, 1).getIon());
+		assertEquals(0.0f, massSpectrum.getIon(43.0d).getAbundance());
+	}
+
+	public void testGetIonBounds_1() {
+
+		assertEquals(18.0d, massSpectrum.getIonBounds().getLowestIon().getIon());
+		assertEquals(55.0d, massSpectrum.getIonBounds().getHighestIon().getIon());
+	}
+}
@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Lablicate GmbH.
+ *
+ * All rights reserved.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Dr. Philip Wenig - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.chemclipse.msd.model.matrix;
+
+import org.eclipse.chemclipse.msd.model.core.IChromatogramMSD;
+import org.eclipse.chemclipse.msd.model.core.IVendorMassSpectrum;
+import org.eclipse.chemclipse.msd.model.core.selection.ChromatogramSelectionMSD;
+import org.eclipse.chemclipse.msd.model.implementation.ChromatogramMSD;
+import org.eclipse.chemclipse.msd.model.implementation.ScanIon;
+import org.eclipse.chemclipse.msd.model.implementation.VendorMassSpectrum;
+
+import junit.framework.TestCase;
+
+/**
+ * High resolution data, 20 ions per nominal m/z.
+ */
+public class ExtractedMatrix_3_Test extends TestCase {
+
+	private IChromatogramMSD chromatogram;
+	private ExtractedMatrix extractedMatrix;
+
+	@Override
+	protected void setUp() throws Exception {
+
+		super.setUp();
+		chromatogram = new ChromatogramMSD();
+		for(int scan = 1; scan <= 10; scan++) {
+			IVendorMassSpectrum massSpectrum = new VendorMassSpectrum();
+			massSpectrum.setRetentionTime(scan * 1000);
+			for(int i = 0; i < 40; i++) {
+				massSpectrum.addIon(new ScanIon(100.0d + i * 0.05d, scan * 10.0f));
+			}
+			chromatogram.addScan(massSpectrum);
+		}
+		extractedMatrix = new ExtractedMatrix(new ChromatogramSelectionMSD(chromatogram));
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+
+		chromatogram = null;
+		extractedMatrix = null;
+		super.tearDown();
+	}
+
+	public void testConstructor_1() {
+
+		assertEquals(ExtractedMatrix.HIGH_RESOLUTION_BIN_WIDTH, extractedMatrix.getBinWidth());
+		assertEquals(10, extractedMatrix.getNumberOfScans());
+		assertEquals(40, extractedMatrix.getNumberOfColumns());
+		assertEquals(100.05d, extractedMatrix.getIon(1), 1.0E-6);
+		assertEquals(30.0f, extractedMatrix.getColumn(1)[2]);
+	}
+
+	public void testConstructor_2() throws Exception {
+
+		ExtractedMatrix nominalMatrix = new ExtractedMatrix(new ChromatogramSelectionMSD(chromatogram), ExtractedMatrix.NOMINAL_BIN_WIDTH);
+		assertEquals(3, nominalMatrix.getNumberOfColumns());
+		assertEquals(100.0d, nominalMatrix.getIon(0));
+		assertEquals(100.0f, nominalMatrix.getColumn(0)[0]);
+	}
+
+	public void testUpdateSignal_1() throws Exception {
+
+		extractedMatrix.filterColumns(values -> {
+			for(int i = 0; i < values.length; i++) {
+				values[i] *= 2.0d;
+			}
+			return values;
+		});
+		extractedMatrix.updateSignal();
+		IVendorMassSpectrum massSpectrum = chromatogram.getSupplierScan(3);
+		assertEquals(40, massSpectrum.getNumberOfIons());
+		assertEquals(100.05d, massSpectrum.getIons().get(1).getIon(), 1.0E-6);
+		assertEquals(60.0f, massSpectrum.getIons().get(1).getAbundance());
+	}
+
+	public void testUpdateSignal_2() throws Exception {
+
+		extractedMatrix.setColumn(0, new float[extractedMatrix.getNumberOfScans()]);
+		extractedMatrix.updateSignal();
+		assertEquals(39, chromatogram.getSupplierScan(5).getNumberOfIons());
+		assertEquals(100.05d, chromatogram.getSupplierScan(5).getIons().get(0).getIon(), 1.0E-6);
+	}
+}
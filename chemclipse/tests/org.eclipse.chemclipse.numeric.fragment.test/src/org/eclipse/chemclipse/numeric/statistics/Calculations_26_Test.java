@@ -0,0 +1,65 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Lablicate GmbH.
+ * 
+ * All rights reserved.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ * Philip Wenig - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.chemclipse.numeric.statistics;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+public class Calculations_26_Test extends TestCase {
+
+	private double[] values;
+
+	@Override
+	protected void setUp() throws Exception {
+
+		super.setUp();
+		Random random = new Random(1);
+		values = new double[1001];
+		for(int i = 0; i < values.length; i++) {
+			values[i] = random.nextInt(100);
+		}
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+
+		values = null;
+		super.tearDown();
+	}
+
+	public void testGetMedianInPlace_1() {
+
+		double median = Calculations.getMedian(values);
+		assertEquals(median, Calculations.getMedianInPlace(Arrays.copyOf(values, values.length), values.length));
+	}
+
+	public void testGetMedianInPlace_2() {
+
+		double[] even = Arrays.copyOf(values, 1000);
+		double median = Calculations.getMedian(even);
+		assertEquals(median, Calculations.getMedianInPlace(Arrays.copyOf(values, values.length), 1000));
+	}
+
+	public void testGetMedianInPlace_3() {
+
+		assertEquals(0.0d, Calculations.getMedianInPlace(new double[]{5.0d, 7.0d}, 2));
+		assertEquals(6.0d, Calculations.getMedianInPlace(new double[]{7.0d, 5.0d, 6.0d}, 3));
+	}
+
+	public void testGetMedianDeviationFromMedianInPlace_1() {
+
+		double deviation = Calculations.getMedianDeviationFromMedian(values);
+		assertEquals(deviation, Calculations.getMedianDeviationFromMedianInPlace(Arrays.copyOf(values, values.length), values.length));
+	}
+}
@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Lablicate GmbH.
+ *
+ * All rights reserved.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Philip Wenig - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.chemclipse.numeric.statistics;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+public class Calculations_27_Test extends TestCase {
+
+	private double[] values;
+
+	@Override
+	protected void setUp() throws Exception {
+
+		super.setUp();
+		values = new double[]{7.0d, 1.0d, 5.0d, 3.0d, 9.0d, 2.0d};
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+
+		values = null;
+		super.tearDown();
+	}
+
+	public void testGetPercentile_1() {
+
+		assertEquals(1.0d, Calculations.getPercentile(values, 0.0d));
+		assertEquals(9.0d, Calculations.getPercentile(values, 100.0d));
+		assertEquals(4.0d, Calculations.getPercentile(values, 50.0d));
+		assertEquals(Calculations.getMedian(values), Calculations.getPercentile(values, 50.0d));
+	}
+
+	public void testGetPercentile_2() {
+
+		/*
+		 * Position (6 - 1) * 0.25 = 1.25 between 2 and 3.
+		 */
+		assertEquals(2.25d, Calculations.getPercentile(values, 25.0d));
+		assertEquals(7.0d, values[0]);
+	}
+
+	public void testGetPercentile_3() {
+
+		assertEquals(0.0d, Calculations.getPercentile(new double[0], 50.0d));
+		assertEquals(3.0d, Calculations.getPercentile(new double[]{3.0d}, 90.0d));
+		assertEquals(4.0d, Calculations.getPercentile(new double[]{5.0d, 3.0d}, 50.0d));
+	}
+
+	public void testGetPercentile_4() {
+
+		try {
+			Calculations.getPercentile(values, 101.0d);
+			fail();
+		} catch(IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	public void testGetRollingMedian_1() {
+
+		double[] medians = Calculations.getRollingMedian(values, 3);
+		assertEquals(values.length, medians.length);
+		assertEquals(4.0d, medians[0]);
+		assertEquals(5.0d, medians[1]);
+		assertEquals(3.0d, medians[2]);
+		assertEquals(5.0d, medians[3]);
+		assertEquals(3.0d, medians[4]);
+		assertEquals(5.5d, medians[5]);
+		assertEquals(7.0d, values[0]);
+	}
+
+	public void testGetRollingMedian_2() {
+
+		double[] medians = Calculations.getRollingMedian(values, 1);
+		assertTrue(Arrays.equals(values, medians));
+		assertEquals(0, Calculations.getRollingMedian(new double[0], 5).length);
+	}
+
+	public void testGetRollingMedianDeviation_1() {
+
+		double[] deviations = Calculations.getRollingMedianDeviation(values, 3);
+		assertEquals(3.0d, deviations[0]);
+		assertEquals(2.0d, deviations[1]);
+		assertEquals(2.0d, deviations[2]);
+		assertEquals(2.0d, deviations[3]);
+		assertEquals(1.0d, deviations[4]);
+		assertEquals(3.5d, deviations[5]);
+	}
+
+	public void testGetRollingMedianDeviation_2() {
+
+		double[] deviations = Calculations.getRollingMedianDeviation(values, values.length * 2 + 1);
+		assertEquals(Calculations.getMedianDeviationFromMedian(values), deviations[0]);
+	}
+}
@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Lablicate GmbH.
+ *
+ * All rights reserved.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Philip Wenig - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.chemclipse.numeric.statistics;
+
+import junit.framework.TestCase;
+
+public class RunningStatistics_1_Test extends TestCase {
+
+	private double[] values;
+	private RunningStatistics statistics;
+
+	@Override
+	protected void setUp() throws Exception {
+
+		super.setUp();
+		values = new double[]{2.0d, 4.0d, 4.0d, 4.0d, 5.0d, 5.0d, 7.0d, 9.0d};
+		statistics = new RunningStatistics();
+		statistics.add(values);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+
+		values = null;
+		statistics = null;
+		super.tearDown();
+	}
+
+	public void testStatistics_1() {
+
+		assertEquals(8, statistics.getCount());
+		assertEquals(40.0d, statistics.getSum());
+		assertEquals(Calculations.getMean(values), statistics.getMean());
+		assertEquals(2.0d, statistics.getMin());
+		assertEquals(9.0d, statistics.getMax());
+	}
+
+	public void testStatistics_2() {
+
+		assertEquals(Calculations.getVariance(values), statistics.getVariance(), 1.0E-12);
+		assertEquals(Calculations.getStandardDeviation(values), statistics.getStandardDeviation(), 1.0E-12);
+	}
+
+	public void testStatistics_3() {
+
+		RunningStatistics first = new RunningStatistics();
+		RunningStatistics second = new RunningStatistics();
+		for(int i = 0; i < values.length; i++) {
+			if(i < 3) {
+				first.add(values[i]);
+			} else {
+				second.add(values[i]);
+			}
+		}
+		first.add(second);
+		assertEquals(statistics.getCount(), first.getCount());
+		assertEquals(statistics.getMean(), first.getMean());
+		assertEquals(statistics.getVariance(), first.getVariance(), 1.0E-12);
+		assertEquals(statistics.getMin(), first.getMin());
+		assertEquals(statistics.getMax(), first.getMax());
+	}
+
+	public void testStatistics_4() {
+
+		statistics.reset();
+		assertEquals(0, statistics.getCount());
+		assertEquals(0.0d, statistics.getMean());
+		assertEquals(0.0d, statistics.getVariance());
+		assertEquals(0.0d, statistics.getMin());
+		assertEquals(0.0d, statistics.getMax());
+		statistics.add(3.0d);
+		assertEquals(3.0d, statistics.getMean());
+		assertEquals(0.0d, statistics.getVariance());
+	}
+}
@@ -0,0 +1,137 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Lablicate GmbH.
+ *
+ * All rights reserved.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Dr. Philip Wenig - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.chemclipse.xxd.converter.supplier.chemclipse.io;
+
+import java.io.File;
+
+import org.eclipse.chemclipse.msd.converter.supplier.chemclipse.internal.io.ChromatogramReader_1302;
+import org.eclipse.chemclipse.msd.converter.supplier.chemclipse.internal.io.ChromatogramWriter_1302;
+import org.eclipse.chemclipse.msd.converter.supplier.chemclipse.model.chromatogram.IVendorScan;
+import org.eclipse.chemclipse.msd.converter.supplier.chemclipse.model.chromatogram.VendorChromatogram;
+import org.eclipse.chemclipse.msd.converter.supplier.chemclipse.model.chromatogram.VendorIon;
+import org.eclipse.chemclipse.msd.converter.supplier.chemclipse.model.chromatogram.VendorScan;
+import org.eclipse.chemclipse.msd.converter.supplier.chemclipse.model.chromatogram.VendorScanProxy;
+import org.eclipse.chemclipse.msd.model.core.IChromatogramMSD;
+import org.eclipse.chemclipse.msd.model.core.IIon;
+import org.eclipse.chemclipse.msd.model.core.IScanMSD;
+import org.eclipse.chemclipse.xxd.converter.supplier.chemclipse.preferences.PreferenceSupplier;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.preferences.IEclipsePreferences;
+
+import junit.framework.TestCase;
+
+/**
+ * Writes a chromatogram in the format 1.3.0.2 and reads it again via the mapped scan proxies.
+ */
+public class ChromatogramWriter_1_MSD_1302_ITest extends TestCase {
+
+	private static final int SCANS = 50;
+	private static final int IONS = 20;
+	//
+	private IEclipsePreferences preferences;
+	private boolean useScanProxies;
+	private VendorChromatogram chromatogram;
+	private File file;
+
+	@Override
+	protected void setUp() throws Exception {
+
+		super.setUp();
+		preferences = PreferenceSupplier.INSTANCE().getPreferences();
+		useScanProxies = preferences.getBoolean(PreferenceSupplier.P_USE_SCAN_PROXIES, PreferenceSupplier.DEF_USE_SCAN_PROXIES);
+		preferences.putBoolean(PreferenceSupplier.P_USE_SCAN_PROXIES, true);
+		//
+		chromatogram = new VendorChromatogram();
+		chromatogram.setScanDelay(1500);
+		chromatogram.setScanInterval(500);
+		for(int i = 0; i < SCANS; i++) {
+			IVendorScan scan = new VendorScan();
+			scan.setRetentionTime(1500 + i * 500);
+			for(int j = 0; j < IONS; j++) {
+				scan.addIon(new VendorIon(40.0d + j, getAbundance(i, j)));
+			}
+			chromatogram.addScan(scan);
+		}
+		//
+		file = File.createTempFile("Chromatogram1-1302", ".ocb");
+		new ChromatogramWriter_1302().writeChromatogram(file, chromatogram, new NullProgressMonitor());
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+
+		preferences.putBoolean(PreferenceSupplier.P_USE_SCAN_PROXIES, useScanProxies);
+		preferences = null;
+		chromatogram = null;
+		file.delete();
+		file = null;
+		super.tearDown();
+	}
+
+	public void testRoundTrip_1() throws Exception {
+
+		IChromatogramMSD chromatogramRead = new ChromatogramReader_1302().read(file, new NullProgressMonitor());
+		assertNotNull(chromatogramRead);
+		assertEquals(SCANS, chromatogramRead.getNumberOfScans());
+		assertEquals(SCANS * IONS, chromatogramRead.getNumberOfScanIons());
+		assertTrue(chromatogramRead.getSupplierScan(1) instanceof VendorScanProxy);
+	}
+
+	public void testRoundTrip_2() throws Exception {
+
+		IChromatogramMSD chromatogramRead = new ChromatogramReader_1302().read(file, new NullProgressMonitor());
+		for(int i = 1; i <= SCANS; i++) {
+			IScanMSD scan = chromatogram.getSupplierScan(i);
+			IScanMSD scanRead = chromatogramRead.getSupplierScan(i);
+			scanRead.enforceLoadScanProxy();
+			assertEquals(scan.getRetentionTime(), scanRead.getRetentionTime());
+			assertEquals(IONS, scanRead.getNumberOfIons());
+			for(int j = 0; j < IONS; j++) {
+				IIon ion = scanRead.getIons().get(j);
+				assertEquals(40.0d + j, ion.getIon());
+				assertEquals(getAbundance(i - 1, j), ion.getAbundance());
+			}
+		}
+	}
+
+	public void testRoundTrip_3() throws Exception {
+
+		/*
+		 * Loading all proxies releases the mapped scan block,
+		 * hence the file can be written again.
+		 */
+		IChromatogramMSD chromatogramRead = new ChromatogramReader_1302().read(file, new NullProgressMonitor());
+		chromatogramRead.enforceLoadScanProxies(new NullProgressMonitor());
+		new ChromatogramWriter_1302().writeChromatogram(file, chromatogramRead, new NullProgressMonitor());
+		//
+		IChromatogramMSD chromatogramReread = new ChromatogramReader_1302().read(file, new NullProgressMonitor());
+		assertEquals(SCANS, chromatogramReread.getNumberOfScans());
+		assertEquals(chromatogram.getTotalSignal(), chromatogramReread.getTotalSignal());
+	}
+
+	public void testRoundTrip_4() throws Exception {
+
+		/*
+		 * Unloading the chromatogram releases the mapped scan block.
+		 */
+		IChromatogramMSD chromatogramRead = new ChromatogramReader_1302().read(file, new NullProgressMonitor());
+		chromatogramRead.getSupplierScan(1).enforceLoadScanProxy();
+		chromatogramRead.setUnloaded();
+		assertTrue(file.delete());
+		assertFalse(file.exists());
+	}
+
+	private float getAbundance(int scan, int ion) {
+
+		return 1000.0f + scan * 100.0f + ion;
+	}
+}
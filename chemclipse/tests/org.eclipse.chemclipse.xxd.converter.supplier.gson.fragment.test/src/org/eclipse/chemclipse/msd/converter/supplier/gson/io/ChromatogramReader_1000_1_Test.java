@@ -0,0 +1,203 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Lablicate GmbH.
+ *
+ * All rights reserved.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Dr. Philip Wenig - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.chemclipse.msd.converter.supplier.gson.io;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.eclipse.chemclipse.model.core.IChromatogramOverview;
+import org.eclipse.chemclipse.model.core.IPeakIntensityValues;
+import org.eclipse.chemclipse.model.identifier.ComparisonResult;
+import org.eclipse.chemclipse.model.identifier.IIdentificationTarget;
+import org.eclipse.chemclipse.model.identifier.ILibraryInformation;
+import org.eclipse.chemclipse.model.identifier.LibraryInformation;
+import org.eclipse.chemclipse.model.implementation.IdentificationTarget;
+import org.eclipse.chemclipse.model.implementation.IntegrationEntry;
+import org.eclipse.chemclipse.model.implementation.PeakIntensityValues;
+import org.eclipse.chemclipse.msd.model.core.IChromatogramMSD;
+import org.eclipse.chemclipse.msd.model.core.IChromatogramPeakMSD;
+import org.eclipse.chemclipse.msd.model.core.IIon;
+import org.eclipse.chemclipse.msd.model.core.IPeakMassSpectrum;
+import org.eclipse.chemclipse.msd.model.core.IScanMSD;
+import org.eclipse.chemclipse.msd.model.implementation.ChromatogramMSD;
+import org.eclipse.chemclipse.msd.model.implementation.ChromatogramPeakMSD;
+import org.eclipse.chemclipse.msd.model.implementation.Ion;
+import org.eclipse.chemclipse.msd.model.implementation.PeakMassSpectrum;
+import org.eclipse.chemclipse.msd.model.implementation.PeakModelMSD;
+import org.eclipse.chemclipse.msd.model.implementation.ScanMSD;
+import org.eclipse.core.runtime.NullProgressMonitor;
+
+import junit.framework.TestCase;
+
+/**
+ * Writes a chromatogram with an identified scan and an identified peak
+ * plain and gzip compressed and reads it again.
+ */
+public class ChromatogramReader_1000_1_Test extends TestCase {
+
+	private static final int SCANS = 20;
+	private static final int IONS = 5;
+	private static final int IDENTIFIED_SCAN = 5;
+	private static final double INTEGRATED_AREA = 12345.5d;
+	//
+	private IChromatogramMSD chromatogram;
+	private File file;
+	private File fileCompressed;
+
+	@Override
+	protected void setUp() throws Exception {
+
+		super.setUp();
+		chromatogram = new ChromatogramMSD();
+		for(int i = 0; i < SCANS; i++) {
+			IScanMSD scan = new ScanMSD();
+			scan.setRetentionTime(getRetentionTime(i));
+			for(int j = 0; j < IONS; j++) {
+				scan.addIon(new Ion(getIon(j), getAbundance(i, j)));
+			}
+			chromatogram.addScan(scan);
+		}
+		chromatogram.getScan(IDENTIFIED_SCAN).getTargets().add(createTarget("Scan Target", 85.0f));
+		chromatogram.addPeak(createPeak());
+		//
+		file = File.createTempFile("Chromatogram1", ".json");
+		fileCompressed = File.createTempFile("Chromatogram2", ".json.gz");
+		new ChromatogramWriter_1000().writeChromatogram(file, chromatogram, new NullProgressMonitor());
+		new ChromatogramWriter_1000(true).writeChromatogram(fileCompressed, chromatogram, new NullProgressMonitor());
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+
+		file.delete();
+		fileCompressed.delete();
+		file = null;
+		fileCompressed = null;
+		chromatogram = null;
+		super.tearDown();
+	}
+
+	public void testRead_1() throws Exception {
+
+		IChromatogramMSD chromatogramRead = new ChromatogramReader_1000().read(file, new NullProgressMonitor());
+		assertEquals(SCANS, chromatogramRead.getNumberOfScans());
+		assertEquals(SCANS * IONS, chromatogramRead.getNumberOfScanIons());
+		for(int i = 1; i <= SCANS; i++) {
+			IScanMSD scan = (IScanMSD)chromatogramRead.getScan(i);
+			assertEquals(getRetentionTime(i - 1), scan.getRetentionTime());
+			List<IIon> ions = scan.getIons();
+			assertEquals(IONS, ions.size());
+			for(int j = 0; j < IONS; j++) {
+				assertEquals(getIon(j), ions.get(j).getIon());
+				assertEquals(getAbundance(i - 1, j), ions.get(j).getAbundance());
+			}
+		}
+		assertEquals(chromatogram.getTotalSignal(), chromatogramRead.getTotalSignal());
+	}
+
+	public void testRead_2() throws Exception {
+
+		IChromatogramMSD chromatogramRead = new ChromatogramReader_1000().read(file, new NullProgressMonitor());
+		for(int i = 1; i <= SCANS; i++) {
+			int targets = chromatogramRead.getScan(i).getTargets().size();
+			assertEquals((i == IDENTIFIED_SCAN) ? 1 : 0, targets);
+		}
+		IIdentificationTarget target = chromatogramRead.getScan(IDENTIFIED_SCAN).getTargets().iterator().next();
+		assertEquals("Scan Target", target.getLibraryInformation().getName());
+		assertEquals(85.0f, target.getComparisonResult().getMatchFactor());
+	}
+
+	public void testRead_3() throws Exception {
+
+		IChromatogramMSD chromatogramRead = new ChromatogramReader_1000().read(file, new NullProgressMonitor());
+		assertEquals(1, chromatogramRead.getNumberOfPeaks());
+		IChromatogramPeakMSD peak = chromatogram.getPeaks().get(0);
+		IChromatogramPeakMSD peakRead = chromatogramRead.getPeaks().get(0);
+		assertEquals(peak.getPeakModel().getStartRetentionTime(), peakRead.getPeakModel().getStartRetentionTime());
+		assertEquals(peak.getPeakModel().getStopRetentionTime(), peakRead.getPeakModel().getStopRetentionTime());
+		assertEquals(peak.getPeakModel().getRetentionTimeAtPeakMaximum(), peakRead.getPeakModel().getRetentionTimeAtPeakMaximum());
+		assertEquals(INTEGRATED_AREA, peakRead.getIntegratedArea());
+		assertEquals(1, peakRead.getTargets().size());
+		assertEquals("Peak Target", peakRead.getTargets().iterator().next().getLibraryInformation().getName());
+	}
+
+	public void testRead_4() throws Exception {
+
+		try (DataInputStream inputStream = new DataInputStream(new FileInputStream(fileCompressed))) {
+			assertEquals(GZIPInputStream.GZIP_MAGIC, Short.reverseBytes(inputStream.readShort()) & 0xffff);
+		}
+		assertTrue(ChromatogramReader_1000.isValidFileFormat(file));
+		assertTrue(ChromatogramReader_1000.isValidFileFormat(fileCompressed));
+	}
+
+	public void testRead_5() throws Exception {
+
+		IChromatogramMSD chromatogramRead = new ChromatogramReader_1000().read(file, new NullProgressMonitor());
+		IChromatogramMSD chromatogramCompressed = new ChromatogramReader_1000().read(fileCompressed, new NullProgressMonitor());
+		assertEquals(chromatogramRead.getNumberOfScans(), chromatogramCompressed.getNumberOfScans());
+		assertEquals(chromatogramRead.getNumberOfScanIons(), chromatogramCompressed.getNumberOfScanIons());
+		assertEquals(chromatogramRead.getTotalSignal(), chromatogramCompressed.getTotalSignal());
+		assertEquals(chromatogramRead.getNumberOfPeaks(), chromatogramCompressed.getNumberOfPeaks());
+	}
+
+	public void testRead_6() throws Exception {
+
+		/*
+		 * The overview contains the total signals only.
+		 */
+		IChromatogramOverview overview = new ChromatogramReader_1000().readOverview(fileCompressed, new NullProgressMonitor());
+		assertEquals(SCANS, overview.getNumberOfScans());
+		assertEquals(chromatogram.getTotalSignal(), overview.getTotalSignal());
+	}
+
+	private IChromatogramPeakMSD createPeak() throws Exception {
+
+		int start = 8;
+		int stop = 14;
+		IPeakMassSpectrum peakMaximum = new PeakMassSpectrum((IScanMSD)chromatogram.getScan(11));
+		IPeakIntensityValues peakIntensityValues = new PeakIntensityValues(Float.MAX_VALUE);
+		for(int i = start; i <= stop; i++) {
+			peakIntensityValues.addIntensityValue(getRetentionTime(i - 1), 1000.0f - 100.0f * Math.abs(11 - i));
+		}
+		peakIntensityValues.normalize();
+		IChromatogramPeakMSD peak = new ChromatogramPeakMSD(new PeakModelMSD(peakMaximum, peakIntensityValues, 0.0f, 0.0f), chromatogram);
+		peak.setIntegratedArea(Collections.singletonList(new IntegrationEntry(INTEGRATED_AREA)), "Test Integrator");
+		peak.getTargets().add(createTarget("Peak Target", 90.0f));
+		return peak;
+	}
+
+	private IIdentificationTarget createTarget(String name, float matchFactor) {
+
+		ILibraryInformation libraryInformation = new LibraryInformation();
+		libraryInformation.setName(name);
+		return new IdentificationTarget(libraryInformation, new ComparisonResult(matchFactor, matchFactor, matchFactor, matchFactor, 100.0f));
+	}
+
+	private int getRetentionTime(int scan) {
+
+		return 1500 + scan * 500;
+	}
+
+	private double getIon(int ion) {
+
+		return 40.0d + ion * 10.0d;
+	}
+
+	private float getAbundance(int scan, int ion) {
+
+		return 1000.0f + scan * 100.0f + ion;
+	}
+}